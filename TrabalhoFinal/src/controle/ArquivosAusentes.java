@@ -0,0 +1,71 @@
+package controle;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Midia;
+
+/**
+ * **Mídias com o Arquivo Físico Ausente.**
+ *
+ * <p>{@link OuvinteCatalogo} que acumula as mídias notificadas como {@code arquivoAusente} pelo
+ * {@link SincronizadorArquivos} (arquivos apagados fora da aplicação) e pelo
+ * {@link VerificadorArquivos} (passadas periódicas), para que a interface possa marcá-las.</p>
+ *
+ * <p>A marca sai quando o registro é removido ou quando a mídia é salva de novo com um arquivo
+ * que existe (ex.: depois de mover ou restaurar o arquivo). É <b>thread-safe</b>.</p>
+ *
+ * @see OuvinteCatalogo#arquivoAusente(Midia)
+ */
+public class ArquivosAusentes implements OuvinteCatalogo {
+    private final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void arquivoAusente(Midia m) {
+        ids.add(m.getId());
+    }
+
+    @Override
+    public void midiaSalva(Midia m) {
+        if (ids.contains(m.getId()) && existe(m.getLocal())) ids.remove(m.getId());
+    }
+
+    @Override
+    public void midiaRemovida(int id) {
+        ids.remove(id);
+    }
+
+    /**
+     * @param id O ID de uma mídia.
+     * @return {@code true} se o arquivo físico da mídia foi dado como ausente.
+     */
+    public boolean isAusente(int id) {
+        return ids.contains(id);
+    }
+
+    /**
+     * @return Quantas mídias estão com o arquivo físico ausente.
+     */
+    public int getTotal() {
+        return ids.size();
+    }
+
+    /**
+     * @return Os IDs das mídias com o arquivo físico ausente, em ordem crescente.
+     */
+    public List<Integer> getIds() {
+        List<Integer> lista = new ArrayList<>(ids);
+        Collections.sort(lista);
+        return lista;
+    }
+
+    private static boolean existe(String local) {
+        if (local == null || local.isEmpty()) return false;
+        try {
+            return Files.exists(Paths.get(local));
+        } catch (InvalidPathException ex) {
+            return false;
+        }
+    }
+}
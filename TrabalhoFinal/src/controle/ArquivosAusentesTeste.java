@@ -0,0 +1,69 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class ArquivosAusentesTeste {
+
+    private Path tempDir;
+    private MidiaControle controle;
+    private ArquivosAusentes ausentes;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("ausentes");
+        controle = new MidiaControle(new FileMidiaDAO(tempDir.resolve("data")));
+        ausentes = new ArquivosAusentes();
+        controle.adicionarOuvinte(ausentes);
+    }
+
+    @Test
+    void testApagadoForaDaAplicacaoFicaMarcado() throws Exception {
+        Path arquivo = tempDir.resolve("a.mp3");
+        Files.write(arquivo, "abc".getBytes());
+        Musica m = new Musica(1, arquivo.toString(), 3, "A", 60, "Rock", "Banda");
+        controle.incluirMedia(m);
+
+        try (SincronizadorArquivos sincronizador = new SincronizadorArquivos(controle,
+                new FileMidiaDAO(tempDir.resolve("data")), 50, 500)) {
+            sincronizador.iniciar();
+            Files.delete(arquivo);
+
+            long limite = System.currentTimeMillis() + 5000;
+            while (!ausentes.isAusente(1) && System.currentTimeMillis() < limite) Thread.sleep(20);
+        }
+        assertTrue(ausentes.isAusente(1));
+        assertEquals(1, ausentes.getTotal());
+        // o registro continua no catálogo
+        assertTrue(controle.buscarPorId(1).isPresent());
+    }
+
+    @Test
+    void testMarcaSaiQuandoOArquivoVoltaOuORegistroSai() throws Exception {
+        Path arquivo = tempDir.resolve("b.mp3");
+        Musica b = new Musica(2, arquivo.toString(), 3, "B", 60, "Rock", "Banda");
+        Musica c = new Musica(3, tempDir.resolve("c.mp3").toString(), 3, "C", 60, "Rock", "Banda");
+        controle.incluirMedia(b);
+        controle.incluirMedia(c);
+        controle.notificarArquivoAusente(b);
+        controle.notificarArquivoAusente(c);
+        assertEquals(List.of(2, 3), ausentes.getIds());
+
+        // salvar sem o arquivo não tira a marca
+        controle.atualizarMidia(b);
+        assertTrue(ausentes.isAusente(2));
+
+        Files.write(arquivo, "abc".getBytes());
+        controle.atualizarMidia(b);
+        assertFalse(ausentes.isAusente(2));
+
+        controle.removerRegistro(3);
+        assertEquals(0, ausentes.getTotal());
+    }
+}
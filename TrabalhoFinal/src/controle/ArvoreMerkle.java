@@ -0,0 +1,195 @@
+package controle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import dao.CodecBinario;
+import dao.MapaIntLong;
+import dao.MidiaDAO;
+import model.Midia;
+
+/**
+ * **Árvore de Merkle sobre o Catálogo.**
+ *
+ * <p>Resume o conteúdo do catálogo em uma árvore de hashes, para que dois catálogos possam
+ * descobrir onde diferem trocando poucos hashes (ver {@code ferramentas.SincronizacaoMerkle}).
+ * Cada ID cai numa <b>folha</b> fixa (pelo espalhamento do ID); a árvore tem {@value #ARIDADE}
+ * filhos por nó e {@code profundidade} níveis abaixo da raiz, ou seja,
+ * {@code 16^profundidade} folhas.</p>
+ *
+ * <ul>
+ * <li><b>Registro:</b> hash de 64 bits (SHA-256 truncado) da mídia em {@link CodecBinario}.</li>
+ * <li><b>Folha:</b> soma dos hashes dos seus registros, o que permite atualizá-la sem reler os
+ * outros registros da folha.</li>
+ * <li><b>Nó interno:</b> mistura dos hashes dos filhos, na ordem.</li>
+ * </ul>
+ *
+ * <p>Os nós ficam num vetor em ordem de nível: a raiz é o nó {@code 0} e os filhos do nó
+ * {@code i} são {@code 16i+1} a {@code 16i+16}. É mantida como {@link OuvinteCatalogo}: uma
+ * alteração recalcula só o caminho da folha até a raiz. É <b>thread-safe</b>.</p>
+ */
+public class ArvoreMerkle implements OuvinteCatalogo {
+    /** Número de filhos de cada nó interno. */
+    public static final int ARIDADE = 16;
+
+    private final int profundidade;
+    private final int primeiraFolha;
+    private final long[] nos;
+    // por folha: id -> hash do registro
+    private final MapaIntLong[] registros;
+
+    /**
+     * Cria uma árvore vazia com 4096 folhas (profundidade 3).
+     */
+    public ArvoreMerkle() {
+        this(3);
+    }
+
+    /**
+     * Cria uma árvore vazia.
+     *
+     * @param profundidade O número de níveis abaixo da raiz (de 1 a 5).
+     */
+    public ArvoreMerkle(int profundidade) {
+        if (profundidade < 1 || profundidade > 5) throw new IllegalArgumentException("Profundidade inválida: " + profundidade);
+        this.profundidade = profundidade;
+        int folhas = 1 << (4 * profundidade);
+        this.primeiraFolha = (folhas - 1) / (ARIDADE - 1);
+        this.nos = new long[primeiraFolha + folhas];
+        this.registros = new MapaIntLong[folhas];
+        for (int i = 0; i < folhas; i++) registros[i] = new MapaIntLong(4);
+    }
+
+    /**
+     * Calcula o hash de cada registro do armazenamento e o guarda na folha do seu ID.
+     * <p>Depois disso, a árvore deve ser registrada como ouvinte do controle para continuar em dia.</p>
+     *
+     * @param dao O DAO de origem.
+     * @param profundidade O número de níveis abaixo da raiz.
+     * @return A árvore carregada.
+     * @throws Exception Se ocorrer um erro na leitura do armazenamento.
+     */
+    public static ArvoreMerkle carregar(MidiaDAO dao, int profundidade) throws Exception {
+        ArvoreMerkle a = new ArvoreMerkle(profundidade);
+        dao.percorrer(a::midiaSalva);
+        return a;
+    }
+
+    // --- ATUALIZAÇÃO (OUVINTE) ---
+
+    @Override
+    public synchronized void midiaSalva(Midia m) {
+        int f = folha(m.getId());
+        long novo = hashRegistro(m);
+        long antigo = registros[f].obter(m.getId(), 0);
+        if (novo == antigo) return;
+        registros[f].colocar(m.getId(), novo);
+        atualizarCaminho(f, novo - antigo);
+    }
+
+    @Override
+    public synchronized void midiaRemovida(int id) {
+        int f = folha(id);
+        long antigo = registros[f].remover(id, 0);
+        if (antigo != 0) atualizarCaminho(f, -antigo);
+    }
+
+    private void atualizarCaminho(int folha, long delta) {
+        int no = primeiraFolha + folha;
+        nos[no] += delta;
+        while (no > 0) {
+            no = (no - 1) / ARIDADE;
+            long h = 0;
+            for (int c = no * ARIDADE + 1; c <= no * ARIDADE + ARIDADE; c++) h = misturar(h ^ nos[c]);
+            nos[no] = h;
+        }
+    }
+
+    // --- CONSULTAS ---
+
+    /**
+     * @return O número de níveis abaixo da raiz.
+     */
+    public int getProfundidade() {
+        return profundidade;
+    }
+
+    /**
+     * @return O índice do primeiro nó folha.
+     */
+    public int getPrimeiraFolha() {
+        return primeiraFolha;
+    }
+
+    /**
+     * @return O número total de nós, da raiz às folhas.
+     */
+    public int getTotalNos() {
+        return nos.length;
+    }
+
+    /**
+     * Retorna os hashes de vários nós de uma vez.
+     *
+     * @param indices Os índices dos nós (a raiz é {@code 0}).
+     * @return Os hashes, na mesma ordem.
+     */
+    public synchronized long[] hashes(int[] indices) {
+        long[] res = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) res[i] = nos[indices[i]];
+        return res;
+    }
+
+    /**
+     * Lista os registros (ID e hash) de algumas folhas.
+     *
+     * @param indices Os índices dos nós folha (de {@link #getPrimeiraFolha()} em diante).
+     * @return O hash de cada registro dessas folhas, por ID.
+     */
+    public synchronized Map<Integer, Long> registros(int[] indices) {
+        Map<Integer, Long> res = new HashMap<>();
+        for (int no : indices) registros[no - primeiraFolha].paraCada(res::put);
+        return res;
+    }
+
+    /**
+     * @param id O ID de uma mídia.
+     * @return A folha (de {@code 0} ao número de folhas - 1) onde o ID fica.
+     */
+    public int folha(int id) {
+        return (int) (misturar(id) >>> (64 - 4 * profundidade));
+    }
+
+    /**
+     * Calcula o hash de 64 bits do conteúdo de uma mídia.
+     *
+     * @param m A mídia.
+     * @return O hash (nunca {@code 0}).
+     */
+    public static long hashRegistro(Midia m) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            CodecBinario.escrever(m, new DataOutputStream(bytes));
+            long h = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray())).getLong();
+            return h == 0 ? 1 : h;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // finalizador do SplitMix64
+    private static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
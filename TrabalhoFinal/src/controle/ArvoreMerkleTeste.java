@@ -0,0 +1,65 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class ArvoreMerkleTeste {
+
+    private FileMidiaDAO dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        dao = new FileMidiaDAO(Files.createTempDirectory("merkle"));
+        for (int i = 1; i <= 50; i++) dao.salvar(new Musica(i, "c:/m" + i + ".mp3", i * 1000L, "M" + i, 100 + i, "Rock", "X"));
+    }
+
+    private long raiz(ArvoreMerkle a) {
+        return a.hashes(new int[]{0})[0];
+    }
+
+    @Test
+    void testIncrementalIgualACarga() throws Exception {
+        ArvoreMerkle incremental = ArvoreMerkle.carregar(dao, 2);
+        MidiaControle controle = new MidiaControle(dao);
+        controle.adicionarOuvinte(incremental);
+        controle.atualizarMidia(new Musica(7, "c:/m7.mp3", 7000, "Outro título", 107, "Rock", "X"));
+        controle.removerRegistro(9);
+
+        assertEquals(raiz(ArvoreMerkle.carregar(dao, 2)), raiz(incremental));
+    }
+
+    @Test
+    void testAlteracaoMudaRaizERemocaoRestaura() throws Exception {
+        ArvoreMerkle a = ArvoreMerkle.carregar(dao, 3);
+        long antes = raiz(a);
+        Musica nova = new Musica(99, "c:/n.mp3", 1, "N", 1, "Pop", "Y");
+        a.midiaSalva(nova);
+        assertNotEquals(antes, raiz(a));
+        a.midiaSalva(nova);
+        a.midiaRemovida(99);
+        assertEquals(antes, raiz(a));
+        a.midiaRemovida(12345);
+        assertEquals(antes, raiz(a));
+    }
+
+    @Test
+    void testRegistrosDaFolha() throws Exception {
+        ArvoreMerkle a = ArvoreMerkle.carregar(dao, 1);
+        assertEquals(17, a.getTotalNos());
+        int no = a.getPrimeiraFolha() + a.folha(5);
+        Map<Integer, Long> regs = a.registros(new int[]{no});
+        assertEquals(Long.valueOf(ArvoreMerkle.hashRegistro(dao.buscarPorId(5).get())), regs.get(5));
+
+        // todas as folhas juntas têm todos os registros
+        int[] folhas = new int[ArvoreMerkle.ARIDADE];
+        for (int i = 0; i < folhas.length; i++) folhas[i] = a.getPrimeiraFolha() + i;
+        assertEquals(50, a.registros(folhas).size());
+        assertThrows(IllegalArgumentException.class, () -> new ArvoreMerkle(6));
+    }
+}
@@ -0,0 +1,462 @@
+package controle;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dao.MapaIntLong;
+import dao.MidiaDAO;
+import model.*;
+
+/**
+ * **Catálogo em Memória Organizado por Colunas.**
+ *
+ * <p>Em vez de uma {@code List<Midia>}, guarda cada atributo em um vetor primitivo próprio
+ * ({@code int[]} de IDs, {@code long[]} de tamanhos e durações, {@code byte[]} de tipos e
+ * {@code int[]} de categorias codificadas pelo {@link Dicionario#CATEGORIAS}); os textos
+ * (título, local e o atributo específico de cada subtipo) ficam em <b>heaps de caracteres</b>
+ * compartilhados. Filtros, somas e ordenações percorrem esses vetores em laços simples, sem
+ * seguir ponteiros pelo heap.</p>
+ *
+ * <p>Objetos {@link Midia} só são criados sob demanda, com {@link #materializar(int)}, para as
+ * linhas que realmente serão exibidas.</p>
+ *
+ * <p>O catálogo é mantido atualizado como {@link OuvinteCatalogo} do {@link MidiaControle}.
+ * É <b>thread-safe</b>: consultas concorrentes compartilham uma trava de leitura e as
+ * atualizações usam a trava de escrita. As consultas devolvem <b>IDs</b>, que continuam
+ * válidos depois de atualizações (as posições internas das linhas, não).</p>
+ *
+ * @see MidiaControle
+ * @see view.MidiaTable
+ */
+public class CatalogoColunar implements OuvinteCatalogo {
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final MapaIntLong linhaPorId = new MapaIntLong();
+
+    private int n = 0;
+    private int[] ids = new int[0];
+    private byte[] tipos = new byte[0];
+    private int[] categorias = new int[0];
+    private long[] tamanhos = new long[0];
+    private long[] duracoes = new long[0];
+    private final HeapTexto titulos = new HeapTexto();
+    private final HeapTexto locais = new HeapTexto();
+    private final HeapTexto especificos = new HeapTexto();
+
+    /**
+     * Copia os campos de cada mídia do armazenamento para as colunas; a mídia lida é descartada
+     * em seguida e só é recriada por {@link #materializar(int)}.
+     *
+     * @param dao O DAO de origem.
+     * @return O catálogo carregado.
+     * @throws Exception Se ocorrer um erro na leitura do armazenamento.
+     */
+    public static CatalogoColunar carregar(MidiaDAO dao) throws Exception {
+        CatalogoColunar c = new CatalogoColunar();
+        dao.percorrer(c::midiaSalva);
+        return c;
+    }
+
+    // --- ATUALIZAÇÃO (OUVINTE) ---
+
+    @Override
+    public void midiaSalva(Midia m) {
+        trava.writeLock().lock();
+        try {
+            int linha = (int) linhaPorId.obter(m.getId(), -1);
+            if (linha < 0) {
+                garantirCapacidade(n + 1);
+                linha = n++;
+                linhaPorId.colocar(m.getId(), linha);
+            }
+            ids[linha] = m.getId();
+            tipos[linha] = (byte) TiposMidia.codigo(m.getTipo());
+            categorias[linha] = m.getCategoria() == null ? -1 : Dicionario.CATEGORIAS.codigo(m.getCategoria());
+            tamanhos[linha] = m.getTamanhoBytes();
+            duracoes[linha] = m.getDuracao();
+            titulos.definir(linha, m.getTitulo());
+            locais.definir(linha, m.getLocal());
+            especificos.definir(linha, especifico(m));
+            titulos.compactarSeNecessario(n);
+            locais.compactarSeNecessario(n);
+            especificos.compactarSeNecessario(n);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void midiaRemovida(int id) {
+        trava.writeLock().lock();
+        try {
+            int linha = (int) linhaPorId.remover(id, -1);
+            if (linha < 0) return;
+            titulos.liberar(linha);
+            locais.liberar(linha);
+            especificos.liberar(linha);
+            // a última linha ocupa o lugar da removida
+            int ultima = --n;
+            if (linha != ultima) {
+                ids[linha] = ids[ultima];
+                tipos[linha] = tipos[ultima];
+                categorias[linha] = categorias[ultima];
+                tamanhos[linha] = tamanhos[ultima];
+                duracoes[linha] = duracoes[ultima];
+                titulos.mover(ultima, linha);
+                locais.mover(ultima, linha);
+                especificos.mover(ultima, linha);
+                linhaPorId.colocar(ids[linha], linha);
+            }
+            titulos.compactarSeNecessario(n);
+            locais.compactarSeNecessario(n);
+            especificos.compactarSeNecessario(n);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // --- CONSULTAS ---
+
+    /**
+     * @return O número de mídias no catálogo.
+     */
+    public int tamanho() {
+        trava.readLock().lock();
+        try {
+            return n;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtra e ordena o catálogo, com a mesma semântica de
+     * {@link MidiaControle#listarFiltrados(java.util.Optional, java.util.Optional, java.util.Optional)},
+     * devolvendo apenas os IDs.
+     *
+     * @param tipo O tipo procurado (sem distinção de caixa), ou {@code null} para todos.
+     * @param categoria A categoria procurada (sem distinção de caixa), ou {@code null} para todas.
+     * @param ordenar "ALFABETICA", "DURACAO", "TAMANHO", ou {@code null} para a ordem do catálogo.
+     * @return Os IDs das mídias selecionadas, na ordem pedida.
+     */
+    public int[] consultar(String tipo, String categoria, String ordenar) {
+        trava.readLock().lock();
+        try {
+            int[] linhas = filtrar(tipo, categoria);
+            if (ordenar != null) ordenarLinhas(linhas, ordenar);
+            int[] res = new int[linhas.length];
+            for (int i = 0; i < linhas.length; i++) res[i] = ids[linhas[i]];
+            return res;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os IDs das {@code k} mídias com os maiores (ou menores) valores de duração ou
+     * tamanho, com a mesma semântica de
+     * {@link MidiaControle#listarExtremos(java.util.Optional, java.util.Optional, String, int, boolean)}.
+     * <p>Usa um heap limitado de posições sobre as colunas primitivas: O(N log k), sem criar objetos.</p>
+     *
+     * @param tipo O tipo procurado, ou {@code null} para todos.
+     * @param categoria A categoria procurada, ou {@code null} para todas.
+     * @param criterio "DURACAO" ou "TAMANHO".
+     * @param k O número máximo de IDs retornados.
+     * @param maiores {@code true} para os maiores valores (decrescente); {@code false} para os menores (crescente).
+     * @return Até {@code k} IDs, do mais extremo para o menos extremo.
+     * @throws IllegalArgumentException Se o critério for desconhecido ou {@code k} for negativo.
+     */
+    public int[] extremos(String tipo, String categoria, String criterio, int k, boolean maiores) {
+        if (k < 0) throw new IllegalArgumentException("k negativo: " + k);
+        trava.readLock().lock();
+        try {
+            long[] valores;
+            if ("DURACAO".equalsIgnoreCase(criterio)) valores = duracoes;
+            else if ("TAMANHO".equalsIgnoreCase(criterio)) valores = tamanhos;
+            else throw new IllegalArgumentException("Critério desconhecido: " + criterio);
+            // negativo quando a linha a é "melhor" (mais extrema) que b; empates pelo ID
+            ComparadorLinhas melhor = (a, b) -> {
+                int c = Long.compare(valores[a], valores[b]);
+                if (maiores) c = -c;
+                return c != 0 ? c : Integer.compare(ids[a], ids[b]);
+            };
+
+            // heap binário de linhas com a pior das guardadas na raiz
+            int[] heap = new int[k];
+            int tam = 0;
+            for (int linha : filtrar(tipo, categoria)) {
+                if (tam < k) {
+                    int i = tam++;
+                    heap[i] = linha;
+                    while (i > 0 && melhor.comparar(heap[(i - 1) / 2], heap[i]) < 0) {
+                        trocar(heap, i, (i - 1) / 2);
+                        i = (i - 1) / 2;
+                    }
+                } else if (k > 0 && melhor.comparar(linha, heap[0]) < 0) {
+                    heap[0] = linha;
+                    descer(heap, 0, tam, melhor);
+                }
+            }
+            // retira do pior para o melhor, preenchendo o resultado de trás para frente
+            int[] res = new int[tam];
+            for (int fim = tam - 1; fim >= 0; fim--) {
+                res[fim] = ids[heap[0]];
+                heap[0] = heap[fim];
+                descer(heap, 0, fim, melhor);
+            }
+            return res;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private static void descer(int[] heap, int i, int tam, ComparadorLinhas melhor) {
+        while (true) {
+            int pior = i, e = 2 * i + 1, d = e + 1;
+            if (e < tam && melhor.comparar(heap[e], heap[pior]) > 0) pior = e;
+            if (d < tam && melhor.comparar(heap[d], heap[pior]) > 0) pior = d;
+            if (pior == i) return;
+            trocar(heap, i, pior);
+            i = pior;
+        }
+    }
+
+    private static void trocar(int[] v, int i, int j) {
+        int t = v[i];
+        v[i] = v[j];
+        v[j] = t;
+    }
+
+    /**
+     * Soma o {@code tamanhoBytes} das mídias que atendem aos filtros.
+     *
+     * @param tipo O tipo procurado, ou {@code null} para todos.
+     * @param categoria A categoria procurada, ou {@code null} para todas.
+     * @return O total de bytes.
+     */
+    public long somarTamanhos(String tipo, String categoria) {
+        trava.readLock().lock();
+        try {
+            long total = 0;
+            for (int linha : filtrar(tipo, categoria)) total += tamanhos[linha];
+            return total;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Soma a {@code duracao} das mídias que atendem aos filtros (a unidade depende do tipo).
+     *
+     * @param tipo O tipo procurado, ou {@code null} para todos.
+     * @param categoria A categoria procurada, ou {@code null} para todas.
+     * @return O total das durações.
+     */
+    public long somarDuracoes(String tipo, String categoria) {
+        trava.readLock().lock();
+        try {
+            long total = 0;
+            for (int linha : filtrar(tipo, categoria)) total += duracoes[linha];
+            return total;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cria o objeto {@link Midia} de um ID do catálogo.
+     *
+     * @param id O ID da mídia.
+     * @return Uma nova instância do subtipo correto, ou {@code null} se o ID não estiver no catálogo.
+     */
+    public Midia materializar(int id) {
+        trava.readLock().lock();
+        try {
+            int l = (int) linhaPorId.obter(id, -1);
+            if (l < 0) return null;
+            String cat = categorias[l] < 0 ? null : Dicionario.CATEGORIAS.valor(categorias[l]);
+            String local = locais.obter(l);
+            String titulo = titulos.obter(l);
+            String extra = especificos.obter(l);
+            switch (tipos[l]) {
+                case 0: return new Musica(id, local, tamanhos[l], titulo, duracoes[l], cat, extra);
+                case 1: return new Filme(id, local, tamanhos[l], titulo, duracoes[l], cat, extra);
+                default: return new Livro(id, local, tamanhos[l], titulo, duracoes[l], cat, extra);
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // chamado com a trava de leitura
+    private int[] filtrar(String tipo, String categoria) {
+        int tc = -1;
+        if (tipo != null) {
+            tc = TiposMidia.codigo(tipo);
+            if (tc < 0) return new int[0];
+        }
+        int[] cats = null;
+        if (categoria != null) {
+            List<String> variantes = Dicionario.CATEGORIAS.variantes(categoria);
+            cats = new int[variantes.size()];
+            for (int i = 0; i < cats.length; i++) cats[i] = Dicionario.CATEGORIAS.buscarCodigo(variantes.get(i));
+        }
+        int[] res = new int[n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (tc >= 0 && tipos[i] != tc) continue;
+            if (cats != null && !contem(cats, categorias[i])) continue;
+            res[k++] = i;
+        }
+        return k == n ? res : Arrays.copyOf(res, k);
+    }
+
+    private void ordenarLinhas(int[] linhas, String criterio) {
+        ComparadorLinhas c;
+        if ("ALFABETICA".equalsIgnoreCase(criterio)) {
+            c = titulos::compararIgnorandoCaixa;
+        } else if ("DURACAO".equalsIgnoreCase(criterio)) {
+            c = (a, b) -> Long.compare(duracoes[a], duracoes[b]);
+        } else if ("TAMANHO".equalsIgnoreCase(criterio)) {
+            c = (a, b) -> Long.compare(tamanhos[a], tamanhos[b]);
+        } else {
+            return;
+        }
+        ordenarEstavel(linhas, new int[linhas.length], 0, linhas.length, c);
+    }
+
+    @FunctionalInterface
+    private interface ComparadorLinhas {
+        int comparar(int a, int b);
+    }
+
+    // mergesort sobre int[]: estável, como o List.sort usado em listarFiltrados
+    private static void ordenarEstavel(int[] v, int[] aux, int ini, int fim, ComparadorLinhas c) {
+        if (fim - ini < 2) return;
+        if (fim - ini <= 16) {
+            for (int i = ini + 1; i < fim; i++) {
+                int x = v[i];
+                int j = i - 1;
+                while (j >= ini && c.comparar(v[j], x) > 0) {
+                    v[j + 1] = v[j];
+                    j--;
+                }
+                v[j + 1] = x;
+            }
+            return;
+        }
+        int meio = (ini + fim) >>> 1;
+        ordenarEstavel(v, aux, ini, meio, c);
+        ordenarEstavel(v, aux, meio, fim, c);
+        if (c.comparar(v[meio - 1], v[meio]) <= 0) return;
+        System.arraycopy(v, ini, aux, ini, fim - ini);
+        int i = ini, j = meio, k = ini;
+        while (i < meio && j < fim) v[k++] = c.comparar(aux[j], aux[i]) < 0 ? aux[j++] : aux[i++];
+        while (i < meio) v[k++] = aux[i++];
+        while (j < fim) v[k++] = aux[j++];
+    }
+
+    private static boolean contem(int[] v, int x) {
+        for (int y : v) if (y == x) return true;
+        return false;
+    }
+
+    private void garantirCapacidade(int cap) {
+        if (cap <= ids.length) return;
+        int nova = Math.max(16, Math.max(cap, ids.length + (ids.length >> 1)));
+        ids = Arrays.copyOf(ids, nova);
+        tipos = Arrays.copyOf(tipos, nova);
+        categorias = Arrays.copyOf(categorias, nova);
+        tamanhos = Arrays.copyOf(tamanhos, nova);
+        duracoes = Arrays.copyOf(duracoes, nova);
+        titulos.garantirLinhas(nova);
+        locais.garantirLinhas(nova);
+        especificos.garantirLinhas(nova);
+    }
+
+    private static String especifico(Midia m) {
+        if (m instanceof Musica) return ((Musica) m).getArtista();
+        if (m instanceof Filme) return ((Filme) m).getIdiomaAudio();
+        if (m instanceof Livro) return ((Livro) m).getAutores();
+        return null;
+    }
+
+    /**
+     * Heap de caracteres onde ficam os textos de uma coluna, um trecho por linha.
+     * Textos substituídos viram lixo, recuperado por compactação quando passa da metade do heap.
+     */
+    private static final class HeapTexto {
+        private char[] dados = new char[1024];
+        private int usado = 0;
+        private int lixo = 0;
+        private int[] inicio = new int[0];
+        private int[] comprimento = new int[0]; // -1 representa null
+
+        void garantirLinhas(int cap) {
+            int antigo = inicio.length;
+            inicio = Arrays.copyOf(inicio, cap);
+            comprimento = Arrays.copyOf(comprimento, cap);
+            Arrays.fill(comprimento, antigo, cap, -1);
+        }
+
+        void definir(int linha, String s) {
+            liberar(linha);
+            if (s == null) return;
+            if (usado + s.length() > dados.length) {
+                dados = Arrays.copyOf(dados, Math.max(dados.length * 2, usado + s.length()));
+            }
+            s.getChars(0, s.length(), dados, usado);
+            inicio[linha] = usado;
+            comprimento[linha] = s.length();
+            usado += s.length();
+        }
+
+        void liberar(int linha) {
+            if (comprimento[linha] > 0) lixo += comprimento[linha];
+            comprimento[linha] = -1;
+        }
+
+        void mover(int de, int para) {
+            inicio[para] = inicio[de];
+            comprimento[para] = comprimento[de];
+            comprimento[de] = -1;
+        }
+
+        String obter(int linha) {
+            int len = comprimento[linha];
+            return len < 0 ? null : new String(dados, inicio[linha], len);
+        }
+
+        int compararIgnorandoCaixa(int a, int b) {
+            int la = comprimento[a], lb = comprimento[b];
+            // nulos por último, como em listarFiltrados
+            if (la < 0 || lb < 0) return la < 0 ? (lb < 0 ? 0 : 1) : -1;
+            int ia = inicio[a], ib = inicio[b];
+            for (int i = 0, min = Math.min(la, lb); i < min; i++) {
+                char ca = dados[ia + i], cb = dados[ib + i];
+                if (ca == cb) continue;
+                ca = Character.toLowerCase(Character.toUpperCase(ca));
+                cb = Character.toLowerCase(Character.toUpperCase(cb));
+                if (ca != cb) return ca - cb;
+            }
+            return la - lb;
+        }
+
+        void compactarSeNecessario(int linhas) {
+            if (usado < 4096 || lixo * 2 < usado) return;
+            char[] novo = new char[Math.max(1024, usado - lixo)];
+            int pos = 0;
+            for (int i = 0; i < linhas; i++) {
+                int len = comprimento[i];
+                if (len <= 0) continue;
+                System.arraycopy(dados, inicio[i], novo, pos, len);
+                inicio[i] = pos;
+                pos += len;
+            }
+            dados = novo;
+            usado = pos;
+            lixo = 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class CatalogoColunarTeste {
+
+	private CatalogoColunar catalogo;
+
+    @BeforeEach
+    void setup() throws Exception {
+        FileMidiaDAO dao = new FileMidiaDAO(Files.createTempDirectory("colunar"));
+        dao.salvar(new Musica(1, "c:/b.mp3", 300, "banda", 200, "Rock", "X"));
+        dao.salvar(new Musica(2, "c:/a.mp3", 100, "Alfa", 100, "rock", "Y"));
+        dao.salvar(new Filme(3, "c:/f.mp4", 5000, "Filme", 90, "Ação", "EN"));
+        dao.salvar(new Livro(4, "c:/l.pdf", 50, "Livro", 300, "Rock", "Autor"));
+        catalogo = CatalogoColunar.carregar(dao);
+    }
+
+    @Test
+    void testFiltrarEOrdenar() {
+        assertArrayEquals(new int[]{2, 1}, catalogo.consultar("musica", "ROCK", "ALFABETICA"));
+        assertArrayEquals(new int[]{3, 2, 1, 4}, catalogo.consultar(null, null, "DURACAO"));
+        assertEquals(0, catalogo.consultar("PODCAST", null, null).length);
+    }
+
+    @Test
+    void testExtremos() {
+        assertArrayEquals(new int[]{3, 1, 2}, catalogo.extremos(null, null, "TAMANHO", 3, true));
+        assertArrayEquals(new int[]{4, 2}, catalogo.extremos(null, null, "TAMANHO", 2, false));
+        assertArrayEquals(new int[]{4, 1}, catalogo.extremos(null, "rock", "DURACAO", 2, true));
+        assertArrayEquals(new int[]{2, 1}, catalogo.extremos("MUSICA", null, "TAMANHO", 10, false));
+        assertEquals(0, catalogo.extremos(null, null, "DURACAO", 0, true).length);
+        assertArrayEquals(new int[]{4, 2, 1, 3}, catalogo.consultar(null, null, "TAMANHO"));
+        assertThrows(IllegalArgumentException.class, () -> catalogo.extremos(null, null, "TITULO", 1, true));
+    }
+
+    @Test
+    void testNuloPorUltimoNaOrdemAlfabetica() {
+        catalogo.midiaSalva(new Livro(5, "c:/s.pdf", 10, null, 10, "Rock", "Autor"));
+        int[] ids = catalogo.consultar(null, null, "ALFABETICA");
+        assertEquals(5, ids[ids.length - 1]);
+    }
+
+    @Test
+    void testSomas() {
+        assertEquals(450, catalogo.somarTamanhos(null, "rock"));
+        assertEquals(300, catalogo.somarDuracoes("LIVRO", null));
+    }
+
+    @Test
+    void testAtualizarERemover() {
+        catalogo.midiaRemovida(1);
+        catalogo.midiaSalva(new Musica(2, "c:/a.mp3", 100, "Alfa 2", 100, "Pop", "Y"));
+
+        assertEquals(3, catalogo.tamanho());
+        assertNull(catalogo.materializar(1));
+        Musica m = (Musica) catalogo.materializar(2);
+        assertEquals("Alfa 2", m.getTitulo());
+        assertEquals("Pop", m.getCategoria());
+        assertEquals("Y", m.getArtista());
+        assertEquals("Filme", catalogo.materializar(3).getTitulo());
+    }
+}
@@ -0,0 +1,248 @@
+package controle;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import dao.MapaIntLong;
+import dao.MidiaDAO;
+import model.Dicionario;
+import model.Midia;
+import model.TiposMidia;
+
+/**
+ * **Contagens por Faceta (Tipo, Categoria e Combinação).**
+ *
+ * <p>Mantém, de forma <b>incremental</b>, quantas mídias (e quantos bytes) existem em cada tipo,
+ * em cada categoria e em cada par tipo + categoria. É um {@link OuvinteCatalogo}: cada inclusão,
+ * alteração ou remoção ajusta só os contadores afetados, e as consultas não percorrem o
+ * catálogo.</p>
+ *
+ * <p>Para descontar a contribuição antiga de uma mídia alterada ou removida, guarda por ID o
+ * tipo, o código da categoria no {@link Dicionario#CATEGORIAS} e o tamanho, em dois
+ * {@link MapaIntLong}. Por isso as notificações repetidas da mesma mídia não alteram as
+ * contagens.</p>
+ *
+ * <p>As categorias são agrupadas <b>sem distinção de caixa</b> ("Rock" e "rock" são a mesma
+ * faceta), como nos filtros de {@link MidiaControle#listarFiltrados} e do
+ * {@link CatalogoColunar}; o valor exibido é a primeira grafia encontrada. Mídias sem categoria
+ * entram nos totais por tipo, mas não em nenhuma faceta de categoria.</p>
+ *
+ * <p>É <b>thread-safe</b>.</p>
+ *
+ * @see CatalogoColunar
+ */
+public class ContagemFacetas implements OuvinteCatalogo {
+    // posição dos contadores de todos os tipos somados
+    private static final int TODOS = TiposMidia.TOTAL;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // id -> (tipo << 32) | (código da categoria + 1)
+    private final MapaIntLong chavePorId = new MapaIntLong();
+    private final MapaIntLong tamanhoPorId = new MapaIntLong();
+
+    private final Contador[] porTipo = novosContadores(null);
+    // categoria em minúsculas -> contadores por tipo (e o total em TODOS)
+    private final Map<String, Contador[]> porCategoria = new HashMap<>();
+
+    /**
+     * **Uma faceta e suas contagens** (cópia imutável, tirada no momento da consulta).
+     */
+    public static final class Faceta {
+        private final String valor;
+        private final int quantidade;
+        private final long bytes;
+
+        /**
+         * Construtor.
+         *
+         * @param valor O valor da faceta, ou {@code null} para "todos".
+         * @param quantidade O número de mídias.
+         * @param bytes A soma dos tamanhos.
+         */
+        public Faceta(String valor, int quantidade, long bytes) {
+            this.valor = valor;
+            this.quantidade = quantidade;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return O valor da faceta (tipo ou categoria), ou {@code null} para "todos".
+         */
+        public String getValor() {
+            return valor;
+        }
+
+        /**
+         * @return O número de mídias.
+         */
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * @return A soma de {@code tamanhoBytes} das mídias.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return O valor seguido da quantidade, ex.: {@code "Rock (12)"}.
+         */
+        @Override
+        public String toString() {
+            return (valor == null ? "Todos" : valor) + " (" + quantidade + ")";
+        }
+    }
+
+    private static final class Contador {
+        final String rotulo;
+        int quantidade;
+        long bytes;
+
+        Contador(String rotulo) {
+            this.rotulo = rotulo;
+        }
+    }
+
+    /**
+     * Conta cada mídia do armazenamento no seu tipo e na sua categoria; só os contadores ficam
+     * na memória, não as mídias.
+     *
+     * @param dao O DAO de origem.
+     * @return As contagens carregadas.
+     * @throws Exception Se ocorrer um erro na leitura do armazenamento.
+     */
+    public static ContagemFacetas carregar(MidiaDAO dao) throws Exception {
+        ContagemFacetas f = new ContagemFacetas();
+        dao.percorrer(f::midiaSalva);
+        return f;
+    }
+
+    // --- ATUALIZAÇÃO (OUVINTE) ---
+
+    @Override
+    public void midiaSalva(Midia m) {
+        int tipo = TiposMidia.codigo(m.getTipo());
+        if (tipo < 0) return;
+        int categoria = m.getCategoria() == null ? -1 : Dicionario.CATEGORIAS.codigo(m.getCategoria());
+        trava.writeLock().lock();
+        try {
+            descontar(m.getId());
+            chavePorId.colocar(m.getId(), ((long) tipo << 32) | (categoria + 1));
+            tamanhoPorId.colocar(m.getId(), m.getTamanhoBytes());
+            somar(tipo, categoria, 1, m.getTamanhoBytes());
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void midiaRemovida(int id) {
+        trava.writeLock().lock();
+        try {
+            descontar(id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // chamado com a trava de escrita
+    private void descontar(int id) {
+        long chave = chavePorId.remover(id, -1);
+        if (chave < 0) return;
+        long tamanho = tamanhoPorId.remover(id, 0);
+        somar((int) (chave >>> 32), (int) chave - 1, -1, -tamanho);
+    }
+
+    // chamado com a trava de escrita
+    private void somar(int tipo, int categoria, int quantidade, long bytes) {
+        acumular(porTipo[tipo], quantidade, bytes);
+        acumular(porTipo[TODOS], quantidade, bytes);
+        if (categoria < 0) return;
+        String valor = Dicionario.CATEGORIAS.valor(categoria);
+        String chave = valor.toLowerCase(Locale.ROOT);
+        Contador[] c = porCategoria.computeIfAbsent(chave, k -> novosContadores(valor));
+        acumular(c[tipo], quantidade, bytes);
+        acumular(c[TODOS], quantidade, bytes);
+        if (c[TODOS].quantidade == 0) porCategoria.remove(chave);
+    }
+
+    private static void acumular(Contador c, int quantidade, long bytes) {
+        c.quantidade += quantidade;
+        c.bytes += bytes;
+    }
+
+    private static Contador[] novosContadores(String rotulo) {
+        Contador[] c = new Contador[TiposMidia.TOTAL + 1];
+        for (int i = 0; i < c.length; i++) c[i] = new Contador(rotulo);
+        return c;
+    }
+
+    // --- CONSULTAS ---
+
+    /**
+     * Conta as mídias que atendem aos filtros, com a mesma semântica de
+     * {@link CatalogoColunar#consultar(String, String, String)}.
+     *
+     * @param tipo O tipo (sem distinção de caixa), ou {@code null} para todos.
+     * @param categoria A categoria (sem distinção de caixa), ou {@code null} para todas.
+     * @return A quantidade e os bytes; {@link Faceta#getValor()} é a categoria, o tipo ou {@code null}.
+     */
+    public Faceta total(String tipo, String categoria) {
+        trava.readLock().lock();
+        try {
+            int t = tipo == null ? TODOS : TiposMidia.codigo(tipo);
+            if (t < 0) return new Faceta(tipo, 0, 0);
+            Contador c;
+            if (categoria == null) {
+                c = porTipo[t];
+            } else {
+                Contador[] cs = porCategoria.get(categoria.toLowerCase(Locale.ROOT));
+                if (cs == null) return new Faceta(categoria, 0, 0);
+                c = cs[t];
+            }
+            return new Faceta(categoria != null ? c.rotulo : (tipo == null ? null : TiposMidia.nome(t)), c.quantidade, c.bytes);
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta as mídias de cada tipo, inclusive os tipos sem nenhuma mídia.
+     *
+     * @param categoria Restringe a contagem a uma categoria, ou {@code null} para todas.
+     * @return Uma faceta por tipo, na ordem MUSICA, FILME, LIVRO.
+     */
+    public List<Faceta> porTipo(String categoria) {
+        List<Faceta> res = new ArrayList<>(TiposMidia.TOTAL);
+        for (String t : TiposMidia.NOMES) {
+            Faceta f = total(t, categoria);
+            res.add(new Faceta(t, f.getQuantidade(), f.getBytes()));
+        }
+        return res;
+    }
+
+    /**
+     * Conta as mídias de cada categoria com pelo menos uma mídia.
+     *
+     * @param tipo Restringe a contagem a um tipo (sem distinção de caixa), ou {@code null} para todos.
+     * @return Uma faceta por categoria com mídias, em ordem alfabética.
+     */
+    public List<Faceta> porCategoria(String tipo) {
+        trava.readLock().lock();
+        try {
+            int t = tipo == null ? TODOS : TiposMidia.codigo(tipo);
+            List<Faceta> res = new ArrayList<>();
+            if (t < 0) return res;
+            for (Contador[] cs : porCategoria.values()) {
+                Contador c = cs[t];
+                if (c.quantidade > 0) res.add(new Faceta(c.rotulo, c.quantidade, c.bytes));
+            }
+            res.sort(Comparator.comparing(Faceta::getValor, String.CASE_INSENSITIVE_ORDER));
+            return res;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+}
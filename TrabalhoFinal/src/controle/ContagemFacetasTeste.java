@@ -0,0 +1,84 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import controle.ContagemFacetas.Faceta;
+import dao.FileMidiaDAO;
+import model.*;
+
+class ContagemFacetasTeste {
+
+    private FileMidiaDAO dao;
+    private MidiaControle controle;
+    private ContagemFacetas facetas;
+
+    @BeforeEach
+    void setup() throws Exception {
+        dao = new FileMidiaDAO(Files.createTempDirectory("facetas"));
+        controle = new MidiaControle(dao);
+        facetas = new ContagemFacetas();
+        controle.adicionarOuvinte(facetas);
+    }
+
+    @Test
+    void testContagensPorTipoCategoriaECombinacao() throws Exception {
+        controle.incluirMedia(new Musica("c:/a.mp3", 100, "A", 200, "Rock", "X"));
+        controle.incluirMedia(new Musica("c:/b.mp3", 200, "B", 200, "rock", "X"));
+        controle.incluirMedia(new Filme("c:/c.mp4", 1000, "C", 90, "Rock", "PT"));
+        controle.incluirMedia(new Livro("c:/d.pdf", 50, "D", 300, "Romance", "Y"));
+        controle.incluirMedia(new Livro("c:/e.pdf", 70, "E", 300, null, "Z"));
+
+        Faceta total = facetas.total(null, null);
+        assertEquals(5, total.getQuantidade());
+        assertEquals(1420, total.getBytes());
+
+        List<Faceta> tipos = facetas.porTipo(null);
+        assertEquals("MUSICA", tipos.get(0).getValor());
+        assertEquals(2, tipos.get(0).getQuantidade());
+        assertEquals(300, tipos.get(0).getBytes());
+        assertEquals(1, tipos.get(1).getQuantidade());
+        assertEquals(2, tipos.get(2).getQuantidade());
+
+        // "Rock" e "rock" são a mesma faceta; a mídia sem categoria não aparece
+        List<Faceta> cats = facetas.porCategoria(null);
+        assertEquals(2, cats.size());
+        assertEquals("Rock", cats.get(0).getValor());
+        assertEquals(3, cats.get(0).getQuantidade());
+        assertEquals("Romance", cats.get(1).getValor());
+
+        assertEquals(2, facetas.total("musica", "ROCK").getQuantidade());
+        assertEquals(1, facetas.porCategoria("FILME").size());
+        assertEquals(0, facetas.porTipo("Rock").get(2).getQuantidade());
+        assertEquals(0, facetas.total(null, "Jazz").getQuantidade());
+    }
+
+    @Test
+    void testAlteracaoERemocaoAjustamContagens() throws Exception {
+        Musica m = new Musica("c:/a.mp3", 100, "A", 200, "Rock", "X");
+        controle.incluirMedia(m);
+        controle.incluirMedia(new Musica("c:/b.mp3", 100, "B", 200, "Rock", "X"));
+
+        m.setCategoria("Jazz");
+        m.setTamanhoBytes(500);
+        controle.atualizarMidia(m);
+        // notificação repetida não conta duas vezes
+        facetas.midiaSalva(m);
+
+        assertEquals(1, facetas.total(null, "Rock").getQuantidade());
+        assertEquals(1, facetas.total(null, "Jazz").getQuantidade());
+        assertEquals(600, facetas.total("MUSICA", null).getBytes());
+
+        controle.removerRegistro(m.getId());
+        assertEquals(1, facetas.total(null, null).getQuantidade());
+        assertEquals(List.of("Rock"), facetas.porCategoria(null).stream().map(Faceta::getValor).toList());
+
+        // a carga inicial bate com as contagens incrementais
+        ContagemFacetas carregadas = ContagemFacetas.carregar(dao);
+        assertEquals(1, carregadas.total("MUSICA", "Rock").getQuantidade());
+        assertEquals(100, carregadas.total(null, null).getBytes());
+    }
+}
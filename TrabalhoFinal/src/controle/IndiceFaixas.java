@@ -0,0 +1,141 @@
+package controle;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import dao.MapaIntLong;
+import dao.MidiaDAO;
+import model.Midia;
+import model.TiposMidia;
+
+/**
+ * **Índice de Faixas Numéricas (Duração e Tamanho).**
+ *
+ * <p>Responde a filtros por faixa, como "livros entre 100 e 300 páginas" ou "arquivos acima de
+ * 1 GB", sem percorrer o catálogo. Para cada tipo de mídia mantém dois conjuntos ordenados
+ * ({@link ConcurrentSkipListSet}) de pares (valor, ID): um por {@code duracao} e outro por
+ * {@code tamanhoBytes}. Uma consulta posiciona-se no início da faixa em tempo logarítmico e
+ * depois só visita as entradas que pertencem a ela.</p>
+ *
+ * <p>A {@code duracao} tem unidade diferente em cada tipo (segundos na música, minutos no
+ * filme, páginas no livro), por isso o índice é separado por tipo; uma consulta sem tipo junta
+ * os três resultados.</p>
+ *
+ * <p>É mantido como {@link OuvinteCatalogo}. Os valores antigos de cada ID ficam em
+ * {@link MapaIntLong} para que a entrada anterior seja retirada numa alteração; as escritas são
+ * serializadas, enquanto as consultas leem os conjuntos sem travas.</p>
+ *
+ * @see MidiaControle#listarPorFaixa(java.util.Optional, java.util.Optional, String, long, long)
+ */
+public class IndiceFaixas implements OuvinteCatalogo {
+
+    private static final Comparator<Entrada> ORDEM =
+            Comparator.comparingLong((Entrada e) -> e.valor).thenComparingInt(e -> e.id);
+
+    private final NavigableSet<Entrada>[] porDuracao = novosConjuntos();
+    private final NavigableSet<Entrada>[] porTamanho = novosConjuntos();
+
+    // valores atualmente indexados de cada ID (para retirar as entradas antigas)
+    private final MapaIntLong tipoPorId = new MapaIntLong();
+    private final MapaIntLong duracaoPorId = new MapaIntLong();
+    private final MapaIntLong tamanhoPorId = new MapaIntLong();
+
+    private static final class Entrada {
+        final long valor;
+        final int id;
+
+        Entrada(long valor, int id) {
+            this.valor = valor;
+            this.id = id;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static NavigableSet<Entrada>[] novosConjuntos() {
+        NavigableSet<Entrada>[] c = new NavigableSet[TiposMidia.TOTAL];
+        for (int i = 0; i < c.length; i++) c[i] = new ConcurrentSkipListSet<>(ORDEM);
+        return c;
+    }
+
+    /**
+     * Insere a duração de cada mídia do armazenamento no conjunto ordenado do seu tipo.
+     *
+     * @param dao O DAO de origem.
+     * @return O índice carregado.
+     * @throws Exception Se ocorrer um erro na leitura do armazenamento.
+     */
+    public static IndiceFaixas carregar(MidiaDAO dao) throws Exception {
+        IndiceFaixas i = new IndiceFaixas();
+        dao.percorrer(i::midiaSalva);
+        return i;
+    }
+
+    // --- ATUALIZAÇÃO (OUVINTE) ---
+
+    @Override
+    public synchronized void midiaSalva(Midia m) {
+        int tipo = TiposMidia.codigo(m.getTipo());
+        if (tipo < 0) return;
+        retirar(m.getId());
+        porDuracao[tipo].add(new Entrada(m.getDuracao(), m.getId()));
+        porTamanho[tipo].add(new Entrada(m.getTamanhoBytes(), m.getId()));
+        tipoPorId.colocar(m.getId(), tipo);
+        duracaoPorId.colocar(m.getId(), m.getDuracao());
+        tamanhoPorId.colocar(m.getId(), m.getTamanhoBytes());
+    }
+
+    @Override
+    public synchronized void midiaRemovida(int id) {
+        retirar(id);
+    }
+
+    // chamado com a trava do objeto
+    private void retirar(int id) {
+        int tipo = (int) tipoPorId.remover(id, -1);
+        if (tipo < 0) return;
+        porDuracao[tipo].remove(new Entrada(duracaoPorId.remover(id, 0), id));
+        porTamanho[tipo].remove(new Entrada(tamanhoPorId.remover(id, 0), id));
+    }
+
+    // --- CONSULTAS ---
+
+    /**
+     * Busca as mídias cujo valor está na faixa {@code [minimo, maximo]} (limites inclusivos).
+     *
+     * @param tipo O tipo (sem distinção de caixa), ou {@code null} para todos.
+     * @param criterio "DURACAO" (na unidade de cada tipo) ou "TAMANHO" (em bytes).
+     * @param minimo O menor valor aceito ({@link Long#MIN_VALUE} para sem limite inferior).
+     * @param maximo O maior valor aceito ({@link Long#MAX_VALUE} para sem limite superior).
+     * @return Os IDs encontrados; dentro de cada tipo, em ordem crescente do valor.
+     * @throws IllegalArgumentException Se o critério for desconhecido.
+     */
+    public int[] buscar(String tipo, String criterio, long minimo, long maximo) {
+        NavigableSet<Entrada>[] indice;
+        if ("DURACAO".equalsIgnoreCase(criterio)) indice = porDuracao;
+        else if ("TAMANHO".equalsIgnoreCase(criterio)) indice = porTamanho;
+        else throw new IllegalArgumentException("Critério desconhecido: " + criterio);
+        if (minimo > maximo) return new int[0];
+
+        Entrada de = new Entrada(minimo, Integer.MIN_VALUE);
+        Entrada ate = new Entrada(maximo, Integer.MAX_VALUE);
+        int[] res = new int[16];
+        int n = 0;
+        for (int t = 0; t < TiposMidia.TOTAL; t++) {
+            if (tipo != null && !TiposMidia.nome(t).equalsIgnoreCase(tipo)) continue;
+            for (Entrada e : indice[t].subSet(de, true, ate, true)) {
+                if (n == res.length) res = Arrays.copyOf(res, n * 2);
+                res[n++] = e.id;
+            }
+        }
+        return Arrays.copyOf(res, n);
+    }
+
+    /**
+     * @return O número de mídias indexadas.
+     */
+    public synchronized int tamanho() {
+        return tipoPorId.tamanho();
+    }
+}
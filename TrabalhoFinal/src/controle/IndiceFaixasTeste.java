@@ -0,0 +1,63 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class IndiceFaixasTeste {
+
+    private FileMidiaDAO dao;
+    private IndiceFaixas indice;
+
+    @BeforeEach
+    void setup() throws Exception {
+        dao = new FileMidiaDAO(Files.createTempDirectory("faixas"));
+        dao.salvar(new Livro(1, "c:/a.pdf", 2_000, "A", 80, "Romance", "X"));
+        dao.salvar(new Livro(2, "c:/b.pdf", 3_000, "B", 150, "Romance", "X"));
+        dao.salvar(new Livro(3, "c:/c.pdf", 1_000, "C", 300, "Drama", "X"));
+        dao.salvar(new Filme(4, "c:/d.mp4", 2L << 30, "D", 150, "Ação", "PT"));
+        dao.salvar(new Musica(5, "c:/e.mp3", 5_000_000, "E", 150, "Rock", "Y"));
+        indice = IndiceFaixas.carregar(dao);
+    }
+
+    @Test
+    void testBuscarFaixaPorTipo() {
+        assertArrayEquals(new int[]{2, 3}, indice.buscar("livro", "DURACAO", 100, 300));
+        assertArrayEquals(new int[]{4}, indice.buscar(null, "TAMANHO", 1L << 30, Long.MAX_VALUE));
+        assertArrayEquals(new int[]{3, 1, 2}, indice.buscar("LIVRO", "TAMANHO", Long.MIN_VALUE, Long.MAX_VALUE));
+        int[] todos = indice.buscar(null, "DURACAO", 150, 150);
+        Arrays.sort(todos);
+        assertArrayEquals(new int[]{2, 4, 5}, todos);
+        assertEquals(0, indice.buscar(null, "DURACAO", 500, 100).length);
+        assertThrows(IllegalArgumentException.class, () -> indice.buscar(null, "TITULO", 0, 1));
+    }
+
+    @Test
+    void testAlteracaoERemocao() {
+        indice.midiaSalva(new Livro(1, "c:/a.pdf", 2_000, "A", 200, "Romance", "X"));
+        indice.midiaSalva(new Livro(1, "c:/a.pdf", 2_000, "A", 200, "Romance", "X"));
+        indice.midiaRemovida(3);
+
+        assertEquals(4, indice.tamanho());
+        assertArrayEquals(new int[]{2, 1}, indice.buscar("LIVRO", "DURACAO", 100, 300));
+        assertEquals(0, indice.buscar("LIVRO", "DURACAO", 0, 99).length);
+    }
+
+    @Test
+    void testListarPorFaixaNoControle() throws Exception {
+        MidiaControle controle = new MidiaControle(dao);
+        List<Midia> semIndice = controle.listarPorFaixa(Optional.of("LIVRO"), Optional.of("romance"), "DURACAO", 100, 300);
+
+        controle.usarIndiceFaixas(indice);
+        controle.atualizarMidia(new Livro(1, "c:/a.pdf", 2_000, "A", 120, "Romance", "X"));
+        List<Midia> comIndice = controle.listarPorFaixa(Optional.of("LIVRO"), Optional.of("romance"), "DURACAO", 100, 300);
+
+        assertEquals(List.of(2), semIndice.stream().map(Midia::getId).toList());
+        assertEquals(List.of(1, 2), comIndice.stream().map(Midia::getId).toList());
+    }
+}
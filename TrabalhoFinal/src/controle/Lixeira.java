@@ -0,0 +1,258 @@
+package controle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Midia;
+
+/**
+ * **Lixeira dos Arquivos Físicos Removidos.**
+ *
+ * <p>Divide a remoção de um arquivo em duas fases: {@link #descartar(Midia)} só o renomeia
+ * (de forma atômica) para um diretório de lixeira <b>no mesmo volume</b>, o que é imediato
+ * mesmo para arquivos enormes ou discos lentos; a exclusão de fato ({@code purga}) acontece
+ * em segundo plano depois de {@code retencaoMs}, com no máximo {@code concorrencia} exclusões
+ * simultâneas. Até a purga, {@link #restaurar(int)} devolve o arquivo ao lugar original.</p>
+ *
+ * <p><b>Volumes:</b> cada diretório registrado com {@link #registrarVolume(Path)} atende os
+ * arquivos do seu volume ({@link FileStore}); para o primeiro arquivo de um volume não
+ * registrado, é criado um diretório {@value #DIRETORIO_LOCAL} ao lado dele, que passa a atender
+ * aquele volume. Se o renome atômico não for possível, o arquivo é apagado na hora, como antes.</p>
+ *
+ * <p>As entradas pendentes ficam só em memória: ao reiniciar, o que sobrou nos diretórios
+ * registrados é purgado sem possibilidade de restauração. Os diretórios criados ao lado dos
+ * arquivos são anotados no arquivo indicado em {@link #usarListaDiretorios(Path)} e também são
+ * purgados no início seguinte. É <b>thread-safe</b>.</p>
+ *
+ * @see MidiaControle#usarLixeira(Lixeira)
+ */
+public class Lixeira implements Closeable {
+    /** Nome do diretório de lixeira criado ao lado de arquivos de volumes não registrados. */
+    public static final String DIRETORIO_LOCAL = ".lixeira";
+
+    private static final int PENDENTE = 0, PURGANDO = 1, RESTAURADA = 2;
+
+    private final long retencaoMs;
+    private final ScheduledThreadPoolExecutor purgas;
+    private final Map<FileStore, Path> volumes = new ConcurrentHashMap<>();
+    private final Map<Integer, Entrada> entradas = new ConcurrentHashMap<>();
+    // arquivo com os diretórios DIRETORIO_LOCAL já criados (null = não anotados)
+    private volatile Path listaDiretorios;
+
+    // uma mídia descartada: o arquivo (se havia um) e a cópia do registro, para restaurar
+    private final class Entrada implements Runnable {
+        final Midia midia;
+        final Path original;
+        final Path naLixeira;
+        final AtomicInteger estado = new AtomicInteger(PENDENTE);
+        volatile ScheduledFuture<?> purga;
+
+        Entrada(Midia midia, Path original, Path naLixeira) {
+            this.midia = midia;
+            this.original = original;
+            this.naLixeira = naLixeira;
+        }
+
+        @Override
+        public void run() {
+            if (!estado.compareAndSet(PENDENTE, PURGANDO)) return;
+            entradas.remove(midia.getId(), this);
+            apagar(naLixeira);
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param concorrencia O número máximo de arquivos apagados ao mesmo tempo.
+     * @param retencaoMs Por quanto tempo um arquivo descartado pode ser restaurado.
+     */
+    public Lixeira(int concorrencia, long retencaoMs) {
+        this.retencaoMs = retencaoMs;
+        AtomicInteger n = new AtomicInteger();
+        this.purgas = new ScheduledThreadPoolExecutor(concorrencia, r -> {
+            Thread t = new Thread(r, "lixeira-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        purgas.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Registra o diretório de lixeira de um volume e agenda a purga do que tiver sobrado nele.
+     *
+     * @param diretorio O diretório (criado se não existir).
+     * @throws IOException Se o diretório não puder ser criado ou lido.
+     */
+    public void registrarVolume(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        volumes.put(Files.getFileStore(diretorio), diretorio);
+        purgarSobras(diretorio);
+    }
+
+    private void purgarSobras(Path diretorio) throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(diretorio)) {
+            for (Path p : ds) purgas.schedule(() -> apagar(p), retencaoMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Passa a anotar no arquivo os diretórios {@value #DIRETORIO_LOCAL} criados ao lado dos
+     * arquivos e agenda a purga do que sobrou nos que já estavam anotados; eles passam a atender
+     * os seus volumes, se estes não tiverem sido registrados com {@link #registrarVolume(Path)}.
+     * Diretórios anotados que não existem no momento (ex.: disco desconectado) são ignorados,
+     * mas continuam na lista.
+     *
+     * @param arquivo O arquivo com a lista, um diretório por linha (criado se não existir).
+     * @throws IOException Se a lista ou um dos diretórios não puder ser lido.
+     */
+    public synchronized void usarListaDiretorios(Path arquivo) throws IOException {
+        listaDiretorios = arquivo;
+        if (!Files.exists(arquivo)) return;
+        for (String linha : Files.readAllLines(arquivo)) {
+            if (linha.isBlank()) continue;
+            Path dir = Paths.get(linha);
+            if (!Files.isDirectory(dir)) continue;
+            // um volume já registrado continua com o seu diretório
+            volumes.putIfAbsent(Files.getFileStore(dir), dir);
+            purgarSobras(dir);
+        }
+    }
+
+    /**
+     * Move o arquivo físico da mídia para a lixeira e agenda a sua purga. Sem arquivo físico,
+     * só a cópia do registro é guardada.
+     *
+     * @param m A mídia, como está no catálogo.
+     * @return {@code true} se o arquivo ficou na lixeira; {@code false} se não havia arquivo ou
+     * se ele teve de ser apagado na hora.
+     * @throws IOException Se o arquivo não puder ser movido nem apagado.
+     */
+    public boolean descartar(Midia m) throws IOException {
+        Path original = Paths.get(m.getLocal().replace("\\", "/")).toAbsolutePath().normalize();
+        Path naLixeira = null;
+        if (Files.exists(original)) {
+            Path dir = diretorioPara(original);
+            Path alvo = dir.resolve(m.getId() + "-" + System.nanoTime() + "-" + original.getFileName());
+            try {
+                Files.move(original, alvo, StandardCopyOption.ATOMIC_MOVE);
+                naLixeira = alvo;
+            } catch (AtomicMoveNotSupportedException ex) {
+                // outro dispositivo: copiar seria tão lento quanto apagar
+                Files.delete(original);
+            }
+        }
+        Entrada e = new Entrada(m.copia(), original, naLixeira);
+        Entrada anterior = entradas.put(m.getId(), e);
+        if (anterior != null) purgarAgora(anterior);
+        e.purga = purgas.schedule(e, retencaoMs, TimeUnit.MILLISECONDS);
+        return naLixeira != null;
+    }
+
+    /**
+     * Cancela a purga de uma mídia descartada e devolve o arquivo ao lugar original.
+     *
+     * @param id O ID da mídia.
+     * @return A cópia do registro guardada no descarte, ou vazio se não há o que restaurar
+     * (a purga já começou ou a mídia nunca foi descartada).
+     * @throws IOException Se o arquivo não puder voltar (por exemplo, se outro arquivo ocupou o
+     * lugar); a entrada continua na lixeira.
+     */
+    public Optional<Midia> restaurar(int id) throws IOException {
+        Entrada e = entradas.get(id);
+        if (e == null || !e.estado.compareAndSet(PENDENTE, RESTAURADA)) return Optional.empty();
+        if (e.purga != null) e.purga.cancel(false);
+        try {
+            if (e.naLixeira != null) {
+                // com ATOMIC_MOVE, um arquivo no destino seria sobrescrito sem aviso
+                if (Files.exists(e.original)) throw new FileAlreadyExistsException(e.original.toString());
+                Files.createDirectories(e.original.getParent());
+                Files.move(e.naLixeira, e.original, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException ex) {
+            e.estado.set(PENDENTE);
+            e.purga = purgas.schedule(e, retencaoMs, TimeUnit.MILLISECONDS);
+            throw ex;
+        }
+        entradas.remove(id, e);
+        return Optional.of(e.midia.copia());
+    }
+
+    /**
+     * @param id O ID de uma mídia.
+     * @return {@code true} se a mídia foi descartada e ainda pode ser restaurada.
+     */
+    public boolean isRestauravel(int id) {
+        Entrada e = entradas.get(id);
+        return e != null && e.estado.get() == PENDENTE;
+    }
+
+    /**
+     * @return Quantas mídias descartadas ainda aguardam a purga.
+     */
+    public int getPendentes() {
+        return entradas.size();
+    }
+
+    /**
+     * Antecipa a purga de todas as entradas pendentes e espera que terminem.
+     *
+     * @throws InterruptedException Se a espera for interrompida.
+     */
+    public void purgarTudo() throws InterruptedException {
+        List<Future<?>> futuros = new ArrayList<>();
+        for (Entrada e : entradas.values()) futuros.add(purgarAgora(e));
+        for (Future<?> f : futuros) {
+            try {
+                f.get();
+            } catch (ExecutionException ex) {
+                // apagar() não lança; uma falha aqui só deixa o arquivo para o próximo início
+            }
+        }
+    }
+
+    private Future<?> purgarAgora(Entrada e) {
+        if (e.purga != null) e.purga.cancel(false);
+        return purgas.submit(e);
+    }
+
+    private synchronized Path diretorioPara(Path arquivo) throws IOException {
+        FileStore volume = Files.getFileStore(arquivo);
+        Path dir = volumes.get(volume);
+        if (dir == null) {
+            // atende daqui em diante todo o volume, e fica anotado para ser purgado no próximo início
+            dir = arquivo.resolveSibling(DIRETORIO_LOCAL);
+            Files.createDirectories(dir);
+            volumes.put(volume, dir);
+            Path lista = listaDiretorios;
+            if (lista != null) {
+                Files.writeString(lista, dir + System.lineSeparator(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+        return dir;
+    }
+
+    private static void apagar(Path p) {
+        if (p == null) return;
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Encerra as threads de purga; o que estiver pendente fica no disco e é purgado no próximo
+     * início (nos volumes registrados e nos diretórios anotados). Para apagar antes de encerrar,
+     * chame {@link #purgarTudo()}.
+     */
+    @Override
+    public void close() {
+        purgas.shutdownNow();
+    }
+}
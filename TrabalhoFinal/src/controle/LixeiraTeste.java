@@ -0,0 +1,170 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.Optional;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class LixeiraTeste {
+
+    private Path tempDir;
+    private Path trash;
+    private MidiaControle controle;
+    private Lixeira lixeira;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("lixeira");
+        trash = tempDir.resolve("trash");
+        controle = new MidiaControle(new FileMidiaDAO(tempDir.resolve("data")));
+        lixeira = new Lixeira(2, 60_000);
+        lixeira.registrarVolume(trash);
+        controle.usarLixeira(lixeira);
+    }
+
+    @AfterEach
+    void fechar() {
+        lixeira.close();
+    }
+
+    private Musica incluir(String nome) throws Exception {
+        Path arquivo = tempDir.resolve(nome);
+        Files.write(arquivo, "conteudo".getBytes());
+        Musica m = new Musica(arquivo.toString(), 8, nome, 60, "Rock", "Banda");
+        controle.incluirMedia(m);
+        return m;
+    }
+
+    private long naLixeira() throws Exception {
+        try (java.util.stream.Stream<Path> s = Files.list(trash)) {
+            return s.count();
+        }
+    }
+
+    @Test
+    void testRemoverEDesfazer() throws Exception {
+        Musica m = incluir("a.mp3");
+        Path arquivo = Paths.get(m.getLocal());
+
+        assertTrue(controle.removerMidia(m.getId()));
+        assertFalse(Files.exists(arquivo));
+        assertFalse(controle.buscarPorId(m.getId()).isPresent());
+        assertEquals(1, naLixeira());
+        assertTrue(lixeira.isRestauravel(m.getId()));
+
+        Optional<Midia> restaurada = controle.desfazerRemocao(m.getId());
+        assertTrue(restaurada.isPresent());
+        assertEquals("conteudo", new String(Files.readAllBytes(arquivo)));
+        assertEquals("a.mp3", controle.buscarPorId(m.getId()).get().getTitulo());
+        assertEquals(0, naLixeira());
+        assertEquals(0, lixeira.getPendentes());
+        // nada mais a desfazer
+        assertFalse(controle.desfazerRemocao(m.getId()).isPresent());
+    }
+
+    @Test
+    void testPurgaEncerraODesfazer() throws Exception {
+        Musica a = incluir("a.mp3");
+        Musica b = incluir("b.mp3");
+        controle.removerMidia(a.getId());
+        controle.removerMidia(b.getId());
+        assertEquals(2, lixeira.getPendentes());
+
+        lixeira.purgarTudo();
+
+        assertEquals(0, naLixeira());
+        assertEquals(0, lixeira.getPendentes());
+        assertFalse(controle.desfazerRemocao(a.getId()).isPresent());
+        assertFalse(controle.buscarPorId(a.getId()).isPresent());
+    }
+
+    @Test
+    void testPurgaAposRetencao() throws Exception {
+        lixeira.close();
+        lixeira = new Lixeira(1, 50);
+        lixeira.registrarVolume(trash);
+        controle.usarLixeira(lixeira);
+        Musica m = incluir("a.mp3");
+        controle.removerMidia(m.getId());
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (naLixeira() > 0 && System.currentTimeMillis() < limite) Thread.sleep(20);
+        assertEquals(0, naLixeira());
+        assertFalse(lixeira.isRestauravel(m.getId()));
+    }
+
+    @Test
+    void testRestauroComArquivoNoLugar() throws Exception {
+        Musica m = incluir("a.mp3");
+        controle.removerMidia(m.getId());
+        Files.write(Paths.get(m.getLocal()), "novo".getBytes());
+
+        assertThrows(FileAlreadyExistsException.class, () -> controle.desfazerRemocao(m.getId()));
+        // o arquivo novo não é sobrescrito e o antigo continua restaurável
+        assertEquals("novo", new String(Files.readAllBytes(Paths.get(m.getLocal()))));
+        assertTrue(lixeira.isRestauravel(m.getId()));
+    }
+
+    @Test
+    void testSobrasPurgadasAoRegistrar() throws Exception {
+        Path sobra = trash.resolve("7-123-antigo.mp3");
+        Files.write(sobra, "x".getBytes());
+        Lixeira nova = new Lixeira(1, 0);
+        try {
+            nova.registrarVolume(trash);
+            long limite = System.currentTimeMillis() + 5000;
+            while (Files.exists(sobra) && System.currentTimeMillis() < limite) Thread.sleep(20);
+            assertFalse(Files.exists(sobra));
+        } finally {
+            nova.close();
+        }
+    }
+
+    @Test
+    void testDiretorioLocalAnotadoEPurgadoNoInicio() throws Exception {
+        Path lista = tempDir.resolve("lixeiras.conhecidas");
+        Path midias = Files.createDirectories(tempDir.resolve("midias"));
+        Path outras = Files.createDirectories(tempDir.resolve("outras"));
+        Files.write(midias.resolve("a.mp3"), "x".getBytes());
+        Files.write(outras.resolve("b.mp3"), "y".getBytes());
+
+        // nenhum volume registrado: é o caso de um disco sem raiz do catálogo
+        Lixeira semVolumes = new Lixeira(1, 60_000);
+        Path local = midias.resolve(Lixeira.DIRETORIO_LOCAL);
+        try {
+            semVolumes.usarListaDiretorios(lista);
+            semVolumes.descartar(new Musica(1, midias.resolve("a.mp3").toString(), 1, "A", 1, "Rock", "X"));
+            // o segundo arquivo do mesmo volume vai para o mesmo diretório
+            semVolumes.descartar(new Musica(2, outras.resolve("b.mp3").toString(), 1, "B", 1, "Rock", "X"));
+            assertFalse(Files.exists(outras.resolve(Lixeira.DIRETORIO_LOCAL)));
+            try (java.util.stream.Stream<Path> st = Files.list(local)) {
+                assertEquals(2, st.count());
+            }
+            assertEquals(java.util.List.of(local.toString()), Files.readAllLines(lista));
+        } finally {
+            // encerra com as entradas pendentes
+            semVolumes.close();
+        }
+
+        Lixeira nova = new Lixeira(1, 0);
+        try {
+            nova.usarListaDiretorios(lista);
+            long limite = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < limite) {
+                try (java.util.stream.Stream<Path> st = Files.list(local)) {
+                    if (st.count() == 0) break;
+                }
+                Thread.sleep(20);
+            }
+            try (java.util.stream.Stream<Path> st = Files.list(local)) {
+                assertEquals(0, st.count());
+            }
+        } finally {
+            nova.close();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package controle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import dao.FileMidiaDAO;
+import model.Midia;
+
+/**
+ * **Manutenção Incremental do Armazenamento.**
+ *
+ * <p>Percorre os diretórios de registros ({@link FileMidiaDAO}) uma fatia do espaço de IDs por
+ * vez, em janelas curtas, e em cada fatia:</p>
+ *
+ * <ul>
+ * <li><b>Quarentena:</b> arquivos {@code .tpoo} que não formam uma mídia vão para o diretório
+ * irmão {@code [dir].quarentena}, em vez de serem relidos e reportados a cada listagem;</li>
+ * <li><b>Arquivamento</b> (desligado por padrão, {@link #setArquivarOrfaos(boolean)}): registros
+ * órfãos (o arquivo físico do {@code local} não existe mais, mas o diretório dele existe) são
+ * gravados no diretório irmão {@code [dir].arquivo}, no mesmo formato do catálogo, e removidos do
+ * catálogo com {@link MidiaControle#removerRegistro(int)};</li>
+ * <li><b>Compactação:</b> os demais registros gravados num formato antigo são regravados no
+ * formato atual e os temporários abandonados por escritas interrompidas são apagados
+ * ({@link FileMidiaDAO#manterFatia(int, int, Path, dao.ProcessadorMidia)}).</li>
+ * </ul>
+ *
+ * <p>Um diretório inteiro ausente costuma ser um disco ou compartilhamento desconectado, e não
+ * arquivos apagados; por isso o registro só é considerado órfão se o diretório do arquivo existir.
+ * Com o arquivamento desligado, os registros órfãos ficam no catálogo e são apenas marcados
+ * ({@link ArquivosAusentes}), já que o arquivo pode ter sido renomeado ou movido fora da aplicação;
+ * ligado, o arquivamento prevalece e a marca sai junto com o registro.</p>
+ *
+ * <p><b>Progresso:</b> a próxima fatia fica gravada em {@value #ARQUIVO_CURSOR}, no diretório do
+ * primeiro armazenamento, depois de cada fatia concluída; uma janela interrompida (ou o fechamento
+ * da aplicação) retoma de onde parou.</p>
+ *
+ * @see VerificadorArquivos
+ */
+public class ManutencaoArmazenamento implements Closeable {
+    /** Nome do arquivo com a próxima fatia a processar. */
+    public static final String ARQUIVO_CURSOR = "manutencao.cursor";
+
+    private final MidiaControle controle;
+    private final List<FileMidiaDAO> armazenamentos;
+    private final Map<FileMidiaDAO, FileMidiaDAO> arquivos = new HashMap<>();
+    private final Path cursor;
+    private volatile int totalFatias = 256;
+    private volatile long janelaMs = 200;
+    private volatile long intervaloMs = TimeUnit.MINUTES.toMillis(1);
+    private volatile boolean arquivarOrfaos = false;
+
+    private final Object sinal = new Object();
+    private volatile boolean ativo = false;
+    private Thread thread;
+
+    /**
+     * **Resumo de uma janela.**
+     */
+    public static final class Resultado {
+        private int fatias;
+        private int lidos;
+        private int quarentenados;
+        private int reescritos;
+        private int temporarios;
+        private final List<Integer> arquivados = new ArrayList<>();
+        private boolean passadaConcluida;
+
+        /**
+         * @return Quantas fatias foram processadas.
+         */
+        public int getFatias() {
+            return fatias;
+        }
+
+        /**
+         * @return Quantos arquivos de registro foram lidos.
+         */
+        public int getLidos() {
+            return lidos;
+        }
+
+        /**
+         * @return Quantos arquivos ilegíveis foram movidos para a quarentena.
+         */
+        public int getQuarentenados() {
+            return quarentenados;
+        }
+
+        /**
+         * @return Quantos registros foram regravados no formato atual.
+         */
+        public int getReescritos() {
+            return reescritos;
+        }
+
+        /**
+         * @return Quantos temporários abandonados por escritas interrompidas foram apagados.
+         */
+        public int getTemporarios() {
+            return temporarios;
+        }
+
+        /**
+         * @return Os IDs dos registros órfãos arquivados.
+         */
+        public List<Integer> getArquivados() {
+            return Collections.unmodifiableList(arquivados);
+        }
+
+        /**
+         * @return {@code true} se a janela processou a última fatia do catálogo.
+         */
+        public boolean isPassadaConcluida() {
+            return passadaConcluida;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("fatias=%d lidos=%d quarentenados=%d reescritos=%d temporarios=%d arquivados=%d",
+                    fatias, lidos, quarentenados, reescritos, temporarios, arquivados.size());
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle do catálogo; as remoções passam por ele (travas, DAOs e ouvintes).
+     * @param armazenamentos Os diretórios de registros do catálogo (um, ou as partições).
+     */
+    public ManutencaoArmazenamento(MidiaControle controle, List<FileMidiaDAO> armazenamentos) {
+        if (armazenamentos.isEmpty()) throw new IllegalArgumentException("Nenhum armazenamento");
+        this.controle = controle;
+        this.armazenamentos = List.copyOf(armazenamentos);
+        this.cursor = armazenamentos.get(0).getStorageDir().resolve(ARQUIVO_CURSOR);
+    }
+
+    /**
+     * @param totalFatias Em quantas fatias o catálogo é dividido (padrão: 256). Mudar o valor
+     * recomeça a passada da fatia {@code 0}.
+     */
+    public void setTotalFatias(int totalFatias) {
+        if (totalFatias < 1) throw new IllegalArgumentException("Número de fatias inválido: " + totalFatias);
+        this.totalFatias = totalFatias;
+    }
+
+    /**
+     * @param janelaMs Por quanto tempo uma janela continua iniciando fatias novas (padrão: 200 ms);
+     * cada janela processa ao menos uma fatia.
+     */
+    public void setJanelaMs(long janelaMs) {
+        this.janelaMs = janelaMs;
+    }
+
+    /**
+     * @param intervaloMs A espera entre duas janelas na thread de segundo plano (padrão: 1 minuto).
+     */
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * @param arquivarOrfaos Se os registros órfãos devem ser arquivados e removidos do catálogo
+     * (padrão: {@code false}).
+     */
+    public void setArquivarOrfaos(boolean arquivarOrfaos) {
+        this.arquivarOrfaos = arquivarOrfaos;
+    }
+
+    /**
+     * @return A próxima fatia a ser processada.
+     * @throws IOException Se o cursor não puder ser lido.
+     */
+    public int getProximaFatia() throws IOException {
+        int total = totalFatias;
+        if (!Files.exists(cursor)) return 0;
+        // formato "fatia/total"
+        String[] partes = new String(Files.readAllBytes(cursor), StandardCharsets.UTF_8).trim().split("/");
+        try {
+            if (partes.length == 2 && Integer.parseInt(partes[1]) == total) {
+                int fatia = Integer.parseInt(partes[0]);
+                if (fatia >= 0 && fatia < total) return fatia;
+            }
+        } catch (NumberFormatException ex) {
+            // cursor corrompido: recomeça
+        }
+        return 0;
+    }
+
+    private void gravarCursor(int fatia, int total) throws IOException {
+        Path temp = cursor.resolveSibling(ARQUIVO_CURSOR + ".tmp");
+        Files.write(temp, (fatia + "/" + total).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, cursor, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Processa fatias a partir do cursor até esgotar a janela (ou completar uma volta no catálogo).
+     *
+     * @return O resumo da janela.
+     * @throws Exception Se ocorrer um erro de I/O ou no catálogo; as fatias concluídas antes
+     * continuam registradas no cursor.
+     */
+    public synchronized Resultado executarJanela() throws Exception {
+        int total = totalFatias;
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(janelaMs);
+        Resultado r = new Resultado();
+        int fatia = getProximaFatia();
+        do {
+            manterFatia(fatia, total, r);
+            r.fatias++;
+            fatia = (fatia + 1) % total;
+            if (fatia == 0) r.passadaConcluida = true;
+            gravarCursor(fatia, total);
+        } while (System.nanoTime() < limite && r.fatias < total);
+        return r;
+    }
+
+    private void manterFatia(int fatia, int total, Resultado r) throws Exception {
+        boolean arquivar = arquivarOrfaos;
+        for (FileMidiaDAO a : armazenamentos) {
+            // só anota os órfãos: o arquivamento passa pelo controle, fora da trava do armazenamento
+            List<Integer> orfaos = new ArrayList<>();
+            FileMidiaDAO.Manutencao m = a.manterFatia(fatia, total, irmao(a, ".quarentena"), midia -> {
+                if (arquivar && orfa(midia)) orfaos.add(midia.getId());
+            });
+            r.lidos += m.getLidos();
+            r.quarentenados += m.getQuarentenados();
+            r.reescritos += m.getReescritos();
+            r.temporarios += m.getTemporarios();
+            for (int id : orfaos) {
+                if (arquivar(a, id)) r.arquivados.add(id);
+            }
+        }
+    }
+
+    // relê sob a trava do ID: o arquivo pode ter voltado ou o registro mudado desde a leitura
+    private boolean arquivar(FileMidiaDAO origem, int id) throws Exception {
+        return controle.comTrava(id, () -> {
+            Optional<Midia> opt = controle.buscarPorId(id);
+            if (!opt.isPresent() || !orfa(opt.get())) return false;
+            // grava a cópia antes de remover: uma queda entre os dois passos deixa o registro duplicado, não perdido
+            arquivo(origem).salvar(opt.get());
+            return controle.removerRegistro(id);
+        });
+    }
+
+    private synchronized FileMidiaDAO arquivo(FileMidiaDAO origem) throws IOException {
+        FileMidiaDAO a = arquivos.get(origem);
+        if (a == null) {
+            a = new FileMidiaDAO(irmao(origem, ".arquivo"));
+            arquivos.put(origem, a);
+        }
+        return a;
+    }
+
+    private static Path irmao(FileMidiaDAO a, String sufixo) {
+        Path dir = a.getStorageDir().toAbsolutePath();
+        return dir.resolveSibling(dir.getFileName() + sufixo);
+    }
+
+    private static boolean orfa(Midia m) {
+        String local = m.getLocal();
+        if (local == null || local.isEmpty()) return false;
+        try {
+            Path p = Paths.get(local).toAbsolutePath();
+            return !Files.exists(p) && p.getParent() != null && Files.isDirectory(p.getParent());
+        } catch (InvalidPathException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Inicia a thread (daemon) que executa uma janela a cada {@code intervaloMs}.
+     */
+    public synchronized void iniciar() {
+        if (ativo) return;
+        ativo = true;
+        thread = new Thread(() -> {
+            while (ativo) {
+                try {
+                    synchronized (sinal) {
+                        if (ativo) sinal.wait(intervaloMs);
+                    }
+                    if (ativo) executarJanela();
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (Exception ex) {
+                    // a fatia que falhou é tentada de novo na próxima janela
+                    ex.printStackTrace();
+                }
+            }
+        }, "manutencao-armazenamento");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Para a thread de manutenção depois da fatia em andamento.
+     */
+    @Override
+    public void close() {
+        ativo = false;
+        // sem interrupt: interromper uma escrita em andamento fecharia o canal do arquivo
+        synchronized (sinal) {
+            sinal.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join(2000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class ManutencaoArmazenamentoTeste {
+
+    private Path tempDir;
+    private Path arquivos;
+    private FileMidiaDAO dao;
+    private MidiaControle controle;
+    private ManutencaoArmazenamento manutencao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("manutencao");
+        arquivos = Files.createDirectories(tempDir.resolve("arquivos"));
+        dao = new FileMidiaDAO(tempDir.resolve("data"));
+        controle = new MidiaControle(dao);
+        manutencao = new ManutencaoArmazenamento(controle, List.of(dao));
+    }
+
+    private Musica incluir(int id, boolean comArquivo) throws Exception {
+        Path arquivo = arquivos.resolve(id + ".mp3");
+        if (comArquivo) Files.write(arquivo, new byte[]{1});
+        Musica m = new Musica(id, arquivo.toString(), 1, "M" + id, 60, "Rock", "X");
+        controle.incluirMedia(m);
+        return m;
+    }
+
+    @Test
+    void testArquivaOrfaosEQuarentena() throws Exception {
+        incluir(1, true);
+        incluir(2, false);
+        // o diretório inteiro não existe: pode ser um disco desconectado
+        controle.incluirMedia(new Musica(3, tempDir.resolve("desconectado/3.mp3").toString(), 1, "M3", 60, "Rock", "X"));
+        Files.writeString(dao.getStorageDir().resolve("4.tpoo"), "tipoCod=x");
+        List<Integer> removidos = new ArrayList<>();
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia m) {}
+            public void midiaRemovida(int id) { removidos.add(id); }
+        });
+
+        manutencao.setTotalFatias(1);
+        manutencao.setArquivarOrfaos(true);
+        ManutencaoArmazenamento.Resultado r = manutencao.executarJanela();
+        assertEquals(1, r.getFatias());
+        assertTrue(r.isPassadaConcluida());
+        assertEquals(4, r.getLidos());
+        assertEquals(1, r.getQuarentenados());
+        assertEquals(List.of(2), r.getArquivados());
+        assertEquals(List.of(2), removidos);
+
+        assertFalse(controle.buscarPorId(2).isPresent());
+        assertTrue(controle.buscarPorId(1).isPresent());
+        assertTrue(controle.buscarPorId(3).isPresent());
+        assertTrue(Files.exists(tempDir.resolve("data.quarentena/4.tpoo")));
+        // o registro arquivado continua legível, no formato do catálogo
+        FileMidiaDAO arquivo = new FileMidiaDAO(tempDir.resolve("data.arquivo"));
+        assertEquals("M2", arquivo.buscarPorId(2).get().getTitulo());
+    }
+
+    @Test
+    void testOrfaosFicamNoCatalogoPorPadrao() throws Exception {
+        incluir(1, false);
+        manutencao.setTotalFatias(1);
+        ManutencaoArmazenamento.Resultado r = manutencao.executarJanela();
+        assertEquals(1, r.getLidos());
+        assertTrue(r.getArquivados().isEmpty());
+        assertTrue(controle.buscarPorId(1).isPresent());
+        assertFalse(Files.exists(tempDir.resolve("data.arquivo")));
+    }
+
+    @Test
+    void testCursorContinuaDeOndeParou() throws Exception {
+        for (int i = 1; i <= 8; i++) incluir(i, i != 6);
+        manutencao.setTotalFatias(4);
+        // cada janela processa uma única fatia
+        manutencao.setJanelaMs(0);
+
+        assertEquals(0, manutencao.getProximaFatia());
+        ManutencaoArmazenamento.Resultado r = manutencao.executarJanela();
+        // IDs 4 e 8
+        assertEquals(2, r.getLidos());
+        assertEquals(1, manutencao.getProximaFatia());
+
+        // outra instância (ex.: depois de reabrir a aplicação) retoma na fatia seguinte
+        ManutencaoArmazenamento outra = new ManutencaoArmazenamento(controle, List.of(dao));
+        outra.setTotalFatias(4);
+        outra.setJanelaMs(0);
+        outra.setArquivarOrfaos(true);
+        assertEquals(1, outra.getProximaFatia());
+        outra.executarJanela();
+        r = outra.executarJanela();
+        // fatia 2: IDs 2 e 6
+        assertEquals(List.of(6), r.getArquivados());
+        r = outra.executarJanela();
+        assertTrue(r.isPassadaConcluida());
+        assertEquals(0, outra.getProximaFatia());
+
+        // com outra divisão, a passada recomeça
+        outra.setTotalFatias(8);
+        assertEquals(0, outra.getProximaFatia());
+    }
+
+    @Test
+    void testJanelaFazNoMaximoUmaVolta() throws Exception {
+        incluir(1, true);
+        manutencao.setTotalFatias(16);
+        manutencao.setJanelaMs(60_000);
+        ManutencaoArmazenamento.Resultado r = manutencao.executarJanela();
+        assertEquals(16, r.getFatias());
+        assertEquals(1, r.getLidos());
+        assertTrue(r.isPassadaConcluida());
+    }
+}
@@ -4,13 +4,19 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 import javax.swing.JOptionPane;
 
 import dao.MidiaDAO;
+import dao.ProcessadorMidia;
+import dao.ProcessadorProjecao;
+import dao.TravasPorId;
+import model.Dicionario;
 import model.Midia;
+import model.MidiaSobDemanda;
+import model.Projecao;
 
 /**
  ***Controle da Entidade Mídia**
@@ -21,11 +27,20 @@ import model.Midia;
  * através do {@link MidiaDAO} e gerenciar a manipulação dos **arquivos físicos**
  * associados a cada mídia no sistema de arquivos (mover, renomear e deletar).</p>
  *
+ * <p><b>Concorrência:</b> cada operação de escrita (incluindo a leitura que a precede e a
+ * notificação dos ouvintes) roda com a trava do ID da mídia ({@link TravasPorId}), de modo que
+ * duas alterações no mesmo ID não se intercalam, enquanto IDs diferentes seguem em paralelo.
+ * Consultas não usam travas.</p>
+ *
  * @see Midia
  * @see MidiaDAO
  */
 public class MidiaControle {
 	private final MidiaDAO dao;
+    private final List<OuvinteCatalogo> ouvintes = new CopyOnWriteArrayList<>();
+    private final TravasPorId travas = new TravasPorId();
+    private volatile IndiceFaixas indiceFaixas;
+    private volatile Lixeira lixeira;
 
     /**
      * 🛠️ Construtor que injeta a dependência do DAO (Data Access Object).
@@ -36,6 +51,83 @@ public class MidiaControle {
         this.dao = dao;
     }
 
+    // --- OUVINTES ---
+
+    /**
+     * Registra um ouvinte para ser notificado a cada alteração no catálogo.
+     *
+     * @param ouvinte O {@link OuvinteCatalogo} a ser registrado.
+     */
+    public void adicionarOuvinte(OuvinteCatalogo ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Passa a usar um índice de faixas em {@link #listarPorFaixa}, registrando-o como ouvinte.
+     *
+     * @param indice O índice, já carregado com o conteúdo atual do catálogo.
+     */
+    public void usarIndiceFaixas(IndiceFaixas indice) {
+        adicionarOuvinte(indice);
+        this.indiceFaixas = indice;
+    }
+
+    /**
+     * Passa a remover os arquivos físicos em duas fases: {@link #removerMidia(int)} os move para
+     * a lixeira, que os apaga em segundo plano; até lá, {@link #desfazerRemocao(int)} os recupera.
+     *
+     * @param lixeira A lixeira, com os volumes já registrados.
+     */
+    public void usarLixeira(Lixeira lixeira) {
+        this.lixeira = lixeira;
+    }
+
+    /**
+     * Remove um ouvinte registrado anteriormente.
+     *
+     * @param ouvinte O {@link OuvinteCatalogo} a ser removido.
+     */
+    public void removerOuvinte(OuvinteCatalogo ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    void notificarSalva(Midia m) {
+        for (OuvinteCatalogo o : ouvintes) o.midiaSalva(m);
+    }
+
+    void notificarRemovida(int id) {
+        for (OuvinteCatalogo o : ouvintes) o.midiaRemovida(id);
+    }
+
+    void notificarArquivoAusente(Midia m) {
+        for (OuvinteCatalogo o : ouvintes) o.arquivoAusente(m);
+    }
+
+    // executa uma leitura-modificação-escrita com a trava do ID
+    <T> T comTrava(int id, TravasPorId.Secao<T> secao) throws Exception {
+        return travas.executar(id, secao);
+    }
+
+    // como comTrava, para vários IDs de uma vez
+    <T> T comTravas(Collection<Integer> ids, TravasPorId.Secao<T> secao) throws Exception {
+        return travas.executarTodos(ids, secao);
+    }
+
+    /**
+     * Inicia uma unidade de trabalho: um conjunto de inclusões, alterações, remoções, movimentos e
+     * renomeações confirmado de uma só vez.
+     *
+     * @return A unidade, vazia.
+     * @see UnidadeDeTrabalho
+     */
+    public UnidadeDeTrabalho iniciarUnidade() {
+        return new UnidadeDeTrabalho(this, dao);
+    }
+
+    Lixeira getLixeira() {
+        return lixeira;
+    }
+
     // --- MÉTODOS DE MANIPULAÇÃO DE DADOS (CRUD) ---
 
     /**
@@ -46,8 +138,12 @@ public class MidiaControle {
      * @throws Exception Se ocorrer um erro na camada de persistência.
      */
     public Midia incluirMedia(Midia m) throws Exception {
-        dao.salvar(m);
-        return m;
+        Midia concreta = MidiaSobDemanda.concreta(m);
+        return comTrava(concreta.getId(), () -> {
+            dao.salvar(concreta);
+            notificarSalva(concreta);
+            return concreta;
+        });
     }
 
     /**
@@ -58,7 +154,7 @@ public class MidiaControle {
      */
     public void editarMidia(Midia m) throws Exception {
     	System.out.println("LOCAL ORIGINAL = " + m.getLocal());
-        dao.atualizar(m);
+        atualizarMidia(m);
     }
 
     /**
@@ -69,36 +165,118 @@ public class MidiaControle {
      * @throws Exception Se ocorrer um erro na camada de persistência.
      */
     public void atualizarMidia(Midia m) throws Exception {
-        dao.atualizar(m);
+        Midia concreta = MidiaSobDemanda.concreta(m);
+        comTrava(concreta.getId(), () -> {
+            dao.atualizar(concreta);
+            notificarSalva(concreta);
+            return null;
+        });
+    }
+
+    /**
+     * Inclui ou substitui um lote de mídias com uma única chamada ao DAO ({@link MidiaDAO#salvarLote(List)}).
+     * <p>Com as travas de todos os IDs do lote (obtidas em ordem, como na
+     * {@link UnidadeDeTrabalho}); os ouvintes são notificados, ainda com as travas, depois que o
+     * lote inteiro foi gravado.</p>
+     *
+     * @param lote As mídias a gravar.
+     * @throws Exception Se ocorrer um erro na camada de persistência.
+     */
+    public void salvarLote(List<Midia> lote) throws Exception {
+        List<Midia> concretas = lote;
+        for (int i = 0; i < lote.size(); i++) {
+            if (lote.get(i) instanceof MidiaSobDemanda) {
+                // só copia a lista se houver mídias sob demanda
+                if (concretas == lote) concretas = new ArrayList<>(lote);
+                concretas.set(i, MidiaSobDemanda.concreta(lote.get(i)));
+            }
+        }
+        List<Midia> gravar = concretas;
+        comTravas(TravasPorId.ids(gravar, Collections.emptyList()), () -> {
+            dao.salvarLote(gravar);
+            for (Midia m : gravar) notificarSalva(m);
+            return null;
+        });
     }
 
     /**
      *Remove a mídia do armazenamento persistente e, se existir, deleta o arquivo físico associado.
-     * <p>Executa uma exclusão dupla: <b>registro lógico</b> (DAO) e <b>arquivo físico</b>.</p>
+     * <p>Executa uma exclusão dupla: <b>registro lógico</b> (DAO) e <b>arquivo físico</b>. Com uma
+     * {@link Lixeira}, o arquivo só é movido para ela e apagado mais tarde, em segundo plano.</p>
      *
      * @param i O ID (inteiro) da mídia a ser removida.
      * @return {@code true} se o registro foi deletado do DAO; {@code false} se a mídia não foi encontrada.
      * @throws Exception Se ocorrer um erro de I/O ao tentar deletar o arquivo ou um erro na camada DAO.
      */
     public boolean removerMidia(int i) throws Exception {
+        return comTrava(i, () -> removerMidiaTravada(i));
+    }
+
+    private boolean removerMidiaTravada(int i) throws Exception {
         Optional<Midia> opt = dao.buscarPorId(i);
         if (opt.isPresent()) {
             Midia m = opt.get();
-
-            // NORMALIZAR O CAMINHO (trocar \ por /)
-            String caminho = m.getLocal().replace("\\", "/");
-            Path arquivo = Paths.get(caminho).normalize();
-
-            // apagar o arquivo físico, se existir
-            if (Files.exists(arquivo)) {
-                Files.delete(arquivo);
+            Lixeira l = lixeira;
+
+            if (l != null) {
+                // só um renome no mesmo volume; a exclusão fica para a lixeira
+                l.descartar(m);
+            } else {
+                // NORMALIZAR O CAMINHO (trocar \ por /)
+                String caminho = m.getLocal().replace("\\", "/");
+                Path arquivo = Paths.get(caminho).normalize();
+
+                // apagar o arquivo físico, se existir
+                if (Files.exists(arquivo)) {
+                    Files.delete(arquivo);
+                }
             }
             // remover o .tpoo
-            return dao.deletar(i);
+            boolean removido = dao.deletar(i);
+            if (removido) notificarRemovida(i);
+            return removido;
         }
         return false;
     }
 
+    /**
+     * Desfaz uma remoção feita com a lixeira ativa ({@link #usarLixeira(Lixeira)}): o arquivo
+     * físico volta ao lugar original e o registro é gravado de novo.
+     *
+     * @param id O ID da mídia removida.
+     * @return A mídia restaurada, ou vazio se não há lixeira ou se o arquivo já foi purgado.
+     * @throws IOException Se o arquivo não puder voltar ao lugar original.
+     * @throws Exception Se ocorrer um erro na camada DAO.
+     */
+    public Optional<Midia> desfazerRemocao(int id) throws Exception {
+        Lixeira l = lixeira;
+        if (l == null) return Optional.empty();
+        return comTrava(id, () -> {
+            Optional<Midia> opt = l.restaurar(id);
+            if (opt.isPresent()) {
+                dao.salvar(opt.get());
+                notificarSalva(opt.get());
+            }
+            return opt;
+        });
+    }
+
+    /**
+     *Remove apenas o registro da mídia, sem tocar no arquivo físico.
+     * <p>Usado quando o arquivo físico já não existe (ex.: foi apagado fora da aplicação).</p>
+     *
+     * @param id O ID da mídia cujo registro será removido.
+     * @return {@code true} se o registro foi deletado do DAO; {@code false} se ele não existia.
+     * @throws Exception Se ocorrer um erro na camada DAO.
+     */
+    public boolean removerRegistro(int id) throws Exception {
+        return comTrava(id, () -> {
+            boolean removido = dao.deletar(id);
+            if (removido) notificarRemovida(id);
+            return removido;
+        });
+    }
+
     /**
      *Move o arquivo físico associado a uma mídia para um novo diretório e atualiza o registro no DAO.
      *
@@ -108,6 +286,13 @@ public class MidiaControle {
      * @throws Exception Se ocorrer um erro de I/O durante a movimentação do arquivo ou um erro no DAO.
      */
     public void moverMedia(int id, Path destinoDir) throws Exception {
+        comTrava(id, () -> {
+            moverMediaTravada(id, destinoDir);
+            return null;
+        });
+    }
+
+    private void moverMediaTravada(int id, Path destinoDir) throws Exception {
         Optional<Midia> opt = dao.buscarPorId(id);
         if (opt.isPresent()) {
             Midia m = opt.get();
@@ -124,6 +309,7 @@ public class MidiaControle {
             // atualizar o caminho no objeto e persistir
             m.setLocal(alvo.toString());
             dao.atualizar(m);
+            notificarSalva(m);
 
         } else {
             throw new IllegalArgumentException("Arquivo não encontrado: " + id);
@@ -143,6 +329,13 @@ public class MidiaControle {
      * @throws Exception Se ocorrer um erro na camada DAO.
      */
     public void renomearArquivo(int id, String novoNome) throws Exception {
+        comTrava(id, () -> {
+            renomearArquivoTravado(id, novoNome);
+            return null;
+        });
+    }
+
+    private void renomearArquivoTravado(int id, String novoNome) throws Exception {
         Optional<Midia> opt = dao.buscarPorId(id);
         if (!opt.isPresent()) {
             throw new IllegalArgumentException("Arquivo não encontrado: " + id);
@@ -150,7 +343,19 @@ public class MidiaControle {
 
         Midia m = opt.get();
         Path origem = Paths.get(m.getLocal());
+        Path destino = destinoRenomeado(origem, novoNome);
+
+        // Renomear (mover)
+        Files.move(origem, destino);
+
+        // Atualizar no objeto e no DAO
+        m.setLocal(destino.toString());
+        dao.atualizar(m);
+        notificarSalva(m);
+    }
 
+    // valida a renomeação e devolve o novo caminho, com a extensão original
+    static Path destinoRenomeado(Path origem, String novoNome) throws IOException {
         // Verifica se arquivo existe
         if (!Files.exists(origem)) {
             throw new IOException("Arquivo físico não existe: " + origem);
@@ -178,16 +383,26 @@ public class MidiaControle {
         if (Files.exists(destino)) {
             throw new IOException("Já existe um arquivo com esse nome: " + destino);
         }
+        return destino;
+    }
 
-        // Renomear (mover)
-        Files.move(origem, destino);
+    // --- MÉTODOS DE CONSULTA E FILTRAGEM ---
 
-        // Atualizar no objeto e no DAO
-        m.setLocal(destino.toString());
-        dao.atualizar(m);
+    /**
+     * Busca uma mídia pelo seu ID no armazenamento persistente.
+     *
+     * @param id O ID da mídia.
+     * @return Um {@code Optional<Midia>} com a mídia, ou vazio se ela não existir.
+     * @throws Exception Se ocorrer um erro na camada DAO.
+     */
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        return dao.buscarPorId(id);
     }
 
-    // --- MÉTODOS DE CONSULTA E FILTRAGEM ---
+    // relê do armazenamento, ignorando caches do DAO (alterações feitas fora da aplicação)
+    Optional<Midia> recarregar(int id) throws Exception {
+        return dao.recarregar(id);
+    }
 
     /**
      * Lista todos os registros de mídia do armazenamento persistente.
@@ -209,45 +424,227 @@ public class MidiaControle {
      * <ul>
      * <li>"ALFABETICA": Ordena por {@code Midia.titulo} (case-insensitive).</li>
      * <li>"DURACAO": Ordena por {@code Midia.duracao}.</li>
+     * <li>"TAMANHO": Ordena por {@code Midia.tamanhoBytes}.</li>
      * </ul>
      * </li>
      * </ul>
      *
      * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
      * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
-     * @param ordenar {@code Optional<String>} com o critério de ordenação ("ALFABETICA" ou "DURACAO").
+     * @param ordenar {@code Optional<String>} com o critério de ordenação ("ALFABETICA", "DURACAO" ou "TAMANHO").
      * @return Uma {@code List} de {@link Midia} filtrada e/ou ordenada.
      * @throws Exception Se ocorrer um erro ao buscar todos os registros no DAO.
      */
     public List<Midia> listarFiltrados(Optional<String> tipoOpt, Optional<String> categoriaOpt, Optional<String> ordenar) throws Exception {
-        List<Midia> all = listarTodos();
-        Stream<Midia> s = all.stream();
-
-        // Aplica Filtro por Tipo
-        if (tipoOpt.isPresent()) {
-            String t = tipoOpt.get();
-            s = s.filter(m -> m.getTipo().equalsIgnoreCase(t));
-        }
-
-        // Aplica Filtro por Categoria
-        if (categoriaOpt.isPresent()) {
-            String c = categoriaOpt.get();
-            s = s.filter(m -> m.getCategoria()!=null && m.getCategoria().equalsIgnoreCase(c));
-        }
-
-        List<Midia> res = s.collect(Collectors.toList());
-
         // Aplica Ordenação
+        Comparator<Midia> ordem = null;
         if (ordenar.isPresent()) {
             String o = ordenar.get();
             if ("ALFABETICA".equalsIgnoreCase(o)) {
                 // Ordena por título, colocando nulos por último
-                res.sort(Comparator.comparing(Midia::getTitulo, Comparator.nullsLast(String::compareToIgnoreCase)));
+                ordem = Comparator.comparing(Midia::getTitulo, Comparator.nullsLast(String::compareToIgnoreCase));
             } else if ("DURACAO".equalsIgnoreCase(o)) {
                 // Ordena por duração
-                res.sort(Comparator.comparingLong(Midia::getDuracao));
+                ordem = Comparator.comparingLong(Midia::getDuracao);
+            } else if ("TAMANHO".equalsIgnoreCase(o)) {
+                // Ordena por tamanho do arquivo
+                ordem = Comparator.comparingLong(Midia::getTamanhoBytes);
             }
         }
+        // o DAO filtra e ordena (um DAO particionado intercala as partições já ordenadas)
+        return dao.listarOrdenado(filtro(tipoOpt, categoriaOpt), ordem);
+    }
+
+    /**
+     * Retorna as {@code k} mídias com os maiores (ou menores) valores de duração ou tamanho,
+     * entre as que passam pelos filtros de tipo e categoria.
+     *
+     * <p>Em vez de ordenar a lista inteira, percorre o catálogo uma vez mantendo um <b>heap
+     * limitado</b> a {@code k} elementos: custo O(N log k) e memória O(k). Empates são
+     * desfeitos pelo ID, para que o resultado não dependa da ordem de leitura.</p>
+     *
+     * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
+     * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
+     * @param criterio "DURACAO" ou "TAMANHO".
+     * @param k O número máximo de mídias retornadas.
+     * @param maiores {@code true} para os maiores valores (em ordem decrescente); {@code false}
+     * para os menores (em ordem crescente).
+     * @return Até {@code k} mídias, da mais extrema para a menos extrema.
+     * @throws IllegalArgumentException Se o critério for desconhecido ou {@code k} for negativo.
+     * @throws Exception Se ocorrer um erro no DAO.
+     */
+    public List<Midia> listarExtremos(Optional<String> tipoOpt, Optional<String> categoriaOpt,
+            String criterio, int k, boolean maiores) throws Exception {
+        if (k < 0) throw new IllegalArgumentException("k negativo: " + k);
+        Comparator<Midia> ordem;
+        if ("DURACAO".equalsIgnoreCase(criterio)) {
+            ordem = Comparator.comparingLong(Midia::getDuracao);
+        } else if ("TAMANHO".equalsIgnoreCase(criterio)) {
+            ordem = Comparator.comparingLong(Midia::getTamanhoBytes);
+        } else {
+            throw new IllegalArgumentException("Critério desconhecido: " + criterio);
+        }
+        // "melhor" primeiro: o topo do heap é o pior dos k guardados, o primeiro a sair
+        Comparator<Midia> melhor = (maiores ? ordem.reversed() : ordem).thenComparingInt(Midia::getId);
+        PriorityQueue<Midia> heap = new PriorityQueue<>(Math.max(1, k), melhor.reversed());
+        if (k > 0) {
+            percorrerFiltrados(tipoOpt, categoriaOpt, m -> {
+                if (heap.size() < k) {
+                    heap.add(m);
+                } else if (melhor.compare(m, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(m);
+                }
+            });
+        }
+        List<Midia> res = new ArrayList<>(heap);
+        res.sort(melhor);
         return res;
     }
+
+    /**
+     * Lista as mídias cuja duração ou tamanho está na faixa {@code [minimo, maximo]} (limites
+     * inclusivos), aplicando também os filtros de tipo e categoria.
+     *
+     * <p>Com um {@link IndiceFaixas} (ver {@link #usarIndiceFaixas(IndiceFaixas)}), só as mídias
+     * da faixa são lidas do DAO; sem ele, o catálogo inteiro é percorrido. Como a {@code duracao}
+     * tem unidade diferente em cada tipo (segundos, minutos ou páginas), faixas de duração
+     * normalmente vêm acompanhadas do filtro por tipo.</p>
+     *
+     * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
+     * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
+     * @param criterio "DURACAO" ou "TAMANHO".
+     * @param minimo O menor valor aceito ({@link Long#MIN_VALUE} para sem limite inferior).
+     * @param maximo O maior valor aceito ({@link Long#MAX_VALUE} para sem limite superior).
+     * @return As mídias da faixa; com o índice, em ordem crescente do valor dentro de cada tipo.
+     * @throws IllegalArgumentException Se o critério for desconhecido.
+     * @throws Exception Se ocorrer um erro no DAO.
+     */
+    public List<Midia> listarPorFaixa(Optional<String> tipoOpt, Optional<String> categoriaOpt,
+            String criterio, long minimo, long maximo) throws Exception {
+        boolean porDuracao = "DURACAO".equalsIgnoreCase(criterio);
+        if (!porDuracao && !"TAMANHO".equalsIgnoreCase(criterio)) {
+            throw new IllegalArgumentException("Critério desconhecido: " + criterio);
+        }
+        // o valor é conferido de novo: a mídia pode ter mudado entre o índice e a leitura
+        Predicate<Midia> f = filtro(tipoOpt, categoriaOpt).and(m -> {
+            long v = porDuracao ? m.getDuracao() : m.getTamanhoBytes();
+            return v >= minimo && v <= maximo;
+        });
+        List<Midia> res = new ArrayList<>();
+        IndiceFaixas indice = indiceFaixas;
+        if (indice != null) {
+            for (int id : indice.buscar(tipoOpt.orElse(null), criterio, minimo, maximo)) {
+                Optional<Midia> m = dao.buscarPorId(id);
+                if (m.isPresent() && f.test(m.get())) res.add(m.get());
+            }
+        } else {
+            dao.percorrer(m -> {
+                if (f.test(m)) res.add(m);
+            });
+        }
+        return res;
+    }
+
+    /**
+     * Percorre, sem montar uma lista, as mídias que passam pelos filtros de tipo e categoria
+     * (mesmas regras de {@link #listarFiltrados(Optional, Optional, Optional)}).
+     *
+     * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
+     * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia aceita.
+     * @throws Exception Se ocorrer um erro no DAO ou se o processador lançar uma exceção.
+     */
+    public void percorrerFiltrados(Optional<String> tipoOpt, Optional<String> categoriaOpt, ProcessadorMidia processador) throws Exception {
+        Predicate<Midia> f = filtro(tipoOpt, categoriaOpt);
+        dao.percorrer(m -> {
+            if (f.test(m)) processador.processar(m);
+        });
+    }
+
+    /**
+     * Percorre, lendo só alguns campos de cada mídia, as que passam pelos filtros de tipo e
+     * categoria (mesmas regras de {@link #listarFiltrados(Optional, Optional, Optional)}).
+     *
+     * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
+     * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
+     * @param campos Os campos desejados; a categoria é lida também se for usada no filtro.
+     * @param processador O {@link ProcessadorProjecao} chamado para cada mídia aceita.
+     * @throws Exception Se ocorrer um erro no DAO ou se o processador lançar uma exceção.
+     */
+    public void percorrerProjecao(Optional<String> tipoOpt, Optional<String> categoriaOpt,
+            Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        Set<Projecao.Campo> lidos = EnumSet.noneOf(Projecao.Campo.class);
+        lidos.addAll(campos);
+        if (categoriaOpt.isPresent()) lidos.add(Projecao.Campo.CATEGORIA);
+        String tipo = tipoOpt.orElse(null);
+        List<String> variantes = categoriaOpt.map(Dicionario.CATEGORIAS::variantes).orElse(null);
+        dao.percorrerProjecao(lidos, p -> {
+            if (tipo != null && !tipo.equalsIgnoreCase(p.getTipo())) return;
+            if (variantes != null && !variantes.contains(p.getCategoria())) return;
+            processador.processar(p);
+        });
+    }
+
+    /**
+     * Lista as mídias como {@link MidiaSobDemanda}: só os campos pedidos são lidos; os demais
+     * são carregados (por {@link #buscarPorId(int)}) no primeiro acesso a cada mídia.
+     * <p>Filtros e ordenação seguem {@link #listarFiltrados(Optional, Optional, Optional)}; o
+     * campo usado na ordenação é lido junto com os pedidos.</p>
+     *
+     * @param tipoOpt {@code Optional<String>} com o tipo de mídia para filtrar.
+     * @param categoriaOpt {@code Optional<String>} com a categoria de mídia para filtrar.
+     * @param ordenar {@code Optional<String>} com o critério de ordenação ("ALFABETICA", "DURACAO" ou "TAMANHO").
+     * @param campos Os campos lidos de imediato.
+     * @return As mídias, filtradas e ordenadas.
+     * @throws Exception Se ocorrer um erro no DAO.
+     */
+    public List<Midia> listarSobDemanda(Optional<String> tipoOpt, Optional<String> categoriaOpt,
+            Optional<String> ordenar, Set<Projecao.Campo> campos) throws Exception {
+        Set<Projecao.Campo> lidos = EnumSet.noneOf(Projecao.Campo.class);
+        lidos.addAll(campos);
+        Comparator<Midia> ordem = null;
+        String o = ordenar.orElse("");
+        if ("ALFABETICA".equalsIgnoreCase(o)) {
+            lidos.add(Projecao.Campo.TITULO);
+            ordem = Comparator.comparing(Midia::getTitulo, Comparator.nullsLast(String::compareToIgnoreCase));
+        } else if ("DURACAO".equalsIgnoreCase(o)) {
+            lidos.add(Projecao.Campo.DURACAO);
+            ordem = Comparator.comparingLong(Midia::getDuracao);
+        } else if ("TAMANHO".equalsIgnoreCase(o)) {
+            lidos.add(Projecao.Campo.TAMANHO);
+            ordem = Comparator.comparingLong(Midia::getTamanhoBytes);
+        }
+        List<Midia> res = new ArrayList<>();
+        percorrerProjecao(tipoOpt, categoriaOpt, lidos, p -> res.add(new MidiaSobDemanda(p, this::buscarPorId)));
+        if (ordem != null) res.sort(ordem);
+        return res;
+    }
+
+    private static Predicate<Midia> filtro(Optional<String> tipoOpt, Optional<String> categoriaOpt) {
+        Predicate<Midia> f = m -> true;
+
+        // Aplica Filtro por Tipo
+        if (tipoOpt.isPresent()) {
+            // getTipo() devolve sempre a mesma constante: basta compará-la por referência
+            String t = tipoOpt.get().toUpperCase(Locale.ROOT).intern();
+            f = f.and(m -> m.getTipo() == t);
+        }
+
+        // Aplica Filtro por Categoria
+        if (categoriaOpt.isPresent()) {
+            // as categorias são instâncias canônicas do dicionário: compara por referência
+            // com as variantes (maiúsculas/minúsculas) da categoria procurada
+            String[] variantes = Dicionario.CATEGORIAS.variantes(categoriaOpt.get()).toArray(new String[0]);
+            f = f.and(m -> contemReferencia(variantes, m.getCategoria()));
+        }
+        return f;
+    }
+
+    private static boolean contemReferencia(String[] valores, String v) {
+        for (String x : valores) {
+            if (x == v) return true;
+        }
+        return false;
+    }
 }
\ No newline at end of file
@@ -84,6 +84,128 @@ class MidiaControleTeste {
         assertTrue(renomeada.getLocal().contains("NovoNome.mp3"));
     }
 
+    @Test
+    void testListarFiltradosIgnoraCaixa() throws Exception {
+        controle.incluirMedia(new Musica("c:/a.mp3", 1, "A", 1, "Rock", "X"));
+        controle.incluirMedia(new Musica("c:/b.mp3", 1, "B", 1, "rock", "Y"));
+        controle.incluirMedia(new Filme("c:/c.mp4", 1, "C", 1, "Rock", "EN"));
+
+        List<Midia> res = controle.listarFiltrados(Optional.of("musica"), Optional.of("ROCK"), Optional.empty());
+        assertEquals(2, res.size());
+    }
+
+    @Test
+    void testAtualizacoesConcorrentesNoMesmoId() throws Exception {
+        Musica m = new Musica("c:/c.mp3", 0, "Concorrente", 10, "Pop", "A");
+        controle.incluirMedia(m);
+        List<Long> notificados = Collections.synchronizedList(new ArrayList<>());
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia s) { notificados.add(s.getTamanhoBytes()); }
+            public void midiaRemovida(int id) { }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 1; t <= 8; t++) {
+            long tamanho = t;
+            threads.add(Thread.startVirtualThread(() -> {
+                try {
+                    for (int i = 0; i < 20; i++) {
+                        Musica copia = new Musica(m.getId(), "c:/c.mp3", tamanho, "Concorrente", 10, "Pop", "A");
+                        controle.atualizarMidia(copia);
+                    }
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }));
+        }
+        for (Thread t : threads) t.join();
+
+        // o arquivo nunca fica corrompido e o último notificado é o que ficou gravado
+        Midia gravada = dao.buscarPorId(m.getId()).get();
+        assertEquals(160, notificados.size());
+        assertEquals((long) notificados.get(159), gravada.getTamanhoBytes());
+    }
 
+    @Test
+    void testListarExtremos() throws Exception {
+        Random r = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            // tamanhos repetidos: o desempate é pelo ID
+            controle.incluirMedia(new Musica("c:/m" + i + ".mp3", r.nextInt(50), "M" + i, r.nextInt(1000),
+                    i % 2 == 0 ? "Rock" : "Pop", "X"));
+        }
+        for (boolean maiores : new boolean[] {true, false}) {
+            Comparator<Midia> ordem = Comparator.comparingLong(Midia::getTamanhoBytes);
+            if (maiores) ordem = ordem.reversed();
+            List<Integer> esperado = controle.listarFiltrados(Optional.empty(), Optional.of("rock"), Optional.empty()).stream()
+                    .sorted(ordem.thenComparingInt(Midia::getId)).limit(10).map(Midia::getId).toList();
+            List<Integer> obtido = controle.listarExtremos(Optional.empty(), Optional.of("rock"), "TAMANHO", 10, maiores)
+                    .stream().map(Midia::getId).toList();
+            assertEquals(esperado, obtido);
+        }
+        assertEquals(200, controle.listarExtremos(Optional.of("MUSICA"), Optional.empty(), "DURACAO", 500, true).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> controle.listarExtremos(Optional.empty(), Optional.empty(), "TITULO", 5, true));
+    }
 
+    @Test
+    void testListarSobDemandaECarregarAoEditar() throws Exception {
+        controle.incluirMedia(new Musica(1, "c:/a.mp3", 30, "Beta", 200, "Rock", "X"));
+        controle.incluirMedia(new Musica(2, "c:/b.mp3", 10, "Alfa", 100, "Rock", "Y"));
+        controle.incluirMedia(new Filme(3, "c:/c.mp4", 20, "Gama", 90, "Ação", "PT"));
+
+        List<Midia> lista = controle.listarSobDemanda(Optional.of("musica"), Optional.of("rock"),
+                Optional.of("ALFABETICA"), EnumSet.of(Projecao.Campo.DURACAO));
+        assertEquals(List.of(2, 1), lista.stream().map(Midia::getId).toList());
+        MidiaSobDemanda m = (MidiaSobDemanda) lista.get(0);
+        assertEquals(100, m.getDuracao());
+        assertFalse(m.isCarregada());
+
+        // edição a partir da mídia sob demanda: o subtipo e o atributo específico são preservados
+        m.setTitulo("Alfa 2");
+        controle.atualizarMidia(m);
+        Musica gravada = (Musica) dao.buscarPorId(2).get();
+        assertEquals("Alfa 2", gravada.getTitulo());
+        assertEquals("Y", gravada.getArtista());
+        assertEquals("c:/b.mp3", gravada.getLocal());
+    }
+
+    @Test
+    void testSalvarLoteEsperaATravaDoId() throws Exception {
+        java.util.concurrent.CountDownLatch travado = new java.util.concurrent.CountDownLatch(1);
+        java.util.concurrent.CountDownLatch liberar = new java.util.concurrent.CountDownLatch(1);
+        Thread edicao = new Thread(() -> {
+            try {
+                controle.comTrava(5, () -> {
+                    travado.countDown();
+                    liberar.await();
+                    return null;
+                });
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        edicao.start();
+        travado.await();
+
+        Thread lote = new Thread(() -> {
+            try {
+                controle.salvarLote(List.of(new Musica(4, "c:/a.mp3", 1, "A", 1, "Pop", "X"),
+                        new Musica(5, "c:/b.mp3", 1, "B", 1, "Pop", "X")));
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        lote.start();
+        lote.join(200);
+        // o lote inclui o ID 5, ocupado pela edição
+        assertTrue(lote.isAlive());
+        assertFalse(dao.buscarPorId(4).isPresent());
+
+        liberar.countDown();
+        lote.join(5000);
+        edicao.join(5000);
+        assertTrue(dao.buscarPorId(4).isPresent());
+        assertTrue(dao.buscarPorId(5).isPresent());
+    }
 }
@@ -0,0 +1,48 @@
+package controle;
+
+import model.Midia;
+
+/**
+ * **Ouvinte de Alterações no Catálogo de Mídias.**
+ *
+ * <p>Interface implementada por qualquer componente que precise acompanhar, de forma
+ * <b>incremental</b>, as alterações feitas no catálogo (caches, índices, a tabela da
+ * interface gráfica etc.), sem precisar recarregar tudo com {@code listarTodos}.</p>
+ *
+ * <p>Os ouvintes são registrados em {@link MidiaControle#adicionarOuvinte(OuvinteCatalogo)}
+ * e são notificados tanto pelas operações feitas pela própria aplicação quanto pelas
+ * alterações externas detectadas pelo {@link SincronizadorArquivos}.</p>
+ *
+ * <p>As notificações podem chegar de threads diferentes da thread da interface gráfica
+ * e devem ser tratadas como <b>idempotentes</b>: a mesma mídia pode ser notificada mais
+ * de uma vez.</p>
+ *
+ * @see MidiaControle
+ * @see SincronizadorArquivos
+ */
+public interface OuvinteCatalogo {
+
+    /**
+     * Chamado quando uma mídia é incluída ou tem seu registro alterado.
+     *
+     * @param m A mídia no seu estado mais recente.
+     */
+    void midiaSalva(Midia m);
+
+    /**
+     * Chamado quando o registro de uma mídia deixa de existir no catálogo.
+     *
+     * @param id O ID da mídia removida.
+     */
+    void midiaRemovida(int id);
+
+    /**
+     * Chamado quando o arquivo físico referenciado por {@link Midia#getLocal()} deixa de existir,
+     * mas o registro continua no catálogo.
+     * <p>A implementação padrão não faz nada.</p>
+     *
+     * @param m A mídia cujo arquivo físico não foi encontrado.
+     */
+    default void arquivoAusente(Midia m) {
+    }
+}
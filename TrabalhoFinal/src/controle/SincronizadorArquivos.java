@@ -0,0 +1,391 @@
+package controle;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import dao.FileMidiaDAO;
+import model.Midia;
+
+/**
+ * **Sincronizador entre o Catálogo e o Sistema de Arquivos.**
+ *
+ * <p>Observa, em segundo plano e via {@link WatchService}, o diretório de armazenamento
+ * dos registros {@code .tpoo} e os diretórios dos arquivos físicos referenciados por
+ * {@link Midia#getLocal()}. Alterações feitas <b>fora da aplicação</b> são repassadas de
+ * forma incremental para o {@link MidiaControle}, que notifica seus {@link OuvinteCatalogo}.</p>
+ *
+ * <ul>
+ * <li><b>Registro alterado ou criado:</b> a mídia é relida e notificada como salva.</li>
+ * <li><b>Registro apagado:</b> a mídia é notificada como removida.</li>
+ * <li><b>Arquivo físico alterado:</b> o {@code tamanhoBytes} do registro é atualizado.</li>
+ * <li><b>Arquivo físico apagado:</b> a mídia é notificada como {@code arquivoAusente} ou,
+ * se {@link #setRemoverOrfaos(boolean)} estiver ativo, tem o registro removido.</li>
+ * </ul>
+ *
+ * <p><b>Debounce:</b> os eventos são acumulados e agrupados por caminho; o lote só é processado
+ * depois de um período sem novos eventos ({@code debounceMs}) ou, numa tempestade contínua de
+ * eventos, depois de {@code esperaMaximaMs}. Cada caminho é processado uma única vez por lote,
+ * sempre a partir do estado atual do disco.</p>
+ *
+ * <p><b>Overflow:</b> quando o sistema operacional descarta eventos, apenas o diretório afetado
+ * é reescaneado.</p>
+ *
+ * <p>No layout fragmentado do {@link FileMidiaDAO}, cada subdiretório de registros é observado;
+ * subdiretórios criados depois do início (inclusive durante uma migração) são registrados e
+ * escaneados assim que aparecem.</p>
+ *
+ * @see OuvinteCatalogo
+ * @see MidiaControle
+ */
+public class SincronizadorArquivos implements OuvinteCatalogo, Closeable {
+    private static final String EXTENSAO = ".tpoo";
+
+    private final MidiaControle controle;
+    private final FileMidiaDAO dao;
+    private final Path storageDir;
+    private final long debounceMs;
+    private final long esperaMaximaMs;
+    private volatile boolean removerOrfaos = false;
+
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean ativo = false;
+
+    private final Map<WatchKey, Path> diretorios = new ConcurrentHashMap<>();
+    private final Set<Path> diretoriosRegistrados = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Set<Integer>> idsPorLocal = new ConcurrentHashMap<>();
+    private final Map<Integer, Path> localPorId = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> versaoPorId = new ConcurrentHashMap<>();
+
+    // acessados apenas pela thread do sincronizador
+    private final Set<Path> pendentes = new LinkedHashSet<>();
+    private final Set<Path> reescanear = new LinkedHashSet<>();
+
+    /**
+     * Construtor com os intervalos padrão (300 ms de debounce e 2 s de espera máxima).
+     *
+     * @param controle O controle que receberá as atualizações incrementais.
+     * @param dao O DAO que grava os arquivos {@code .tpoo} (define o diretório e o layout).
+     */
+    public SincronizadorArquivos(MidiaControle controle, FileMidiaDAO dao) {
+        this(controle, dao, 300, 2000);
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param controle O controle que receberá as atualizações incrementais.
+     * @param dao O DAO que grava os arquivos {@code .tpoo} (define o diretório e o layout).
+     * @param debounceMs Período sem eventos, em milissegundos, antes de processar o lote acumulado.
+     * @param esperaMaximaMs Tempo máximo, em milissegundos, que um evento pode ficar acumulado.
+     */
+    public SincronizadorArquivos(MidiaControle controle, FileMidiaDAO dao, long debounceMs, long esperaMaximaMs) {
+        this.controle = controle;
+        this.dao = dao;
+        this.storageDir = dao.getStorageDir().toAbsolutePath().normalize();
+        this.debounceMs = debounceMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Define se registros cujo arquivo físico foi apagado fora da aplicação devem ser removidos
+     * do catálogo (padrão: {@code false}, apenas notifica {@code arquivoAusente}).
+     *
+     * @param removerOrfaos {@code true} para remover os registros órfãos.
+     */
+    public void setRemoverOrfaos(boolean removerOrfaos) {
+        this.removerOrfaos = removerOrfaos;
+    }
+
+    /**
+     * Inicia a observação: carrega o estado atual do catálogo, registra os diretórios
+     * observados e dispara a thread (daemon) do sincronizador.
+     *
+     * @throws Exception Se ocorrer um erro ao criar o {@link WatchService} ou ao ler o catálogo.
+     */
+    public synchronized void iniciar() throws Exception {
+        if (ativo) return;
+        watcher = storageDir.getFileSystem().newWatchService();
+        registrarDiretoriosDeRegistros(storageDir);
+        for (Midia m : controle.listarTodos()) {
+            midiaSalva(m);
+        }
+        controle.adicionarOuvinte(this);
+        ativo = true;
+        thread = new Thread(this::executar, "sincronizador-arquivos");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Encerra a observação e libera o {@link WatchService}.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!ativo) return;
+        ativo = false;
+        controle.removerOuvinte(this);
+        watcher.close();
+        thread.interrupt();
+    }
+
+    // --- OUVINTE (mantém o índice local -> id atualizado) ---
+
+    @Override
+    public void midiaSalva(Midia m) {
+        int id = m.getId();
+        Path novo = normalizar(m.getLocal());
+        Path antigo = novo == null ? localPorId.remove(id) : localPorId.put(id, novo);
+        if (antigo != null && !antigo.equals(novo)) {
+            desindexar(antigo, id);
+        }
+        if (novo != null) {
+            idsPorLocal.computeIfAbsent(novo, k -> ConcurrentHashMap.newKeySet()).add(id);
+            Path pai = novo.getParent();
+            if (pai != null) registrarDiretorio(pai);
+        }
+        Long versao = modificacao(caminhoDoRegistro(id));
+        if (versao != null) versaoPorId.put(id, versao);
+    }
+
+    @Override
+    public void midiaRemovida(int id) {
+        Path antigo = localPorId.remove(id);
+        if (antigo != null) desindexar(antigo, id);
+        versaoPorId.remove(id);
+    }
+
+    private void desindexar(Path local, int id) {
+        idsPorLocal.computeIfPresent(local, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // --- LAÇO DE EVENTOS ---
+
+    private void executar() {
+        long primeiroPendente = 0;
+        while (ativo) {
+            WatchKey k;
+            try {
+                k = watcher.poll(debounceMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                break;
+            }
+            if (k != null) {
+                acumular(k);
+                if (primeiroPendente == 0 && temPendentes()) primeiroPendente = System.currentTimeMillis();
+                // ainda chegando eventos: só processa se a espera máxima estourou
+                if (primeiroPendente == 0 || System.currentTimeMillis() - primeiroPendente < esperaMaximaMs) continue;
+            }
+            if (temPendentes()) {
+                try {
+                    processarPendentes();
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+            }
+            primeiroPendente = 0;
+        }
+    }
+
+    private void acumular(WatchKey k) {
+        Path dir = diretorios.get(k);
+        for (WatchEvent<?> ev : k.pollEvents()) {
+            if (dir == null) continue;
+            if (ev.kind() == OVERFLOW) {
+                reescanear.add(dir);
+            } else {
+                pendentes.add(dir.resolve((Path) ev.context()));
+            }
+        }
+        if (!k.reset()) {
+            // o diretório deixou de existir ou não pode mais ser observado
+            diretorios.remove(k);
+            if (dir != null) diretoriosRegistrados.remove(dir);
+        }
+    }
+
+    private boolean temPendentes() {
+        return !pendentes.isEmpty() || !reescanear.isEmpty();
+    }
+
+    /**
+     * Processa o lote de caminhos e diretórios acumulados desde o último processamento.
+     */
+    void processarPendentes() throws Exception {
+        List<Path> dirs = new ArrayList<>(reescanear);
+        List<Path> lote = new ArrayList<>(pendentes);
+        reescanear.clear();
+        pendentes.clear();
+
+        for (Path dir : dirs) {
+            reescanearDiretorio(dir);
+        }
+        for (Path p : lote) {
+            if (p.startsWith(storageDir)) {
+                if (ehDiretorioDeFragmento(p)) {
+                    // fragmento novo: arquivos podem ter sido criados antes de o registrarmos
+                    registrarDiretoriosDeRegistros(p);
+                    reescanearDiretorio(p);
+                    continue;
+                }
+                int id = idDoRegistro(p);
+                if (id > 0) processarRegistro(id);
+            }
+            if (idsPorLocal.containsKey(p)) {
+                processarArquivoMidia(p);
+            }
+        }
+    }
+
+    private void reescanearDiretorio(Path dir) throws Exception {
+        if (dir.startsWith(storageDir) && Files.isDirectory(dir)) {
+            Set<Integer> vistos = new HashSet<>();
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+                for (Path p : ds) {
+                    if (ehDiretorioDeFragmento(p)) {
+                        reescanearDiretorio(p);
+                        continue;
+                    }
+                    int id = idDoRegistro(p);
+                    if (id <= 0) continue;
+                    vistos.add(id);
+                    if (!Objects.equals(versaoPorId.get(id), modificacao(p))) processarRegistro(id);
+                }
+            }
+            for (Integer id : new ArrayList<>(versaoPorId.keySet())) {
+                if (!vistos.contains(id) && dir.equals(caminhoDoRegistro(id).getParent())) processarRegistro(id);
+            }
+        }
+        for (Path local : new ArrayList<>(idsPorLocal.keySet())) {
+            if (dir.equals(local.getParent())) processarArquivoMidia(local);
+        }
+    }
+
+    private void processarRegistro(int id) throws Exception {
+        // serializado com as escritas da própria aplicação no mesmo ID
+        controle.comTrava(id, () -> {
+            processarRegistroTravado(id);
+            return null;
+        });
+    }
+
+    private void processarRegistroTravado(int id) throws Exception {
+        Long versao = modificacao(caminhoDoRegistro(id));
+        if (versao == null) {
+            if (versaoPorId.containsKey(id) || localPorId.containsKey(id)) {
+                controle.recarregar(id); // descarta cópias em cache do DAO
+                controle.notificarRemovida(id);
+            }
+            return;
+        }
+        // eco de uma escrita já notificada pela própria aplicação
+        if (versao.equals(versaoPorId.get(id))) return;
+        Optional<Midia> opt = controle.recarregar(id);
+        // registro ilegível (ex.: escrita ainda em andamento): um novo evento virá quando terminar
+        if (opt.isPresent()) controle.notificarSalva(opt.get());
+    }
+
+    private void processarArquivoMidia(Path local) throws Exception {
+        Set<Integer> ids = idsPorLocal.get(local);
+        if (ids == null) return;
+        for (Integer id : new ArrayList<>(ids)) {
+            controle.comTrava(id, () -> {
+                conferirArquivoMidia(local, id);
+                return null;
+            });
+        }
+    }
+
+    private void conferirArquivoMidia(Path local, int id) throws Exception {
+        Optional<Midia> opt = controle.buscarPorId(id);
+        if (!opt.isPresent()) return;
+        Midia m = opt.get();
+        // o registro já aponta para outro arquivo (ex.: mover/renomear feito pela aplicação)
+        if (!local.equals(normalizar(m.getLocal()))) return;
+
+        if (!Files.exists(local)) {
+            if (removerOrfaos) {
+                controle.removerRegistro(id);
+            } else {
+                controle.notificarArquivoAusente(m);
+            }
+        } else {
+            long tamanho = Files.size(local);
+            if (tamanho != m.getTamanhoBytes()) {
+                m.setTamanhoBytes(tamanho);
+                controle.atualizarMidia(m);
+            }
+        }
+    }
+
+    // --- UTILITÁRIOS ---
+
+    private void registrarDiretorio(Path dir) {
+        if (watcher == null || !Files.isDirectory(dir) || !diretoriosRegistrados.add(dir)) return;
+        try {
+            WatchKey k = dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            diretorios.put(k, dir);
+        } catch (IOException | ClosedWatchServiceException ex) {
+            diretoriosRegistrados.remove(dir);
+        }
+    }
+
+    // registra o diretório e, recursivamente, os subdiretórios de fragmentos
+    private void registrarDiretoriosDeRegistros(Path dir) {
+        registrarDiretorio(dir);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, this::ehDiretorioDeFragmento)) {
+            for (Path sub : ds) registrarDiretoriosDeRegistros(sub);
+        } catch (IOException ex) {
+            // diretório removido: os eventos do pai cobrem o caso
+        }
+    }
+
+    // subdiretórios do layout fragmentado (até dois níveis abaixo do storageDir)
+    private boolean ehDiretorioDeFragmento(Path p) {
+        int profundidade = p.getNameCount() - storageDir.getNameCount();
+        return p.startsWith(storageDir) && profundidade >= 1 && profundidade <= 2 && Files.isDirectory(p);
+    }
+
+    private Path caminhoDoRegistro(int id) {
+        return dao.caminhoDoRegistro(id).toAbsolutePath().normalize();
+    }
+
+    private static int idDoRegistro(Path p) {
+        String nome = p.getFileName().toString();
+        if (!nome.endsWith(EXTENSAO)) return -1;
+        try {
+            return Integer.parseInt(nome.substring(0, nome.length() - EXTENSAO.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static Long modificacao(Path p) {
+        try {
+            return Files.getLastModifiedTime(p).toMillis();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static Path normalizar(String local) {
+        if (local == null || local.isEmpty()) return null;
+        try {
+            return Paths.get(local).toAbsolutePath().normalize();
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class SincronizadorArquivosTeste {
+
+	private Path tempDir;
+    private MidiaControle controle;
+    private SincronizadorArquivos sincronizador;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("sync");
+        controle = new MidiaControle(new FileMidiaDAO(tempDir));
+        sincronizador = new SincronizadorArquivos(controle, new FileMidiaDAO(tempDir), 50, 500);
+    }
+
+    @AfterEach
+    void fechar() throws Exception {
+        sincronizador.close();
+    }
+
+    @Test
+    void testRegistroCriadoForaDaAplicacao() throws Exception {
+        sincronizador.iniciar();
+        CountDownLatch salvo = new CountDownLatch(1);
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia m) { salvo.countDown(); }
+            public void midiaRemovida(int id) { }
+        });
+
+        // outro DAO no mesmo diretório simula uma escrita externa
+        new FileMidiaDAO(tempDir).salvar(new Musica("c:/fora.mp3", 10, "Fora", 60, "Rock", "Banda"));
+
+        assertTrue(salvo.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testArquivoFisicoApagado() throws Exception {
+        Path arquivo = tempDir.resolve("apagar.mp3");
+        Files.write(arquivo, "abc".getBytes());
+        Musica m = new Musica(arquivo.toString(), 3, "Apagar", 60, "Rock", "Banda");
+        controle.incluirMedia(m);
+        sincronizador.iniciar();
+
+        CountDownLatch ausente = new CountDownLatch(1);
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia x) { }
+            public void midiaRemovida(int id) { }
+            public void arquivoAusente(Midia x) { if (x.getId() == m.getId()) ausente.countDown(); }
+        });
+
+        Files.delete(arquivo);
+
+        assertTrue(ausente.await(5, TimeUnit.SECONDS));
+        assertTrue(controle.buscarPorId(m.getId()).isPresent());
+    }
+}
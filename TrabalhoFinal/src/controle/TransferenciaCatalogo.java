@@ -0,0 +1,208 @@
+package controle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import dao.CodecCsv;
+import dao.CodecJson;
+import dao.MidiaDAO;
+import model.Midia;
+
+/**
+ * **Exportação e Importação do Catálogo em CSV e JSON Lines.**
+ *
+ * <p>As duas direções trabalham em <b>fluxo contínuo</b>: a exportação percorre o armazenamento
+ * com {@link MidiaDAO#percorrer(int, int, dao.ProcessadorMidia)} e escreve cada mídia assim que
+ * ela é lida; a importação lê um registro por vez e grava em lotes com
+ * {@link MidiaDAO#salvarLote(List)}. A memória usada não depende do tamanho do catálogo.</p>
+ *
+ * <p>As versões paralelas dividem o espaço de IDs em fatias ({@code id % fatias}), gravando
+ * um arquivo por fatia ({@code catalogo-[fatia].[extensão]}) e importando vários arquivos
+ * ao mesmo tempo.</p>
+ *
+ * @see CodecCsv
+ * @see CodecJson
+ */
+public class TransferenciaCatalogo {
+
+    /**
+     * Formatos de arquivo suportados.
+     */
+    public enum Formato {
+        /** Valores separados por vírgula, com cabeçalho. */
+        CSV("csv"),
+        /** Um objeto JSON por linha. */
+        JSONL("jsonl");
+
+        private final String extensao;
+
+        Formato(String extensao) {
+            this.extensao = extensao;
+        }
+
+        /**
+         * @return A extensão de arquivo usada pelo formato (sem o ponto).
+         */
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+
+    private final MidiaDAO dao;
+    private int tamanhoLote = 500;
+
+    /**
+     * Construtor que recebe o DAO de origem (exportação) e destino (importação).
+     *
+     * @param dao O {@link MidiaDAO} usado nas duas direções.
+     */
+    public TransferenciaCatalogo(MidiaDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Define quantas mídias são acumuladas antes de cada gravação em lote na importação (padrão: 500).
+     *
+     * @param tamanhoLote O tamanho do lote (maior que zero).
+     */
+    public void setTamanhoLote(int tamanhoLote) {
+        if (tamanhoLote <= 0) throw new IllegalArgumentException("Tamanho de lote inválido: " + tamanhoLote);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    // --- EXPORTAÇÃO ---
+
+    /**
+     * Exporta o catálogo inteiro para um único arquivo.
+     *
+     * @param destino O arquivo de destino (sobrescrito se já existir).
+     * @param formato O {@link Formato} do arquivo.
+     * @return O número de mídias exportadas.
+     * @throws Exception Se ocorrer um erro de leitura do catálogo ou de escrita do arquivo.
+     */
+    public long exportar(Path destino, Formato formato) throws Exception {
+        return exportarFatia(destino, formato, 0, 1);
+    }
+
+    /**
+     * Exporta o catálogo em paralelo, um arquivo por fatia do espaço de IDs.
+     *
+     * @param dirDestino O diretório onde os arquivos {@code catalogo-[fatia].[extensão]} serão criados.
+     * @param formato O {@link Formato} dos arquivos.
+     * @param fatias O número de fatias (e de arquivos).
+     * @return O número total de mídias exportadas.
+     * @throws Exception Se a exportação de alguma fatia falhar.
+     */
+    public long exportarParalelo(Path dirDestino, Formato formato, int fatias) throws Exception {
+        if (!Files.exists(dirDestino)) Files.createDirectories(dirDestino);
+        List<Callable<Long>> tarefas = new ArrayList<>();
+        for (int i = 0; i < fatias; i++) {
+            int fatia = i;
+            Path arquivo = dirDestino.resolve("catalogo-" + fatia + "." + formato.getExtensao());
+            tarefas.add(() -> exportarFatia(arquivo, formato, fatia, fatias));
+        }
+        return executarTodas(tarefas);
+    }
+
+    private long exportarFatia(Path destino, Formato formato, int fatia, int fatias) throws Exception {
+        long[] total = {0};
+        try (BufferedWriter w = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+            if (formato == Formato.CSV) CodecCsv.escreverCabecalho(w);
+            dao.percorrer(fatia, fatias, m -> {
+                if (formato == Formato.CSV) {
+                    CodecCsv.escrever(m, w);
+                } else {
+                    w.write(CodecJson.paraJson(m));
+                    w.newLine();
+                }
+                total[0]++;
+            });
+        }
+        return total[0];
+    }
+
+    // --- IMPORTAÇÃO ---
+
+    /**
+     * Importa as mídias de um arquivo, gravando-as em lotes.
+     * <p>As mídias mantêm os IDs do arquivo; ao final, o {@link IdGerador} é avançado para não
+     * gerar IDs já usados.</p>
+     *
+     * @param origem O arquivo a ser importado.
+     * @param formato O {@link Formato} do arquivo.
+     * @return O número de mídias importadas.
+     * @throws Exception Se o arquivo for inválido ou ocorrer um erro na gravação.
+     */
+    public long importar(Path origem, Formato formato) throws Exception {
+        List<Midia> lote = new ArrayList<>(tamanhoLote);
+        long total = 0;
+        int maiorId = 0;
+        try (BufferedReader r = Files.newBufferedReader(origem, StandardCharsets.UTF_8)) {
+            List<String> cabecalho = formato == Formato.CSV ? CodecCsv.lerCampos(r) : null;
+            if (formato == Formato.CSV && cabecalho == null) return 0; // arquivo vazio
+            while (true) {
+                Midia m;
+                if (formato == Formato.CSV) {
+                    m = CodecCsv.ler(r, cabecalho);
+                } else {
+                    String linha = r.readLine();
+                    while (linha != null && linha.isBlank()) linha = r.readLine();
+                    m = linha == null ? null : CodecJson.deJson(linha);
+                }
+                if (m == null) break;
+                lote.add(m);
+                maiorId = Math.max(maiorId, m.getId());
+                total++;
+                if (lote.size() >= tamanhoLote) {
+                    dao.salvarLote(lote);
+                    lote.clear();
+                }
+            }
+        }
+        if (!lote.isEmpty()) dao.salvarLote(lote);
+        IdGerador.iniciar(maiorId);
+        return total;
+    }
+
+    /**
+     * Importa vários arquivos em paralelo (por exemplo, os gerados por
+     * {@link #exportarParalelo(Path, Formato, int)}).
+     *
+     * @param arquivos Os arquivos a serem importados.
+     * @param formato O {@link Formato} dos arquivos.
+     * @return O número total de mídias importadas.
+     * @throws Exception Se a importação de algum arquivo falhar.
+     */
+    public long importarParalelo(List<Path> arquivos, Formato formato) throws Exception {
+        List<Callable<Long>> tarefas = new ArrayList<>();
+        for (Path arquivo : arquivos) {
+            tarefas.add(() -> importar(arquivo, formato));
+        }
+        return executarTodas(tarefas);
+    }
+
+    private static long executarTodas(List<Callable<Long>> tarefas) throws Exception {
+        if (tarefas.isEmpty()) return 0;
+        int threads = Math.min(tarefas.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long total = 0;
+            for (Future<Long> f : pool.invokeAll(tarefas)) {
+                try {
+                    total += f.get();
+                } catch (ExecutionException ex) {
+                    Throwable causa = ex.getCause();
+                    if (causa instanceof Exception) throw (Exception) causa;
+                    throw ex;
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
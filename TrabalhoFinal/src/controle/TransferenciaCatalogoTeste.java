@@ -0,0 +1,59 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import model.*;
+
+class TransferenciaCatalogoTeste {
+
+	private FileMidiaDAO origem;
+    private FileMidiaDAO destino;
+    private Path saida;
+
+    @BeforeEach
+    void setup() throws Exception {
+        origem = new FileMidiaDAO(Files.createTempDirectory("origem"));
+        destino = new FileMidiaDAO(Files.createTempDirectory("destino"));
+        saida = Files.createTempDirectory("exportacao");
+
+        origem.salvar(new Musica("c:/m.mp3", 100, "Vírgula, \"aspas\"", 200, "Rock", "Banda"));
+        origem.salvar(new Filme("c:/f.mp4", 2000, "Barra \\ e acento é", 120, "Ação", "PT-BR"));
+        origem.salvar(new Livro("c:/l.pdf", 300, "Livro", 90, "Drama", "Autor1, Autor2"));
+    }
+
+    @Test
+    void testIdaEVoltaCsv() throws Exception {
+        TransferenciaCatalogo t = new TransferenciaCatalogo(origem);
+        Path arquivo = saida.resolve("catalogo.csv");
+        assertEquals(3, t.exportar(arquivo, TransferenciaCatalogo.Formato.CSV));
+
+        assertEquals(3, new TransferenciaCatalogo(destino).importar(arquivo, TransferenciaCatalogo.Formato.CSV));
+        assertMesmoConteudo();
+    }
+
+    @Test
+    void testIdaEVoltaJsonlParalela() throws Exception {
+        TransferenciaCatalogo t = new TransferenciaCatalogo(origem);
+        assertEquals(3, t.exportarParalelo(saida, TransferenciaCatalogo.Formato.JSONL, 2));
+
+        List<Path> arquivos = List.of(saida.resolve("catalogo-0.jsonl"), saida.resolve("catalogo-1.jsonl"));
+        TransferenciaCatalogo imp = new TransferenciaCatalogo(destino);
+        imp.setTamanhoLote(1);
+        assertEquals(3, imp.importarParalelo(arquivos, TransferenciaCatalogo.Formato.JSONL));
+        assertMesmoConteudo();
+    }
+
+    private void assertMesmoConteudo() throws Exception {
+        for (Midia m : origem.listarTodos()) {
+            Midia copia = destino.buscarPorId(m.getId()).get();
+            assertEquals(m.getTitulo(), copia.getTitulo());
+            assertEquals(m.getTipo(), copia.getTipo());
+            assertEquals(m.exibirAtributosEspecificos(), copia.exibirAtributosEspecificos());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package controle;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import dao.MidiaDAO;
+import model.Midia;
+import model.MidiaSobDemanda;
+
+/**
+ * **Unidade de Trabalho sobre o Catálogo.**
+ *
+ * <p>Acumula inclusões, alterações, remoções, movimentos e renomeações de arquivos e os aplica
+ * juntos em {@link #confirmar()}:</p>
+ *
+ * <ol>
+ * <li>as travas de todos os IDs envolvidos são obtidas de uma vez;</li>
+ * <li>as operações são executadas na ordem em que foram pedidas, sobre um estado de trabalho
+ * (uma mídia pode ser movida e depois renomeada na mesma unidade); os arquivos físicos são
+ * movidos nesse momento;</li>
+ * <li>todos os registros são gravados com uma única chamada a
+ * {@link MidiaDAO#aplicarLote(List, Collection)}: com o diário de escrita, um único registro e um
+ * único {@code fsync}, reaplicado inteiro ou não reaplicado depois de uma queda;</li>
+ * <li>os ouvintes são notificados e, por último, os arquivos das mídias removidas são apagados
+ * (ou levados para a {@link Lixeira}, se houver uma).</li>
+ * </ol>
+ *
+ * <p>Se qualquer passo até a gravação falhar, os arquivos já movidos voltam ao lugar original e a
+ * exceção é relançada. Se a falha for na própria gravação, os registros envolvidos são regravados
+ * com o estado anterior à unidade: sem o diário, {@code aplicarLote} pode ter gravado parte do
+ * conjunto. A garantia de tudo-ou-nada diante de uma <b>queda do processo</b> só existe com o
+ * {@link dao.MidiaDAOComDiario}. Para que o desfazer seja sempre possível, um movimento não
+ * sobrescreve um arquivo existente no destino. Uma unidade só pode ser confirmada uma vez.</p>
+ *
+ * @see MidiaControle#iniciarUnidade()
+ */
+public class UnidadeDeTrabalho {
+
+    // uma operação pedida, executada na confirmação
+    @FunctionalInterface
+    private interface Operacao {
+        void executar(Execucao e) throws Exception;
+    }
+
+    private final MidiaControle controle;
+    private final MidiaDAO dao;
+    private final List<Operacao> operacoes = new ArrayList<>();
+    private final Set<Integer> ids = new LinkedHashSet<>();
+    private boolean confirmada = false;
+
+    UnidadeDeTrabalho(MidiaControle controle, MidiaDAO dao) {
+        this.controle = controle;
+        this.dao = dao;
+    }
+
+    private UnidadeDeTrabalho adicionar(int id, Operacao op) {
+        if (confirmada) throw new IllegalStateException("Unidade de trabalho já confirmada");
+        ids.add(id);
+        operacoes.add(op);
+        return this;
+    }
+
+    /**
+     * Inclui uma mídia nova.
+     *
+     * @param m A mídia, com o ID já definido.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho incluir(Midia m) {
+        Midia c = MidiaSobDemanda.concreta(m).copia();
+        return adicionar(c.getId(), e -> e.gravar(c));
+    }
+
+    /**
+     * Substitui os dados de uma mídia.
+     *
+     * @param m A mídia com os dados atualizados.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho atualizar(Midia m) {
+        Midia c = MidiaSobDemanda.concreta(m).copia();
+        return adicionar(c.getId(), e -> e.gravar(c));
+    }
+
+    /**
+     * Remove o registro e o arquivo físico de uma mídia; o arquivo só é apagado depois da gravação.
+     *
+     * @param id O ID da mídia.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho remover(int id) {
+        return adicionar(id, e -> e.remover(id, true));
+    }
+
+    /**
+     * Remove apenas o registro de uma mídia, sem tocar no arquivo físico.
+     *
+     * @param id O ID da mídia.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho removerRegistro(int id) {
+        return adicionar(id, e -> e.remover(id, false));
+    }
+
+    /**
+     * Move o arquivo físico de uma mídia para outro diretório (criado se preciso).
+     *
+     * @param id O ID da mídia.
+     * @param destinoDir O diretório de destino.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho mover(int id, Path destinoDir) {
+        return adicionar(id, e -> {
+            Midia m = e.atual(id);
+            Path origem = Paths.get(m.getLocal());
+            Files.createDirectories(destinoDir);
+            e.moverArquivo(m, origem, destinoDir.resolve(origem.getFileName()));
+        });
+    }
+
+    /**
+     * Renomeia o arquivo físico de uma mídia, preservando a extensão original (como
+     * {@link MidiaControle#renomearArquivo(int, String)}).
+     *
+     * @param id O ID da mídia.
+     * @param novoNome O novo nome base.
+     * @return Esta unidade.
+     */
+    public UnidadeDeTrabalho renomear(int id, String novoNome) {
+        return adicionar(id, e -> {
+            Midia m = e.atual(id);
+            Path origem = Paths.get(m.getLocal());
+            e.moverArquivo(m, origem, MidiaControle.destinoRenomeado(origem, novoNome));
+        });
+    }
+
+    /**
+     * @return O número de operações pedidas.
+     */
+    public int getTamanho() {
+        return operacoes.size();
+    }
+
+    /**
+     * Executa e grava todas as operações.
+     *
+     * @throws IllegalStateException Se a unidade já tiver sido confirmada.
+     * @throws IllegalArgumentException Se uma operação se referir a uma mídia inexistente.
+     * @throws Exception Se um arquivo não puder ser movido ou a gravação falhar; nesse caso os
+     * arquivos movidos voltam ao lugar original e os registros já gravados são restaurados (se a
+     * restauração também falhar, o erro dela vem como exceção suprimida).
+     */
+    public void confirmar() throws Exception {
+        if (confirmada) throw new IllegalStateException("Unidade de trabalho já confirmada");
+        confirmada = true;
+        if (operacoes.isEmpty()) return;
+        Execucao e = new Execucao();
+        controle.comTravas(ids, () -> {
+            try {
+                for (Operacao op : operacoes) op.executar(e);
+            } catch (Exception ex) {
+                e.desfazerMovimentos(ex);
+                throw ex;
+            }
+            try {
+                dao.aplicarLote(new ArrayList<>(e.estado.values()), e.removidos);
+            } catch (Exception ex) {
+                e.restaurarRegistros(ex);
+                e.desfazerMovimentos(ex);
+                throw ex;
+            }
+            for (Midia m : e.estado.values()) controle.notificarSalva(m);
+            for (int id : e.removidos) controle.notificarRemovida(id);
+            return null;
+        });
+        e.apagarArquivos();
+    }
+
+    // estado de trabalho de uma confirmação
+    private final class Execucao {
+        final Map<Integer, Midia> estado = new LinkedHashMap<>();
+        final Set<Integer> removidos = new LinkedHashSet<>();
+        // pares (de, para) na ordem em que foram feitos
+        final List<Path[]> movimentos = new ArrayList<>();
+        final List<Midia> apagar = new ArrayList<>();
+        // o registro de cada ID antes da unidade (vazio se não existia), para desfazer uma gravação parcial
+        final Map<Integer, Optional<Midia>> anteriores = new HashMap<>();
+
+        private Optional<Midia> anterior(int id) throws Exception {
+            Optional<Midia> a = anteriores.get(id);
+            if (a == null) {
+                // uma cópia: o objeto do DAO pode ser compartilhado
+                a = dao.buscarPorId(id).map(Midia::copia);
+                anteriores.put(id, a);
+            }
+            return a;
+        }
+
+        Midia atual(int id) throws Exception {
+            Midia m = estado.get(id);
+            if (m != null) return m;
+            if (removidos.contains(id)) throw new IllegalArgumentException("Mídia removida nesta unidade: " + id);
+            m = anterior(id).orElseThrow(() -> new IllegalArgumentException("Arquivo não encontrado: " + id)).copia();
+            estado.put(id, m);
+            return m;
+        }
+
+        void gravar(Midia m) throws Exception {
+            anterior(m.getId());
+            removidos.remove(m.getId());
+            estado.put(m.getId(), m);
+        }
+
+        void remover(int id, boolean arquivoFisico) throws Exception {
+            Midia m = atual(id);
+            estado.remove(id);
+            removidos.add(id);
+            if (arquivoFisico) apagar.add(m);
+        }
+
+        void moverArquivo(Midia m, Path de, Path para) throws IOException {
+            // sem REPLACE_EXISTING: o arquivo sobrescrito não poderia ser devolvido
+            Files.move(de, para);
+            movimentos.add(new Path[]{de, para});
+            m.setLocal(para.toString());
+        }
+
+        // regrava o estado anterior dos IDs da unidade, num único conjunto
+        void restaurarRegistros(Exception causa) {
+            List<Midia> salvas = new ArrayList<>();
+            List<Integer> apagados = new ArrayList<>();
+            for (Map.Entry<Integer, Optional<Midia>> a : anteriores.entrySet()) {
+                if (a.getValue().isPresent()) salvas.add(a.getValue().get());
+                else apagados.add(a.getKey());
+            }
+            try {
+                dao.aplicarLote(salvas, apagados);
+            } catch (Exception ex) {
+                causa.addSuppressed(ex);
+            }
+        }
+
+        void desfazerMovimentos(Exception causa) {
+            for (int i = movimentos.size() - 1; i >= 0; i--) {
+                Path[] mv = movimentos.get(i);
+                try {
+                    Files.move(mv[1], mv[0]);
+                } catch (IOException ex) {
+                    causa.addSuppressed(ex);
+                }
+            }
+        }
+
+        // depois da gravação: uma falha aqui deixa só um arquivo órfão
+        void apagarArquivos() {
+            Lixeira l = controle.getLixeira();
+            for (Midia m : apagar) {
+                try {
+                    if (l != null) {
+                        l.descartar(m);
+                    } else {
+                        Files.deleteIfExists(Paths.get(m.getLocal().replace("\\", "/")).normalize());
+                    }
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import dao.MidiaDAO;
+import dao.MidiaDAOComDiario;
+import model.*;
+
+class UnidadeDeTrabalhoTeste {
+
+    private Path tempDir;
+    private Path arquivos;
+    private FileMidiaDAO dao;
+    private MidiaControle controle;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("unidade");
+        arquivos = Files.createDirectories(tempDir.resolve("arquivos"));
+        dao = new FileMidiaDAO(tempDir.resolve("data"));
+        controle = new MidiaControle(dao);
+    }
+
+    private Musica incluir(int id, String nome) throws Exception {
+        Path arquivo = arquivos.resolve(nome);
+        Files.write(arquivo, nome.getBytes());
+        Musica m = new Musica(id, arquivo.toString(), nome.length(), nome, 60, "Rock", "X");
+        controle.incluirMedia(m);
+        return m;
+    }
+
+    @Test
+    void testConfirmarAplicaTudo() throws Exception {
+        incluir(1, "a.mp3");
+        Musica b = incluir(2, "b.mp3");
+        incluir(3, "c.mp3");
+        Path destino = tempDir.resolve("destino");
+
+        List<String> eventos = new ArrayList<>();
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia m) { eventos.add("salva " + m.getId()); }
+            public void midiaRemovida(int id) { eventos.add("removida " + id); }
+        });
+
+        b.setTitulo("B2");
+        UnidadeDeTrabalho u = controle.iniciarUnidade()
+                .mover(1, destino)
+                .renomear(1, "novo.txt")
+                .atualizar(b)
+                .remover(3)
+                .incluir(new Filme(4, "c:/d.mp4", 1, "D", 90, "Ação", "PT"));
+        assertEquals(5, u.getTamanho());
+        u.confirmar();
+
+        // o movimento e a renomeação da mesma mídia se somam; a extensão original é mantida
+        assertEquals(destino.resolve("novo.mp3").toString(), controle.buscarPorId(1).get().getLocal());
+        assertTrue(Files.exists(destino.resolve("novo.mp3")));
+        assertFalse(Files.exists(arquivos.resolve("a.mp3")));
+        assertEquals("B2", controle.buscarPorId(2).get().getTitulo());
+        assertFalse(controle.buscarPorId(3).isPresent());
+        assertFalse(Files.exists(arquivos.resolve("c.mp3")));
+        assertTrue(controle.buscarPorId(4).isPresent());
+        assertEquals(List.of("salva 1", "salva 2", "salva 4", "removida 3"), eventos);
+
+        assertThrows(IllegalStateException.class, u::confirmar);
+    }
+
+    @Test
+    void testFalhaNoMovimentoDesfazOsAnteriores() throws Exception {
+        incluir(1, "a.mp3");
+        incluir(2, "b.mp3");
+        Path destino = Files.createDirectories(tempDir.resolve("destino"));
+        // o segundo movimento encontra o destino ocupado
+        Files.write(destino.resolve("b.mp3"), "outro".getBytes());
+
+        UnidadeDeTrabalho u = controle.iniciarUnidade().mover(1, destino).mover(2, destino);
+        assertThrows(FileAlreadyExistsException.class, u::confirmar);
+
+        assertTrue(Files.exists(arquivos.resolve("a.mp3")));
+        assertFalse(Files.exists(destino.resolve("a.mp3")));
+        assertEquals("outro", Files.readString(destino.resolve("b.mp3")));
+        assertEquals(arquivos.resolve("a.mp3").toString(), controle.buscarPorId(1).get().getLocal());
+    }
+
+    @Test
+    void testFalhaNaGravacaoDesfazOsMovimentos() throws Exception {
+        incluir(1, "a.mp3");
+        MidiaDAO falha = new MidiaDAO() {
+            public void salvar(Midia m) throws Exception { dao.salvar(m); }
+            public boolean deletar(int id) throws Exception { return dao.deletar(id); }
+            public void atualizar(Midia m) throws Exception { dao.atualizar(m); }
+            public List<Midia> listarTodos() throws Exception { return dao.listarTodos(); }
+            public Optional<Midia> buscarPorId(int id) throws Exception { return dao.buscarPorId(id); }
+            public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+                throw new java.io.IOException("disco cheio");
+            }
+        };
+        MidiaControle c = new MidiaControle(falha);
+
+        UnidadeDeTrabalho u = c.iniciarUnidade().mover(1, tempDir.resolve("destino")).remover(1);
+        Exception ex = assertThrows(java.io.IOException.class, u::confirmar);
+        assertEquals("disco cheio", ex.getMessage());
+
+        assertTrue(Files.exists(arquivos.resolve("a.mp3")));
+        assertTrue(c.buscarPorId(1).isPresent());
+    }
+
+    @Test
+    void testGravacaoParcialEhRestaurada() throws Exception {
+        incluir(1, "a.mp3");
+        Musica b = incluir(2, "b.mp3");
+        // sem diário: grava as mídias e falha antes das remoções, só na primeira vez
+        boolean[] falhou = {false};
+        MidiaDAO parcial = new MidiaDAO() {
+            public void salvar(Midia m) throws Exception { dao.salvar(m); }
+            public boolean deletar(int id) throws Exception { return dao.deletar(id); }
+            public void atualizar(Midia m) throws Exception { dao.atualizar(m); }
+            public List<Midia> listarTodos() throws Exception { return dao.listarTodos(); }
+            public Optional<Midia> buscarPorId(int id) throws Exception { return dao.buscarPorId(id); }
+            public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+                if (falhou[0]) {
+                    MidiaDAO.super.aplicarLote(salvas, removidos);
+                    return;
+                }
+                falhou[0] = true;
+                dao.salvarLote(salvas);
+                throw new java.io.IOException("falha no meio");
+            }
+        };
+        MidiaControle c = new MidiaControle(parcial);
+
+        b.setTitulo("B2");
+        UnidadeDeTrabalho u = c.iniciarUnidade().mover(1, tempDir.resolve("destino")).atualizar(b)
+                .incluir(new Filme(3, "c:/c.mp4", 1, "C", 90, "Ação", "PT")).removerRegistro(2);
+        assertThrows(java.io.IOException.class, u::confirmar);
+
+        assertEquals(arquivos.resolve("a.mp3").toString(), dao.buscarPorId(1).get().getLocal());
+        assertTrue(Files.exists(arquivos.resolve("a.mp3")));
+        assertEquals("b.mp3", dao.buscarPorId(2).get().getTitulo());
+        assertFalse(dao.buscarPorId(3).isPresent());
+    }
+
+    @Test
+    void testDiarioRecebeUmUnicoRegistro() throws Exception {
+        try (MidiaDAOComDiario diario = new MidiaDAOComDiario(dao, tempDir.resolve("diario"))) {
+            MidiaControle c = new MidiaControle(diario);
+            Musica a = incluir(1, "a.mp3");
+            incluir(2, "b.mp3");
+            long antes = diario.getDiario().getUltimaSequencia();
+
+            a.setTitulo("A2");
+            c.iniciarUnidade().atualizar(a).removerRegistro(2).mover(1, tempDir.resolve("destino")).confirmar();
+
+            assertEquals(antes + 1, diario.getDiario().getUltimaSequencia());
+            assertEquals("A2", c.buscarPorId(1).get().getTitulo());
+            assertFalse(c.buscarPorId(2).isPresent());
+            // só o registro foi removido
+            assertTrue(Files.exists(arquivos.resolve("b.mp3")));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package controle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **Verificador dos Arquivos Físicos em Segundo Plano.**
+ *
+ * <p>Percorre o catálogo e confere, um a um, os arquivos apontados por {@link Midia#getLocal()}:
+ * arquivos que não existem mais são notificados como {@code arquivoAusente} aos
+ * {@link OuvinteCatalogo}; arquivos cujo tamanho mudou têm o {@code tamanhoBytes} do registro
+ * atualizado. Complementa o {@link SincronizadorArquivos}, que só vê o que acontece enquanto a
+ * aplicação está aberta (e não vê discos removíveis ou compartilhamentos de rede).</p>
+ *
+ * <ul>
+ * <li><b>Orçamento de I/O:</b> no máximo {@code arquivosPorSegundo} arquivos são consultados por
+ * segundo, espaçados de forma uniforme ({@code 0} = sem limite).</li>
+ * <li><b>Pausa:</b> enquanto houver atividade na interface ({@link #registrarAtividade()}), a
+ * verificação espera até {@code ociosidadeMs} sem atividade e continua do ponto onde parou.</li>
+ * <li><b>Passadas:</b> cada passada percorre o {@code local} e o {@code tamanhoBytes} de todo o
+ * catálogo ({@link MidiaControle#percorrerProjecao}), consultando cada arquivo (dentro do
+ * orçamento) à medida que o registro é lido; só os IDs em que o disco diverge do registro são
+ * guardados, e a mídia completa deles é relida, sob a trava do ID, depois do percurso (o DAO
+ * pode estar com uma trava de leitura durante ele).</li>
+ * </ul>
+ *
+ * @see SincronizadorArquivos
+ */
+public class VerificadorArquivos implements Closeable {
+    private final MidiaControle controle;
+    private volatile double arquivosPorSegundo = 20;
+    private volatile long ociosidadeMs = 3000;
+    private volatile long intervaloPassadasMs = TimeUnit.HOURS.toMillis(1);
+
+    private volatile long ultimaAtividade = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+    private long proximaConsulta;
+    private volatile Resultado ultimaPassada;
+    private volatile boolean ativo = false;
+    private Thread thread;
+
+    /**
+     * **Resumo de uma passada.**
+     */
+    public static final class Resultado {
+        private int verificados;
+        private int redimensionados;
+        private final List<Integer> ausentes = new ArrayList<>();
+
+        /**
+         * @return Quantos arquivos foram consultados.
+         */
+        public int getVerificados() {
+            return verificados;
+        }
+
+        /**
+         * @return Quantos registros tiveram o {@code tamanhoBytes} atualizado.
+         */
+        public int getRedimensionados() {
+            return redimensionados;
+        }
+
+        /**
+         * @return Os IDs das mídias cujo arquivo físico não existe.
+         */
+        public List<Integer> getAusentes() {
+            return Collections.unmodifiableList(ausentes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("verificados=%d ausentes=%d redimensionados=%d", verificados, ausentes.size(), redimensionados);
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle do catálogo verificado.
+     */
+    public VerificadorArquivos(MidiaControle controle) {
+        this.controle = controle;
+    }
+
+    /**
+     * @param arquivosPorSegundo O número máximo de arquivos consultados por segundo (padrão: 20;
+     * {@code 0} = sem limite).
+     */
+    public void setArquivosPorSegundo(double arquivosPorSegundo) {
+        if (arquivosPorSegundo < 0) throw new IllegalArgumentException("Orçamento inválido: " + arquivosPorSegundo);
+        this.arquivosPorSegundo = arquivosPorSegundo;
+    }
+
+    /**
+     * @param ociosidadeMs O tempo sem atividade na interface antes de retomar a verificação
+     * (padrão: 3 s).
+     */
+    public void setOciosidadeMs(long ociosidadeMs) {
+        this.ociosidadeMs = ociosidadeMs;
+    }
+
+    /**
+     * @param intervaloPassadasMs A espera entre o fim de uma passada e o início da próxima
+     * (padrão: 1 hora).
+     */
+    public void setIntervaloPassadasMs(long intervaloPassadasMs) {
+        this.intervaloPassadasMs = intervaloPassadasMs;
+    }
+
+    /**
+     * Avisa que a interface está em uso; a verificação pausa até {@code ociosidadeMs} depois
+     * da última chamada.
+     */
+    public void registrarAtividade() {
+        ultimaAtividade = System.nanoTime();
+    }
+
+    /**
+     * @return O resumo da última passada concluída, ou {@code null} se nenhuma terminou ainda.
+     */
+    public Resultado getUltimaPassada() {
+        return ultimaPassada;
+    }
+
+    /**
+     * Executa uma passada completa pelo catálogo, respeitando o orçamento e as pausas.
+     *
+     * @return O resumo da passada.
+     * @throws InterruptedException Se a thread for interrompida durante uma espera.
+     * @throws Exception Se ocorrer um erro na leitura ou na atualização do catálogo.
+     */
+    public synchronized Resultado verificarPassada() throws Exception {
+        Resultado r = new Resultado();
+        // só o caminho e o tamanho, um registro por vez: o resto da mídia só é lido quando há divergência
+        List<Integer> divergentes = new ArrayList<>();
+        proximaConsulta = System.nanoTime();
+        controle.percorrerProjecao(Optional.empty(), Optional.empty(),
+                EnumSet.of(Projecao.Campo.LOCAL, Projecao.Campo.TAMANHO), p -> {
+                    aguardarVez();
+                    r.verificados++;
+                    if (tamanhoNoDisco(p.getLocal()) != p.getTamanhoBytes()) divergentes.add(p.getId());
+                });
+
+        for (int id : divergentes) {
+            controle.comTrava(id, () -> {
+                conferir(id, r);
+                return null;
+            });
+        }
+        ultimaPassada = r;
+        return r;
+    }
+
+    // relê o registro sob a trava: ele pode ter mudado desde a projeção
+    private void conferir(int id, Resultado r) throws Exception {
+        Optional<Midia> opt = controle.buscarPorId(id);
+        if (!opt.isPresent()) return;
+        Midia m = opt.get();
+        long tamanho = tamanhoNoDisco(m.getLocal());
+        if (tamanho < 0) {
+            r.ausentes.add(id);
+            controle.notificarArquivoAusente(m);
+        } else if (tamanho != m.getTamanhoBytes()) {
+            m.setTamanhoBytes(tamanho);
+            controle.atualizarMidia(m);
+            r.redimensionados++;
+        }
+    }
+
+    // espera a interface ficar ociosa e o próximo espaço do orçamento
+    private void aguardarVez() throws InterruptedException {
+        while (true) {
+            long ocioso = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ultimaAtividade);
+            if (ocioso >= ociosidadeMs) break;
+            Thread.sleep(ociosidadeMs - ocioso);
+            // a pausa não acumula crédito no orçamento
+            proximaConsulta = System.nanoTime();
+        }
+        double taxa = arquivosPorSegundo;
+        if (taxa <= 0) return;
+        long espera = proximaConsulta - System.nanoTime();
+        if (espera > 0) TimeUnit.NANOSECONDS.sleep(espera);
+        proximaConsulta = Math.max(proximaConsulta, System.nanoTime() - 1) + (long) (1e9 / taxa);
+    }
+
+    /**
+     * @return O tamanho do arquivo, ou {@code -1} se ele não existir (ou não for um arquivo).
+     */
+    private static long tamanhoNoDisco(String local) {
+        if (local == null || local.isEmpty()) return -1;
+        try {
+            BasicFileAttributes a = Files.readAttributes(Paths.get(local), BasicFileAttributes.class);
+            return a.isRegularFile() ? a.size() : -1;
+        } catch (IOException | InvalidPathException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Inicia a thread (daemon) que repete as passadas em segundo plano.
+     */
+    public synchronized void iniciar() {
+        if (ativo) return;
+        ativo = true;
+        thread = new Thread(() -> {
+            while (ativo) {
+                try {
+                    verificarPassada();
+                    Thread.sleep(intervaloPassadasMs);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    try {
+                        Thread.sleep(intervaloPassadasMs);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "verificador-arquivos");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Para a thread de verificação.
+     */
+    @Override
+    public void close() {
+        ativo = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(2000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
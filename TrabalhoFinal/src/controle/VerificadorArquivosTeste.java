@@ -0,0 +1,138 @@
+package controle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.*;
+import dao.FileMidiaDAO;
+import dao.ProcessadorProjecao;
+import model.*;
+
+class VerificadorArquivosTeste {
+
+    private Path tempDir;
+    private MidiaControle controle;
+    private VerificadorArquivos verificador;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("verif");
+        controle = new MidiaControle(new FileMidiaDAO(tempDir.resolve("data")));
+        verificador = new VerificadorArquivos(controle);
+        verificador.setArquivosPorSegundo(0);
+    }
+
+    @AfterEach
+    void fechar() {
+        verificador.close();
+    }
+
+    private Musica incluir(String nome, int bytes) throws Exception {
+        Path arquivo = tempDir.resolve(nome);
+        Files.write(arquivo, new byte[bytes]);
+        Musica m = new Musica(arquivo.toString(), bytes, nome, 60, "Rock", "Banda");
+        controle.incluirMedia(m);
+        return m;
+    }
+
+    @Test
+    void testAusenteERedimensionado() throws Exception {
+        Musica intacta = incluir("intacta.mp3", 10);
+        Musica apagada = incluir("apagada.mp3", 10);
+        Musica alterada = incluir("alterada.mp3", 10);
+        Files.delete(Paths.get(apagada.getLocal()));
+        Files.write(Paths.get(alterada.getLocal()), new byte[25]);
+
+        List<Integer> notificados = new ArrayList<>();
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            public void midiaSalva(Midia m) { }
+            public void midiaRemovida(int id) { }
+            public void arquivoAusente(Midia m) { notificados.add(m.getId()); }
+        });
+
+        VerificadorArquivos.Resultado r = verificador.verificarPassada();
+
+        assertEquals(3, r.getVerificados());
+        assertEquals(1, r.getRedimensionados());
+        assertEquals(List.of(apagada.getId()), r.getAusentes());
+        assertEquals(List.of(apagada.getId()), notificados);
+        assertEquals(25L, controle.buscarPorId(alterada.getId()).get().getTamanhoBytes());
+        assertEquals(10L, controle.buscarPorId(intacta.getId()).get().getTamanhoBytes());
+        // o registro do arquivo ausente é mantido
+        assertTrue(controle.buscarPorId(apagada.getId()).isPresent());
+        assertSame(r, verificador.getUltimaPassada());
+    }
+
+    @Test
+    void testOrcamentoDeArquivosPorSegundo() throws Exception {
+        for (int i = 0; i < 6; i++) incluir("m" + i + ".mp3", 5);
+        verificador.setArquivosPorSegundo(50);
+
+        long inicio = System.nanoTime();
+        verificador.verificarPassada();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        // 6 arquivos a 50/s: pelo menos 5 intervalos de 20 ms
+        assertTrue(ms >= 90, "durou " + ms + " ms");
+    }
+
+    @Test
+    void testOrcamentoAplicadoDuranteOPercurso() throws Exception {
+        // o catálogo não é copiado antes da passada: o DAO só entrega o registro seguinte depois da consulta
+        List<Long> entregues = new ArrayList<>();
+        controle = new MidiaControle(new FileMidiaDAO(tempDir.resolve("data")) {
+            @Override
+            public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+                super.percorrerProjecao(campos, p -> {
+                    entregues.add(System.nanoTime());
+                    processador.processar(p);
+                });
+            }
+        });
+        verificador = new VerificadorArquivos(controle);
+        for (int i = 0; i < 6; i++) incluir("p" + i + ".mp3", 5);
+        verificador.setArquivosPorSegundo(50);
+
+        assertEquals(6, verificador.verificarPassada().getVerificados());
+        long ms = (entregues.get(5) - entregues.get(0)) / 1_000_000;
+        // o sexto registro só é pedido depois da quinta consulta: pelo menos 4 intervalos de 20 ms
+        assertTrue(ms >= 75, "percurso durou " + ms + " ms");
+    }
+
+    @Test
+    void testPausaDuranteAtividade() throws Exception {
+        incluir("a.mp3", 5);
+        verificador.setOciosidadeMs(300);
+        verificador.registrarAtividade();
+
+        long inicio = System.nanoTime();
+        VerificadorArquivos.Resultado r = verificador.verificarPassada();
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertEquals(1, r.getVerificados());
+        assertTrue(ms >= 250, "durou " + ms + " ms");
+    }
+
+    @Test
+    void testAusentesFicamVisiveis() throws Exception {
+        ArquivosAusentes ausentes = new ArquivosAusentes();
+        controle.adicionarOuvinte(ausentes);
+        Musica intacta = incluir("intacta.mp3", 10);
+        Musica apagada = incluir("apagada.mp3", 10);
+        Files.delete(Paths.get(apagada.getLocal()));
+
+        verificador.verificarPassada();
+        assertEquals(1, ausentes.getTotal());
+        assertTrue(ausentes.isAusente(apagada.getId()));
+        assertFalse(ausentes.isAusente(intacta.getId()));
+
+        // o arquivo volta e o registro é salvo de novo: a marca sai
+        Files.write(Paths.get(apagada.getLocal()), new byte[10]);
+        controle.atualizarMidia(apagada);
+        assertEquals(0, ausentes.getTotal());
+    }
+}
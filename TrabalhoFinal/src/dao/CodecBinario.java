@@ -0,0 +1,113 @@
+package dao;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import model.*;
+
+/**
+ * **Codificação Binária Compacta de Mídias.**
+ *
+ * <p>Formato usado pelo protocolo binário do modo servidor. Campos, na ordem:</p>
+ * <pre>
+ * int id | byte tipo (0 MUSICA, 1 FILME, 2 LIVRO) | texto local | long tamanhoBytes
+ * texto titulo | long duracao | texto categoria | texto específico (artista, idioma ou autores)
+ * </pre>
+ * <p>Cada texto é um {@code int} com o número de bytes UTF-8 ({@code -1} para {@code null})
+ * seguido dos bytes. Inteiros em ordem <i>big-endian</i>, como em {@link DataOutput}.</p>
+ *
+ * @see CodecJson
+ * @see CodecCsv
+ */
+public class CodecBinario {
+    private CodecBinario() {
+    }
+
+    /**
+     * Escreve uma mídia no formato binário.
+     *
+     * @param m A mídia a ser escrita.
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escrever(Midia m, DataOutput out) throws IOException {
+        m = MidiaSobDemanda.concreta(m);
+        out.writeInt(m.getId());
+        String especifico;
+        if (m instanceof Musica) {
+            out.writeByte(0);
+            especifico = ((Musica) m).getArtista();
+        } else if (m instanceof Filme) {
+            out.writeByte(1);
+            especifico = ((Filme) m).getIdiomaAudio();
+        } else if (m instanceof Livro) {
+            out.writeByte(2);
+            especifico = ((Livro) m).getAutores();
+        } else {
+            throw new IllegalArgumentException("Tipo de mídia desconhecido: " + m.getTipo());
+        }
+        escreverTexto(m.getLocal(), out);
+        out.writeLong(m.getTamanhoBytes());
+        escreverTexto(m.getTitulo(), out);
+        out.writeLong(m.getDuracao());
+        escreverTexto(m.getCategoria(), out);
+        escreverTexto(especifico, out);
+    }
+
+    /**
+     * Lê uma mídia no formato binário.
+     *
+     * @param in A origem da leitura.
+     * @return A mídia lida.
+     * @throws IOException Se ocorrer um erro de leitura ou o tipo for desconhecido.
+     */
+    public static Midia ler(DataInput in) throws IOException {
+        int id = in.readInt();
+        int tipo = in.readByte();
+        String local = lerTexto(in);
+        long tamanho = in.readLong();
+        String titulo = lerTexto(in);
+        long duracao = in.readLong();
+        String categoria = lerTexto(in);
+        String especifico = lerTexto(in);
+        switch (tipo) {
+            case 0: return new Musica(id, local, tamanho, titulo, duracao, categoria, especifico);
+            case 1: return new Filme(id, local, tamanho, titulo, duracao, categoria, especifico);
+            case 2: return new Livro(id, local, tamanho, titulo, duracao, categoria, especifico);
+            default: throw new IOException("Tipo de mídia desconhecido: " + tipo);
+        }
+    }
+
+    /**
+     * Escreve um texto (ou {@code null}) como tamanho seguido dos bytes UTF-8.
+     *
+     * @param v O texto.
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escreverTexto(String v, DataOutput out) throws IOException {
+        if (v == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] b = v.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /**
+     * Lê um texto gravado por {@link #escreverTexto(String, DataOutput)}.
+     *
+     * @param in A origem da leitura.
+     * @return O texto, ou {@code null}.
+     * @throws IOException Se ocorrer um erro de leitura ou o tamanho for inválido.
+     */
+    public static String lerTexto(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) return null;
+        byte[] b = new byte[n];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import model.Midia;
+
+/**
+ * **Conversão de Mídias para o formato CSV (e vice-versa).**
+ *
+ * <p>Cada mídia ocupa um registro com as colunas de {@link #COLUNAS}; os campos específicos
+ * de cada subtipo ({@code artista}, {@code idiomaAudio}, {@code autores}) ficam vazios nos
+ * demais tipos. Campos com vírgula, aspas ou quebra de linha são escritos entre aspas,
+ * seguindo a RFC 4180.</p>
+ *
+ * <p>A leitura é feita registro a registro, diretamente do {@link Reader}, sem carregar
+ * o arquivo inteiro em memória.</p>
+ *
+ * @see CodecJson
+ */
+public class CodecCsv {
+
+    /** Colunas do arquivo CSV, na ordem em que são escritas. */
+    public static final List<String> COLUNAS = List.of(
+            "id", "tipo", "local", "tamanhoBytes", "titulo", "duracao", "categoria",
+            "artista", "idiomaAudio", "autores");
+
+    private CodecCsv() {
+    }
+
+    /**
+     * Escreve a linha de cabeçalho com os nomes das colunas.
+     *
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escreverCabecalho(Appendable out) throws IOException {
+        out.append(String.join(",", COLUNAS)).append("\r\n");
+    }
+
+    /**
+     * Escreve uma mídia como um registro CSV.
+     *
+     * @param m A mídia a ser escrita.
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escrever(Midia m, Appendable out) throws IOException {
+        Map<String,String> map = FileMidiaDAO.toMap(m);
+        for (int i = 0; i < COLUNAS.size(); i++) {
+            if (i > 0) out.append(',');
+            escreverCampo(map.getOrDefault(COLUNAS.get(i), ""), out);
+        }
+        out.append("\r\n");
+    }
+
+    private static void escreverCampo(String v, Appendable out) throws IOException {
+        boolean aspas = v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0;
+        if (!aspas) {
+            out.append(v);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Lê o próximo registro CSV, mapeando seus campos pelos nomes do cabeçalho.
+     *
+     * @param in O {@link Reader} de origem (deve ser bufferizado).
+     * @param cabecalho Os nomes das colunas, lidos da primeira linha com {@link #lerCampos(Reader)}.
+     * @return A mídia lida, ou {@code null} no fim do arquivo.
+     * @throws IOException Se ocorrer um erro de leitura.
+     * @throws IllegalArgumentException Se o registro tiver um tipo desconhecido ou números inválidos.
+     */
+    public static Midia ler(Reader in, List<String> cabecalho) throws IOException {
+        List<String> campos = lerCampos(in);
+        // linhas em branco são ignoradas
+        while (campos != null && campos.size() == 1 && campos.get(0).isEmpty()) campos = lerCampos(in);
+        if (campos == null) return null;
+        Map<String,String> map = new HashMap<>();
+        for (int i = 0; i < cabecalho.size() && i < campos.size(); i++) {
+            map.put(cabecalho.get(i), campos.get(i));
+        }
+        Midia m = FileMidiaDAO.fromMap(map);
+        if (m == null) throw new IllegalArgumentException("Tipo de mídia desconhecido: " + map.get("tipo"));
+        return m;
+    }
+
+    /**
+     * Lê os campos do próximo registro CSV (que pode ocupar várias linhas, se houver aspas).
+     *
+     * @param in O {@link Reader} de origem (deve ser bufferizado).
+     * @return A lista de campos, ou {@code null} no fim do arquivo.
+     * @throws IOException Se ocorrer um erro de leitura.
+     */
+    public static List<String> lerCampos(Reader in) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        boolean leuAlgo = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            leuAlgo = true;
+            if (entreAspas) {
+                if (c == '"') {
+                    in.mark(1);
+                    int prox = in.read();
+                    if (prox == '"') {
+                        atual.append('"');
+                    } else {
+                        entreAspas = false;
+                        if (prox != -1) in.reset();
+                    }
+                } else {
+                    atual.append((char) c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                atual.append((char) c);
+            }
+        }
+        if (!leuAlgo) return null;
+        campos.add(atual.toString());
+        return campos;
+    }
+}
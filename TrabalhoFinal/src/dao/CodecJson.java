@@ -0,0 +1,204 @@
+package dao;
+
+import java.io.IOException;
+import java.util.*;
+import model.Midia;
+
+/**
+ * **Conversão de Mídias para JSON (um objeto por linha, formato JSON Lines).**
+ *
+ * <p>Cada mídia é escrita como um objeto JSON plano, com os mesmos campos usados nos
+ * arquivos {@code .tpoo} (incluindo {@code artista}, {@code idiomaAudio} ou {@code autores},
+ * conforme o subtipo). Campos numéricos são escritos como números.</p>
+ *
+ * <p>O leitor aceita apenas objetos planos (sem objetos ou listas aninhados), que é tudo o que
+ * o catálogo precisa.</p>
+ *
+ * @see CodecCsv
+ */
+public class CodecJson {
+    private static final Set<String> NUMERICOS = Set.of("id", "tamanhoBytes", "duracao");
+
+    private CodecJson() {
+    }
+
+    /**
+     * Converte uma mídia em um objeto JSON de uma linha.
+     *
+     * @param m A mídia a ser convertida.
+     * @return O objeto JSON (sem quebra de linha no final).
+     */
+    public static String paraJson(Midia m) {
+        StringBuilder sb = new StringBuilder(160);
+        try {
+            escrever(FileMidiaDAO.toMap(m), sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // StringBuilder não lança IOException
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escreve um mapa de atributos como um objeto JSON plano.
+     *
+     * @param map Os atributos a serem escritos.
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escrever(Map<String,String> map, Appendable out) throws IOException {
+        out.append('{');
+        boolean primeiro = true;
+        for (Map.Entry<String,String> e : map.entrySet()) {
+            if (!primeiro) out.append(',');
+            primeiro = false;
+            escreverTexto(e.getKey(), out);
+            out.append(':');
+            if (NUMERICOS.contains(e.getKey())) {
+                out.append(e.getValue());
+            } else {
+                escreverTexto(e.getValue(), out);
+            }
+        }
+        out.append('}');
+    }
+
+    /**
+     * Escreve um texto como string JSON, com aspas e caracteres de escape.
+     *
+     * @param v O texto a ser escrito ({@code null} é escrito como {@code null}).
+     * @param out O destino da escrita.
+     * @throws IOException Se ocorrer um erro de escrita.
+     */
+    public static void escreverTexto(String v, Appendable out) throws IOException {
+        if (v == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Converte um objeto JSON (uma linha do arquivo JSONL) em uma mídia.
+     *
+     * @param json O objeto JSON.
+     * @return A mídia correspondente.
+     * @throws IllegalArgumentException Se o JSON for inválido ou o tipo for desconhecido.
+     */
+    public static Midia deJson(String json) {
+        return deObjeto(lerObjeto(json));
+    }
+
+    /**
+     * Converte um objeto já lido por {@link #lerObjeto(String)} em uma mídia.
+     *
+     * @param map Os pares chave/valor do objeto.
+     * @return A mídia correspondente.
+     * @throws IllegalArgumentException Se um número for inválido ou o tipo for desconhecido.
+     */
+    public static Midia deObjeto(Map<String,String> map) {
+        Midia m = FileMidiaDAO.fromMap(map);
+        if (m == null) throw new IllegalArgumentException("Tipo de mídia desconhecido: " + map.get("tipo"));
+        return m;
+    }
+
+    /**
+     * Lê um objeto JSON plano, devolvendo os valores como texto.
+     * <p>Números e booleanos são devolvidos como escritos; {@code null} não é incluído no mapa.</p>
+     *
+     * @param json O objeto JSON.
+     * @return Um mapa com os pares chave/valor do objeto, na ordem em que aparecem.
+     * @throws IllegalArgumentException Se o JSON for inválido ou tiver valores aninhados.
+     */
+    public static Map<String,String> lerObjeto(String json) {
+        Map<String,String> map = new LinkedHashMap<>();
+        int[] pos = {pularEspacos(json, 0)};
+        esperar(json, pos, '{');
+        pos[0] = pularEspacos(json, pos[0]);
+        if (pos[0] < json.length() && json.charAt(pos[0]) == '}') return map;
+        while (true) {
+            pos[0] = pularEspacos(json, pos[0]);
+            String chave = lerTexto(json, pos);
+            pos[0] = pularEspacos(json, pos[0]);
+            esperar(json, pos, ':');
+            pos[0] = pularEspacos(json, pos[0]);
+            String valor;
+            if (pos[0] < json.length() && json.charAt(pos[0]) == '"') {
+                valor = lerTexto(json, pos);
+            } else {
+                int ini = pos[0];
+                while (pos[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(pos[0])) < 0) pos[0]++;
+                valor = json.substring(ini, pos[0]);
+                if (valor.isEmpty() || valor.startsWith("{") || valor.startsWith("[")) {
+                    throw new IllegalArgumentException("Valor inválido para '" + chave + "'");
+                }
+                if (valor.equals("null")) valor = null;
+            }
+            if (valor != null) map.put(chave, valor);
+            pos[0] = pularEspacos(json, pos[0]);
+            if (pos[0] < json.length() && json.charAt(pos[0]) == ',') {
+                pos[0]++;
+                continue;
+            }
+            esperar(json, pos, '}');
+            return map;
+        }
+    }
+
+    private static String lerTexto(String json, int[] pos) {
+        esperar(json, pos, '"');
+        StringBuilder sb = new StringBuilder();
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos[0] >= json.length()) break;
+            char e = json.charAt(pos[0]++);
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos[0] + 4 > json.length()) throw new IllegalArgumentException("Escape \\u incompleto");
+                    sb.append((char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16));
+                    pos[0] += 4;
+                    break;
+                default: sb.append(e); // \" \\ \/
+            }
+        }
+        throw new IllegalArgumentException("Texto JSON não terminado");
+    }
+
+    private static void esperar(String json, int[] pos, char c) {
+        if (pos[0] >= json.length() || json.charAt(pos[0]) != c) {
+            throw new IllegalArgumentException("JSON inválido: esperado '" + c + "' na posição " + pos[0]);
+        }
+        pos[0]++;
+    }
+
+    private static int pularEspacos(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+}
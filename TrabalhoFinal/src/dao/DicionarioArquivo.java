@@ -0,0 +1,156 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.Dicionario;
+
+/**
+ * **Dicionário Persistente de Códigos de um Diretório de Armazenamento.**
+ *
+ * <p>Associa cada valor distinto dos campos de baixa cardinalidade ({@code categoria} e
+ * {@code idiomaAudio}) a um código inteiro <b>estável</b>, que é o que o {@link FileMidiaDAO}
+ * grava nos arquivos {@code .tpoo}. As associações ficam no arquivo {@value #NOME}, dentro do
+ * próprio diretório de armazenamento, uma por linha: {@code campo<TAB>código<TAB>valor}.</p>
+ *
+ * <p>O arquivo só recebe acréscimos. Um novo código é gravado (com {@code force}) <b>antes</b>
+ * de qualquer registro que o use, sob um bloqueio do arquivo, de modo que vários DAOs (ou
+ * processos) sobre o mesmo diretório atribuem sempre os mesmos códigos.</p>
+ *
+ * <p>Os valores lidos são as instâncias canônicas de {@link Dicionario#CATEGORIAS} e
+ * {@link Dicionario#IDIOMAS}.</p>
+ *
+ * @see FileMidiaDAO
+ * @see Dicionario
+ */
+class DicionarioArquivo {
+
+    /** Nome do arquivo do dicionário dentro do diretório de armazenamento. */
+    static final String NOME = "dicionario.dic";
+
+    // impede que dois DAOs do mesmo processo peçam o bloqueio do mesmo arquivo ao mesmo tempo
+    private static final Map<Path, Object> TRAVAS = new ConcurrentHashMap<>();
+
+    private final Path arquivo;
+    private final Object trava;
+    private final Map<String, Dicionario> campos = new ConcurrentHashMap<>();
+    private long lido = 0;
+
+    /**
+     * Abre (ou cria, na primeira gravação) o dicionário de um diretório de armazenamento.
+     *
+     * @param storageDir O diretório de armazenamento.
+     * @throws IOException Se o arquivo existir e não puder ser lido.
+     */
+    DicionarioArquivo(Path storageDir) throws IOException {
+        this.arquivo = storageDir.resolve(NOME).toAbsolutePath().normalize();
+        this.trava = TRAVAS.computeIfAbsent(arquivo, k -> new Object());
+        recarregar();
+    }
+
+    /**
+     * Retorna o código persistente de um valor, gravando uma nova associação se necessário.
+     *
+     * @param campo O nome do campo ({@code categoria} ou {@code idiomaAudio}).
+     * @param valor O valor (não nulo).
+     * @return O código do valor no campo.
+     * @throws IOException Se a nova associação não puder ser gravada.
+     */
+    @SuppressWarnings("try")
+    int codigo(String campo, String valor) throws IOException {
+        Dicionario d = campo(campo);
+        Integer c = codigoConhecido(d, valor);
+        if (c != null) return c;
+        synchronized (trava) {
+            try (FileChannel ch = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock l = ch.lock()) {
+                lerNovasLinhas(ch);
+                c = codigoConhecido(d, valor);
+                if (c != null) return c;
+                int novo = d.tamanho();
+                byte[] linha = (campo + "\t" + novo + "\t" + valor + "\n").getBytes(StandardCharsets.UTF_8);
+                ch.position(ch.size());
+                ch.write(ByteBuffer.wrap(linha));
+                ch.force(true);
+                lido = ch.size();
+                d.codigo(canonico(campo, valor));
+                return novo;
+            }
+        }
+    }
+
+    /**
+     * Retorna o valor associado a um código.
+     * <p>Se o código ainda não for conhecido (gravado por outro DAO), o arquivo é relido.</p>
+     *
+     * @param campo O nome do campo.
+     * @param codigo O código gravado no registro.
+     * @return O valor canônico.
+     * @throws IOException Se o arquivo não puder ser relido.
+     * @throws IllegalArgumentException Se o código não existir no dicionário.
+     */
+    String valor(String campo, int codigo) throws IOException {
+        Dicionario d = campo(campo);
+        if (codigo < d.tamanho()) return d.valor(codigo);
+        recarregar();
+        return d.valor(codigo);
+    }
+
+    // o dicionário local só contém valores que já estão gravados no arquivo
+    private static Integer codigoConhecido(Dicionario d, String valor) {
+        int c = d.buscarCodigo(valor);
+        return c < 0 ? null : c;
+    }
+
+    private void recarregar() throws IOException {
+        synchronized (trava) {
+            if (!arquivo.toFile().exists()) return;
+            try (FileChannel ch = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                lerNovasLinhas(ch);
+            }
+        }
+    }
+
+    // lê as linhas completas gravadas depois da última leitura
+    private void lerNovasLinhas(FileChannel ch) throws IOException {
+        long tamanho = ch.size();
+        if (tamanho <= lido) return;
+        ByteBuffer buf = ByteBuffer.allocate((int) (tamanho - lido));
+        while (buf.hasRemaining() && ch.read(buf, lido + buf.position()) >= 0) {
+            // continua lendo
+        }
+        byte[] bytes = buf.array();
+        int inicio = 0;
+        for (int i = 0; i < buf.position(); i++) {
+            if (bytes[i] != '\n') continue;
+            String linha = new String(bytes, inicio, i - inicio, StandardCharsets.UTF_8);
+            inicio = i + 1;
+            String[] partes = linha.split("\t", 3);
+            if (partes.length < 3) continue;
+            Dicionario d = campo(partes[0]);
+            // as linhas de um campo estão em ordem de código
+            if (Integer.parseInt(partes[1]) == d.tamanho()) d.codigo(canonico(partes[0], partes[2]));
+        }
+        lido += inicio;
+    }
+
+    private Dicionario campo(String campo) {
+        return campos.computeIfAbsent(campo, k -> new Dicionario());
+    }
+
+    private static String canonico(String campo, String valor) {
+        switch (campo) {
+            case "categoria": return Dicionario.CATEGORIAS.canonico(valor);
+            case "idiomaAudio": return Dicionario.IDIOMAS.canonico(valor);
+            default: return valor;
+        }
+    }
+}
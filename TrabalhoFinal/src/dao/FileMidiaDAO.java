@@ -1,8 +1,14 @@
 package dao;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import model.*;
 
 /**
@@ -18,11 +24,42 @@ import model.*;
  * e para recriar objetos {@link Midia} (incluindo subtipos como {@link Musica}, {@link Filme} e {@link Livro})
  * a partir do arquivo (para buscar).</p>
  *
+ * <p><b>Organização dos arquivos:</b> no layout <b>plano</b> (padrão), todos os arquivos ficam
+ * diretamente no {@code storageDir}. No layout <b>fragmentado</b>, cada arquivo fica em
+ * {@code storageDir/xx/yy/[id].tpoo}, em que {@code xx} e {@code yy} (64 valores cada) são
+ * derivados de um espalhamento do ID, para que nenhum diretório cresça demais. O layout
+ * fragmentado é indicado pelo arquivo {@value #MARCADOR_FRAGMENTADO} e pode ser adotado com o
+ * catálogo em uso por {@link #migrarParaFragmentado()}.</p>
+ *
+ * <p><b>Manutenção:</b> {@link #manterFatia(int, int, Path, ProcessadorMidia)} retira os arquivos
+ * ilegíveis, regrava no formato atual os registros antigos e apaga os temporários abandonados,
+ * uma fatia do catálogo por vez.</p>
+ *
  * @see MidiaDAO
  * @see Midia
  */
 public class FileMidiaDAO implements MidiaDAO{
 	private Path storageDir = null;
+    private final DicionarioArquivo dicionario;
+
+    // códigos fixos gravados no campo "tipo"; a ordem não pode mudar
+    // campos de baixa cardinalidade gravados como códigos do dicionário persistente
+    private static final String[] CAMPOS_CODIFICADOS = {"categoria", "idiomaAudio"};
+    private static final String SUFIXO_CODIGO = "Cod";
+
+    /** Nome do arquivo que indica que o diretório usa o layout fragmentado. */
+    public static final String MARCADOR_FRAGMENTADO = "layout.fragmentado";
+    // diretórios em cada um dos dois níveis do layout fragmentado
+    private static final int FRAGMENTOS = 64;
+    private volatile boolean fragmentado;
+    // durante (ou após uma interrupção de) uma migração ainda pode haver arquivos no diretório plano
+    private volatile boolean migrando;
+    // escritas no mesmo arquivo não podem se intercalar; compartilhadas por todas as instâncias da JVM
+    private static final TravasPorId TRAVAS = new TravasPorId();
+    // registros e diretórios alterados desde o último sincronizar()
+    private final Set<Path> naoSincronizados = ConcurrentHashMap.newKeySet();
+    // um temporário mais velho que isto não pertence a uma escrita em andamento
+    static final long IDADE_TEMPORARIO_ABANDONADO_MS = 10 * 60 * 1000;
 
     /**
      * Construtor da classe.
@@ -34,28 +71,104 @@ public class FileMidiaDAO implements MidiaDAO{
     public FileMidiaDAO(Path storageDir) throws IOException {
         this.storageDir = storageDir;
         if (!Files.exists(storageDir)) Files.createDirectories(storageDir);
+        this.dicionario = new DicionarioArquivo(storageDir);
+        this.fragmentado = Files.exists(storageDir.resolve(MARCADOR_FRAGMENTADO));
+        this.migrando = fragmentado && existeArquivoPlano();
+    }
+
+    /**
+     * Obtém o diretório de armazenamento.
+     *
+     * @return O {@link Path} do diretório de armazenamento.
+     */
+    public Path getStorageDir() {
+        return storageDir;
+    }
+
+    /**
+     * Indica se o diretório usa o layout fragmentado.
+     *
+     * @return {@code true} se os arquivos ficam em subdiretórios derivados do ID.
+     */
+    public boolean isFragmentado() {
+        return fragmentado;
+    }
+
+    /**
+     * Retorna o caminho do arquivo {@code .tpoo} de um ID, conforme o layout em uso.
+     *
+     * @param id O ID da mídia.
+     * @return O caminho onde o registro é (ou seria) gravado.
+     */
+    public Path caminhoDoRegistro(int id) {
+        if (!fragmentado) return storageDir.resolve(id + ".tpoo");
+        int h = espalhar(id);
+        return storageDir.resolve(nomeFragmento(h % FRAGMENTOS))
+                .resolve(nomeFragmento((h / FRAGMENTOS) % FRAGMENTOS))
+                .resolve(id + ".tpoo");
     }
 
     /**
      * Salva (persiste) um objeto {@link Midia} em um arquivo.
      * <p>O arquivo é nomeado com o ID da mídia e a extensão {@code .tpoo}
      * (ex: {@code [id].tpoo}).</p>
+     * <p>Os campos {@code tipo}, {@code categoria} e {@code idiomaAudio} são gravados como
+     * códigos inteiros ({@code tipoCod}, {@code categoriaCod}, {@code idiomaAudioCod}).</p>
+     * <p>O conteúdo é gravado num arquivo temporário ({@code .tmp}) e publicado por renomeação
+     * atômica. Temporários deixados por uma queda não são lidos como registros e são apagados por
+     * {@link #manterFatia(int, int, Path, ProcessadorMidia)}.</p>
      *
      * @param m O objeto {@link Midia} a ser salvo.
      * @throws Exception Se ocorrer um erro de I/O ao escrever no arquivo.
      */
     @Override
     public void salvar(Midia m) throws Exception {
-        Path p = storageDir.resolve(m.getId() + ".tpoo");
-        try (BufferedWriter w = Files.newBufferedWriter(p)) {
-            Map<String,String> map = toMap(m);
-            for (Map.Entry<String,String> e : map.entrySet()) {
-                w.write(e.getKey() + "=" + e.getValue());
-                w.newLine();
+        Map<String,String> map = codificar(toMap(m));
+        TRAVAS.executar(m.getId(), () -> {
+            Path p = caminhoDoRegistro(m.getId());
+            if (fragmentado) Files.createDirectories(p.getParent());
+            gravarConteudo(p, m.getId(), formatar(map));
+            // a versão antiga, ainda não migrada, ficou obsoleta
+            if (migrando) Files.deleteIfExists(caminhoPlano(m.getId()));
+            return null;
+        });
+    }
+
+    // grava ao lado e troca por renomeação atômica: leitores veem a versão antiga ou a nova, nunca um arquivo truncado
+    private void gravarConteudo(Path p, int id, String conteudo) throws IOException {
+        Path tmp = criarTemporario(p.getParent(), id);
+        try {
+            Files.writeString(tmp, conteudo);
+            Files.move(tmp, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        naoSincronizados.add(p);
+        naoSincronizados.add(p.getParent());
+    }
+
+    // como um arquivo comum (permissões da umask, não as 0600 de createTempFile), para o catálogo continuar compartilhável
+    private static Path criarTemporario(Path dir, int id) throws IOException {
+        while (true) {
+            Path tmp = dir.resolve(id + "-" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                Files.newOutputStream(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return tmp;
+            } catch (FileAlreadyExistsException ex) {
+                // outro processo escolheu o mesmo nome: tenta outro
             }
         }
     }
 
+    // o conteúdo de um arquivo de registro, uma linha chave=valor por campo
+    private static String formatar(Map<String,String> map) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String,String> e : map.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
     /**
      * Deleta o arquivo persistido da mídia correspondente ao ID.
      *
@@ -65,12 +178,46 @@ public class FileMidiaDAO implements MidiaDAO{
      */
     @Override
     public boolean deletar(int id) throws Exception {
-        Path p = storageDir.resolve(id + ".tpoo");
-        if (Files.exists(p)) {
-            Files.delete(p);
-            return true;
+        return TRAVAS.executar(id, () -> {
+            Path p = caminhoDoRegistro(id);
+            boolean removido = Files.deleteIfExists(p);
+            if (removido) naoSincronizados.add(p.getParent());
+            if (migrando && Files.deleteIfExists(caminhoPlano(id))) {
+                removido = true;
+                naoSincronizados.add(storageDir);
+            }
+            return removido;
+        });
+    }
+
+    /**
+     * Força para o disco os registros gravados e os diretórios alterados (renomeações e
+     * exclusões) desde a última chamada.
+     * <p>As escritas não usam {@code fsync} individualmente; quem precisa de durabilidade chama
+     * este método em intervalos (ver {@link MidiaDAOComDiario}).</p>
+     *
+     * @throws IOException Se um registro não puder ser sincronizado.
+     */
+    @Override
+    public void sincronizar() throws IOException {
+        List<Path> pendentes = new ArrayList<>(naoSincronizados);
+        // o conteúdo dos arquivos antes das entradas dos diretórios que apontam para eles
+        pendentes.sort(Comparator.comparing(Files::isDirectory));
+        for (Path p : pendentes) {
+            // retira antes de forçar: uma escrita que chegar depois fica para a próxima chamada
+            naoSincronizados.remove(p);
+            try (FileChannel c = FileChannel.open(p, StandardOpenOption.READ)) {
+                c.force(true);
+            } catch (NoSuchFileException ex) {
+                // apagado depois de gravado: a exclusão registrou o diretório
+            } catch (IOException ex) {
+                // alguns sistemas (Windows) não abrem diretórios; o conteúdo dos registros já foi forçado
+                if (!Files.isDirectory(p)) {
+                    naoSincronizados.add(p);
+                    throw ex;
+                }
+            }
         }
-        return false;
     }
 
     /**
@@ -89,7 +236,8 @@ public class FileMidiaDAO implements MidiaDAO{
     /**
      * Lista todos os objetos {@link Midia} salvos no diretório de armazenamento.
      * <p>Busca todos os arquivos com a extensão {@code .tpoo} no {@code storageDir}
-     * e os converte em objetos {@link Midia}.</p>
+     * e os converte em objetos {@link Midia}. No layout fragmentado, os fragmentos são
+     * lidos em paralelo.</p>
      *
      * @return Uma lista {@code List<Midia>} contendo todas as mídias encontradas. Retorna uma lista vazia se o diretório não existir.
      * @throws Exception Se ocorrer um erro de I/O ao listar o diretório ou ler os arquivos.
@@ -97,16 +245,365 @@ public class FileMidiaDAO implements MidiaDAO{
     @Override
     public List<Midia> listarTodos() throws Exception {
         if (!Files.exists(storageDir)) return Collections.emptyList();
-        try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir, "*.tpoo")) {
+        if (getTotalFragmentos() == 1) {
             List<Midia> list = new ArrayList<>();
+            percorrerFragmento(0, list::add);
+            return list;
+        }
+        try {
+            return IntStream.range(0, getTotalFragmentos()).parallel()
+                    .mapToObj(f -> {
+                        List<Midia> parte = new ArrayList<>();
+                        try {
+                            percorrerFragmento(f, parte::add);
+                        } catch (Exception ex) {
+                            throw new CompletionException(ex);
+                        }
+                        return parte;
+                    })
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList());
+        } catch (CompletionException ex) {
+            throw (Exception) ex.getCause();
+        }
+    }
+
+    /**
+     * Retorna o número de fragmentos que podem ser percorridos de forma independente
+     * (e em paralelo) com {@link #percorrerFragmento(int, ProcessadorMidia)}.
+     *
+     * @return {@code 64} no layout fragmentado; {@code 1} no layout plano.
+     */
+    public int getTotalFragmentos() {
+        return fragmentado ? FRAGMENTOS : 1;
+    }
+
+    /**
+     * Percorre todas as mídias de um fragmento (um diretório de primeiro nível do layout
+     * fragmentado, ou o diretório inteiro no layout plano).
+     *
+     * @param fragmento O índice do fragmento, de {@code 0} a {@link #getTotalFragmentos()} {@code - 1}.
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia.
+     * @throws Exception Se ocorrer um erro de I/O ou se o processador lançar uma exceção.
+     */
+    public void percorrerFragmento(int fragmento, ProcessadorMidia processador) throws Exception {
+        percorrerFragmento(fragmento, 0, 1, processador);
+    }
+
+    private void percorrerFragmento(int fragmento, int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        percorrerArquivos(fragmento, fatia, totalFatias, p -> {
+            Midia m = fromFile(p);
+            if (m != null) processador.processar(m);
+        });
+    }
+
+    // chamado para cada arquivo de registro encontrado
+    @FunctionalInterface
+    private interface ProcessadorArquivo {
+        void processar(Path p) throws Exception;
+    }
+
+    private void percorrerArquivos(int fragmento, int fatia, int totalFatias, ProcessadorArquivo processador) throws Exception {
+        percorrerArquivos(fragmento, fatia, totalFatias, "*.tpoo", processador);
+    }
+
+    private void percorrerArquivos(int fragmento, int fatia, int totalFatias, String filtro, ProcessadorArquivo processador) throws Exception {
+        // arquivos ainda não migrados entram no fragmento 0
+        if ((!fragmentado || migrando) && fragmento == 0) {
+            percorrerDiretorio(storageDir, fatia, totalFatias, filtro, processador);
+        }
+        if (!fragmentado) return;
+        Path nivel1 = storageDir.resolve(nomeFragmento(fragmento));
+        if (!Files.isDirectory(nivel1)) return;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(nivel1, Files::isDirectory)) {
+            for (Path nivel2 : ds) {
+                percorrerDiretorio(nivel2, fatia, totalFatias, filtro, processador);
+            }
+        }
+    }
+
+    private void percorrerDiretorio(Path dir, int fatia, int totalFatias, String filtro, ProcessadorArquivo processador) throws Exception {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, filtro)) {
             for (Path p : ds) {
-            	Midia m = fromFile(p);
-                if (m != null) list.add(m);
+                if (totalFatias > 1) {
+                    int id = idDoArquivo(p);
+                    if (id < 0 || Math.floorMod(id, totalFatias) != fatia) continue;
+                }
+                processador.processar(p);
             }
-            return list;
+        } catch (NoSuchFileException ex) {
+            // diretório removido durante a leitura
         }
     }
 
+    /**
+     * Percorre as mídias lendo de cada arquivo só as linhas dos campos pedidos.
+     * <p>Não monta o mapa de atributos nem a {@link Midia}: o ID vem do nome do arquivo, os
+     * números são convertidos direto da linha e a leitura do arquivo para assim que todos os
+     * campos pedidos foram encontrados. Os códigos de categoria só são traduzidos se a categoria
+     * foi pedida.</p>
+     */
+    @Override
+    public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        if (!Files.exists(storageDir)) return;
+        Set<Projecao.Campo> pedidos = campos.isEmpty() ? EnumSet.noneOf(Projecao.Campo.class) : EnumSet.copyOf(campos);
+        for (int f = 0; f < getTotalFragmentos(); f++) {
+            percorrerArquivos(f, 0, 1, p -> {
+                Projecao proj = projetarArquivo(p, pedidos);
+                if (proj != null) processador.processar(proj);
+            });
+        }
+    }
+
+    private Projecao projetarArquivo(Path p, Set<Projecao.Campo> campos) {
+        int id = idDoArquivo(p);
+        if (id < 0) return null;
+        boolean querTitulo = campos.contains(Projecao.Campo.TITULO);
+        boolean querCategoria = campos.contains(Projecao.Campo.CATEGORIA);
+        boolean querDuracao = campos.contains(Projecao.Campo.DURACAO);
+        boolean querTamanho = campos.contains(Projecao.Campo.TAMANHO);
+        boolean querLocal = campos.contains(Projecao.Campo.LOCAL);
+        String tipo = null, titulo = null, categoria = null, local = null;
+        long duracao = 0, tamanho = 0;
+        // o tipo e cada campo pedido
+        int faltam = 1 + campos.size();
+        try (BufferedReader r = Files.newBufferedReader(p)) {
+            String l;
+            while (faltam > 0 && (l = r.readLine()) != null) {
+                int idx = l.indexOf('=');
+                if (idx <= 0) continue;
+                if (chave(l, idx, "tipoCod")) {
+                    tipo = TiposMidia.nome(Integer.parseInt(l, idx + 1, l.length(), 10));
+                } else if (chave(l, idx, "tipo")) {
+                    tipo = l.substring(idx + 1);
+                } else if (querTitulo && chave(l, idx, "titulo")) {
+                    titulo = l.substring(idx + 1);
+                } else if (querLocal && chave(l, idx, "local")) {
+                    local = l.substring(idx + 1);
+                } else if (querDuracao && chave(l, idx, "duracao")) {
+                    duracao = Long.parseLong(l, idx + 1, l.length(), 10);
+                } else if (querTamanho && chave(l, idx, "tamanhoBytes")) {
+                    tamanho = Long.parseLong(l, idx + 1, l.length(), 10);
+                } else if (querCategoria && chave(l, idx, "categoriaCod")) {
+                    categoria = dicionario.valor("categoria", Integer.parseInt(l, idx + 1, l.length(), 10));
+                } else if (querCategoria && chave(l, idx, "categoria")) {
+                    categoria = l.substring(idx + 1);
+                } else {
+                    continue;
+                }
+                faltam--;
+            }
+        } catch (NoSuchFileException ex) {
+            return null; // removido durante a leitura
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        if (tipo == null) return null;
+        return new Projecao(id, tipo, campos, titulo, categoria, duracao, tamanho, local);
+    }
+
+    private static boolean chave(String linha, int idx, String chave) {
+        return idx == chave.length() && linha.startsWith(chave);
+    }
+
+    /**
+     * Converte o diretório para o layout fragmentado, movendo os arquivos um a um.
+     * <p>A migração é feita <b>com o catálogo em uso</b>: o marcador é gravado primeiro, de modo
+     * que novas escritas já vão para o layout fragmentado, e as leituras procuram nos dois
+     * lugares até o fim da migração. Se for interrompida, basta chamá-la de novo.</p>
+     * <p>Outras instâncias de {@code FileMidiaDAO} sobre o mesmo diretório só passam a usar o
+     * novo layout quando forem recriadas.</p>
+     *
+     * @return O número de arquivos movidos.
+     * @throws Exception Se ocorrer um erro ao gravar o marcador ou mover os arquivos.
+     */
+    public synchronized int migrarParaFragmentado() throws Exception {
+        if (!fragmentado) {
+            migrando = true;
+            fragmentado = true;
+            Files.writeString(storageDir.resolve(MARCADOR_FRAGMENTADO), FRAGMENTOS + "x" + FRAGMENTOS);
+        }
+        int movidos = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir, "*.tpoo")) {
+            for (Path p : ds) {
+                int id = idDoArquivo(p);
+                if (id < 0) continue;
+                Path destino = caminhoDoRegistro(id);
+                Files.createDirectories(destino.getParent());
+                boolean movido = TRAVAS.executar(id, () -> {
+                    if (!Files.exists(p)) return false; // regravado ou removido durante a migração
+                    if (Files.exists(destino)) {
+                        // já regravado no layout novo: a cópia plana é mais antiga
+                        Files.delete(p);
+                        return false;
+                    }
+                    Files.move(p, destino);
+                    return true;
+                });
+                if (movido) movidos++;
+            }
+        }
+        migrando = false;
+        return movidos;
+    }
+
+    /**
+     * Percorre as mídias de uma fatia do espaço de IDs lendo um arquivo de cada vez.
+     * <p>A fatia de cada arquivo é decidida pelo nome ({@code [id].tpoo}), sem precisar lê-lo.</p>
+     *
+     * @param fatia O índice da fatia, de {@code 0} a {@code totalFatias - 1}.
+     * @param totalFatias O número total de fatias.
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia da fatia.
+     * @throws Exception Se ocorrer um erro de I/O ou se o processador lançar uma exceção.
+     */
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        if (!Files.exists(storageDir)) return;
+        for (int f = 0; f < getTotalFragmentos(); f++) {
+            percorrerFragmento(f, fatia, totalFatias, processador);
+        }
+    }
+
+    /**
+     * **Resumo da manutenção de uma fatia** ({@link #manterFatia(int, int, Path, ProcessadorMidia)}).
+     */
+    public static final class Manutencao {
+        private int lidos;
+        private int quarentenados;
+        private int reescritos;
+        private int temporarios;
+
+        /**
+         * @return Quantos arquivos de registro da fatia foram lidos.
+         */
+        public int getLidos() {
+            return lidos;
+        }
+
+        /**
+         * @return Quantos arquivos ilegíveis foram movidos para a quarentena.
+         */
+        public int getQuarentenados() {
+            return quarentenados;
+        }
+
+        /**
+         * @return Quantos registros foram regravados no formato atual.
+         */
+        public int getReescritos() {
+            return reescritos;
+        }
+
+        /**
+         * @return Quantos temporários abandonados por escritas interrompidas foram apagados.
+         */
+        public int getTemporarios() {
+            return temporarios;
+        }
+    }
+
+    /**
+     * Faz a manutenção dos arquivos de uma fatia do espaço de IDs (a mesma divisão de
+     * {@link #percorrer(int, int, ProcessadorMidia)}; arquivos com nome fora do padrão ficam na
+     * fatia {@code 0}). Cada arquivo é tratado sob a trava do seu ID:
+     * <ul>
+     * <li>arquivos que não formam uma mídia (conteúdo inválido, tipo desconhecido ou ID diferente
+     * do nome) são movidos para o diretório {@code quarentena}, de onde não são mais lidos (nem
+     * reportados) a cada listagem;</li>
+     * <li>registros cujo conteúdo difere do que {@link #salvar(Midia)} gravaria hoje (valores por
+     * extenso de versões antigas, campos desconhecidos, outra quebra de linha) são regravados no
+     * formato compacto; durante uma migração de layout nada é regravado;</li>
+     * <li>temporários ({@code .tmp}) deixados por uma escrita interrompida por uma queda, com mais
+     * de {@value #IDADE_TEMPORARIO_ABANDONADO_MS} ms, são apagados;</li>
+     * <li>as mídias válidas são entregues ao processador, já fora da trava.</li>
+     * </ul>
+     *
+     * @param fatia O índice da fatia, de {@code 0} a {@code totalFatias - 1}.
+     * @param totalFatias O número total de fatias.
+     * @param quarentena O diretório para onde vão os arquivos ilegíveis (criado se preciso).
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia válida da fatia.
+     * @return O resumo da fatia.
+     * @throws Exception Se ocorrer um erro de I/O ou se o processador lançar uma exceção.
+     */
+    public Manutencao manterFatia(int fatia, int totalFatias, Path quarentena, ProcessadorMidia processador) throws Exception {
+        Manutencao r = new Manutencao();
+        if (!Files.exists(storageDir)) return r;
+        for (int f = 0; f < getTotalFragmentos(); f++) {
+            // a fatia é escolhida aqui, e não em percorrerDiretorio, para incluir os nomes fora do padrão
+            percorrerArquivos(f, 0, 1, "*.{tpoo,tmp}", p -> {
+                if (p.getFileName().toString().endsWith(".tmp")) {
+                    int id = idDoTemporario(p);
+                    if ((id < 0 ? 0 : Math.floorMod(id, totalFatias)) != fatia) return;
+                    boolean apagado = id < 0 ? apagarTemporario(p) : TRAVAS.executar(id, () -> apagarTemporario(p));
+                    if (apagado) r.temporarios++;
+                    return;
+                }
+                int id = idDoArquivo(p);
+                if ((id < 0 ? 0 : Math.floorMod(id, totalFatias)) != fatia) return;
+                Midia m = id < 0 ? manterArquivo(p, id, quarentena, r)
+                        : TRAVAS.executar(id, () -> manterArquivo(p, id, quarentena, r));
+                if (m != null) processador.processar(m);
+            });
+        }
+        return r;
+    }
+
+    // ID de um temporário "[id]-[aleatório].tmp" de salvar(), ou -1
+    private static int idDoTemporario(Path p) {
+        String nome = p.getFileName().toString();
+        int traco = nome.indexOf('-');
+        if (traco <= 0) return -1;
+        try {
+            return Integer.parseInt(nome.substring(0, traco));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    // com a trava do ID nenhuma escrita desta JVM está em andamento; a idade protege as de outros processos
+    private boolean apagarTemporario(Path p) throws IOException {
+        try {
+            long idade = System.currentTimeMillis() - Files.getLastModifiedTime(p).toMillis();
+            if (idade < IDADE_TEMPORARIO_ABANDONADO_MS) return false;
+            if (!Files.deleteIfExists(p)) return false;
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+        naoSincronizados.add(p.getParent());
+        return true;
+    }
+
+    private Midia manterArquivo(Path p, int id, Path quarentena, Manutencao r) throws Exception {
+        String conteudo;
+        Midia m;
+        try {
+            conteudo = Files.readString(p);
+            m = fromLinhas(conteudo.lines().collect(Collectors.toList()));
+        } catch (NoSuchFileException ex) {
+            return null; // removido (ou migrado) depois da listagem
+        } catch (IOException | RuntimeException ex) {
+            conteudo = null;
+            m = null;
+        }
+        r.lidos++;
+        if (m == null || m.getId() != id) {
+            Files.createDirectories(quarentena);
+            Path destino = quarentena.resolve(p.getFileName());
+            for (int n = 1; Files.exists(destino); n++) destino = quarentena.resolve(p.getFileName() + "." + n);
+            Files.move(p, destino);
+            naoSincronizados.add(p.getParent());
+            r.quarentenados++;
+            return null;
+        }
+        String compacto = formatar(codificar(toMap(m)));
+        if (!migrando && !compacto.equals(conteudo)) {
+            gravarConteudo(p, id, compacto);
+            r.reescritos++;
+        }
+        return m;
+    }
+
     /**
      * Busca uma mídia específica pelo seu ID.
      *
@@ -117,10 +614,16 @@ public class FileMidiaDAO implements MidiaDAO{
      */
     @Override
     public Optional<Midia> buscarPorId(int id) throws Exception {
-        Path p = storageDir.resolve(id + ".tpoo");
+        Path p = caminhoDoRegistro(id);
         if (Files.exists(p)) {
             return Optional.ofNullable(fromFile(p));
         }
+        if (migrando) {
+            Path plano = caminhoPlano(id);
+            if (Files.exists(plano)) return Optional.ofNullable(fromFile(plano));
+            // pode ter sido movido entre as duas verificações
+            if (Files.exists(p)) return Optional.ofNullable(fromFile(p));
+        }
         return Optional.empty();
     }
 
@@ -132,7 +635,8 @@ public class FileMidiaDAO implements MidiaDAO{
      * @param m O objeto {@link Midia} a ser mapeado.
      * @return Um {@code Map} com as chaves e valores dos atributos da mídia.
      */
-    private Map<String,String> toMap(Midia m) {
+    static Map<String,String> toMap(Midia m) {
+        m = MidiaSobDemanda.concreta(m);
         Map<String,String> map = new LinkedHashMap<>();
         map.put("id", String.valueOf(m.getId()));
         map.put("tipo", m.getTipo());
@@ -180,46 +684,139 @@ public class FileMidiaDAO implements MidiaDAO{
 
     /**
      * Cria um objeto {@link Midia} (ou seu subtipo correto) a partir do conteúdo de um arquivo.
-     * <p>Lê as linhas do arquivo, mapeia as chaves/valores e usa o campo "tipo"
-     * para instanciar a classe concreta correta ({@code MUSICA}, {@code FILME} ou {@code LIVRO}).</p>
+     * <p>Lê as linhas do arquivo, mapeia as chaves/valores e usa {@link #fromMap(Map)}
+     * para instanciar a classe concreta correta.</p>
      *
      * @param p O caminho {@link Path} para o arquivo {@code .tpoo} a ser lido.
      * @return O objeto {@link Midia} instanciado, ou {@code null} se a leitura falhar ou o tipo for desconhecido.
      */
     private Midia fromFile(Path p) {
         try {
-            List<String> lines = Files.readAllLines(p);
-            Map<String,String> map = new HashMap<>();
-            for (String l : lines) {
-                int idx = l.indexOf('=');
-                if (idx>0) {
-                    String k = l.substring(0,idx);
-                    String v = l.substring(idx+1);
-                    map.put(k,v);
-                }
-            }
-            String tipo = map.getOrDefault("tipo","");
-            String local = map.getOrDefault("local","");
-            int id = Integer.parseInt(map.getOrDefault("id","0")); // parse int
-            long tamanho = Long.parseLong(map.getOrDefault("tamanhoBytes","0"));
-            String titulo = map.getOrDefault("titulo","");
-            long dur = Long.parseLong(map.getOrDefault("duracao","0"));
-            String categoria = map.getOrDefault("categoria","");
-            switch(tipo) {
-                case "MUSICA":
-                    //return new Musica(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("artista",""));
-                    return new Musica(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("artista",""));
-                case "FILME":
-                    return new Filme(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("idiomaAudio",""));
-                case "LIVRO":
-                    return new Livro(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("autores",""));
-                default:
-                    return null;
-            }
+            return fromLinhas(Files.readAllLines(p));
         } catch (Exception ex) {
             ex.printStackTrace();
             return null;
         }
     }
 
+    // como fromFile, mas sem esconder o erro
+    private Midia fromLinhas(List<String> lines) throws Exception {
+        Map<String,String> map = new HashMap<>();
+        for (String l : lines) {
+            int idx = l.indexOf('=');
+            if (idx>0) {
+                String k = l.substring(0,idx);
+                String v = l.substring(idx+1);
+                map.put(k,v);
+            }
+        }
+        return fromMap(decodificar(map));
+    }
+
+    /**
+     * Cria um objeto {@link Midia} (ou seu subtipo correto) a partir de um mapa de atributos,
+     * no mesmo formato produzido por {@link #toMap(Midia)}.
+     * <p>Usa o campo "tipo" para instanciar a classe concreta correta
+     * ({@code MUSICA}, {@code FILME} ou {@code LIVRO}).</p>
+     *
+     * @param map O mapa com as chaves e valores dos atributos.
+     * @return O objeto {@link Midia} instanciado, ou {@code null} se o tipo for desconhecido.
+     * @throws NumberFormatException Se um campo numérico estiver em formato inválido.
+     */
+    static Midia fromMap(Map<String,String> map) {
+        String tipo = map.getOrDefault("tipo","");
+        String local = map.getOrDefault("local","");
+        int id = Integer.parseInt(map.getOrDefault("id","0")); // parse int
+        long tamanho = Long.parseLong(map.getOrDefault("tamanhoBytes","0"));
+        String titulo = map.getOrDefault("titulo","");
+        long dur = Long.parseLong(map.getOrDefault("duracao","0"));
+        String categoria = map.getOrDefault("categoria","");
+        switch(tipo) {
+            case "MUSICA":
+                return new Musica(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("artista",""));
+            case "FILME":
+                return new Filme(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("idiomaAudio",""));
+            case "LIVRO":
+                return new Livro(id, local, tamanho, titulo, dur, categoria, map.getOrDefault("autores",""));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Substitui os campos de baixa cardinalidade pelos seus códigos, no formato gravado em disco.
+     *
+     * @param map O mapa produzido por {@link #toMap(Midia)}.
+     * @return Um novo mapa, na mesma ordem, com {@code tipoCod}, {@code categoriaCod} e {@code idiomaAudioCod}.
+     * @throws IOException Se um novo código não puder ser gravado no dicionário.
+     */
+    private Map<String,String> codificar(Map<String,String> map) throws IOException {
+        Map<String,String> res = new LinkedHashMap<>();
+        for (Map.Entry<String,String> e : map.entrySet()) {
+            String k = e.getKey();
+            if (k.equals("tipo")) {
+                res.put(k + SUFIXO_CODIGO, String.valueOf(TiposMidia.codigo(e.getValue())));
+            } else if (k.equals(CAMPOS_CODIFICADOS[0]) || k.equals(CAMPOS_CODIFICADOS[1])) {
+                res.put(k + SUFIXO_CODIGO, String.valueOf(dicionario.codigo(k, e.getValue())));
+            } else {
+                res.put(k, e.getValue());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Restaura os valores dos campos gravados como códigos.
+     * <p>Registros antigos, com os valores por extenso, são devolvidos sem alteração.</p>
+     *
+     * @param map O mapa lido do arquivo (é alterado).
+     * @return O próprio mapa, no formato de {@link #fromMap(Map)}.
+     * @throws IOException Se o dicionário precisar ser relido e a leitura falhar.
+     */
+    private Map<String,String> decodificar(Map<String,String> map) throws IOException {
+        String tipo = map.remove("tipo" + SUFIXO_CODIGO);
+        if (tipo != null) map.put("tipo", TiposMidia.nome(Integer.parseInt(tipo)));
+        for (String campo : CAMPOS_CODIFICADOS) {
+            String cod = map.remove(campo + SUFIXO_CODIGO);
+            if (cod != null) map.put(campo, dicionario.valor(campo, Integer.parseInt(cod)));
+        }
+        return map;
+    }
+
+    private Path caminhoPlano(int id) {
+        return storageDir.resolve(id + ".tpoo");
+    }
+
+    private boolean existeArquivoPlano() throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir, "*.tpoo")) {
+            return ds.iterator().hasNext();
+        }
+    }
+
+    private static String nomeFragmento(int f) {
+        return String.format("%02x", f);
+    }
+
+    // espalha IDs sequenciais de forma uniforme entre os fragmentos (resultado não negativo)
+    private static int espalhar(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Extrai o ID a partir do nome de um arquivo {@code [id].tpoo}.
+     *
+     * @param p O caminho do arquivo.
+     * @return O ID, ou {@code -1} se o nome não seguir o padrão.
+     */
+    static int idDoArquivo(Path p) {
+        String nome = p.getFileName().toString();
+        if (!nome.endsWith(".tpoo")) return -1;
+        try {
+            return Integer.parseInt(nome.substring(0, nome.length() - 5));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
 }
\ No newline at end of file
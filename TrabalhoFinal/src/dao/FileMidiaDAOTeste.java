@@ -47,5 +47,164 @@ class FileMidiaDAOTeste {
         assertEquals(2, list.size());
     }
 
+    @Test
+    void testCamposGravadosComoCodigos() throws Exception {
+        Filme f = new Filme("c:/c.mp4", 10, "C", 90, "Drama", "EN");
+        dao.salvar(f);
+
+        String conteudo = Files.readString(dir.resolve(f.getId() + ".tpoo"));
+        assertTrue(conteudo.contains("categoriaCod="));
+        assertFalse(conteudo.contains("Drama"));
+
+        // outro DAO no mesmo diretório lê os códigos do dicionário persistente
+        Filme lido = (Filme) new FileMidiaDAO(dir).buscarPorId(f.getId()).get();
+        assertSame(f.getCategoria(), lido.getCategoria());
+        assertEquals("EN", lido.getIdiomaAudio());
+    }
+
+    @Test
+    void testLeRegistroAntigoPorExtenso() throws Exception {
+        Files.writeString(dir.resolve("7.tpoo"), "id=7\ntipo=MUSICA\nlocal=c:/a.mp3\ntamanhoBytes=1\n"
+                + "titulo=Antigo\nduracao=3\ncategoria=Rock\nartista=Banda\n");
+        Midia m = dao.buscarPorId(7).get();
+        assertEquals("Rock", m.getCategoria());
+        assertEquals("MUSICA", m.getTipo());
+    }
+
+    @Test
+    void testMigracaoParaLayoutFragmentado() throws Exception {
+        Livro antes = new Livro("c:/m.pdf", 10, "Antes", 50, "Drama", "Autor");
+        Livro outro = new Livro("c:/n.pdf", 20, "Outro", 60, "Drama", "Autor");
+        dao.salvar(antes);
+        dao.salvar(outro);
+
+        assertEquals(2, dao.migrarParaFragmentado());
+        assertTrue(dao.isFragmentado());
+        assertFalse(Files.exists(dir.resolve(antes.getId() + ".tpoo")));
+        assertTrue(Files.exists(dao.caminhoDoRegistro(antes.getId())));
+        assertNotEquals(dir, dao.caminhoDoRegistro(antes.getId()).getParent());
+
+        Filme depois = new Filme("c:/o.mp4", 30, "Depois", 90, "Ação", "EN");
+        dao.salvar(depois);
+        assertTrue(dao.deletar(outro.getId()));
+
+        // um DAO novo detecta o layout pelo marcador
+        FileMidiaDAO relido = new FileMidiaDAO(dir);
+        assertTrue(relido.isFragmentado());
+        assertEquals("Antes", relido.buscarPorId(antes.getId()).get().getTitulo());
+        assertEquals(2, relido.listarTodos().size());
+
+        List<Midia> porFragmento = new ArrayList<>();
+        for (int f = 0; f < relido.getTotalFragmentos(); f++) {
+            relido.percorrerFragmento(f, porFragmento::add);
+        }
+        assertEquals(2, porFragmento.size());
+    }
+
+    @Test
+    void testMigracaoInterrompidaLeOsDoisLayouts() throws Exception {
+        Musica plana = new Musica("c:/p.mp3", 10, "Plana", 100, "Pop", "A");
+        dao.salvar(plana);
+        // simula uma migração interrompida: marcador gravado, arquivo ainda no diretório plano
+        Files.writeString(dir.resolve(FileMidiaDAO.MARCADOR_FRAGMENTADO), "64x64");
+
+        FileMidiaDAO retomado = new FileMidiaDAO(dir);
+        assertEquals("Plana", retomado.buscarPorId(plana.getId()).get().getTitulo());
+        assertEquals(1, retomado.listarTodos().size());
+
+        plana.setTitulo("Regravada");
+        retomado.salvar(plana);
+        assertFalse(Files.exists(dir.resolve(plana.getId() + ".tpoo")));
+        assertEquals(0, retomado.migrarParaFragmentado());
+        assertEquals("Regravada", retomado.buscarPorId(plana.getId()).get().getTitulo());
+    }
+
+    @Test
+    void testPercorrerProjecaoLeSoOsCamposPedidos() throws Exception {
+        Filme f = new Filme(10, "c:/f.mp4", 1234, "Filme", 140, "Ação", "PT");
+        Livro l = new Livro(11, "c:/l.pdf", 99, "Livro", 300, "Drama", "Autor");
+        dao.salvar(f);
+        dao.salvar(l);
+
+        Map<Integer, Projecao> lidas = new HashMap<>();
+        dao.percorrerProjecao(EnumSet.of(Projecao.Campo.TITULO, Projecao.Campo.CATEGORIA), p -> lidas.put(p.getId(), p));
+        assertEquals(2, lidas.size());
+        Projecao pf = lidas.get(10);
+        assertEquals("FILME", pf.getTipo());
+        assertEquals("Filme", pf.getTitulo());
+        assertEquals("Ação", pf.getCategoria());
+        assertNull(pf.getLocal());
+        assertEquals(0, pf.getDuracao());
+        assertFalse(pf.contem(Projecao.Campo.DURACAO));
+
+        List<Projecao> numeros = new ArrayList<>();
+        dao.percorrerProjecao(EnumSet.of(Projecao.Campo.DURACAO, Projecao.Campo.TAMANHO, Projecao.Campo.LOCAL), numeros::add);
+        Projecao pl = numeros.stream().filter(p -> p.getId() == 11).findFirst().get();
+        assertEquals(300, pl.getDuracao());
+        assertEquals(99, pl.getTamanhoBytes());
+        assertEquals("c:/l.pdf", pl.getLocal());
+        assertEquals("LIVRO", pl.getTipo());
+    }
+
+    @Test
+    void testManterFatiaQuarentenaEReescreve() throws Exception {
+        Files.writeString(dir.resolve("7.tpoo"), "id=7\ntipo=MUSICA\nlocal=c:/a.mp3\ntamanhoBytes=1\n"
+                + "titulo=Antigo\nduracao=3\ncategoria=Rock\nartista=Banda\n");
+        Files.writeString(dir.resolve("9.tpoo"), "id=9\ntipoCod=7\n");
+        Files.writeString(dir.resolve("11.tpoo"), "id=12\ntipo=LIVRO\n");
+        Files.writeString(dir.resolve("x.tpoo"), "lixo");
+        dao.salvar(new Livro(8, "c:/l.pdf", 1, "L", 1, "Drama", "Y"));
+        Path quarentena = dir.resolveSibling(dir.getFileName() + ".quarentena");
+
+        // fatia 1 de 2: só os IDs ímpares
+        List<Integer> validos = new ArrayList<>();
+        FileMidiaDAO.Manutencao r = dao.manterFatia(1, 2, quarentena, m -> validos.add(m.getId()));
+        assertEquals(3, r.getLidos());
+        assertEquals(List.of(7), validos);
+        assertEquals(2, r.getQuarentenados());
+        assertEquals(1, r.getReescritos());
+        assertTrue(Files.exists(quarentena.resolve("9.tpoo")));
+        // ID diferente do nome
+        assertTrue(Files.exists(quarentena.resolve("11.tpoo")));
+        assertTrue(Files.exists(dir.resolve("x.tpoo")));
+        assertFalse(Files.readString(dir.resolve("7.tpoo")).contains("Rock"));
+        assertEquals("Rock", dao.buscarPorId(7).get().getCategoria());
 
+        // a fatia 0 recebe os nomes fora do padrão; registros já compactos não são regravados
+        r = dao.manterFatia(0, 2, quarentena, m -> validos.add(m.getId()));
+        assertEquals(1, r.getQuarentenados());
+        assertEquals(0, r.getReescritos());
+        assertEquals(List.of(7, 8), validos);
+        assertEquals(2, dao.listarTodos().size());
+        assertEquals(0, dao.manterFatia(1, 2, quarentena, m -> {}).getReescritos());
+    }
+
+    @Test
+    void testManterFatiaApagaTemporariosAbandonados() throws Exception {
+        Path abandonado = dir.resolve("5-123.tmp");
+        Path recente = dir.resolve("7-456.tmp");
+        Files.writeString(abandonado, "id=5");
+        Files.writeString(recente, "id=7");
+        Files.setLastModifiedTime(abandonado, java.nio.file.attribute.FileTime.fromMillis(
+                System.currentTimeMillis() - FileMidiaDAO.IDADE_TEMPORARIO_ABANDONADO_MS - 1000));
+        Path quarentena = dir.resolveSibling(dir.getFileName() + ".quarentena");
+
+        FileMidiaDAO.Manutencao r = dao.manterFatia(0, 1, quarentena, m -> {});
+        assertEquals(1, r.getTemporarios());
+        assertEquals(0, r.getLidos());
+        assertFalse(Files.exists(abandonado));
+        // pode ser de uma escrita em andamento em outro processo
+        assertTrue(Files.exists(recente));
+    }
+
+    @Test
+    void testRegistroTemAsPermissoesDeUmArquivoComum() throws Exception {
+        // só faz sentido em sistemas de arquivos POSIX
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) return;
+        Path comum = Files.createFile(dir.resolve("comum.txt"));
+        Musica m = new Musica(5, "c:/a.mp3", 1, "A", 1, "Rock", "X");
+        dao.salvar(m);
+        dao.atualizar(m);
+        assertEquals(Files.getPosixFilePermissions(comum), Files.getPosixFilePermissions(dir.resolve("5.tpoo")));
+    }
 }
@@ -0,0 +1,611 @@
+package dao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import model.Midia;
+
+/**
+ * **Log de Alterações do Catálogo (Change Data Capture).**
+ *
+ * <p>Registro <b>ordenado e durável</b> de cada alteração que passa pelo DAO: cada mídia salva
+ * (com o estado completo) e cada ID removido recebe um <b>número de sequência</b> crescente.
+ * Outros processos leem o log com um {@link Leitor} e reproduzem as alterações na mesma ordem,
+ * por exemplo para manter uma réplica somente leitura.</p>
+ *
+ * <p><b>Formato:</b> o log é uma série de segmentos {@code alteracoes-[primeira sequência].log}
+ * no diretório; quando um segmento passa de {@code tamanhoMaximoSegmento}, um novo é aberto.
+ * Cada registro tem o formato:</p>
+ * <pre>
+ * int tamanho | int crc32 | long sequência | long instante (ms) | byte operação | corpo
+ * </pre>
+ * <p>em que o corpo é a mídia em {@link CodecBinario} (operação SALVAR), o {@code int} do ID
+ * (operação REMOVER) ou, na operação LOTE, as mídias salvas e os IDs removidos de uma só vez,
+ * cada grupo precedido da sua quantidade. Um lote é lido como várias alterações com a mesma
+ * sequência e, por ter um único CRC, é aplicado inteiro ou não é aplicado. Um registro incompleto ou com CRC inválido no fim do último segmento
+ * (escrita interrompida) é descartado ao reabrir o log; os leitores simplesmente param nele e
+ * tentam de novo na próxima leitura.</p>
+ *
+ * <p>Por padrão cada registro é gravado com {@link FileChannel#force(boolean)} antes de
+ * retornar. Com {@link #iniciarConfirmacaoEmGrupo()}, o registro só é escrito, e uma thread
+ * própria força o segmento para o disco assim que houver registros pendentes: quem precisa da
+ * garantia chama {@link #aguardarDuravel(long)}, e todas as escritas que chegaram durante um
+ * {@code force} são confirmadas pelo seguinte (um {@code fsync} para muitas escritas).</p>
+ *
+ * <p>Só um processo deve escrever no diretório; qualquer número de processos pode ler.</p>
+ *
+ * @see MidiaDAOComLog
+ */
+public class LogAlteracoes implements Closeable {
+    private static final String PREFIXO = "alteracoes-";
+    private static final String SUFIXO = ".log";
+    private static final byte SALVAR = 1;
+    private static final byte REMOVER = 2;
+    private static final byte LOTE = 3;
+    private static final int CABECALHO = 8;
+    private static final int TAMANHO_MAXIMO_REGISTRO = 16 * 1024 * 1024;
+
+    private final Path diretorio;
+    private long tamanhoMaximoSegmento = 64L * 1024 * 1024;
+    private boolean sincronizar = true;
+    private FileChannel segmento;
+    private Path caminhoSegmento;
+    private long ultimaSequencia;
+    // maior sequência já forçada para o disco
+    private long duravel;
+    private long sincronizacoes;
+    private IOException falhaSincronia;
+    private Thread confirmacao;
+    private boolean confirmando = false;
+
+    /**
+     * **Uma alteração lida do log.**
+     */
+    public static final class Alteracao {
+        private final long sequencia;
+        private final long instante;
+        private final int id;
+        private final Midia midia;
+
+        Alteracao(long sequencia, long instante, int id, Midia midia) {
+            this.sequencia = sequencia;
+            this.instante = instante;
+            this.id = id;
+            this.midia = midia;
+        }
+
+        /**
+         * @return O número de sequência da alteração.
+         */
+        public long getSequencia() {
+            return sequencia;
+        }
+
+        /**
+         * @return O instante em que a alteração foi registrada, em milissegundos desde a época.
+         */
+        public long getInstante() {
+            return instante;
+        }
+
+        /**
+         * @return O ID da mídia alterada.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return A mídia no estado salvo, ou {@code null} se a alteração for uma remoção.
+         */
+        public Midia getMidia() {
+            return midia;
+        }
+
+        /**
+         * @return {@code true} se a mídia foi removida.
+         */
+        public boolean isRemocao() {
+            return midia == null;
+        }
+    }
+
+    /**
+     * Função chamada para cada alteração lida por um {@link Leitor}.
+     */
+    @FunctionalInterface
+    public interface ProcessadorAlteracao {
+
+        /**
+         * Processa uma alteração.
+         *
+         * @param a A alteração lida.
+         * @throws Exception Se o processamento falhar; a leitura é interrompida antes desta alteração.
+         */
+        void processar(Alteracao a) throws Exception;
+    }
+
+    /**
+     * Abre (ou cria) o log para escrita, descartando um registro final incompleto.
+     *
+     * @param diretorio O diretório dos segmentos.
+     * @throws IOException Se o diretório ou o último segmento não puderem ser abertos.
+     */
+    public LogAlteracoes(Path diretorio) throws IOException {
+        this.diretorio = diretorio;
+        Files.createDirectories(diretorio);
+        List<Path> segmentos = segmentos(diretorio);
+        if (segmentos.isEmpty()) {
+            ultimaSequencia = 0;
+            abrirSegmento(1);
+            return;
+        }
+        Path ultimo = segmentos.get(segmentos.size() - 1);
+        caminhoSegmento = ultimo;
+        segmento = FileChannel.open(ultimo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ultimaSequencia = primeiraSequencia(ultimo) - 1;
+        long pos = 0;
+        ByteBuffer cab = ByteBuffer.allocate(CABECALHO);
+        while (true) {
+            byte[] payload = lerRegistro(segmento, pos, cab);
+            if (payload == null) break;
+            ultimaSequencia = ByteBuffer.wrap(payload).getLong();
+            pos += CABECALHO + payload.length;
+        }
+        segmento.truncate(pos);
+        segmento.position(pos);
+        duravel = ultimaSequencia;
+    }
+
+    /**
+     * Define o tamanho a partir do qual um novo segmento é aberto (padrão: 64 MB).
+     *
+     * @param tamanhoMaximoSegmento O tamanho em bytes.
+     */
+    public void setTamanhoMaximoSegmento(long tamanhoMaximoSegmento) {
+        this.tamanhoMaximoSegmento = tamanhoMaximoSegmento;
+    }
+
+    /**
+     * Define se cada registro é forçado para o disco antes de retornar (padrão: {@code true}).
+     *
+     * @param sincronizar {@code false} troca durabilidade por velocidade.
+     */
+    public void setSincronizar(boolean sincronizar) {
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * @return O diretório dos segmentos.
+     */
+    public Path getDiretorio() {
+        return diretorio;
+    }
+
+    /**
+     * @return A sequência do último registro gravado ({@code 0} se o log estiver vazio).
+     */
+    public synchronized long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    // --- ESCRITA ---
+
+    /**
+     * Registra o estado de uma mídia salva.
+     *
+     * @param m A mídia salva.
+     * @return A sequência atribuída.
+     * @throws IOException Se o registro não puder ser gravado.
+     */
+    public synchronized long registrarSalva(Midia m) throws IOException {
+        return registrar(SALVAR, out -> CodecBinario.escrever(m, out));
+    }
+
+    /**
+     * Registra a remoção de uma mídia.
+     *
+     * @param id O ID removido.
+     * @return A sequência atribuída.
+     * @throws IOException Se o registro não puder ser gravado.
+     */
+    public synchronized long registrarRemocao(int id) throws IOException {
+        return registrar(REMOVER, out -> out.writeInt(id));
+    }
+
+    /**
+     * Registra várias alterações num único registro, que é gravado (e lido) inteiro ou não é.
+     *
+     * @param salvas As mídias salvas.
+     * @param removidos Os IDs removidos.
+     * @return A sequência atribuída ao lote.
+     * @throws IllegalArgumentException Se o lote estiver vazio.
+     * @throws IOException Se o registro não puder ser gravado.
+     */
+    public synchronized long registrarLote(List<Midia> salvas, Collection<Integer> removidos) throws IOException {
+        if (salvas.isEmpty() && removidos.isEmpty()) throw new IllegalArgumentException("Lote vazio");
+        return registrar(LOTE, out -> {
+            out.writeInt(salvas.size());
+            for (Midia m : salvas) CodecBinario.escrever(m, out);
+            out.writeInt(removidos.size());
+            for (int id : removidos) out.writeInt(id);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Corpo {
+        void escrever(DataOutputStream out) throws IOException;
+    }
+
+    private long registrar(byte operacao, Corpo corpo) throws IOException {
+        if (falhaSincronia != null) throw new IOException("Falha anterior ao sincronizar o log", falhaSincronia);
+        if (segmento.size() >= tamanhoMaximoSegmento) trocarSegmento();
+        long seq = ultimaSequencia + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0); // reservado para o cabeçalho
+        out.writeLong(seq);
+        out.writeLong(System.currentTimeMillis());
+        out.writeByte(operacao);
+        corpo.escrever(out);
+        out.flush();
+        ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), CABECALHO, b.limit() - CABECALHO);
+        b.putInt(0, b.limit() - CABECALHO);
+        b.putInt(4, (int) crc.getValue());
+        while (b.hasRemaining()) segmento.write(b);
+        ultimaSequencia = seq;
+        if (sincronizar) {
+            segmento.force(false);
+            duravel = seq;
+            sincronizacoes++;
+        } else if (confirmando) {
+            notifyAll();
+        }
+        return seq;
+    }
+
+    // fecha o segmento atual (já forçado para o disco) e abre o próximo
+    private void trocarSegmento() throws IOException {
+        segmento.force(false);
+        duravel = ultimaSequencia;
+        sincronizacoes++;
+        notifyAll();
+        segmento.close();
+        abrirSegmento(ultimaSequencia + 1);
+    }
+
+    private void abrirSegmento(long primeira) throws IOException {
+        Path p = diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeira, SUFIXO));
+        caminhoSegmento = p;
+        segmento = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmento.position(segmento.size());
+    }
+
+    // --- CONFIRMAÇÃO EM GRUPO ---
+
+    /**
+     * Passa a escrever os registros sem {@code force} e inicia a thread (daemon) que os força
+     * para o disco em grupo. Use {@link #aguardarDuravel(long)} para esperar a confirmação.
+     */
+    public synchronized void iniciarConfirmacaoEmGrupo() {
+        if (confirmando) return;
+        sincronizar = false;
+        confirmando = true;
+        confirmacao = new Thread(this::confirmar, "confirmacao-log");
+        confirmacao.setDaemon(true);
+        confirmacao.start();
+    }
+
+    private void confirmar() {
+        while (true) {
+            long alvo;
+            FileChannel c;
+            synchronized (this) {
+                while (confirmando && duravel >= ultimaSequencia) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                if (!confirmando) return;
+                alvo = ultimaSequencia;
+                c = segmento;
+            }
+            // fora da trava: novos registros continuam chegando durante o force
+            try {
+                c.force(false);
+                synchronized (this) {
+                    if (alvo > duravel) duravel = alvo;
+                    sincronizacoes++;
+                    notifyAll();
+                }
+            } catch (ClosedChannelException ex) {
+                // o segmento foi trocado (e forçado) no meio do caminho
+            } catch (IOException ex) {
+                synchronized (this) {
+                    falhaSincronia = ex;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Espera até que o registro com a sequência dada esteja no disco.
+     *
+     * @param sequencia A sequência devolvida por {@code registrarSalva} ou {@code registrarRemocao}.
+     * @throws IOException Se o log não puder ser sincronizado ou se a espera for interrompida.
+     */
+    public synchronized void aguardarDuravel(long sequencia) throws IOException {
+        while (duravel < sequencia) {
+            if (falhaSincronia != null) throw new IOException("Falha ao sincronizar o log", falhaSincronia);
+            if (!confirmando) {
+                // sem a thread de confirmação, quem espera força o segmento
+                segmento.force(false);
+                duravel = ultimaSequencia;
+                sincronizacoes++;
+                return;
+            }
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Espera pela sincronização do log interrompida");
+            }
+        }
+    }
+
+    /**
+     * @return Quantas vezes o log foi forçado para o disco desde que foi aberto.
+     */
+    public synchronized long getSincronizacoes() {
+        return sincronizacoes;
+    }
+
+    /**
+     * Apaga os segmentos cujos registros têm todos sequência menor ou igual à dada, começando um
+     * segmento novo se o atual também estiver coberto.
+     * <p>Só deve ser usado quando nenhum {@link Leitor} precisa mais desses registros (por exemplo,
+     * num log de escrita antecipada depois de um checkpoint).</p>
+     *
+     * @param sequencia A última sequência que pode ser descartada.
+     * @return O número de segmentos apagados.
+     * @throws IOException Se um segmento não puder ser apagado.
+     */
+    public synchronized int descartarAte(long sequencia) throws IOException {
+        if (segmento.size() > 0 && ultimaSequencia <= sequencia) trocarSegmento();
+        List<Path> segs = segmentos(diretorio);
+        int apagados = 0;
+        for (int i = 0; i + 1 < segs.size(); i++) {
+            if (segs.get(i).equals(caminhoSegmento) || primeiraSequencia(segs.get(i + 1)) - 1 > sequencia) break;
+            Files.delete(segs.get(i));
+            apagados++;
+        }
+        return apagados;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread t;
+        synchronized (this) {
+            t = confirmacao;
+            confirmando = false;
+            notifyAll();
+        }
+        if (t != null) {
+            try {
+                t.join(5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (segmento.isOpen() && duravel < ultimaSequencia && falhaSincronia == null) segmento.force(false);
+            segmento.close();
+        }
+    }
+
+    // --- LEITURA ---
+
+    /**
+     * **Leitor incremental do log**, usado por outro processo (ou thread) para acompanhar as alterações.
+     *
+     * <p>Guarda a posição entre chamadas de {@link #ler(int, ProcessadorAlteracao)}: cada chamada
+     * continua de onde a anterior parou, passando para o próximo segmento quando o atual termina.</p>
+     */
+    public static final class Leitor implements Closeable {
+        private final Path diretorio;
+        private long aposSequencia;
+        private Path caminho;
+        private FileChannel canal;
+        private long posicao;
+        private final ByteBuffer cab = ByteBuffer.allocate(CABECALHO);
+
+        /**
+         * Cria um leitor que entregará as alterações com sequência maior que {@code aposSequencia}.
+         *
+         * @param diretorio O diretório do log.
+         * @param aposSequencia A última sequência já processada ({@code 0} para ler desde o início).
+         */
+        public Leitor(Path diretorio, long aposSequencia) {
+            this.diretorio = diretorio;
+            this.aposSequencia = aposSequencia;
+        }
+
+        /**
+         * @return A sequência da última alteração entregue (ou a inicial, se nenhuma foi entregue).
+         */
+        public long getUltimaSequencia() {
+            return aposSequencia;
+        }
+
+        /**
+         * Entrega as próximas alterações disponíveis, em ordem.
+         *
+         * @param maximo O número máximo de alterações a entregar.
+         * @param processador Chamado para cada alteração.
+         * @return O número de alterações entregues ({@code 0} se o leitor já está no fim do log).
+         * @throws Exception Se ocorrer um erro de leitura ou se o processador lançar uma exceção.
+         */
+        public int ler(int maximo, ProcessadorAlteracao processador) throws Exception {
+            int entregues = 0;
+            while (entregues < maximo) {
+                if (canal == null && !abrir()) break;
+                byte[] payload = lerRegistro(canal, posicao, cab);
+                if (payload == null) {
+                    // fim do segmento: segue para o próximo só se ele já existir
+                    if (!avancarSegmento()) break;
+                    continue;
+                }
+                List<Alteracao> as = decodificar(payload);
+                long seq = as.get(0).getSequencia();
+                if (seq > aposSequencia) {
+                    // um lote é entregue inteiro, mesmo que passe do máximo
+                    for (Alteracao a : as) processador.processar(a);
+                    aposSequencia = seq;
+                    entregues += as.size();
+                }
+                posicao += CABECALHO + payload.length;
+            }
+            return entregues;
+        }
+
+        // abre o segmento que contém a sequência seguinte a aposSequencia
+        private boolean abrir() throws IOException {
+            List<Path> segs = segmentos(diretorio);
+            if (segs.isEmpty()) return false;
+            Path escolhido = segs.get(0);
+            for (Path p : segs) {
+                if (primeiraSequencia(p) <= aposSequencia + 1) escolhido = p;
+            }
+            abrir(escolhido);
+            return true;
+        }
+
+        private void abrir(Path p) throws IOException {
+            if (canal != null) canal.close();
+            caminho = p;
+            canal = FileChannel.open(p, StandardOpenOption.READ);
+            posicao = 0;
+        }
+
+        private boolean avancarSegmento() throws IOException {
+            long atual = primeiraSequencia(caminho);
+            for (Path p : segmentos(diretorio)) {
+                if (primeiraSequencia(p) > atual) {
+                    // o escritor só abre um segmento novo depois de terminar o anterior:
+                    // confere de novo se nada chegou ao atual entre a leitura e a listagem
+                    if (lerRegistro(canal, posicao, cab) != null) return true;
+                    abrir(p);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (canal != null) canal.close();
+            canal = null;
+        }
+    }
+
+    /**
+     * Lê a sequência do último registro completo do log, sem abri-lo para escrita.
+     *
+     * @param diretorio O diretório do log.
+     * @return A última sequência ({@code 0} se o log estiver vazio ou não existir).
+     * @throws IOException Se ocorrer um erro de leitura.
+     */
+    public static long ultimaSequencia(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) return 0;
+        List<Path> segs = segmentos(diretorio);
+        for (int i = segs.size() - 1; i >= 0; i--) {
+            long ultima = 0;
+            try (FileChannel c = FileChannel.open(segs.get(i), StandardOpenOption.READ)) {
+                ByteBuffer cab = ByteBuffer.allocate(CABECALHO + 8);
+                long pos = 0;
+                long tamanho = c.size();
+                // percorre só os cabeçalhos, pulando os corpos
+                while (pos + cab.capacity() <= tamanho) {
+                    cab.clear();
+                    while (cab.hasRemaining() && c.read(cab, pos + cab.position()) > 0) { }
+                    int t = cab.getInt(0);
+                    if (t < 17 || t > TAMANHO_MAXIMO_REGISTRO || pos + CABECALHO + t > tamanho) break;
+                    ultima = cab.getLong(CABECALHO);
+                    pos += CABECALHO + t;
+                }
+            }
+            if (ultima > 0) return ultima;
+        }
+        return 0;
+    }
+
+    // --- FORMATO ---
+
+    // lê o registro em pos; null se estiver incompleto, corrompido ou no fim do arquivo
+    private static byte[] lerRegistro(FileChannel c, long pos, ByteBuffer cab) throws IOException {
+        cab.clear();
+        while (cab.hasRemaining()) {
+            if (c.read(cab, pos + cab.position()) <= 0) return null;
+        }
+        int tamanho = cab.getInt(0);
+        int crc = cab.getInt(4);
+        if (tamanho < 17 || tamanho > TAMANHO_MAXIMO_REGISTRO) return null;
+        ByteBuffer payload = ByteBuffer.allocate(tamanho);
+        while (payload.hasRemaining()) {
+            if (c.read(payload, pos + CABECALHO + payload.position()) <= 0) return null;
+        }
+        CRC32 c32 = new CRC32();
+        c32.update(payload.array());
+        return (int) c32.getValue() == crc ? payload.array() : null;
+    }
+
+    private static List<Alteracao> decodificar(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long seq = in.readLong();
+        long instante = in.readLong();
+        byte op = in.readByte();
+        if (op == SALVAR) {
+            Midia m = CodecBinario.ler(in);
+            return List.of(new Alteracao(seq, instante, m.getId(), m));
+        }
+        if (op == REMOVER) return List.of(new Alteracao(seq, instante, in.readInt(), null));
+        if (op == LOTE) {
+            List<Alteracao> res = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Midia m = CodecBinario.ler(in);
+                res.add(new Alteracao(seq, instante, m.getId(), m));
+            }
+            for (int i = in.readInt(); i > 0; i--) res.add(new Alteracao(seq, instante, in.readInt(), null));
+            if (res.isEmpty()) throw new IOException("Lote vazio no log: " + seq);
+            return res;
+        }
+        throw new IOException("Operação desconhecida no log: " + op);
+    }
+
+    private static List<Path> segmentos(Path diretorio) throws IOException {
+        List<Path> res = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            for (Path p : ds) res.add(p);
+        }
+        res.sort(null);
+        return res;
+    }
+
+    private static long primeiraSequencia(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+}
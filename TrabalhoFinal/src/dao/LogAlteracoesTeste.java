@@ -0,0 +1,170 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import dao.LogAlteracoes.Alteracao;
+import model.*;
+
+class LogAlteracoesTeste {
+
+    private Path tempDir;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("log");
+    }
+
+    @Test
+    void testDecoradorRegistraAlteracoesEmOrdem() throws Exception {
+        try (LogAlteracoes log = new LogAlteracoes(tempDir.resolve("log"))) {
+            MidiaDAO dao = new MidiaDAOComLog(new FileMidiaDAO(tempDir.resolve("dados")), log);
+            dao.salvar(new Musica(1, "c:/a.mp3", 10, "A", 100, "Rock", "X"));
+            dao.atualizar(new Musica(1, "c:/a.mp3", 20, "A2", 100, "Rock", "X"));
+            dao.salvarLote(List.of(new Filme(2, "c:/b.mp4", 30, "B", 90, "Ação", "PT")));
+            assertTrue(dao.deletar(1));
+            assertFalse(dao.deletar(99));
+            assertEquals(4, log.getUltimaSequencia());
+        }
+
+        List<Alteracao> lidas = new ArrayList<>();
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(tempDir.resolve("log"), 0)) {
+            assertEquals(4, leitor.ler(100, lidas::add));
+            assertEquals(0, leitor.ler(100, lidas::add));
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L), lidas.stream().map(Alteracao::getSequencia).toList());
+        assertEquals("A2", lidas.get(1).getMidia().getTitulo());
+        assertEquals("FILME", lidas.get(2).getMidia().getTipo());
+        assertTrue(lidas.get(3).isRemocao());
+        assertEquals(1, lidas.get(3).getId());
+        assertEquals(4, LogAlteracoes.ultimaSequencia(tempDir.resolve("log")));
+    }
+
+    @Test
+    void testSegmentosERetomada() throws Exception {
+        Path dir = tempDir.resolve("log");
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            log.setTamanhoMaximoSegmento(300);
+            for (int i = 1; i <= 20; i++) log.registrarSalva(new Livro(i, "c:/l" + i + ".pdf", i, "L" + i, i, null, "Y"));
+        }
+        assertTrue(Files.list(dir).count() > 3);
+
+        // retoma a partir da sequência 7, em lotes pequenos, atravessando os segmentos
+        List<Long> seqs = new ArrayList<>();
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(dir, 7)) {
+            while (leitor.ler(3, a -> seqs.add(a.getSequencia())) > 0) { }
+            assertEquals(20, leitor.getUltimaSequencia());
+        }
+        assertEquals(13, seqs.size());
+        assertEquals(8L, (long) seqs.get(0));
+        assertEquals(20L, (long) seqs.get(12));
+    }
+
+    @Test
+    void testRegistroIncompletoEhDescartado() throws Exception {
+        Path dir = tempDir.resolve("log");
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            log.registrarSalva(new Musica(1, "c:/a.mp3", 10, "A", 100, "Rock", "X"));
+            log.registrarSalva(new Musica(2, "c:/b.mp3", 10, "B", 100, "Rock", "X"));
+        }
+        // simula uma queda no meio da segunda escrita
+        Path segmento = Files.list(dir).findFirst().get();
+        try (FileChannel c = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            c.truncate(c.size() - 5);
+        }
+        assertEquals(1, LogAlteracoes.ultimaSequencia(dir));
+
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            assertEquals(1, log.getUltimaSequencia());
+            assertEquals(2, log.registrarRemocao(1));
+        }
+        List<Alteracao> lidas = new ArrayList<>();
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(dir, 0)) {
+            leitor.ler(10, lidas::add);
+        }
+        assertEquals(2, lidas.size());
+        assertTrue(lidas.get(1).isRemocao());
+    }
+
+    @Test
+    void testLoteEhLidoInteiro() throws Exception {
+        Path dir = tempDir.resolve("log");
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            log.registrarSalva(new Musica(1, "c:/a.mp3", 10, "A", 100, "Rock", "X"));
+            assertEquals(2, log.registrarLote(List.of(new Musica(2, "c:/b.mp3", 10, "B", 100, "Rock", "X"),
+                    new Filme(3, "c:/c.mp4", 10, "C", 90, "Ação", "PT")), List.of(1)));
+            assertThrows(IllegalArgumentException.class, () -> log.registrarLote(List.of(), List.of()));
+        }
+        List<Alteracao> lidas = new ArrayList<>();
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(dir, 0)) {
+            // o lote é entregue inteiro, mesmo passando do máximo pedido
+            assertEquals(4, leitor.ler(2, lidas::add));
+            assertEquals(2, leitor.getUltimaSequencia());
+        }
+        assertEquals(List.of(1L, 2L, 2L, 2L), lidas.stream().map(Alteracao::getSequencia).toList());
+        assertEquals("FILME", lidas.get(2).getMidia().getTipo());
+        assertTrue(lidas.get(3).isRemocao());
+        assertEquals(1, lidas.get(3).getId());
+
+        // uma queda no meio do lote descarta o lote todo
+        Path segmento = Files.list(dir).findFirst().get();
+        try (FileChannel c = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            c.truncate(c.size() - 5);
+        }
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            assertEquals(1, log.getUltimaSequencia());
+        }
+    }
+
+    @Test
+    void testFalhaNaBasePublicaOEstadoReal() throws Exception {
+        FileMidiaDAO arquivos = new FileMidiaDAO(tempDir.resolve("dados"));
+        MidiaDAO falha = new MidiaDAO() {
+            public void salvar(Midia m) throws Exception { arquivos.salvar(m); }
+            public void atualizar(Midia m) throws Exception { throw new java.io.IOException("disco cheio"); }
+            public boolean deletar(int id) throws Exception { return arquivos.deletar(id); }
+            public Optional<Midia> buscarPorId(int id) throws Exception { return arquivos.buscarPorId(id); }
+            public List<Midia> listarTodos() throws Exception { return arquivos.listarTodos(); }
+        };
+        try (LogAlteracoes log = new LogAlteracoes(tempDir.resolve("log"))) {
+            MidiaDAO dao = new MidiaDAOComLog(falha, log);
+            dao.salvar(new Musica(1, "c:/a.mp3", 10, "A", 100, "Rock", "X"));
+            assertThrows(java.io.IOException.class, () -> dao.atualizar(new Musica(1, "c:/a.mp3", 10, "A2", 100, "Rock", "X")));
+        }
+        List<Alteracao> lidas = new ArrayList<>();
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(tempDir.resolve("log"), 0)) {
+            while (leitor.ler(100, lidas::add) > 0) { }
+        }
+        // a réplica termina com o que a base tem
+        assertEquals(3, lidas.size());
+        assertEquals("A", lidas.get(2).getMidia().getTitulo());
+    }
+
+    @Test
+    void testQuedaEntreLogEBaseEhReaplicada() throws Exception {
+        Path dir = tempDir.resolve("log");
+        FileMidiaDAO arquivos = new FileMidiaDAO(tempDir.resolve("dados"));
+        try (LogAlteracoes log = new LogAlteracoes(dir)) {
+            MidiaDAOComLog dao = new MidiaDAOComLog(arquivos, log);
+            dao.salvar(new Musica(1, "c:/a.mp3", 10, "A", 100, "Rock", "X"));
+            // queda depois do registro e antes da escrita na base
+            log.registrarSalva(new Musica(2, "c:/b.mp3", 10, "B", 100, "Rock", "X"));
+        }
+        assertFalse(arquivos.buscarPorId(2).isPresent());
+
+        MidiaDAOComLog reaberto = new MidiaDAOComLog(arquivos, new LogAlteracoes(dir));
+        // sem checkpoint desde a abertura, as duas alterações são reaplicadas
+        assertEquals(2, reaberto.getRecuperadas());
+        assertEquals("B", arquivos.buscarPorId(2).get().getTitulo());
+        reaberto.close();
+
+        // depois do checkpoint, nada a reaplicar
+        MidiaDAOComLog limpo = new MidiaDAOComLog(arquivos, new LogAlteracoes(dir));
+        assertEquals(0, limpo.getRecuperadas());
+        limpo.close();
+    }
+}
@@ -0,0 +1,166 @@
+package dao;
+
+import java.util.Arrays;
+
+/**
+ * **Mapa de {@code int} para {@code long} sem objetos intermediários.**
+ *
+ * <p>Tabela de espalhamento com endereçamento aberto (sondagem linear) guardada em dois
+ * vetores primitivos. Evita o {@code Integer}/{@code Long} e o nó por entrada de um
+ * {@code HashMap}, o que importa em índices com milhões de IDs.</p>
+ *
+ * <p>A chave {@link Integer#MIN_VALUE} é reservada e não pode ser usada.
+ * <b>Não</b> é thread-safe.</p>
+ */
+public class MapaIntLong {
+    private static final int VAZIO = Integer.MIN_VALUE;
+
+    private int[] chaves;
+    private long[] valores;
+    private int tamanho = 0;
+
+    /**
+     * Cria um mapa vazio com capacidade inicial pequena.
+     */
+    public MapaIntLong() {
+        this(16);
+    }
+
+    /**
+     * Cria um mapa vazio dimensionado para o número de entradas esperado.
+     *
+     * @param esperado O número de entradas esperado.
+     */
+    public MapaIntLong(int esperado) {
+        int cap = Integer.highestOneBit(Math.max(8, esperado * 2 - 1)) << 1;
+        chaves = new int[cap];
+        valores = new long[cap];
+        Arrays.fill(chaves, VAZIO);
+    }
+
+    /**
+     * @return O número de entradas do mapa.
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Retorna o valor associado à chave.
+     *
+     * @param chave A chave procurada.
+     * @param padrao O valor retornado se a chave não existir.
+     * @return O valor associado, ou {@code padrao}.
+     */
+    public long obter(int chave, long padrao) {
+        int mask = chaves.length - 1;
+        for (int i = espalhar(chave) & mask; ; i = (i + 1) & mask) {
+            int k = chaves[i];
+            if (k == chave) return valores[i];
+            if (k == VAZIO) return padrao;
+        }
+    }
+
+    /**
+     * Associa um valor à chave, substituindo o valor anterior.
+     *
+     * @param chave A chave (diferente de {@link Integer#MIN_VALUE}).
+     * @param valor O valor.
+     */
+    public void colocar(int chave, long valor) {
+        if (chave == VAZIO) throw new IllegalArgumentException("Chave reservada: " + chave);
+        if ((tamanho + 1) * 2 > chaves.length) redimensionar(chaves.length * 2);
+        int mask = chaves.length - 1;
+        for (int i = espalhar(chave) & mask; ; i = (i + 1) & mask) {
+            int k = chaves[i];
+            if (k == chave) {
+                valores[i] = valor;
+                return;
+            }
+            if (k == VAZIO) {
+                chaves[i] = chave;
+                valores[i] = valor;
+                tamanho++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a chave do mapa.
+     *
+     * @param chave A chave a remover.
+     * @param padrao O valor retornado se a chave não existir.
+     * @return O valor que estava associado, ou {@code padrao}.
+     */
+    public long remover(int chave, long padrao) {
+        int mask = chaves.length - 1;
+        int i = espalhar(chave) & mask;
+        while (chaves[i] != chave) {
+            if (chaves[i] == VAZIO) return padrao;
+            i = (i + 1) & mask;
+        }
+        long antigo = valores[i];
+        // remoção com deslocamento para trás: mantém as sequências de sondagem sem marcadores
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int k = chaves[j];
+            if (k == VAZIO) break;
+            int ideal = espalhar(k) & mask;
+            boolean entre = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+            if (entre) continue;
+            chaves[i] = k;
+            valores[i] = valores[j];
+            i = j;
+        }
+        chaves[i] = VAZIO;
+        tamanho--;
+        return antigo;
+    }
+
+    /**
+     * Função chamada para cada entrada por {@link MapaIntLong#paraCada(Consumidor)}.
+     */
+    @FunctionalInterface
+    public interface Consumidor {
+        void aceitar(int chave, long valor);
+    }
+
+    /**
+     * Chama o consumidor para cada entrada do mapa, em ordem indefinida.
+     * <p>O mapa não deve ser alterado durante o percurso.</p>
+     *
+     * @param consumidor Chamado com cada chave e seu valor.
+     */
+    public void paraCada(Consumidor consumidor) {
+        for (int i = 0; i < chaves.length; i++) {
+            if (chaves[i] != VAZIO) consumidor.aceitar(chaves[i], valores[i]);
+        }
+    }
+
+    /**
+     * Remove todas as entradas, mantendo a capacidade atual.
+     */
+    public void limpar() {
+        Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+    }
+
+    private void redimensionar(int cap) {
+        int[] ck = chaves;
+        long[] cv = valores;
+        chaves = new int[cap];
+        valores = new long[cap];
+        Arrays.fill(chaves, VAZIO);
+        tamanho = 0;
+        for (int i = 0; i < ck.length; i++) {
+            if (ck[i] != VAZIO) colocar(ck[i], cv[i]);
+        }
+    }
+
+    private static int espalhar(int k) {
+        int h = k * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,8 +1,14 @@
 package dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.Set;
 import model.Midia;
+import model.Projecao;
 
 /**
  * **Interface de Acesso a Dados (DAO) para a Entidade Mídia.**
@@ -67,4 +73,115 @@ public interface MidiaDAO {
      * @throws Exception Se ocorrer um erro durante a operação de busca.
      */
     Optional<Midia> buscarPorId(int id) throws Exception;
+
+    /**
+     *  Percorre todas as mídias do armazenamento, uma de cada vez, sem montar a lista completa em memória.
+     * <p>A implementação padrão usa {@link #listarTodos()}; implementações que leem o armazenamento
+     * de forma incremental devem sobrescrever este método.</p>
+     *
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia encontrada.
+     * @throws Exception Se ocorrer um erro de leitura ou se o processador lançar uma exceção.
+     */
+    default void percorrer(ProcessadorMidia processador) throws Exception {
+        percorrer(0, 1, processador);
+    }
+
+    /**
+     *  Percorre apenas as mídias de uma <b>fatia</b> do espaço de IDs ({@code id % totalFatias == fatia}).
+     * <p>Fatias diferentes são disjuntas e podem ser percorridas em paralelo.</p>
+     *
+     * @param fatia O índice da fatia, de {@code 0} a {@code totalFatias - 1}.
+     * @param totalFatias O número total de fatias.
+     * @param processador O {@link ProcessadorMidia} chamado para cada mídia da fatia.
+     * @throws Exception Se ocorrer um erro de leitura ou se o processador lançar uma exceção.
+     */
+    default void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        for (Midia m : listarTodos()) {
+            if (Math.floorMod(m.getId(), totalFatias) == fatia) processador.processar(m);
+        }
+    }
+
+    /**
+     *  Percorre todas as mídias lendo apenas alguns campos de cada uma.
+     * <p>A implementação padrão projeta as mídias de {@link #percorrer(ProcessadorMidia)};
+     * implementações que leem do disco devem sobrescrever este método para não montar (nem ler)
+     * os campos que não foram pedidos.</p>
+     *
+     * @param campos Os campos desejados, além de {@code id} e {@code tipo}.
+     * @param processador O {@link ProcessadorProjecao} chamado para cada mídia encontrada.
+     * @throws Exception Se ocorrer um erro de leitura ou se o processador lançar uma exceção.
+     */
+    default void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        percorrer(m -> processador.processar(Projecao.de(m, campos)));
+    }
+
+    /**
+     *  Lista as mídias aceitas por um filtro, já ordenadas.
+     * <p>A implementação padrão percorre o armazenamento e ordena o resultado; implementações
+     * divididas em partições podem ordenar cada partição e intercalar os resultados.</p>
+     *
+     * @param filtro O filtro das mídias.
+     * @param ordem A ordem do resultado, ou {@code null} para a ordem do armazenamento.
+     * @return As mídias aceitas, em ordem.
+     * @throws Exception Se ocorrer um erro durante a leitura.
+     */
+    default List<Midia> listarOrdenado(Predicate<Midia> filtro, Comparator<Midia> ordem) throws Exception {
+        List<Midia> res = new ArrayList<>();
+        for (Midia m : listarTodos()) {
+            if (filtro.test(m)) res.add(m);
+        }
+        if (ordem != null) res.sort(ordem);
+        return res;
+    }
+
+    /**
+     *  Salva um lote de mídias de uma só vez.
+     * <p>A implementação padrão chama {@link #salvar(Midia)} para cada mídia; implementações
+     * podem agrupar as escritas para reduzir o custo por registro.</p>
+     *
+     * @param lote As mídias a serem salvas.
+     * @throws Exception Se ocorrer um erro durante a operação de salvamento.
+     */
+    default void salvarLote(List<Midia> lote) throws Exception {
+        for (Midia m : lote) salvar(m);
+    }
+
+    /**
+     *  Aplica de uma vez um conjunto de gravações e remoções (ver {@code controle.UnidadeDeTrabalho}).
+     * <p>A implementação padrão chama {@link #salvarLote(List)} e depois {@link #deletar(int)} para
+     * cada ID; implementações com log ou cópia em memória devem registrar e publicar o conjunto
+     * como uma única alteração.</p>
+     *
+     * @param salvas As mídias a serem salvas (novas ou atualizadas).
+     * @param removidos Os IDs a serem removidos.
+     * @throws Exception Se ocorrer um erro durante a operação.
+     */
+    default void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        if (!salvas.isEmpty()) salvarLote(salvas);
+        for (int id : removidos) deletar(id);
+    }
+
+    /**
+     *  Relê uma mídia diretamente do armazenamento de referência, descartando qualquer cópia em cache.
+     * <p>Usado quando o registro pode ter sido alterado fora deste DAO (por exemplo, por outro processo).
+     * A implementação padrão apenas chama {@link #buscarPorId(int)}.</p>
+     *
+     * @param id O ID da mídia.
+     * @return A mídia como está no armazenamento, ou {@code Optional.empty()} se ela não existir mais.
+     * @throws Exception Se ocorrer um erro durante a leitura.
+     */
+    default Optional<Midia> recarregar(int id) throws Exception {
+        return buscarPorId(id);
+    }
+
+    /**
+     *  Força para o disco tudo o que este DAO já gravou.
+     * <p>Ao retornar, as escritas concluídas antes da chamada sobrevivem a uma queda do sistema.
+     * A implementação padrão não faz nada (o DAO não guarda nada em disco, ou já grava de forma
+     * durável); decoradores devem repassar a chamada à base.</p>
+     *
+     * @throws Exception Se ocorrer um erro de I/O.
+     */
+    default void sincronizar() throws Exception {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,308 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import dao.LogAlteracoes.Alteracao;
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **DAO com Diário de Escrita Antecipada (Write-Ahead Log).**
+ *
+ * <p>Decorador de um {@link MidiaDAO} que grava sem {@code fsync} (como o {@link FileMidiaDAO}):
+ * cada escrita é primeiro registrada num {@link LogAlteracoes} próprio, o <b>diário</b>, e só é
+ * aplicada à base depois que o registro está no disco. O diário usa confirmação em grupo
+ * ({@link LogAlteracoes#iniciarConfirmacaoEmGrupo()}): escritores simultâneos esperam o mesmo
+ * {@code fsync}, de modo que o custo de durabilidade é dividido entre eles.</p>
+ *
+ * <ul>
+ * <li><b>Recuperação:</b> ao abrir, os registros do diário posteriores ao último checkpoint são
+ * reaplicados à base, o que refaz escritas perdidas ou truncadas por uma queda. Reaplicar é
+ * seguro: cada registro traz o estado completo da mídia.</li>
+ * <li><b>Checkpoint:</b> a cada {@code intervaloCheckpoint} escritas (em segundo plano) ou em
+ * {@link #sincronizar()}, a base é sincronizada ({@link MidiaDAO#sincronizar()}), a sequência
+ * coberta é gravada em {@value #ARQUIVO_CHECKPOINT} e os segmentos anteriores do diário são
+ * apagados, o que mantém o diário limitado.</li>
+ * </ul>
+ *
+ * <p>As escritas num mesmo ID usam a trava do ID ({@link TravasPorId}), para que a base e o
+ * diário vejam a mesma ordem. As leituras vão direto para a base.</p>
+ *
+ * @see LogAlteracoes
+ */
+public class MidiaDAOComDiario implements MidiaDAO, Closeable {
+    /** Arquivo, no diretório do diário, com a última sequência coberta por um checkpoint. */
+    public static final String ARQUIVO_CHECKPOINT = "checkpoint";
+
+    private final MidiaDAO base;
+    private final Path diretorio;
+    private final LogAlteracoes diario;
+    private final TravasPorId travas = new TravasPorId();
+    // escritas compartilham; o checkpoint exclui, só para ler uma sequência já aplicada à base
+    private final ReadWriteLock aplicacao = new ReentrantReadWriteLock();
+    private final Object checkpoint = new Object();
+    private final AtomicLong desdeCheckpoint = new AtomicLong();
+    private final AtomicBoolean checkpointAgendado = new AtomicBoolean();
+    private volatile long intervaloCheckpoint = 10_000;
+    private final int recuperadas;
+
+    /**
+     * Abre (ou cria) o diário e reaplica à base o que ficou depois do último checkpoint.
+     *
+     * @param base O DAO onde as alterações são persistidas.
+     * @param diretorio O diretório do diário (exclusivo deste DAO).
+     * @throws Exception Se o diário não puder ser aberto ou a recuperação falhar.
+     */
+    public MidiaDAOComDiario(MidiaDAO base, Path diretorio) throws Exception {
+        this.base = base;
+        this.diretorio = diretorio;
+        this.diario = new LogAlteracoes(diretorio);
+        this.recuperadas = recuperar();
+        diario.iniciarConfirmacaoEmGrupo();
+    }
+
+    private int recuperar() throws Exception {
+        long aplicada = lerCheckpoint();
+        int total = 0;
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(diretorio, aplicada)) {
+            List<Alteracao> lote = new ArrayList<>();
+            while (leitor.ler(512, lote::add) > 0) {
+                for (Alteracao a : lote) {
+                    if (a.isRemocao()) base.deletar(a.getId());
+                    else base.salvar(a.getMidia());
+                }
+                total += lote.size();
+                lote.clear();
+            }
+            aplicada = leitor.getUltimaSequencia();
+        }
+        if (total > 0) concluirCheckpoint(aplicada);
+        return total;
+    }
+
+    /**
+     * @return Quantas alterações do diário foram reaplicadas à base ao abrir.
+     */
+    public int getRecuperadas() {
+        return recuperadas;
+    }
+
+    /**
+     * @return O diário de escrita antecipada.
+     */
+    public LogAlteracoes getDiario() {
+        return diario;
+    }
+
+    /**
+     * @param intervaloCheckpoint O número de escritas entre dois checkpoints automáticos
+     * (padrão: 10 000).
+     */
+    public void setIntervaloCheckpoint(long intervaloCheckpoint) {
+        this.intervaloCheckpoint = intervaloCheckpoint;
+    }
+
+    // --- ESCRITA ---
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            aplicar(() -> diario.registrarSalva(m), () -> base.salvar(m));
+            return null;
+        });
+        contarEscritas(1);
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            aplicar(() -> diario.registrarSalva(m), () -> base.atualizar(m));
+            return null;
+        });
+        contarEscritas(1);
+    }
+
+    /**
+     * Registra todo o lote no diário, espera um único {@code fsync} e o salva na base, com as
+     * travas de todos os IDs.
+     */
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        if (lote.isEmpty()) return;
+        travas.executarTodos(TravasPorId.ids(lote, Collections.emptyList()), () -> {
+            aplicar(() -> {
+                long ultima = 0;
+                for (Midia m : lote) ultima = diario.registrarSalva(m);
+                return ultima;
+            }, () -> base.salvarLote(lote));
+            return null;
+        });
+        contarEscritas(lote.size());
+    }
+
+    /**
+     * Registra o conjunto inteiro como um único registro do diário (um {@code fsync}) e o aplica
+     * à base, com as travas de todos os IDs. Numa queda, a recuperação reaplica o conjunto todo
+     * ou nada dele.
+     */
+    @Override
+    public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        if (salvas.isEmpty() && removidos.isEmpty()) return;
+        travas.executarTodos(TravasPorId.ids(salvas, removidos), () -> {
+            aplicar(() -> diario.registrarLote(salvas, removidos), () -> base.aplicarLote(salvas, removidos));
+            return null;
+        });
+        contarEscritas(salvas.size() + removidos.size());
+    }
+
+    @Override
+    public boolean deletar(int id) throws Exception {
+        boolean removido = travas.executar(id, () -> {
+            boolean[] res = new boolean[1];
+            aplicar(() -> diario.registrarRemocao(id), () -> res[0] = base.deletar(id));
+            return res[0];
+        });
+        contarEscritas(1);
+        return removido;
+    }
+
+    @FunctionalInterface
+    private interface Registro {
+        long registrar() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Escrita {
+        void executar() throws Exception;
+    }
+
+    // registra no diário, espera o fsync e aplica à base; o checkpoint não pode ver o registro sem a aplicação
+    private void aplicar(Registro registro, Escrita escrita) throws Exception {
+        aplicacao.readLock().lock();
+        try {
+            diario.aguardarDuravel(registro.registrar());
+            escrita.executar();
+        } finally {
+            aplicacao.readLock().unlock();
+        }
+    }
+
+    private void contarEscritas(int n) {
+        if (desdeCheckpoint.addAndGet(n) < intervaloCheckpoint || !checkpointAgendado.compareAndSet(false, true)) return;
+        Thread t = new Thread(() -> {
+            try {
+                checkpoint();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            } finally {
+                checkpointAgendado.set(false);
+            }
+        }, "checkpoint-diario");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // --- CHECKPOINT ---
+
+    /**
+     * Faz um checkpoint: sincroniza a base e descarta do diário o que ela já tem no disco.
+     *
+     * @return A última sequência coberta pelo checkpoint.
+     * @throws Exception Se a base não puder ser sincronizada ou o diário não puder ser truncado.
+     */
+    public long checkpoint() throws Exception {
+        synchronized (checkpoint) {
+            long seq;
+            // com a trava exclusiva, todo registro até seq já foi aplicado à base
+            aplicacao.writeLock().lock();
+            try {
+                seq = diario.getUltimaSequencia();
+                desdeCheckpoint.set(0);
+            } finally {
+                aplicacao.writeLock().unlock();
+            }
+            if (seq > lerCheckpoint()) concluirCheckpoint(seq);
+            return seq;
+        }
+    }
+
+    private void concluirCheckpoint(long seq) throws Exception {
+        base.sincronizar();
+        Path temp = diretorio.resolve(ARQUIVO_CHECKPOINT + ".tmp");
+        Files.write(temp, String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, diretorio.resolve(ARQUIVO_CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        diario.descartarAte(seq);
+    }
+
+    private long lerCheckpoint() throws IOException {
+        Path p = diretorio.resolve(ARQUIVO_CHECKPOINT);
+        if (!Files.exists(p)) return 0;
+        return Long.parseLong(new String(Files.readAllBytes(p), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * As escritas já são duráveis pelo diário; aqui é feito um checkpoint.
+     */
+    @Override
+    public void sincronizar() throws Exception {
+        checkpoint();
+    }
+
+    /**
+     * Relê a mídia da base, sem registrar nada no diário (a alteração aconteceu fora deste DAO).
+     */
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        return base.recarregar(id);
+    }
+
+    /**
+     * Fecha o diário. As escritas confirmadas continuam recuperáveis na próxima abertura.
+     */
+    @Override
+    public void close() throws IOException {
+        diario.close();
+    }
+
+    // --- LEITURA ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        return base.buscarPorId(id);
+    }
+
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        return base.listarTodos();
+    }
+
+    @Override
+    public List<Midia> listarOrdenado(Predicate<Midia> filtro, Comparator<Midia> ordem) throws Exception {
+        return base.listarOrdenado(filtro, ordem);
+    }
+
+    @Override
+    public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        base.percorrerProjecao(campos, processador);
+    }
+
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        base.percorrer(fatia, totalFatias, processador);
+    }
+}
@@ -0,0 +1,101 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+import model.*;
+
+class MidiaDAOComDiarioTeste {
+
+    private Path tempDir;
+    private Path dirDiario;
+    private FileMidiaDAO base;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("diario");
+        dirDiario = tempDir.resolve("diario");
+        base = new FileMidiaDAO(tempDir.resolve("dados"));
+    }
+
+    private long segmentos() throws Exception {
+        try (java.util.stream.Stream<Path> s = Files.list(dirDiario)) {
+            return s.filter(p -> p.toString().endsWith(".log")).count();
+        }
+    }
+
+    @Test
+    void testRecuperacaoReaplicaODiario() throws Exception {
+        base.salvar(new Musica(3, "c:/c.mp3", 1, "C", 60, "Rock", "Z"));
+        // queda depois do fsync do diário e antes da escrita na base
+        try (LogAlteracoes log = new LogAlteracoes(dirDiario)) {
+            log.registrarSalva(new Musica(1, "c:/a.mp3", 10, "A", 60, "Rock", "X"));
+            log.registrarSalva(new Filme(2, "c:/b.mp4", 20, "B", 90, "Ação", "PT"));
+            log.registrarRemocao(3);
+        }
+
+        try (MidiaDAOComDiario dao = new MidiaDAOComDiario(base, dirDiario)) {
+            assertEquals(3, dao.getRecuperadas());
+            assertEquals("A", base.buscarPorId(1).get().getTitulo());
+            assertEquals("FILME", base.buscarPorId(2).get().getTipo());
+            assertFalse(base.buscarPorId(3).isPresent());
+        }
+        // o checkpoint da recuperação evita reaplicar na próxima abertura
+        try (MidiaDAOComDiario dao = new MidiaDAOComDiario(base, dirDiario)) {
+            assertEquals(0, dao.getRecuperadas());
+        }
+    }
+
+    @Test
+    void testEscritasConcorrentesEmGrupo() throws Exception {
+        int threads = 8, porThread = 50;
+        try (MidiaDAOComDiario dao = new MidiaDAOComDiario(base, dirDiario)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> fs = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int inicio = t * porThread;
+                fs.add(pool.submit(() -> {
+                    for (int i = inicio + 1; i <= inicio + porThread; i++) {
+                        dao.salvar(new Musica(i, "c:/m" + i + ".mp3", i, "M" + i, 60, "Rock", "X"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : fs) f.get(30, TimeUnit.SECONDS);
+            pool.shutdown();
+
+            assertEquals(threads * porThread, base.listarTodos().size());
+            assertEquals(threads * porThread, dao.getDiario().getUltimaSequencia());
+            // cada escrita espera o disco, mas os fsyncs são compartilhados
+            assertTrue(dao.getDiario().getSincronizacoes() <= threads * porThread);
+        }
+    }
+
+    @Test
+    void testCheckpointLimitaODiario() throws Exception {
+        try (MidiaDAOComDiario dao = new MidiaDAOComDiario(base, dirDiario)) {
+            dao.setIntervaloCheckpoint(Long.MAX_VALUE);
+            dao.getDiario().setTamanhoMaximoSegmento(300);
+            for (int i = 1; i <= 30; i++) dao.salvar(new Livro(i, "c:/l" + i + ".pdf", i, "L" + i, i, null, "Y"));
+            assertTrue(dao.deletar(5));
+            assertTrue(segmentos() > 3);
+
+            assertEquals(31, dao.checkpoint());
+            assertEquals(1, segmentos());
+            assertEquals("31", Files.readString(dirDiario.resolve(MidiaDAOComDiario.ARQUIVO_CHECKPOINT)).trim());
+
+            // as sequências continuam depois do checkpoint
+            dao.salvar(new Livro(40, "c:/l40.pdf", 1, "L40", 1, null, "Y"));
+            assertEquals(32, dao.getDiario().getUltimaSequencia());
+        }
+        try (MidiaDAOComDiario dao = new MidiaDAOComDiario(base, dirDiario)) {
+            // só a escrita posterior ao checkpoint é reaplicada
+            assertEquals(1, dao.getRecuperadas());
+            assertEquals(30, base.listarTodos().size());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **DAO com Escrita Adiada (Write-Behind).**
+ *
+ * <p>Decorador de um {@link MidiaDAO}: {@code salvar}, {@code atualizar}, {@code salvarLote} e
+ * {@code deletar} só guardam o novo estado do registro em memória e retornam. Várias alterações
+ * no mesmo ID antes da próxima descarga viram <b>uma única escrita</b> na base, com o último
+ * estado. As pendências são descarregadas ({@link #descarregar()}):</p>
+ *
+ * <ul>
+ * <li>a cada {@code intervaloMs}, pela thread iniciada em {@link #iniciar()};</li>
+ * <li>assim que houver {@code limitePendentes} IDs pendentes;</li>
+ * <li>em {@link #sincronizar()} e em {@link #close()} (chamado ao encerrar a aplicação).</li>
+ * </ul>
+ *
+ * <p><b>Consistência:</b> {@code buscarPorId} responde com a pendência, se houver; as listagens
+ * e percursos descarregam antes de ler a base. Uma pendência só sai da memória depois de
+ * escrita, de modo que um leitor nunca vê um estado mais antigo que o último gravado.</p>
+ *
+ * <p>O que estiver pendente se perde numa queda do processo; para uso com o
+ * {@link MidiaDAOComDiario} ou o {@link MidiaDAOComLog}, este decorador deve ficar <b>acima</b>
+ * deles: a durabilidade passa a valer, e as réplicas recebem a alteração, a partir da descarga.</p>
+ */
+public class MidiaDAOComEscritaAdiada implements MidiaDAO, Closeable {
+    private final MidiaDAO base;
+    private final TravasPorId travas = new TravasPorId();
+    // identidade própria: uma pendência só é retirada se não tiver sido substituída
+    private final Map<Integer, Pendente> pendentes = new ConcurrentHashMap<>();
+    private final Object descarga = new Object();
+    private final Object sinal = new Object();
+    private final AtomicLong recebidas = new AtomicLong();
+    private final AtomicLong escritas = new AtomicLong();
+    private final long intervaloMs;
+    private final int limitePendentes;
+    private volatile boolean ativo = false;
+    private Thread thread;
+
+    // o último estado de um ID; midia == null indica remoção
+    private static final class Pendente {
+        final int id;
+        final Midia midia;
+
+        Pendente(int id, Midia midia) {
+            this.id = id;
+            this.midia = midia;
+        }
+    }
+
+    /**
+     * Construtor. A descarga periódica só começa em {@link #iniciar()}.
+     *
+     * @param base O DAO onde as alterações são persistidas.
+     * @param intervaloMs O intervalo máximo entre uma alteração e a sua escrita na base.
+     * @param limitePendentes O número de IDs pendentes que antecipa a descarga.
+     */
+    public MidiaDAOComEscritaAdiada(MidiaDAO base, long intervaloMs, int limitePendentes) {
+        this.base = base;
+        this.intervaloMs = intervaloMs;
+        this.limitePendentes = limitePendentes;
+    }
+
+    /**
+     * Inicia a thread (daemon) de descarga.
+     */
+    public synchronized void iniciar() {
+        if (ativo) return;
+        ativo = true;
+        thread = new Thread(this::executar, "escrita-adiada");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void executar() {
+        while (ativo) {
+            try {
+                synchronized (sinal) {
+                    if (pendentes.size() < limitePendentes) sinal.wait(intervaloMs);
+                }
+                descarregar();
+            } catch (InterruptedException ex) {
+                return;
+            } catch (Exception ex) {
+                // as pendências continuam na memória e são tentadas de novo no próximo ciclo
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return Quantos IDs têm alterações ainda não escritas na base.
+     */
+    public int getPendentes() {
+        return pendentes.size();
+    }
+
+    /**
+     * @return Quantas alterações foram recebidas (cada mídia de um lote conta uma).
+     */
+    public long getRecebidas() {
+        return recebidas.get();
+    }
+
+    /**
+     * @return Quantas escritas (gravações ou remoções) foram feitas na base.
+     */
+    public long getEscritas() {
+        return escritas.get();
+    }
+
+    // --- ESCRITA ---
+
+    private void guardar(int id, Midia m) {
+        pendentes.put(id, new Pendente(id, m == null ? null : m.copia()));
+        recebidas.incrementAndGet();
+        if (pendentes.size() >= limitePendentes) {
+            synchronized (sinal) {
+                sinal.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        guardar(m.getId(), m);
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        guardar(m.getId(), m);
+    }
+
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        for (Midia m : lote) guardar(m.getId(), m);
+    }
+
+    /**
+     * Guarda o conjunto sem que uma descarga veja só parte dele.
+     */
+    @Override
+    public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        synchronized (descarga) {
+            for (Midia m : salvas) guardar(m.getId(), m);
+            for (int id : removidos) guardar(id, null);
+        }
+    }
+
+    /**
+     * Marca o ID como removido; o resultado considera as pendências.
+     * <p>Com a trava do ID, para que duas remoções simultâneas não respondam {@code true}.</p>
+     */
+    @Override
+    public boolean deletar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            boolean existia = buscarPorId(id).isPresent();
+            if (existia) guardar(id, null);
+            return existia;
+        });
+    }
+
+    /**
+     * Escreve na base todas as pendências atuais como um único conjunto
+     * ({@link MidiaDAO#aplicarLote(List, Collection)}).
+     *
+     * @return O número de escritas feitas na base.
+     * @throws Exception Se a base falhar; o que não foi escrito continua pendente.
+     */
+    public int descarregar() throws Exception {
+        synchronized (descarga) {
+            if (pendentes.isEmpty()) return 0;
+            List<Pendente> lote = new ArrayList<>(pendentes.values());
+            List<Midia> salvas = new ArrayList<>(lote.size());
+            List<Integer> removidos = new ArrayList<>();
+            for (Pendente p : lote) {
+                if (p.midia != null) salvas.add(p.midia);
+                else removidos.add(p.id);
+            }
+            base.aplicarLote(salvas, removidos);
+            // se o ID mudou durante a escrita, a nova pendência fica para a próxima descarga
+            for (Pendente p : lote) pendentes.remove(p.id, p);
+            escritas.addAndGet(lote.size());
+            return lote.size();
+        }
+    }
+
+    /**
+     * Descarrega as pendências e sincroniza a base.
+     */
+    @Override
+    public void sincronizar() throws Exception {
+        descarregar();
+        base.sincronizar();
+    }
+
+    /**
+     * Descarrega (para que a releitura não seja sobrescrita depois) e relê da base.
+     */
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        descarregar();
+        return base.recarregar(id);
+    }
+
+    /**
+     * Para a thread de descarga e escreve o que estiver pendente.
+     */
+    @Override
+    public void close() throws IOException {
+        ativo = false;
+        // sem interrupt: interromper uma escrita em andamento fecharia os canais de arquivo da base
+        synchronized (sinal) {
+            sinal.notifyAll();
+        }
+        try {
+            if (thread != null) thread.join(2000);
+            descarregar();
+        } catch (IOException ex) {
+            throw ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            throw new IOException("Falha ao descarregar as escritas adiadas", ex);
+        }
+    }
+
+    // --- LEITURA ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        Pendente p = pendentes.get(id);
+        if (p == null) return base.buscarPorId(id);
+        return p.midia == null ? Optional.empty() : Optional.of(p.midia.copia());
+    }
+
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        descarregar();
+        return base.listarTodos();
+    }
+
+    @Override
+    public List<Midia> listarOrdenado(Predicate<Midia> filtro, Comparator<Midia> ordem) throws Exception {
+        descarregar();
+        return base.listarOrdenado(filtro, ordem);
+    }
+
+    @Override
+    public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        descarregar();
+        base.percorrerProjecao(campos, processador);
+    }
+
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        descarregar();
+        base.percorrer(fatia, totalFatias, processador);
+    }
+}
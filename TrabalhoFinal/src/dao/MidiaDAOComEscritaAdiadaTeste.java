@@ -0,0 +1,86 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+
+import org.junit.jupiter.api.*;
+import model.*;
+
+class MidiaDAOComEscritaAdiadaTeste {
+
+    private FileMidiaDAO base;
+
+    @BeforeEach
+    void setup() throws Exception {
+        base = new FileMidiaDAO(Files.createTempDirectory("adiada"));
+    }
+
+    private static Musica musica(int id, String titulo) {
+        return new Musica(id, "c:/m" + id + ".mp3", 10, titulo, 60, "Rock", "X");
+    }
+
+    private static void esperar(java.util.concurrent.Callable<Boolean> condicao) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicao.call() && System.currentTimeMillis() < limite) Thread.sleep(10);
+        assertTrue(condicao.call());
+    }
+
+    @Test
+    void testAlteracoesSeguidasViramUmaEscrita() throws Exception {
+        try (MidiaDAOComEscritaAdiada dao = new MidiaDAOComEscritaAdiada(base, 3_600_000, 1000)) {
+            dao.salvar(musica(1, "v0"));
+            for (int i = 1; i <= 5; i++) dao.atualizar(musica(1, "v" + i));
+
+            // lê as próprias escritas antes da descarga
+            assertEquals("v5", dao.buscarPorId(1).get().getTitulo());
+            assertFalse(base.buscarPorId(1).isPresent());
+            assertEquals(1, dao.getPendentes());
+
+            assertEquals(1, dao.descarregar());
+            assertEquals("v5", base.buscarPorId(1).get().getTitulo());
+            assertEquals(6, dao.getRecebidas());
+            assertEquals(1, dao.getEscritas());
+            assertEquals(0, dao.getPendentes());
+        }
+    }
+
+    @Test
+    void testRemocaoPendente() throws Exception {
+        base.salvar(musica(2, "antiga"));
+        try (MidiaDAOComEscritaAdiada dao = new MidiaDAOComEscritaAdiada(base, 3_600_000, 1000)) {
+            dao.salvar(musica(1, "nova"));
+            assertTrue(dao.deletar(1));
+            assertTrue(dao.deletar(2));
+            assertFalse(dao.deletar(2));
+            assertFalse(dao.buscarPorId(2).isPresent());
+            assertTrue(base.buscarPorId(2).isPresent());
+
+            // listagens descarregam antes de ler
+            assertTrue(dao.listarTodos().isEmpty());
+            assertFalse(base.buscarPorId(2).isPresent());
+        }
+    }
+
+    @Test
+    void testLimiteEIntervaloAntecipamADescarga() throws Exception {
+        try (MidiaDAOComEscritaAdiada dao = new MidiaDAOComEscritaAdiada(base, 3_600_000, 3)) {
+            dao.iniciar();
+            for (int i = 1; i <= 3; i++) dao.salvar(musica(i, "M" + i));
+            esperar(() -> base.buscarPorId(3).isPresent() && dao.getPendentes() == 0);
+        }
+        try (MidiaDAOComEscritaAdiada dao = new MidiaDAOComEscritaAdiada(base, 50, 1000)) {
+            dao.iniciar();
+            dao.salvar(musica(4, "M4"));
+            esperar(() -> base.buscarPorId(4).isPresent());
+        }
+    }
+
+    @Test
+    void testFecharDescarrega() throws Exception {
+        MidiaDAOComEscritaAdiada dao = new MidiaDAOComEscritaAdiada(base, 3_600_000, 1000);
+        dao.salvar(musica(7, "ultima"));
+        dao.close();
+        assertEquals("ultima", base.buscarPorId(7).get().getTitulo());
+    }
+}
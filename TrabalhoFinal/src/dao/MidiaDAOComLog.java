@@ -0,0 +1,314 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import dao.LogAlteracoes.Alteracao;
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **DAO que Publica as Alterações num {@link LogAlteracoes}.**
+ *
+ * <p>Decorador de um {@link MidiaDAO}: cada escrita ({@code salvar}, {@code atualizar},
+ * {@code salvarLote}, {@code aplicarLote}, {@code deletar} e as releituras de {@code recarregar})
+ * é registrada no log, com o estado completo da mídia ou o ID removido. As leituras vão direto
+ * para a base.</p>
+ *
+ * <p>O registro é feito <b>antes</b> da escrita na base, como no {@link MidiaDAOComDiario}, e os
+ * dois acontecem com a trava do ID ({@link TravasPorId}), de modo que a ordem do log é a mesma
+ * em que as alterações de um mesmo ID foram aplicadas:</p>
+ *
+ * <ul>
+ * <li><b>Falha na base:</b> o estado que a base realmente tem para os IDs envolvidos é
+ * registrado logo em seguida, e as réplicas terminam iguais à base.</li>
+ * <li><b>Queda:</b> ao abrir, os registros posteriores a {@value #ARQUIVO_APLICADA} são
+ * reaplicados à base (cada um traz o estado completo, então reaplicar é seguro). Uma alteração
+ * nunca fica só na base nem só no log.</li>
+ * <li><b>Checkpoint:</b> {@link #sincronizar()} e {@link #close()} sincronizam a base e gravam a
+ * última sequência aplicada, o que limita a reaplicação ao que veio depois.</li>
+ * </ul>
+ *
+ * <p>Com o {@link MidiaDAOComEscritaAdiada}, este decorador deve ficar <b>abaixo</b> dele: só o
+ * que é descarregado para a base chega ao log.</p>
+ *
+ * @see LogAlteracoes
+ */
+public class MidiaDAOComLog implements MidiaDAO, Closeable {
+    /** Arquivo, no diretório do log, com a última sequência sabidamente aplicada à base. */
+    public static final String ARQUIVO_APLICADA = "aplicada";
+
+    private final MidiaDAO base;
+    private final LogAlteracoes log;
+    private final TravasPorId travas = new TravasPorId();
+    // escritas compartilham; o checkpoint exclui, só para ler uma sequência já aplicada à base
+    private final ReadWriteLock aplicacao = new ReentrantReadWriteLock();
+    private final Object checkpoint = new Object();
+    private final int recuperadas;
+
+    /**
+     * Construtor; reaplica à base o que o log tiver depois da última sequência aplicada.
+     *
+     * @param base O DAO onde as alterações são persistidas.
+     * @param log O log que receberá as alterações.
+     * @throws Exception Se a reaplicação falhar.
+     */
+    public MidiaDAOComLog(MidiaDAO base, LogAlteracoes log) throws Exception {
+        this.base = base;
+        this.log = log;
+        this.recuperadas = recuperar();
+    }
+
+    private int recuperar() throws Exception {
+        Path marca = log.getDiretorio().resolve(ARQUIVO_APLICADA);
+        // log sem marca: tudo o que já está nele foi gravado antes deste decorador existir
+        if (!Files.exists(marca)) {
+            gravarAplicada(log.getUltimaSequencia());
+            return 0;
+        }
+        long aplicada = lerAplicada();
+        int total = 0;
+        try (LogAlteracoes.Leitor leitor = new LogAlteracoes.Leitor(log.getDiretorio(), aplicada)) {
+            List<Alteracao> lote = new ArrayList<>();
+            while (leitor.ler(512, lote::add) > 0) {
+                for (Alteracao a : lote) {
+                    if (a.isRemocao()) base.deletar(a.getId());
+                    else base.salvar(a.getMidia());
+                }
+                total += lote.size();
+                lote.clear();
+            }
+            aplicada = leitor.getUltimaSequencia();
+        }
+        if (total > 0) {
+            base.sincronizar();
+            gravarAplicada(aplicada);
+        }
+        return total;
+    }
+
+    /**
+     * @return Quantas alterações do log foram reaplicadas à base ao abrir.
+     */
+    public int getRecuperadas() {
+        return recuperadas;
+    }
+
+    /**
+     * @return O log de alterações.
+     */
+    public LogAlteracoes getLog() {
+        return log;
+    }
+
+    // --- ESCRITA ---
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            aplicar(List.of(m.getId()), () -> log.registrarSalva(m), () -> base.salvar(m));
+            return null;
+        });
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            aplicar(List.of(m.getId()), () -> log.registrarSalva(m), () -> base.atualizar(m));
+            return null;
+        });
+    }
+
+    /**
+     * Registra cada mídia no log, na ordem do lote, e salva o lote na base, com as travas de
+     * todos os IDs.
+     */
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        if (lote.isEmpty()) return;
+        List<Integer> ids = TravasPorId.ids(lote, Collections.emptyList());
+        travas.executarTodos(ids, () -> {
+            aplicar(ids, () -> {
+                for (Midia m : lote) log.registrarSalva(m);
+            }, () -> base.salvarLote(lote));
+            return null;
+        });
+    }
+
+    /**
+     * Registra o conjunto no log como um único lote e o aplica na base, com as travas de todos
+     * os IDs.
+     */
+    @Override
+    public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        if (salvas.isEmpty() && removidos.isEmpty()) return;
+        List<Integer> ids = TravasPorId.ids(salvas, removidos);
+        travas.executarTodos(ids, () -> {
+            aplicar(ids, () -> log.registrarLote(salvas, removidos), () -> base.aplicarLote(salvas, removidos));
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deletar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            // sem registro na base, nada é publicado
+            if (!base.buscarPorId(id).isPresent()) return false;
+            boolean[] removido = new boolean[1];
+            aplicar(List.of(id), () -> log.registrarRemocao(id), () -> removido[0] = base.deletar(id));
+            return removido[0];
+        });
+    }
+
+    /**
+     * Relê a mídia da base e registra o estado encontrado: alterações feitas fora da aplicação
+     * (detectadas pelo sincronizador de arquivos) também chegam ao log. Aqui a alteração já está
+     * na base, então o registro vem depois.
+     */
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            aplicacao.readLock().lock();
+            try {
+                Optional<Midia> opt = base.recarregar(id);
+                if (opt.isPresent()) log.registrarSalva(opt.get());
+                else log.registrarRemocao(id);
+                return opt;
+            } finally {
+                aplicacao.readLock().unlock();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Registro {
+        void registrar() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Escrita {
+        void executar() throws Exception;
+    }
+
+    // registra no log e aplica à base; o checkpoint não pode ver o registro sem a aplicação
+    private void aplicar(List<Integer> ids, Registro registro, Escrita escrita) throws Exception {
+        aplicacao.readLock().lock();
+        try {
+            registro.registrar();
+            try {
+                escrita.executar();
+            } catch (Exception ex) {
+                compensar(ids, ex);
+            }
+        } finally {
+            aplicacao.readLock().unlock();
+        }
+    }
+
+    // a base falhou depois do registro: publica o estado que ela tem, para as réplicas não ficarem à frente
+    private void compensar(List<Integer> ids, Exception causa) throws Exception {
+        try {
+            List<Midia> salvas = new ArrayList<>();
+            List<Integer> removidos = new ArrayList<>();
+            for (int id : ids) {
+                Optional<Midia> opt = base.buscarPorId(id);
+                if (opt.isPresent()) salvas.add(opt.get());
+                else removidos.add(id);
+            }
+            log.registrarLote(salvas, removidos);
+        } catch (Exception ex) {
+            // a reaplicação ao abrir deixa a base igual ao log
+            causa.addSuppressed(ex);
+        }
+        throw causa;
+    }
+
+    // --- CHECKPOINT ---
+
+    /**
+     * Sincroniza a base e grava a última sequência do log já aplicada a ela.
+     */
+    @Override
+    public void sincronizar() throws Exception {
+        synchronized (checkpoint) {
+            long seq;
+            // com a trava exclusiva, todo registro até seq já foi aplicado à base
+            aplicacao.writeLock().lock();
+            try {
+                seq = log.getUltimaSequencia();
+            } finally {
+                aplicacao.writeLock().unlock();
+            }
+            base.sincronizar();
+            if (seq > lerAplicada()) gravarAplicada(seq);
+        }
+    }
+
+    private void gravarAplicada(long seq) throws IOException {
+        Path temp = log.getDiretorio().resolve(ARQUIVO_APLICADA + ".tmp");
+        Files.write(temp, String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, log.getDiretorio().resolve(ARQUIVO_APLICADA), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private long lerAplicada() throws IOException {
+        Path p = log.getDiretorio().resolve(ARQUIVO_APLICADA);
+        if (!Files.exists(p)) return 0;
+        return Long.parseLong(new String(Files.readAllBytes(p), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Faz o checkpoint ({@link #sincronizar()}) e fecha o log.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sincronizar();
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException("Falha ao sincronizar a base", ex);
+        } finally {
+            log.close();
+        }
+    }
+
+    // --- LEITURA ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        return base.buscarPorId(id);
+    }
+
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        return base.listarTodos();
+    }
+
+    @Override
+    public List<Midia> listarOrdenado(Predicate<Midia> filtro, Comparator<Midia> ordem) throws Exception {
+        return base.listarOrdenado(filtro, ordem);
+    }
+
+    @Override
+    public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        base.percorrerProjecao(campos, processador);
+    }
+
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        base.percorrer(fatia, totalFatias, processador);
+    }
+}
@@ -0,0 +1,380 @@
+package dao;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import model.*;
+
+/**
+ * **DAO com o Catálogo Mantido Fora do Heap Java.**
+ *
+ * <p>Decorador de um {@link MidiaDAO} (o armazenamento de referência, normalmente um
+ * {@link FileMidiaDAO}) que mantém uma cópia de todos os registros em <b>blocos de memória
+ * direta</b> ({@link ByteBuffer#allocateDirect(int)}), fora do heap. As leituras
+ * ({@code buscarPorId}, {@code listarTodos}, {@code percorrer}) são atendidas por essa cópia;
+ * as escritas vão primeiro para o DAO de referência e depois para a cópia, com a trava do ID
+ * ({@link TravasPorId}), para que a cópia termine com a mesma versão que a base.</p>
+ *
+ * <p>No heap ficam apenas os blocos (alguns objetos) e o índice ID → endereço, um
+ * {@link MapaIntLong} de vetores primitivos. O coletor de lixo não precisa percorrer os
+ * registros, de modo que o heap e as pausas não crescem com o catálogo.</p>
+ *
+ * <p>Registros são gravados em sequência nos blocos; uma atualização grava uma nova versão e a
+ * anterior vira lixo. Quando o lixo passa da metade do espaço usado, os registros vivos são
+ * copiados para blocos novos.</p>
+ *
+ * <p><b>Ciclo de vida:</b> {@link #close()} apenas descarta as referências aos blocos; depois
+ * disso, qualquer operação lança {@link IllegalStateException}. A memória direta não é liberada
+ * no {@code close()}: ela só volta ao sistema quando o coletor de lixo recolher os blocos.</p>
+ *
+ * @see FileMidiaDAO
+ */
+public class MidiaDAOForaHeap implements MidiaDAO, AutoCloseable {
+    private static final int TAMANHO_BLOCO_PADRAO = 16 * 1024 * 1024;
+
+    private final MidiaDAO base;
+    private final int tamanhoBloco;
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // ordena, por ID, a escrita na base e a gravação da cópia
+    private final TravasPorId travas = new TravasPorId();
+
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    private MapaIntLong enderecos = new MapaIntLong();
+    private long usados = 0;
+    private long lixo = 0;
+    private boolean fechado = false;
+
+    /**
+     * Cria o DAO com blocos de 16 MB e carrega todos os registros do DAO de referência.
+     *
+     * @param base O DAO de referência, onde as escritas são persistidas.
+     * @throws Exception Se ocorrer um erro na leitura do DAO de referência.
+     */
+    public MidiaDAOForaHeap(MidiaDAO base) throws Exception {
+        this(base, TAMANHO_BLOCO_PADRAO);
+    }
+
+    /**
+     * Cria o DAO com o tamanho de bloco informado e carrega todos os registros do DAO de referência.
+     *
+     * @param base O DAO de referência, onde as escritas são persistidas.
+     * @param tamanhoBloco O tamanho, em bytes, de cada bloco de memória direta.
+     * @throws Exception Se ocorrer um erro na leitura do DAO de referência.
+     */
+    public MidiaDAOForaHeap(MidiaDAO base, int tamanhoBloco) throws Exception {
+        this.base = base;
+        this.tamanhoBloco = tamanhoBloco;
+        base.percorrer(this::gravar);
+    }
+
+    // --- ESCRITA ---
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            base.salvar(m);
+            gravar(m);
+            return null;
+        });
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            base.atualizar(m);
+            gravar(m);
+            return null;
+        });
+    }
+
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        travas.executarTodos(TravasPorId.ids(lote, Collections.emptyList()), () -> {
+            base.salvarLote(lote);
+            for (Midia m : lote) gravar(m);
+            return null;
+        });
+    }
+
+    @Override
+    public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        travas.executarTodos(TravasPorId.ids(salvas, removidos), () -> {
+            base.aplicarLote(salvas, removidos);
+            for (Midia m : salvas) gravar(m);
+            for (int id : removidos) descartar(id);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deletar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            boolean removido = base.deletar(id);
+            descartar(id);
+            return removido;
+        });
+    }
+
+    private void descartar(int id) {
+        trava.writeLock().lock();
+        try {
+            verificarAberto();
+            long end = enderecos.remover(id, -1);
+            if (end >= 0) lixo += tamanhoRegistro(end);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Relê a mídia do DAO de referência e atualiza (ou descarta) a cópia fora do heap.
+     */
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            Optional<Midia> opt = base.recarregar(id);
+            if (opt.isPresent()) {
+                gravar(opt.get());
+            } else {
+                descartar(id);
+            }
+            return opt;
+        });
+    }
+
+    @Override
+    public void sincronizar() throws Exception {
+        base.sincronizar();
+    }
+
+    // --- LEITURA ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        trava.readLock().lock();
+        try {
+            verificarAberto();
+            long end = enderecos.obter(id, -1);
+            return end < 0 ? Optional.empty() : Optional.of(ler(end));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        List<Midia> res = new ArrayList<>();
+        percorrer(res::add);
+        return res;
+    }
+
+    /**
+     * Percorre os registros vivos na ordem em que estão nos blocos (acesso sequencial à memória).
+     * <p>O processador é chamado com a trava de leitura; ele não deve escrever neste DAO.</p>
+     */
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        trava.readLock().lock();
+        try {
+            verificarAberto();
+            for (int b = 0; b < blocos.size(); b++) {
+                ByteBuffer bloco = blocos.get(b);
+                int pos = 0;
+                while (pos + 4 <= bloco.capacity()) {
+                    int tam = bloco.getInt(pos);
+                    if (tam == 0) break; // fim dos registros do bloco
+                    long end = endereco(b, pos);
+                    int id = bloco.getInt(pos + 4);
+                    if (enderecos.obter(id, -1) == end && Math.floorMod(id, totalFatias) == fatia) {
+                        processador.processar(ler(end));
+                    }
+                    pos += tam;
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // --- CICLO DE VIDA E ESTATÍSTICAS ---
+
+    /**
+     * Descarta as referências aos blocos de memória direta, que ficam para o coletor de lixo. O
+     * DAO de referência não é afetado.
+     */
+    @Override
+    public void close() {
+        trava.writeLock().lock();
+        try {
+            fechado = true;
+            blocos.clear();
+            enderecos.limpar();
+            usados = 0;
+            lixo = 0;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return O total de memória direta reservada pelos blocos, em bytes.
+     */
+    public long getBytesReservados() {
+        trava.readLock().lock();
+        try {
+            long total = 0;
+            for (ByteBuffer b : blocos) total += b.capacity();
+            return total;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return O número de registros vivos.
+     */
+    public int getQuantidade() {
+        trava.readLock().lock();
+        try {
+            return enderecos.tamanho();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // --- FORMATO DOS REGISTROS ---
+    // [int tamanho][int id][byte tipo][long tamanhoBytes][long duracao]
+    // [texto categoria][texto titulo][texto local][texto específico]
+    // texto = [int comprimento em bytes, -1 para null][bytes UTF-8]
+
+    private void gravar(Midia m) {
+        byte[][] textos = {
+                utf8(m.getCategoria()), utf8(m.getTitulo()), utf8(m.getLocal()), utf8(especifico(m))};
+        int tam = 4 + 4 + 1 + 8 + 8;
+        for (byte[] t : textos) tam += 4 + (t == null ? 0 : t.length);
+
+        trava.writeLock().lock();
+        try {
+            verificarAberto();
+            long end = reservar(tam);
+            ByteBuffer bloco = blocos.get((int) (end >>> 32));
+            int pos = (int) end;
+            bloco.putInt(pos, tam);
+            bloco.putInt(pos + 4, m.getId());
+            bloco.put(pos + 8, (byte) TiposMidia.codigo(m.getTipo()));
+            bloco.putLong(pos + 9, m.getTamanhoBytes());
+            bloco.putLong(pos + 17, m.getDuracao());
+            pos += 25;
+            for (byte[] t : textos) {
+                bloco.putInt(pos, t == null ? -1 : t.length);
+                pos += 4;
+                if (t != null) {
+                    bloco.put(pos, t);
+                    pos += t.length;
+                }
+            }
+            long anterior = enderecos.obter(m.getId(), -1);
+            if (anterior >= 0) lixo += tamanhoRegistro(anterior);
+            enderecos.colocar(m.getId(), end);
+            usados += tam;
+            if (lixo > 0 && lixo * 2 > usados) compactar();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // chamado com a trava de leitura (ou escrita)
+    private Midia ler(long end) {
+        ByteBuffer bloco = blocos.get((int) (end >>> 32));
+        int pos = (int) end;
+        int id = bloco.getInt(pos + 4);
+        byte tipo = bloco.get(pos + 8);
+        long tamanho = bloco.getLong(pos + 9);
+        long duracao = bloco.getLong(pos + 17);
+        pos += 25;
+        String[] textos = new String[4];
+        for (int i = 0; i < textos.length; i++) {
+            int len = bloco.getInt(pos);
+            pos += 4;
+            if (len >= 0) {
+                byte[] b = new byte[len];
+                bloco.get(pos, b);
+                textos[i] = new String(b, StandardCharsets.UTF_8);
+                pos += len;
+            }
+        }
+        switch (tipo) {
+            case 0: return new Musica(id, textos[2], tamanho, textos[1], duracao, textos[0], textos[3]);
+            case 1: return new Filme(id, textos[2], tamanho, textos[1], duracao, textos[0], textos[3]);
+            default: return new Livro(id, textos[2], tamanho, textos[1], duracao, textos[0], textos[3]);
+        }
+    }
+
+    // chamado com a trava de escrita; devolve o endereço (bloco << 32 | posição) reservado
+    private long reservar(int tam) {
+        if (!blocos.isEmpty()) {
+            int b = blocos.size() - 1;
+            ByteBuffer ultimo = blocos.get(b);
+            int livre = ultimo.position();
+            // o registro precisa caber e deixar espaço para o marcador de fim (tamanho 0)
+            if (livre + tam + 4 <= ultimo.capacity()) {
+                ultimo.position(livre + tam);
+                return endereco(b, livre);
+            }
+        }
+        ByteBuffer novo = ByteBuffer.allocateDirect(Math.max(tamanhoBloco, tam + 4));
+        novo.position(tam);
+        blocos.add(novo);
+        return endereco(blocos.size() - 1, 0);
+    }
+
+    // copia os registros vivos para blocos novos e descarta os antigos
+    private void compactar() {
+        List<ByteBuffer> antigos = new ArrayList<>(blocos);
+        MapaIntLong novos = new MapaIntLong(enderecos.tamanho());
+        blocos.clear();
+        usados = 0;
+        lixo = 0;
+        for (int b = 0; b < antigos.size(); b++) {
+            ByteBuffer bloco = antigos.get(b);
+            int pos = 0;
+            while (pos + 4 <= bloco.capacity()) {
+                int tam = bloco.getInt(pos);
+                if (tam == 0) break;
+                int id = bloco.getInt(pos + 4);
+                if (enderecos.obter(id, -1) == endereco(b, pos)) {
+                    long novo = reservar(tam);
+                    blocos.get((int) (novo >>> 32)).put((int) novo, bloco, pos, tam);
+                    novos.colocar(id, novo);
+                    usados += tam;
+                }
+                pos += tam;
+            }
+        }
+        enderecos = novos;
+    }
+
+    private int tamanhoRegistro(long end) {
+        return blocos.get((int) (end >>> 32)).getInt((int) end);
+    }
+
+    private static long endereco(int bloco, int pos) {
+        return ((long) bloco << 32) | pos;
+    }
+
+    private void verificarAberto() {
+        if (fechado) throw new IllegalStateException("O catálogo fora do heap já foi liberado");
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String especifico(Midia m) {
+        if (m instanceof Musica) return ((Musica) m).getArtista();
+        if (m instanceof Filme) return ((Filme) m).getIdiomaAudio();
+        if (m instanceof Livro) return ((Livro) m).getAutores();
+        return null;
+    }
+}
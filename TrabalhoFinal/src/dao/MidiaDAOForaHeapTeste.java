@@ -0,0 +1,63 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import model.*;
+
+class MidiaDAOForaHeapTeste {
+	private FileMidiaDAO base;
+    private MidiaDAOForaHeap dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        base = new FileMidiaDAO(Files.createTempDirectory("foraheap"));
+        base.salvar(new Livro(1, "c:/a.pdf", 100, "A", 10, "Drama", "Autor"));
+        // blocos pequenos para exercitar a troca de bloco e a compactação
+        dao = new MidiaDAOForaHeap(base, 256);
+    }
+
+    @AfterEach
+    void fechar() {
+        dao.close();
+    }
+
+    @Test
+    void testCarregaDoArmazenamento() throws Exception {
+        Livro l = (Livro) dao.buscarPorId(1).get();
+        assertEquals("Autor", l.getAutores());
+        assertEquals(10, l.getDuracao());
+    }
+
+    @Test
+    void testEscritasChegamAoArmazenamento() throws Exception {
+        dao.salvar(new Filme(2, "c:/f.mp4", 1000, "Filme", 90, "Ação", "PT"));
+        assertTrue(base.buscarPorId(2).isPresent());
+        assertEquals("PT", ((Filme) dao.buscarPorId(2).get()).getIdiomaAudio());
+
+        assertTrue(dao.deletar(2));
+        assertFalse(dao.buscarPorId(2).isPresent());
+        assertFalse(base.buscarPorId(2).isPresent());
+    }
+
+    @Test
+    void testAtualizacoesRepetidasCompactam() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            dao.atualizar(new Musica(3, "c:/m.mp3", i, "Musica " + i, i, "Rock", null));
+        }
+        assertEquals(2, dao.getQuantidade());
+        assertEquals("Musica 199", dao.buscarPorId(3).get().getTitulo());
+        assertNull(((Musica) dao.buscarPorId(3).get()).getArtista());
+        assertTrue(dao.getBytesReservados() < 200 * 64);
+        assertEquals(2, dao.listarTodos().size());
+    }
+
+    @Test
+    void testFechadoNaoAtendeLeituras() {
+        dao.close();
+        assertThrows(IllegalStateException.class, () -> dao.buscarPorId(1));
+    }
+}
@@ -0,0 +1,273 @@
+package dao;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import model.*;
+
+/**
+ * **DAO com Leituras Isoladas por Instantâneo (MVCC).**
+ *
+ * <p>Decorador de um {@link MidiaDAO} (o armazenamento de referência, normalmente um
+ * {@link FileMidiaDAO}) que mantém em memória versões <b>imutáveis</b> do catálogo. Cada leitura
+ * usa a versão publicada no momento em que começou: uma listagem longa, uma exportação ou a
+ * construção de um índice enxerga um estado consistente do início ao fim, sem travas e sem
+ * nunca ver uma escrita pela metade.</p>
+ *
+ * <p><b>Escrita:</b> a alteração vai primeiro para o DAO de referência; depois é montada uma nova
+ * versão e publicada de forma atômica ({@link AtomicReference#compareAndSet}). A versão é dividida
+ * em {@value #SEGMENTOS} segmentos: só o segmento do ID alterado é copiado, os demais são
+ * compartilhados com a versão anterior. Escritas no mesmo ID são serializadas por
+ * {@link TravasPorId}; IDs diferentes só disputam a publicação.</p>
+ *
+ * <p>As mídias guardadas nas versões são cópias ({@link Midia#copia()}) e cada leitura devolve
+ * uma nova cópia, de modo que alterar um objeto lido não afeta nenhuma versão.</p>
+ *
+ * <p><b>Custo:</b> o catálogo inteiro fica no heap, e cada escrita copia o segmento do ID (cerca
+ * de {@code N / }{@value #SEGMENTOS} entradas); um lote copia cada segmento que toca uma única
+ * vez. Serve a servidores e réplicas, em que leituras longas concorrem com escritas; na interface
+ * gráfica é opcional.</p>
+ *
+ * @see Instantaneo
+ */
+public class MidiaDAOInstantaneo implements MidiaDAO {
+    private static final int SEGMENTOS = 64;
+
+    private final MidiaDAO base;
+    private final AtomicReference<Instantaneo> atual;
+    private final TravasPorId travas = new TravasPorId();
+
+    /**
+     * **Versão imutável do catálogo.**
+     *
+     * <p>Obtida por {@link MidiaDAOInstantaneo#instantaneo()}; continua válida e inalterada
+     * mesmo depois de novas escritas.</p>
+     */
+    public static final class Instantaneo {
+        private final Map<Integer, Midia>[] segmentos;
+        private final long versao;
+        private final int tamanho;
+
+        private Instantaneo(Map<Integer, Midia>[] segmentos, long versao, int tamanho) {
+            this.segmentos = segmentos;
+            this.versao = versao;
+            this.tamanho = tamanho;
+        }
+
+        /**
+         * @return O número da versão (cresce a cada escrita publicada).
+         */
+        public long getVersao() {
+            return versao;
+        }
+
+        /**
+         * @return O número de mídias nesta versão.
+         */
+        public int tamanho() {
+            return tamanho;
+        }
+
+        /**
+         * Busca uma mídia nesta versão.
+         *
+         * @param id O ID da mídia.
+         * @return Uma cópia da mídia, ou vazio se ela não existir nesta versão.
+         */
+        public Optional<Midia> buscarPorId(int id) {
+            Midia m = segmentos[segmento(id)].get(id);
+            return m == null ? Optional.empty() : Optional.of(m.copia());
+        }
+
+        /**
+         * Percorre as mídias desta versão cujo ID pertence à fatia informada.
+         *
+         * @param fatia O índice da fatia, de {@code 0} a {@code totalFatias - 1}.
+         * @param totalFatias O número total de fatias.
+         * @param processador O {@link ProcessadorMidia} chamado para cada mídia (com uma cópia).
+         * @throws Exception Se o processador lançar uma exceção.
+         */
+        public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+            for (Map<Integer, Midia> seg : segmentos) {
+                for (Midia m : seg.values()) {
+                    if (totalFatias > 1 && Math.floorMod(m.getId(), totalFatias) != fatia) continue;
+                    processador.processar(m.copia());
+                }
+            }
+        }
+
+        /**
+         * @return Uma lista com cópias de todas as mídias desta versão.
+         */
+        public List<Midia> listarTodos() {
+            List<Midia> lista = new ArrayList<>(tamanho);
+            for (Map<Integer, Midia> seg : segmentos) {
+                for (Midia m : seg.values()) lista.add(m.copia());
+            }
+            return lista;
+        }
+    }
+
+    /**
+     * Cria o DAO e carrega a primeira versão a partir do DAO de referência.
+     *
+     * @param base O DAO de referência, onde as escritas são persistidas.
+     * @throws Exception Se ocorrer um erro na leitura do DAO de referência.
+     */
+    @SuppressWarnings("unchecked")
+    public MidiaDAOInstantaneo(MidiaDAO base) throws Exception {
+        this.base = base;
+        Map<Integer, Midia>[] segs = (Map<Integer, Midia>[]) new Map<?, ?>[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) segs[i] = new HashMap<>();
+        int[] total = {0};
+        base.percorrer(m -> {
+            if (segs[segmento(m.getId())].put(m.getId(), m.copia()) == null) total[0]++;
+        });
+        for (int i = 0; i < SEGMENTOS; i++) segs[i] = Collections.unmodifiableMap(segs[i]);
+        this.atual = new AtomicReference<>(new Instantaneo(segs, 0, total[0]));
+    }
+
+    /**
+     * Retorna a versão publicada mais recente. Várias leituras sobre o mesmo instantâneo
+     * enxergam exatamente o mesmo estado.
+     *
+     * @return O {@link Instantaneo} atual.
+     */
+    public Instantaneo instantaneo() {
+        return atual.get();
+    }
+
+    // --- ESCRITA ---
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            base.salvar(m);
+            publicar(Collections.singletonList(m.copia()), Collections.emptyList());
+            return null;
+        });
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            base.atualizar(m);
+            publicar(Collections.singletonList(m.copia()), Collections.emptyList());
+            return null;
+        });
+    }
+
+    /**
+     * Salva o lote no DAO de referência e publica todas as mídias numa única versão.
+     * <p>Com as travas de todos os IDs, como as escritas individuais.</p>
+     */
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        travas.executarTodos(TravasPorId.ids(lote, Collections.emptyList()), () -> {
+            base.salvarLote(lote);
+            List<Midia> copias = new ArrayList<>(lote.size());
+            for (Midia m : lote) copias.add(m.copia());
+            publicar(copias, Collections.emptyList());
+            return null;
+        });
+    }
+
+    /**
+     * Aplica o conjunto no DAO de referência e o publica numa única versão: nenhum leitor vê
+     * só uma parte dele.
+     */
+    @Override
+    public void aplicarLote(List<Midia> salvas, Collection<Integer> removidos) throws Exception {
+        travas.executarTodos(TravasPorId.ids(salvas, removidos), () -> {
+            base.aplicarLote(salvas, removidos);
+            List<Midia> copias = new ArrayList<>(salvas.size());
+            for (Midia m : salvas) copias.add(m.copia());
+            publicar(copias, removidos);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deletar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            boolean removido = base.deletar(id);
+            publicar(Collections.emptyList(), Collections.singletonList(id));
+            return removido;
+        });
+    }
+
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            Optional<Midia> opt = base.recarregar(id);
+            if (opt.isPresent()) {
+                publicar(Collections.singletonList(opt.get().copia()), Collections.emptyList());
+            } else {
+                publicar(Collections.emptyList(), Collections.singletonList(id));
+            }
+            return opt;
+        });
+    }
+
+    @Override
+    public void sincronizar() throws Exception {
+        base.sincronizar();
+    }
+
+    // --- LEITURA (sempre sobre a versão atual) ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        return atual.get().buscarPorId(id);
+    }
+
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        return atual.get().listarTodos();
+    }
+
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        atual.get().percorrer(fatia, totalFatias, processador);
+    }
+
+    // --- VERSÕES ---
+
+    // monta a versão seguinte copiando só os segmentos afetados e tenta publicá-la
+    private void publicar(List<Midia> salvas, Collection<Integer> removidos) {
+        while (true) {
+            Instantaneo anterior = atual.get();
+            Map<Integer, Midia>[] segs = anterior.segmentos.clone();
+            boolean[] copiado = new boolean[SEGMENTOS];
+            int tamanho = anterior.tamanho;
+            for (Midia m : salvas) {
+                int s = segmento(m.getId());
+                Map<Integer, Midia> seg = mutavel(segs, copiado, s);
+                if (seg.put(m.getId(), m) == null) tamanho++;
+            }
+            for (Integer removido : removidos) {
+                int s = segmento(removido);
+                if (segs[s].containsKey(removido)) {
+                    mutavel(segs, copiado, s).remove(removido);
+                    tamanho--;
+                }
+            }
+            for (int s = 0; s < SEGMENTOS; s++) {
+                if (copiado[s]) segs[s] = Collections.unmodifiableMap(segs[s]);
+            }
+            if (atual.compareAndSet(anterior, new Instantaneo(segs, anterior.versao + 1, tamanho))) return;
+        }
+    }
+
+    private static Map<Integer, Midia> mutavel(Map<Integer, Midia>[] segs, boolean[] copiado, int s) {
+        if (!copiado[s]) {
+            segs[s] = new HashMap<>(segs[s]);
+            copiado[s] = true;
+        }
+        return segs[s];
+    }
+
+    private static int segmento(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (SEGMENTOS - 1);
+    }
+}
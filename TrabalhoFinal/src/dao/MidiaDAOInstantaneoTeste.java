@@ -0,0 +1,77 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.*;
+import model.*;
+
+class MidiaDAOInstantaneoTeste {
+    private FileMidiaDAO base;
+    private MidiaDAOInstantaneo dao;
+
+    @BeforeEach
+    void setup() throws Exception {
+        base = new FileMidiaDAO(Files.createTempDirectory("inst"));
+        base.salvar(new Musica("c:/a.mp3", 10, "A", 100, "Pop", "X"));
+        dao = new MidiaDAOInstantaneo(base);
+    }
+
+    @Test
+    void testInstantaneoNaoVeEscritasPosteriores() throws Exception {
+        MidiaDAOInstantaneo.Instantaneo antes = dao.instantaneo();
+        Livro l = new Livro("c:/b.pdf", 20, "B", 30, "Drama", "Y");
+        dao.salvar(l);
+
+        assertEquals(1, antes.tamanho());
+        assertFalse(antes.buscarPorId(l.getId()).isPresent());
+        assertEquals(2, dao.instantaneo().tamanho());
+        assertTrue(dao.instantaneo().getVersao() > antes.getVersao());
+        // a escrita também chegou ao armazenamento de referência
+        assertTrue(base.buscarPorId(l.getId()).isPresent());
+
+        dao.deletar(l.getId());
+        assertEquals(1, dao.listarTodos().size());
+        assertFalse(base.buscarPorId(l.getId()).isPresent());
+    }
+
+    @Test
+    void testObjetosLidosNaoAlteramVersoes() throws Exception {
+        Midia lida = dao.listarTodos().get(0);
+        lida.setTitulo("Alterado sem salvar");
+
+        assertEquals("A", dao.buscarPorId(lida.getId()).get().getTitulo());
+    }
+
+    @Test
+    void testListagemConcorrenteComEscritas() throws Exception {
+        for (int i = 0; i < 50; i++) dao.salvar(new Filme("c:/f" + i + ".mp4", i, "F" + i, 90, "Ação", "EN"));
+        List<Midia> filmes = dao.listarTodos();
+        AtomicBoolean parar = new AtomicBoolean(false);
+        Thread escritor = Thread.startVirtualThread(() -> {
+            try {
+                for (int v = 0; !parar.get(); v++) {
+                    for (Midia m : filmes) {
+                        m.setTamanhoBytes(v);
+                        dao.atualizar(m);
+                    }
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        try {
+            for (int i = 0; i < 50; i++) {
+                // nenhuma leitura perde registros, mesmo com as regravações em andamento
+                assertEquals(51, dao.listarTodos().size());
+                assertEquals(51, base.listarTodos().size());
+            }
+        } finally {
+            parar.set(true);
+            escritor.join();
+        }
+    }
+}
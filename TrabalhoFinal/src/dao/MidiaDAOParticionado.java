@@ -0,0 +1,474 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **DAO Particionado entre Vários Diretórios (Discos).**
+ *
+ * <p>Distribui os registros entre várias <b>raízes</b> de armazenamento, cada uma com o seu
+ * próprio {@link FileMidiaDAO}, para que o catálogo possa ocupar vários discos. A partição de
+ * cada registro é escolhida por <i>rendezvous hashing</i> (maior pontuação entre as raízes) sobre
+ * o <b>ID</b> ou sobre o <b>tipo</b> ({@link Chave}). Cada raiz recebe um identificador
+ * aleatório, gravado em {@value #ARQUIVO_ID}, que entra na pontuação: a escolha não depende da
+ * ordem nem do caminho das raízes.</p>
+ *
+ * <ul>
+ * <li><b>Operações pontuais</b> vão a uma única partição. Com {@link Chave#ID} ela é calculada
+ * pelo ID; com {@link Chave#TIPO}, que não é conhecido numa busca por ID, um diretório em memória
+ * (ID → partição) é montado na abertura.</li>
+ * <li><b>Listagens</b> ({@link #listarTodos()}, {@link #listarOrdenado(Predicate, Comparator)})
+ * leem as partições em paralelo; resultados ordenados são ordenados em cada partição e juntados
+ * por uma intercalação de {@code k} vias.</li>
+ * <li><b>Redistribuição:</b> ao adicionar uma raiz ({@link #adicionarRaiz(Path)}), só os
+ * registros que passam a pertencer a ela são movidos (cerca de {@code 1/(n+1)} do total). Cada
+ * registro é copiado e depois apagado da origem, com a trava do ID. Enquanto isso, uma busca que
+ * não acha o ID na partição certa procura nas outras, e as escritas apagam cópias antigas; uma
+ * redistribuição interrompida é detectada na abertura ({@link #isRedistribuicaoPendente()}) e
+ * pode ser retomada com {@link #redistribuir()}.</li>
+ * </ul>
+ *
+ * <p>Listagens feitas durante uma redistribuição não são instantâneos: um registro em trânsito
+ * pode faltar ou aparecer duas vezes.</p>
+ *
+ * @see FileMidiaDAO
+ */
+public class MidiaDAOParticionado implements MidiaDAO {
+    /** Arquivo, em cada raiz, com o identificador da partição. */
+    public static final String ARQUIVO_ID = "particao.id";
+    // presente (na primeira raiz) enquanto uma redistribuição não termina
+    private static final String MARCADOR_REDISTRIBUICAO = "redistribuicao.pendente";
+
+    /**
+     * **Critério de distribuição dos registros.**
+     */
+    public enum Chave {
+        /** Espalha os registros pelo ID (partições de tamanhos parecidos). */
+        ID,
+        /** Mantém cada tipo de mídia numa mesma partição (ex.: filmes num disco maior). */
+        TIPO
+    }
+
+    private final Chave chave;
+    // copiada a cada raiz adicionada; as partições só são acrescentadas, nunca reordenadas
+    private volatile List<FileMidiaDAO> particoes;
+    private volatile long[] sementes;
+    // só com Chave.TIPO: ID -> índice da partição
+    private final MapaIntLong diretorio = new MapaIntLong();
+    private final TravasPorId travas = new TravasPorId();
+    private volatile boolean redistribuindo;
+
+    /**
+     * Abre (ou cria) as partições.
+     *
+     * @param raizes Os diretórios de armazenamento, um por partição.
+     * @param chave O critério de distribuição.
+     * @throws IllegalArgumentException Se não houver nenhuma raiz.
+     * @throws Exception Se uma raiz não puder ser aberta ou lida.
+     */
+    public MidiaDAOParticionado(List<Path> raizes, Chave chave) throws Exception {
+        if (raizes.isEmpty()) throw new IllegalArgumentException("Nenhuma raiz de armazenamento");
+        this.chave = chave;
+        List<FileMidiaDAO> ps = new ArrayList<>();
+        long[] s = new long[raizes.size()];
+        int novas = 0;
+        for (int i = 0; i < raizes.size(); i++) {
+            if (!Files.exists(raizes.get(i).resolve(ARQUIVO_ID))) novas++;
+            ps.add(new FileMidiaDAO(raizes.get(i)));
+            s[i] = semente(raizes.get(i));
+        }
+        this.particoes = ps;
+        this.sementes = s;
+        // uma raiz nova ao lado de raízes já usadas, ou uma redistribuição que não terminou
+        this.redistribuindo = Files.exists(raizes.get(0).resolve(MARCADOR_REDISTRIBUICAO))
+                || (novas > 0 && novas < raizes.size());
+        if (chave == Chave.TIPO) carregarDiretorio();
+    }
+
+    private static long semente(Path raiz) throws IOException {
+        Path arq = raiz.resolve(ARQUIVO_ID);
+        if (Files.exists(arq)) return Long.parseLong(new String(Files.readAllBytes(arq), StandardCharsets.UTF_8).trim());
+        long s = new Random().nextLong();
+        Files.write(arq, String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        return s;
+    }
+
+    private void carregarDiretorio() throws Exception {
+        List<FileMidiaDAO> ps = particoes;
+        List<int[]> ids = emParalelo(ps.size(), i -> {
+            IntLista l = new IntLista();
+            ps.get(i).percorrer(m -> l.add(m.getId()));
+            return l.toArray();
+        });
+        for (int i = 0; i < ids.size(); i++) {
+            for (int id : ids.get(i)) diretorio.colocar(id, i);
+        }
+    }
+
+    // --- DISTRIBUIÇÃO ---
+
+    /**
+     * @return O critério de distribuição.
+     */
+    public Chave getChave() {
+        return chave;
+    }
+
+    /**
+     * @return Os DAOs das partições, na ordem das raízes.
+     */
+    public List<FileMidiaDAO> getParticoes() {
+        return Collections.unmodifiableList(particoes);
+    }
+
+    /**
+     * @return {@code true} se há registros que podem estar fora da sua partição (raiz nova ou
+     * redistribuição interrompida) até que {@link #redistribuir()} termine.
+     */
+    public boolean isRedistribuicaoPendente() {
+        return redistribuindo;
+    }
+
+    /**
+     * Calcula a partição de uma mídia.
+     *
+     * @param m A mídia.
+     * @return O índice da partição (na ordem das raízes).
+     */
+    public int particao(Midia m) {
+        return chave == Chave.ID ? particaoDaChave(m.getId()) : particaoDaChave(m.getTipo().hashCode());
+    }
+
+    private int particaoDaChave(long k) {
+        long[] s = sementes;
+        int melhor = 0;
+        long maior = Long.MIN_VALUE;
+        for (int i = 0; i < s.length; i++) {
+            long p = misturar(k ^ s[i]);
+            if (p > maior) {
+                maior = p;
+                melhor = i;
+            }
+        }
+        return melhor;
+    }
+
+    // partição onde o ID deveria estar, ou -1 se não é possível saber sem a mídia
+    private int particaoDoId(int id) {
+        if (chave == Chave.ID) return particaoDaChave(id);
+        synchronized (diretorio) {
+            return (int) diretorio.obter(id, -1);
+        }
+    }
+
+    /**
+     * Acrescenta uma raiz e move para ela os registros que passam a lhe pertencer.
+     *
+     * @param raiz O novo diretório de armazenamento.
+     * @return O número de registros movidos.
+     * @throws Exception Se ocorrer um erro de leitura ou escrita.
+     */
+    public synchronized int adicionarRaiz(Path raiz) throws Exception {
+        FileMidiaDAO nova = new FileMidiaDAO(raiz);
+        long s = semente(raiz);
+        redistribuindo = true;
+        Files.write(particoes.get(0).getStorageDir().resolve(MARCADOR_REDISTRIBUICAO), new byte[0]);
+        List<FileMidiaDAO> ps = new ArrayList<>(particoes);
+        ps.add(nova);
+        long[] novas = Arrays.copyOf(sementes, sementes.length + 1);
+        novas[novas.length - 1] = s;
+        // as duas referências mudam juntas para quem roteia com a trava do ID
+        particoes = ps;
+        sementes = novas;
+        return redistribuir();
+    }
+
+    /**
+     * Move cada registro que estiver fora da sua partição (também remove cópias duplicadas
+     * deixadas por uma redistribuição interrompida).
+     *
+     * @return O número de registros movidos.
+     * @throws Exception Se ocorrer um erro de leitura ou escrita.
+     */
+    public synchronized int redistribuir() throws Exception {
+        redistribuindo = true;
+        Path marcador = particoes.get(0).getStorageDir().resolve(MARCADOR_REDISTRIBUICAO);
+        Files.write(marcador, new byte[0]);
+        List<FileMidiaDAO> ps = particoes;
+        int movidos = 0;
+        for (int i = 0; i < ps.size(); i++) {
+            FileMidiaDAO origem = ps.get(i);
+            final int atual = i;
+            IntLista foraDoLugar = new IntLista();
+            origem.percorrer(m -> {
+                if (particao(m) != atual) foraDoLugar.add(m.getId());
+            });
+            for (int id : foraDoLugar.toArray()) {
+                boolean movido = travas.executar(id, () -> {
+                    Optional<Midia> m = origem.buscarPorId(id);
+                    if (!m.isPresent()) return false;
+                    int destino = particao(m.get());
+                    if (destino == atual) return false;
+                    // uma cópia que já está no destino foi gravada depois: é a mais nova
+                    if (!ps.get(destino).buscarPorId(id).isPresent()) ps.get(destino).salvar(m.get());
+                    origem.deletar(id);
+                    if (chave == Chave.TIPO) {
+                        synchronized (diretorio) {
+                            diretorio.colocar(id, destino);
+                        }
+                    }
+                    return true;
+                });
+                if (movido) movidos++;
+            }
+        }
+        Files.deleteIfExists(marcador);
+        redistribuindo = false;
+        return movidos;
+    }
+
+    // --- ESCRITA ---
+
+    @Override
+    public void salvar(Midia m) throws Exception {
+        travas.executar(m.getId(), () -> {
+            List<FileMidiaDAO> ps = particoes;
+            int destino = particao(m);
+            ps.get(destino).salvar(m);
+            apagarOutrasCopias(ps, m.getId(), destino);
+            return null;
+        });
+    }
+
+    // chamado com a trava do ID
+    private void apagarOutrasCopias(List<FileMidiaDAO> ps, int id, int destino) throws Exception {
+        if (chave == Chave.TIPO) {
+            int anterior;
+            synchronized (diretorio) {
+                anterior = (int) diretorio.obter(id, -1);
+                diretorio.colocar(id, destino);
+            }
+            // o tipo mudou: a versão antiga ficou em outra partição
+            if (anterior >= 0 && anterior != destino) ps.get(anterior).deletar(id);
+        }
+        if (redistribuindo) {
+            for (int i = 0; i < ps.size(); i++) {
+                if (i != destino) ps.get(i).deletar(id);
+            }
+        }
+    }
+
+    @Override
+    public void atualizar(Midia m) throws Exception {
+        salvar(m);
+    }
+
+    /**
+     * Agrupa o lote por partição e grava os grupos em paralelo, com as travas de todos os IDs do
+     * lote durante toda a gravação (inclusive a limpeza das cópias em outras partições).
+     */
+    @Override
+    public void salvarLote(List<Midia> lote) throws Exception {
+        travas.executarTodos(TravasPorId.ids(lote, Collections.emptyList()), () -> {
+            List<FileMidiaDAO> ps = particoes;
+            List<List<Midia>> grupos = new ArrayList<>();
+            for (int i = 0; i < ps.size(); i++) grupos.add(new ArrayList<>());
+            for (Midia m : lote) grupos.get(particao(m)).add(m);
+            emParalelo(ps.size(), i -> {
+                if (!grupos.get(i).isEmpty()) ps.get(i).salvarLote(grupos.get(i));
+                return null;
+            });
+            for (int i = 0; i < ps.size(); i++) {
+                for (Midia m : grupos.get(i)) apagarOutrasCopias(ps, m.getId(), i);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean deletar(int id) throws Exception {
+        return travas.executar(id, () -> {
+            List<FileMidiaDAO> ps = particoes;
+            boolean removido = false;
+            int p = particaoDoId(id);
+            if (p >= 0) removido = ps.get(p).deletar(id);
+            if (chave == Chave.TIPO) {
+                synchronized (diretorio) {
+                    diretorio.remover(id, -1);
+                }
+            }
+            if (redistribuindo) {
+                for (int i = 0; i < ps.size(); i++) {
+                    if (i != p && ps.get(i).deletar(id)) removido = true;
+                }
+            }
+            return removido;
+        });
+    }
+
+    // --- LEITURA ---
+
+    @Override
+    public Optional<Midia> buscarPorId(int id) throws Exception {
+        if (!redistribuindo) {
+            int p = particaoDoId(id);
+            return p < 0 ? Optional.empty() : particoes.get(p).buscarPorId(id);
+        }
+        // com a trava, o registro não muda de partição entre as buscas
+        return travas.executar(id, () -> {
+            List<FileMidiaDAO> ps = particoes;
+            int p = particaoDoId(id);
+            if (p >= 0) {
+                Optional<Midia> m = ps.get(p).buscarPorId(id);
+                if (m.isPresent()) return m;
+            }
+            for (int i = 0; i < ps.size(); i++) {
+                if (i == p) continue;
+                Optional<Midia> m = ps.get(i).buscarPorId(id);
+                if (m.isPresent()) return m;
+            }
+            return Optional.empty();
+        });
+    }
+
+    @Override
+    public Optional<Midia> recarregar(int id) throws Exception {
+        return buscarPorId(id);
+    }
+
+    /**
+     * Sincroniza as partições em paralelo (cada uma costuma estar num disco).
+     */
+    @Override
+    public void sincronizar() throws Exception {
+        emParalelo(particoes.size(), i -> {
+            particoes.get(i).sincronizar();
+            return null;
+        });
+    }
+
+    /**
+     * Lê as partições em paralelo e junta os resultados (na ordem das partições).
+     */
+    @Override
+    public List<Midia> listarTodos() throws Exception {
+        List<FileMidiaDAO> ps = particoes;
+        List<List<Midia>> partes = emParalelo(ps.size(), i -> ps.get(i).listarTodos());
+        return partes.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    /**
+     * Percorre as partições uma após a outra (o processador é chamado por uma thread de cada vez).
+     */
+    @Override
+    public void percorrer(int fatia, int totalFatias, ProcessadorMidia processador) throws Exception {
+        for (FileMidiaDAO p : particoes) p.percorrer(fatia, totalFatias, processador);
+    }
+
+    @Override
+    public void percorrerProjecao(Set<Projecao.Campo> campos, ProcessadorProjecao processador) throws Exception {
+        for (FileMidiaDAO p : particoes) p.percorrerProjecao(campos, processador);
+    }
+
+    /**
+     * Filtra e ordena cada partição em paralelo e junta as listas ordenadas com uma intercalação
+     * de {@code k} vias (um heap com a próxima mídia de cada partição): O(N log k) em vez de
+     * reordenar tudo.
+     */
+    @Override
+    public List<Midia> listarOrdenado(Predicate<Midia> filtro, Comparator<Midia> ordem) throws Exception {
+        List<FileMidiaDAO> ps = particoes;
+        List<List<Midia>> partes = emParalelo(ps.size(), i -> {
+            List<Midia> l = new ArrayList<>();
+            ps.get(i).percorrer(m -> {
+                if (filtro.test(m)) l.add(m);
+            });
+            if (ordem != null) l.sort(ordem);
+            return l;
+        });
+        if (ordem == null) return partes.stream().flatMap(List::stream).collect(Collectors.toList());
+        return intercalar(partes, ordem);
+    }
+
+    /**
+     * Intercala listas já ordenadas. Empates saem na ordem das listas.
+     *
+     * @param listas As listas, cada uma ordenada por {@code ordem}.
+     * @param ordem A ordem.
+     * @return Todas as mídias, em ordem.
+     */
+    static List<Midia> intercalar(List<List<Midia>> listas, Comparator<Midia> ordem) {
+        int total = 0;
+        for (List<Midia> l : listas) total += l.size();
+        List<Midia> res = new ArrayList<>(total);
+        // cursor = (lista, posição)
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, listas.size()), (a, b) -> {
+            int c = ordem.compare(listas.get(a[0]).get(a[1]), listas.get(b[0]).get(b[1]));
+            return c != 0 ? c : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < listas.size(); i++) {
+            if (!listas.get(i).isEmpty()) heap.add(new int[]{i, 0});
+        }
+        while (!heap.isEmpty()) {
+            int[] c = heap.poll();
+            List<Midia> l = listas.get(c[0]);
+            res.add(l.get(c[1]));
+            if (++c[1] < l.size()) heap.add(c);
+        }
+        return res;
+    }
+
+    // --- UTILITÁRIOS ---
+
+    private interface TarefaParticao<T> {
+        T executar(int particao) throws Exception;
+    }
+
+    private static <T> List<T> emParalelo(int n, TarefaParticao<T> tarefa) throws Exception {
+        try {
+            return IntStream.range(0, n).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return tarefa.executar(i);
+                        } catch (Exception ex) {
+                            throw new CompletionException(ex);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } catch (CompletionException ex) {
+            throw (Exception) ex.getCause();
+        }
+    }
+
+    // finalizador do SplitMix64
+    private static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // lista de int sem caixas
+    private static final class IntLista {
+        private int[] v = new int[16];
+        private int n;
+
+        void add(int x) {
+            if (n == v.length) v = Arrays.copyOf(v, n * 2);
+            v[n++] = x;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(v, n);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import model.*;
+
+class MidiaDAOParticionadoTeste {
+    private Path tempDir;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("particoes");
+    }
+
+    private List<Path> raizes(int n) {
+        List<Path> r = new ArrayList<>();
+        for (int i = 0; i < n; i++) r.add(tempDir.resolve("disco" + i));
+        return r;
+    }
+
+    @Test
+    void testDistribuiPorIdERoteiaOperacoesPontuais() throws Exception {
+        MidiaDAOParticionado dao = new MidiaDAOParticionado(raizes(3), MidiaDAOParticionado.Chave.ID);
+        assertFalse(dao.isRedistribuicaoPendente());
+        for (int i = 1; i <= 90; i++) dao.salvar(new Musica(i, "c:/m" + i + ".mp3", i, "M" + i, i, "Rock", "X"));
+
+        for (int p = 0; p < 3; p++) {
+            int n = dao.getParticoes().get(p).listarTodos().size();
+            assertTrue(n > 10, "partição " + p + " com " + n);
+        }
+        Midia m = dao.buscarPorId(42).get();
+        assertTrue(dao.getParticoes().get(dao.particao(m)).buscarPorId(42).isPresent());
+        assertEquals(90, dao.listarTodos().size());
+        assertTrue(dao.deletar(42));
+        assertFalse(dao.buscarPorId(42).isPresent());
+        assertFalse(dao.deletar(42));
+
+        // a distribuição não depende da ordem das raízes
+        List<Path> invertidas = raizes(3);
+        Collections.reverse(invertidas);
+        MidiaDAOParticionado reaberto = new MidiaDAOParticionado(invertidas, MidiaDAOParticionado.Chave.ID);
+        assertEquals("M7", reaberto.buscarPorId(7).get().getTitulo());
+    }
+
+    @Test
+    void testListarOrdenadoIntercalaParticoes() throws Exception {
+        MidiaDAOParticionado dao = new MidiaDAOParticionado(raizes(4), MidiaDAOParticionado.Chave.ID);
+        Random r = new Random(7);
+        for (int i = 1; i <= 200; i++) dao.salvar(new Livro(i, "c:/l" + i + ".pdf", r.nextInt(1000), "L" + i, r.nextInt(500), "Drama", "X"));
+
+        Comparator<Midia> ordem = Comparator.comparingLong(Midia::getDuracao);
+        List<Midia> lista = dao.listarOrdenado(m -> m.getId() % 2 == 0, ordem);
+        assertEquals(100, lista.size());
+        for (int i = 1; i < lista.size(); i++) assertTrue(lista.get(i - 1).getDuracao() <= lista.get(i).getDuracao());
+        assertTrue(lista.stream().allMatch(m -> m.getId() % 2 == 0));
+        assertEquals(200, dao.listarOrdenado(m -> true, null).size());
+
+        List<Midia> a = List.of(new Livro(1, "a", 1, "A", 1, "D", "X"), new Livro(3, "c", 1, "C", 5, "D", "X"));
+        List<Midia> b = List.of(new Livro(2, "b", 1, "B", 1, "D", "X"));
+        List<Midia> junta = MidiaDAOParticionado.intercalar(List.of(a, List.of(), b), ordem);
+        assertEquals(List.of(1, 2, 3), junta.stream().map(Midia::getId).toList());
+    }
+
+    @Test
+    void testAdicionarRaizMoveSoAParteDela() throws Exception {
+        MidiaDAOParticionado dao = new MidiaDAOParticionado(raizes(2), MidiaDAOParticionado.Chave.ID);
+        for (int i = 1; i <= 300; i++) dao.salvar(new Filme(i, "c:/f" + i + ".mp4", i, "F" + i, i, "Ação", "PT"));
+        Map<Integer, Integer> antes = new HashMap<>();
+        for (Midia m : dao.listarTodos()) antes.put(m.getId(), dao.particao(m));
+
+        int movidos = dao.adicionarRaiz(tempDir.resolve("disco2"));
+        assertFalse(dao.isRedistribuicaoPendente());
+        int naNova = dao.getParticoes().get(2).listarTodos().size();
+        assertEquals(naNova, movidos);
+        assertTrue(movidos > 50 && movidos < 150, "movidos: " + movidos);
+        assertEquals(300, dao.listarTodos().size());
+        // quem não foi para a raiz nova ficou onde estava
+        for (Midia m : dao.listarTodos()) {
+            int p = dao.particao(m);
+            assertTrue(p == 2 || p == antes.get(m.getId()));
+            assertTrue(dao.getParticoes().get(p).buscarPorId(m.getId()).isPresent());
+        }
+    }
+
+    @Test
+    void testRaizNovaNaAberturaFicaPendenteEBuscaNasOutras() throws Exception {
+        MidiaDAOParticionado dao = new MidiaDAOParticionado(raizes(1), MidiaDAOParticionado.Chave.ID);
+        for (int i = 1; i <= 40; i++) dao.salvar(new Musica(i, "c:/m" + i + ".mp3", i, "M" + i, i, "Pop", "X"));
+
+        MidiaDAOParticionado ampliado = new MidiaDAOParticionado(raizes(2), MidiaDAOParticionado.Chave.ID);
+        assertTrue(ampliado.isRedistribuicaoPendente());
+        for (int i = 1; i <= 40; i++) assertTrue(ampliado.buscarPorId(i).isPresent());
+        ampliado.salvar(new Musica(5, "c:/m5.mp3", 5, "Novo", 5, "Pop", "X"));
+
+        ampliado.redistribuir();
+        assertFalse(ampliado.isRedistribuicaoPendente());
+        assertEquals(40, ampliado.listarTodos().size());
+        assertEquals("Novo", ampliado.buscarPorId(5).get().getTitulo());
+        assertFalse(new MidiaDAOParticionado(raizes(2), MidiaDAOParticionado.Chave.ID).isRedistribuicaoPendente());
+    }
+
+    @Test
+    void testPorTipoMoveQuandoOTipoMuda() throws Exception {
+        MidiaDAOParticionado dao = new MidiaDAOParticionado(raizes(3), MidiaDAOParticionado.Chave.TIPO);
+        dao.salvar(new Musica(1, "c:/a.mp3", 1, "A", 1, "Pop", "X"));
+        dao.salvar(new Filme(2, "c:/b.mp4", 1, "B", 1, "Ação", "PT"));
+        dao.salvarLote(List.of(new Musica(3, "c:/c.mp3", 1, "C", 1, "Pop", "X"), new Livro(4, "c:/d.pdf", 1, "D", 1, "Drama", "X")));
+
+        Midia musica = dao.buscarPorId(3).get();
+        assertEquals(dao.particao(dao.buscarPorId(1).get()), dao.particao(musica));
+        dao.salvar(new Livro(1, "c:/a.pdf", 1, "A", 1, "Drama", "X"));
+        assertEquals(4, dao.listarTodos().size());
+        assertEquals("LIVRO", dao.buscarPorId(1).get().getTipo());
+
+        MidiaDAOParticionado reaberto = new MidiaDAOParticionado(raizes(3), MidiaDAOParticionado.Chave.TIPO);
+        assertEquals("FILME", reaberto.buscarPorId(2).get().getTipo());
+        assertTrue(reaberto.deletar(4));
+        assertFalse(reaberto.buscarPorId(4).isPresent());
+    }
+}
@@ -0,0 +1,23 @@
+package dao;
+
+import model.Midia;
+
+/**
+ * **Função chamada para cada mídia durante uma leitura incremental do armazenamento.**
+ *
+ * <p>Usada por {@link MidiaDAO#percorrer(ProcessadorMidia)} para processar as mídias
+ * uma a uma, sem carregar o catálogo inteiro em memória.</p>
+ *
+ * @see MidiaDAO
+ */
+@FunctionalInterface
+public interface ProcessadorMidia {
+
+    /**
+     * Processa uma mídia lida do armazenamento.
+     *
+     * @param m A mídia lida.
+     * @throws Exception Se o processamento falhar; a leitura é interrompida.
+     */
+    void processar(Midia m) throws Exception;
+}
@@ -0,0 +1,23 @@
+package dao;
+
+import model.Projecao;
+
+/**
+ * **Função chamada para cada projeção durante uma leitura incremental do armazenamento.**
+ *
+ * <p>Usada por {@link MidiaDAO#percorrerProjecao(java.util.Set, ProcessadorProjecao)}, que lê só
+ * os campos pedidos de cada mídia.</p>
+ *
+ * @see MidiaDAO
+ */
+@FunctionalInterface
+public interface ProcessadorProjecao {
+
+    /**
+     * Processa uma projeção lida do armazenamento.
+     *
+     * @param p A projeção lida.
+     * @throws Exception Se o processamento falhar; a leitura é interrompida.
+     */
+    void processar(Projecao p) throws Exception;
+}
@@ -0,0 +1,131 @@
+package dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import model.Midia;
+
+/**
+ * **Travas listradas por ID de mídia.**
+ *
+ * <p>Um conjunto fixo de {@link ReentrantLock}s ("listras"); cada ID é associado sempre à mesma
+ * listra. Operações de leitura-modificação-escrita sobre um mesmo ID ficam serializadas, enquanto
+ * IDs em listras diferentes seguem em paralelo, sem o gargalo de uma trava global.</p>
+ *
+ * <p>Dois IDs podem cair na mesma listra; por isso uma seção protegida <b>nunca</b> deve tentar
+ * obter a trava de outro ID (risco de deadlock); para vários IDs de uma vez existe
+ * {@link #executarTodos(Collection, Secao)}, que obtém as listras sempre na mesma ordem. As
+ * travas são reentrantes: a mesma thread pode travar o mesmo ID mais de uma vez.</p>
+ */
+public final class TravasPorId {
+
+    /**
+     * Seção executada com a trava de um ID.
+     *
+     * @param <T> O tipo do resultado.
+     */
+    @FunctionalInterface
+    public interface Secao<T> {
+        T executar() throws Exception;
+    }
+
+    private final ReentrantLock[] listras;
+
+    /**
+     * Cria o conjunto com 256 listras.
+     */
+    public TravasPorId() {
+        this(256);
+    }
+
+    /**
+     * Cria o conjunto de travas.
+     *
+     * @param listras O número de listras (arredondado para a próxima potência de 2).
+     */
+    public TravasPorId(int listras) {
+        int n = Integer.highestOneBit(Math.max(1, listras - 1)) << 1;
+        this.listras = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) this.listras[i] = new ReentrantLock();
+    }
+
+    /**
+     * Retorna a trava associada ao ID.
+     *
+     * @param id O ID da mídia.
+     * @return A {@link ReentrantLock} da listra do ID.
+     */
+    public ReentrantLock trava(int id) {
+        return listras[listra(id)];
+    }
+
+    private int listra(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (listras.length - 1);
+    }
+
+    /**
+     * Executa a seção com a trava do ID, liberando-a ao final (mesmo em caso de exceção).
+     *
+     * @param <T> O tipo do resultado.
+     * @param id O ID da mídia.
+     * @param secao A seção a executar.
+     * @return O resultado da seção.
+     * @throws Exception A exceção lançada pela seção.
+     */
+    public <T> T executar(int id, Secao<T> secao) throws Exception {
+        ReentrantLock t = trava(id);
+        t.lock();
+        try {
+            return secao.executar();
+        } finally {
+            t.unlock();
+        }
+    }
+
+    /**
+     * Executa a seção com as travas de todos os IDs. As listras são obtidas em ordem crescente
+     * de índice, de modo que duas chamadas simultâneas não travam uma à outra.
+     * <p>A seção não deve obter a trava de nenhum outro ID.</p>
+     *
+     * @param <T> O tipo do resultado.
+     * @param ids Os IDs das mídias.
+     * @param secao A seção a executar.
+     * @return O resultado da seção.
+     * @throws Exception A exceção lançada pela seção.
+     */
+    public <T> T executarTodos(Collection<Integer> ids, Secao<T> secao) throws Exception {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (int id : ids) indices.add(listra(id));
+        int obtidas = 0;
+        try {
+            for (int i : indices) {
+                listras[i].lock();
+                obtidas++;
+            }
+            return secao.executar();
+        } finally {
+            for (int i : indices) {
+                if (obtidas-- == 0) break;
+                listras[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Reúne os IDs de um conjunto de escritas, para {@link #executarTodos(Collection, Secao)}.
+     *
+     * @param salvas As mídias gravadas.
+     * @param removidos Os IDs removidos.
+     * @return Os IDs das mídias seguidos dos removidos (pode ter repetições).
+     */
+    public static List<Integer> ids(Collection<? extends Midia> salvas, Collection<Integer> removidos) {
+        List<Integer> ids = new ArrayList<>(salvas.size() + removidos.size());
+        for (Midia m : salvas) ids.add(m.getId());
+        ids.addAll(removidos);
+        return ids;
+    }
+}
@@ -0,0 +1,93 @@
+package dao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+
+class TravasPorIdTeste {
+
+    @Test
+    void testMesmoIdSerializado() throws Exception {
+        TravasPorId travas = new TravasPorId(16);
+        int[] contador = {0};
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch fim = new CountDownLatch(8);
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    try {
+                        for (int i = 0; i < 10_000; i++) {
+                            travas.executar(42, () -> contador[0]++);
+                        }
+                    } catch (Exception ex) {
+                        throw new RuntimeException(ex);
+                    } finally {
+                        fim.countDown();
+                    }
+                });
+            }
+            assertTrue(fim.await(30, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(80_000, contador[0]);
+    }
+
+    @Test
+    void testIdsDeListrasDiferentesNaoEsperam() throws Exception {
+        TravasPorId travas = new TravasPorId(64);
+        int outro = 1;
+        while (travas.trava(outro) == travas.trava(0)) outro++;
+        final int id = outro;
+
+        travas.trava(0).lock();
+        try {
+            // outra thread consegue a trava de um ID em outra listra enquanto a do ID 0 está ocupada
+            CompletableFuture<Boolean> f = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return travas.executar(id, () -> true);
+                } catch (Exception ex) {
+                    return false;
+                }
+            });
+            assertTrue(f.get(5, TimeUnit.SECONDS));
+            assertFalse(CompletableFuture.supplyAsync(() -> travas.trava(0).tryLock()).get());
+        } finally {
+            travas.trava(0).unlock();
+        }
+    }
+
+    @Test
+    void testReentrante() throws Exception {
+        TravasPorId travas = new TravasPorId();
+        assertEquals("ok", travas.executar(7, () -> travas.executar(7, () -> "ok")));
+        assertFalse(travas.trava(7).isLocked());
+    }
+
+    @Test
+    void testExecutarTodosSemDeadlock() throws Exception {
+        TravasPorId travas = new TravasPorId(8);
+        int[] contador = {0};
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> fs = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                // cada thread pede os mesmos IDs em ordem diferente
+                List<Integer> ids = new ArrayList<>(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9));
+                Collections.rotate(ids, t * 2);
+                fs.add(pool.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) travas.executarTodos(ids, () -> contador[0]++);
+                    return null;
+                }));
+            }
+            for (Future<?> f : fs) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(8_000, contador[0]);
+        for (int id = 1; id <= 9; id++) assertFalse(travas.trava(id).isLocked());
+    }
+}
@@ -0,0 +1,61 @@
+package ferramentas;
+
+import java.nio.file.Path;
+import model.Midia;
+
+/**
+ * **Alvo das operações do gerador de carga.**
+ *
+ * <p>Abstrai onde a carga é aplicada: direto no {@link controle.MidiaControle}
+ * ({@link AlvoControle}) ou num servidor local pelo protocolo HTTP ({@link AlvoHttp}).</p>
+ *
+ * @see GeradorCarga
+ */
+public interface AlvoCarga {
+
+    /**
+     * Inclui uma mídia.
+     *
+     * @param m A mídia a incluir.
+     * @return O ID com que a mídia foi gravada.
+     * @throws Exception Se a operação falhar.
+     */
+    int incluir(Midia m) throws Exception;
+
+    /**
+     * Busca uma mídia pelo ID.
+     *
+     * @param id O ID da mídia.
+     * @return {@code true} se a mídia existe.
+     * @throws Exception Se a operação falhar.
+     */
+    boolean buscar(int id) throws Exception;
+
+    /**
+     * Lista as mídias filtradas.
+     *
+     * @param tipo O tipo a filtrar, ou {@code null}.
+     * @param categoria A categoria a filtrar, ou {@code null}.
+     * @return O número de mídias listadas.
+     * @throws Exception Se a operação falhar.
+     */
+    int listar(String tipo, String categoria) throws Exception;
+
+    /**
+     * Move o arquivo de uma mídia.
+     *
+     * @param id O ID da mídia.
+     * @param destino O diretório de destino.
+     * @throws Exception Se a operação falhar.
+     */
+    void mover(int id, Path destino) throws Exception;
+
+    /**
+     * Renomeia o arquivo de uma mídia.
+     *
+     * @param id O ID da mídia.
+     * @param nome O novo nome (sem extensão).
+     * @throws Exception Se a operação falhar.
+     */
+    void renomear(int id, String nome) throws Exception;
+}
@@ -0,0 +1,50 @@
+package ferramentas;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import controle.MidiaControle;
+import model.Midia;
+
+/**
+ * **Alvo de carga que chama o {@link MidiaControle} diretamente, no mesmo processo.**
+ *
+ * @see AlvoCarga
+ */
+public class AlvoControle implements AlvoCarga {
+    private final MidiaControle controle;
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle que receberá a carga.
+     */
+    public AlvoControle(MidiaControle controle) {
+        this.controle = controle;
+    }
+
+    @Override
+    public int incluir(Midia m) throws Exception {
+        return controle.incluirMedia(m).getId();
+    }
+
+    @Override
+    public boolean buscar(int id) throws Exception {
+        return controle.buscarPorId(id).isPresent();
+    }
+
+    @Override
+    public int listar(String tipo, String categoria) throws Exception {
+        return controle.listarFiltrados(Optional.ofNullable(tipo), Optional.ofNullable(categoria), Optional.empty()).size();
+    }
+
+    @Override
+    public void mover(int id, Path destino) throws Exception {
+        controle.moverMedia(id, destino);
+    }
+
+    @Override
+    public void renomear(int id, String nome) throws Exception {
+        controle.renomearArquivo(id, nome);
+    }
+}
@@ -0,0 +1,94 @@
+package ferramentas;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+import dao.CodecJson;
+import model.Midia;
+
+/**
+ * **Alvo de carga que usa o servidor HTTP ({@link servidor.ServidorHttp}).**
+ *
+ * <p>Os caminhos de arquivos (mover, renomear) são interpretados pelo servidor; por isso o
+ * servidor deve rodar na mesma máquina que o gerador.</p>
+ *
+ * @see AlvoCarga
+ */
+public class AlvoHttp implements AlvoCarga {
+    private final String base;
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    /**
+     * Construtor.
+     *
+     * @param base O endereço do servidor (ex.: {@code http://localhost:8080}).
+     */
+    public AlvoHttp(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    @Override
+    public int incluir(Midia m) throws Exception {
+        // o ID é gerado pelo servidor
+        Map<String,String> campos = CodecJson.lerObjeto(CodecJson.paraJson(m));
+        campos.remove("id");
+        StringBuilder corpo = new StringBuilder();
+        CodecJson.escrever(campos, corpo);
+        return CodecJson.deJson(enviar("POST", "/midias", corpo.toString(), 201)).getId();
+    }
+
+    @Override
+    public boolean buscar(int id) throws Exception {
+        HttpResponse<String> r = cliente.send(HttpRequest.newBuilder(URI.create(base + "/midias/" + id)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() == 404) return false;
+        verificar(r, 200);
+        return true;
+    }
+
+    @Override
+    public int listar(String tipo, String categoria) throws Exception {
+        StringBuilder q = new StringBuilder("/midias?");
+        if (tipo != null) q.append("tipo=").append(URLEncoder.encode(tipo, StandardCharsets.UTF_8)).append('&');
+        if (categoria != null) q.append("categoria=").append(URLEncoder.encode(categoria, StandardCharsets.UTF_8));
+        String corpo = enviar("GET", q.toString(), null, 200);
+        // conta os objetos sem montar as mídias
+        int n = 0;
+        for (int i = corpo.indexOf("\"id\":"); i >= 0; i = corpo.indexOf("\"id\":", i + 1)) n++;
+        return n;
+    }
+
+    @Override
+    public void mover(int id, Path destino) throws Exception {
+        StringBuilder corpo = new StringBuilder("{\"destino\":");
+        CodecJson.escreverTexto(destino.toString(), corpo);
+        enviar("POST", "/midias/" + id + "/mover", corpo.append('}').toString(), 200);
+    }
+
+    @Override
+    public void renomear(int id, String nome) throws Exception {
+        StringBuilder corpo = new StringBuilder("{\"nome\":");
+        CodecJson.escreverTexto(nome, corpo);
+        enviar("POST", "/midias/" + id + "/renomear", corpo.append('}').toString(), 200);
+    }
+
+    private String enviar(String metodo, String caminho, String corpo, int esperado) throws Exception {
+        HttpRequest r = HttpRequest.newBuilder(URI.create(base + caminho))
+                .method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+        HttpResponse<String> resposta = cliente.send(r, HttpResponse.BodyHandlers.ofString());
+        verificar(resposta, esperado);
+        return resposta.body();
+    }
+
+    private static void verificar(HttpResponse<String> r, int esperado) throws IOException {
+        if (r.statusCode() != esperado) throw new IOException("HTTP " + r.statusCode() + ": " + r.body());
+    }
+}
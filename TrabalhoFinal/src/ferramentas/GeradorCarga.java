@@ -0,0 +1,461 @@
+package ferramentas;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import controle.IdGerador;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import dao.MidiaDAOInstantaneo;
+import model.Musica;
+
+/**
+ * **Gerador de Carga de Ponta a Ponta.**
+ *
+ * <p>Aplica uma mistura configurável de operações (busca por ID, listagem filtrada, inclusão,
+ * mover e renomear) a um {@link AlvoCarga} e mede as latências.</p>
+ *
+ * <ul>
+ * <li><b>Laço aberto:</b> as chegadas seguem uma taxa fixa (ou um processo de Poisson com a
+ * mesma taxa média), independentemente de as operações anteriores já terem terminado, como
+ * acontece com usuários reais. Cada operação roda numa <i>virtual thread</i>.</li>
+ * <li><b>Omissão coordenada:</b> a latência é medida a partir do instante <b>previsto</b> de
+ * chegada, não do instante em que o envio de fato aconteceu. Se o alvo (ou o próprio gerador)
+ * atrasar, o tempo que as operações passaram esperando entra nos percentis em vez de sumir.</li>
+ * <li><b>Relatório:</b> percentis por operação, vazão e erros, e a evolução por segundo.</li>
+ * <li><b>Linha de base:</b> o resultado pode ser salvo num arquivo {@code .properties} e uma
+ * execução posterior comparada com ele, apontando regressões acima de uma tolerância.</li>
+ * </ul>
+ *
+ * <p>Uso: {@code java ferramentas.GeradorCarga [--alvo controle|http://host:porta] [--dados dir]
+ * [--taxa 200] [--duracao 30] [--registros 500] [--mix buscar=70,listar=5,incluir=15,mover=5,renomear=5]
+ * [--poisson] [--salvar base.properties] [--comparar base.properties] [--tolerancia 0.10]}</p>
+ *
+ * @see HistogramaLatencia
+ */
+public class GeradorCarga {
+
+    /**
+     * Operações que compõem a carga.
+     */
+    public enum Operacao { BUSCAR, LISTAR, INCLUIR, MOVER, RENOMEAR }
+
+    private static final String[] CATEGORIAS = {"Pop", "Rock", "Jazz", "Clássica"};
+    // diferença absoluta abaixo da qual uma piora de latência é tratada como ruído
+    private static final long RUIDO_MICROS = 500;
+
+    private final AlvoCarga alvo;
+    private final Path areaTrabalho;
+    private final EnumMap<Operacao, Integer> mix = new EnumMap<>(Operacao.class);
+    private double taxa = 100;
+    private long duracaoMs = 10_000;
+    private boolean poisson = false;
+    private int maxEmVoo = 10_000;
+
+    private int[] ids = new int[0];
+    private Path[] diretorios;
+    private final AtomicInteger sequencia = new AtomicInteger();
+
+    /**
+     * **Resultado de uma execução.**
+     */
+    public static class Resultado {
+        private final EnumMap<Operacao, HistogramaLatencia> latencias = new EnumMap<>(Operacao.class);
+        private final EnumMap<Operacao, AtomicLong> erros = new EnumMap<>(Operacao.class);
+        private final HistogramaLatencia[] porSegundo;
+        private final AtomicLong descartadas = new AtomicLong();
+        private long duracaoNanos;
+
+        Resultado(int segundos) {
+            for (Operacao op : Operacao.values()) {
+                latencias.put(op, new HistogramaLatencia());
+                erros.put(op, new AtomicLong());
+            }
+            porSegundo = new HistogramaLatencia[segundos];
+            for (int i = 0; i < segundos; i++) porSegundo[i] = new HistogramaLatencia();
+        }
+
+        /**
+         * @param op A operação.
+         * @return O histograma de latências (em microssegundos) da operação.
+         */
+        public HistogramaLatencia getLatencias(Operacao op) {
+            return latencias.get(op);
+        }
+
+        /**
+         * @param op A operação.
+         * @return O número de execuções da operação que falharam.
+         */
+        public long getErros(Operacao op) {
+            return erros.get(op).get();
+        }
+
+        /**
+         * @return Chegadas não enviadas porque já havia operações demais em andamento.
+         */
+        public long getDescartadas() {
+            return descartadas.get();
+        }
+
+        /**
+         * @return O histograma com todas as operações somadas.
+         */
+        public HistogramaLatencia getTotal() {
+            HistogramaLatencia h = new HistogramaLatencia();
+            for (HistogramaLatencia x : latencias.values()) h.somar(x);
+            return h;
+        }
+
+        /**
+         * @return As operações concluídas por segundo, na execução inteira.
+         */
+        public double getVazao() {
+            return duracaoNanos == 0 ? 0 : getTotal().getTotal() * 1e9 / duracaoNanos;
+        }
+
+        /**
+         * Imprime o relatório: evolução por segundo, percentis por operação e totais.
+         *
+         * @param out O destino do relatório.
+         */
+        public void imprimir(PrintStream out) {
+            out.println("segundo  concluidas   p50(us)    p99(us)");
+            for (int s = 0; s < porSegundo.length; s++) {
+                HistogramaLatencia h = porSegundo[s];
+                if (h.getTotal() == 0) continue;
+                out.printf("%7d %11d %9d %10d%n", s + 1, h.getTotal(), h.percentil(50), h.percentil(99));
+            }
+            out.println();
+            out.println("operacao      total    erros   p50(us)   p90(us)   p99(us)  p99.9(us)   max(us)");
+            for (Operacao op : Operacao.values()) {
+                HistogramaLatencia h = latencias.get(op);
+                if (h.getTotal() == 0) continue;
+                out.printf("%-10s %8d %8d %9d %9d %9d %10d %9d%n", op, h.getTotal(), getErros(op),
+                        h.percentil(50), h.percentil(90), h.percentil(99), h.percentil(99.9), h.getMaximo());
+            }
+            out.printf("%nvazao: %.1f ops/s   descartadas: %d%n", getVazao(), getDescartadas());
+        }
+
+        /**
+         * Converte o resultado numa linha de base ({@code p50}, {@code p99}, {@code p999} e
+         * {@code max} por operação, em microssegundos, e a vazão total).
+         *
+         * @return As propriedades da linha de base.
+         */
+        public Properties paraBase() {
+            Properties p = new Properties();
+            for (Operacao op : Operacao.values()) {
+                HistogramaLatencia h = latencias.get(op);
+                if (h.getTotal() == 0) continue;
+                p.setProperty(op + ".p50", String.valueOf(h.percentil(50)));
+                p.setProperty(op + ".p99", String.valueOf(h.percentil(99)));
+                p.setProperty(op + ".p999", String.valueOf(h.percentil(99.9)));
+                p.setProperty(op + ".max", String.valueOf(h.getMaximo()));
+                p.setProperty(op + ".erros", String.valueOf(getErros(op)));
+            }
+            p.setProperty("total.vazao", String.format(Locale.ROOT, "%.1f", getVazao()));
+            return p;
+        }
+
+        /**
+         * Salva a linha de base num arquivo.
+         *
+         * @param arquivo O arquivo {@code .properties}.
+         * @throws IOException Se o arquivo não puder ser gravado.
+         */
+        public void salvarBase(Path arquivo) throws IOException {
+            try (Writer w = Files.newBufferedWriter(arquivo)) {
+                paraBase().store(w, "linha de base do gerador de carga");
+            }
+        }
+
+        /**
+         * Compara este resultado com uma linha de base.
+         * <p>Uma latência ({@code p50}, {@code p99}, {@code p999}) é regressão se piorou mais
+         * que a tolerância e mais que 0,5 ms; a vazão, se caiu mais que a tolerância.</p>
+         *
+         * @param base A linha de base.
+         * @param tolerancia A piora relativa aceita (ex.: {@code 0.10} para 10%).
+         * @return As regressões encontradas, uma por linha (vazio se não houver).
+         */
+        public List<String> comparar(Properties base, double tolerancia) {
+            Properties atual = paraBase();
+            List<String> regressoes = new ArrayList<>();
+            for (String chave : new TreeSet<>(base.stringPropertyNames())) {
+                String novo = atual.getProperty(chave);
+                if (novo == null) continue;
+                double antes = Double.parseDouble(base.getProperty(chave));
+                double agora = Double.parseDouble(novo);
+                boolean pior;
+                if (chave.equals("total.vazao")) {
+                    pior = agora < antes * (1 - tolerancia);
+                } else if (chave.endsWith(".p50") || chave.endsWith(".p99") || chave.endsWith(".p999")) {
+                    pior = agora > antes * (1 + tolerancia) && agora - antes > RUIDO_MICROS;
+                } else {
+                    continue; // max e erros são apenas informativos
+                }
+                if (pior) {
+                    regressoes.add(String.format(Locale.ROOT, "%s: %.1f -> %.1f (%+.1f%%)",
+                            chave, antes, agora, antes == 0 ? 100.0 : (agora - antes) * 100 / antes));
+                }
+            }
+            return regressoes;
+        }
+
+        /**
+         * Lê uma linha de base salva por {@link #salvarBase(Path)}.
+         *
+         * @param arquivo O arquivo {@code .properties}.
+         * @return As propriedades lidas.
+         * @throws IOException Se o arquivo não puder ser lido.
+         */
+        public static Properties lerBase(Path arquivo) throws IOException {
+            Properties p = new Properties();
+            try (Reader r = Files.newBufferedReader(arquivo)) {
+                p.load(r);
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Construtor com a mistura padrão (70% buscas, 5% listagens, 15% inclusões, 5% mover, 5% renomear).
+     *
+     * @param alvo Onde a carga será aplicada.
+     * @param areaTrabalho Diretório onde são criados os arquivos físicos usados pela carga.
+     */
+    public GeradorCarga(AlvoCarga alvo, Path areaTrabalho) {
+        this.alvo = alvo;
+        this.areaTrabalho = areaTrabalho;
+        mix.put(Operacao.BUSCAR, 70);
+        mix.put(Operacao.LISTAR, 5);
+        mix.put(Operacao.INCLUIR, 15);
+        mix.put(Operacao.MOVER, 5);
+        mix.put(Operacao.RENOMEAR, 5);
+    }
+
+    /**
+     * Define o peso de uma operação na mistura ({@code 0} a exclui).
+     *
+     * @param op A operação.
+     * @param peso O peso relativo.
+     */
+    public void setPeso(Operacao op, int peso) {
+        mix.put(op, peso);
+    }
+
+    /**
+     * @param taxa A taxa de chegada, em operações por segundo.
+     */
+    public void setTaxa(double taxa) {
+        this.taxa = taxa;
+    }
+
+    /**
+     * @param duracaoMs A duração das chegadas, em milissegundos.
+     */
+    public void setDuracaoMs(long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+
+    /**
+     * @param poisson {@code true} para chegadas de Poisson (intervalos exponenciais); {@code false} para intervalos fixos.
+     */
+    public void setPoisson(boolean poisson) {
+        this.poisson = poisson;
+    }
+
+    /**
+     * @param maxEmVoo Operações simultâneas acima das quais novas chegadas são descartadas (e contadas).
+     */
+    public void setMaxEmVoo(int maxEmVoo) {
+        this.maxEmVoo = maxEmVoo;
+    }
+
+    /**
+     * Cria os arquivos físicos e os registros usados pelas buscas, movimentações e renomeações.
+     *
+     * @param quantidade O número de mídias a criar.
+     * @throws Exception Se os arquivos ou os registros não puderem ser criados.
+     */
+    public void preparar(int quantidade) throws Exception {
+        diretorios = new Path[] {areaTrabalho.resolve("a"), areaTrabalho.resolve("b")};
+        for (Path d : diretorios) Files.createDirectories(d);
+        Files.createDirectories(areaTrabalho.resolve("novos"));
+        byte[] conteudo = new byte[1024];
+        ids = new int[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            Path arquivo = Files.write(diretorios[0].resolve("arquivo-" + i + ".mp3"), conteudo);
+            ids[i] = alvo.incluir(new Musica(arquivo.toString(), conteudo.length, "Faixa " + i, 180 + i % 60,
+                    CATEGORIAS[i % CATEGORIAS.length], "Carga"));
+        }
+    }
+
+    /**
+     * Executa a carga e espera as operações em andamento terminarem.
+     *
+     * @return O resultado da execução.
+     * @throws Exception Se a carga não foi preparada.
+     */
+    public Resultado executar() throws Exception {
+        if (ids.length == 0) throw new IllegalStateException("Chame preparar() antes de executar()");
+        int[] pesos = new int[Operacao.values().length];
+        int somaPesos = 0;
+        for (Operacao op : Operacao.values()) {
+            somaPesos += mix.getOrDefault(op, 0);
+            pesos[op.ordinal()] = somaPesos;
+        }
+        if (somaPesos <= 0) throw new IllegalStateException("Mistura de operações vazia");
+
+        // folga para as operações que terminam depois da última chegada
+        Resultado r = new Resultado((int) (duracaoMs / 1000) + 61);
+        AtomicInteger emVoo = new AtomicInteger();
+        Random sorteio = new Random();
+        long inicio = System.nanoTime();
+        long fimChegadas = inicio + duracaoMs * 1_000_000;
+        double intervalo = 1e9 / taxa;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            double deslocamento = 0;
+            while (true) {
+                long previsto = inicio + (long) deslocamento;
+                if (previsto >= fimChegadas) break;
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) LockSupport.parkNanos(espera);
+                deslocamento += poisson ? -Math.log(1 - sorteio.nextDouble()) * intervalo : intervalo;
+
+                Operacao op = sortear(sorteio.nextInt(somaPesos), pesos);
+                if (emVoo.incrementAndGet() > maxEmVoo) {
+                    emVoo.decrementAndGet();
+                    r.descartadas.incrementAndGet();
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        medir(op, previsto, inicio, r);
+                    } finally {
+                        emVoo.decrementAndGet();
+                    }
+                });
+            }
+        }
+        r.duracaoNanos = System.nanoTime() - inicio;
+        return r;
+    }
+
+    private static Operacao sortear(int valor, int[] pesos) {
+        for (Operacao op : Operacao.values()) {
+            if (valor < pesos[op.ordinal()]) return op;
+        }
+        return Operacao.BUSCAR;
+    }
+
+    private void medir(Operacao op, long previsto, long inicio, Resultado r) {
+        try {
+            aplicar(op);
+        } catch (Exception ex) {
+            r.erros.get(op).incrementAndGet();
+        }
+        long fim = System.nanoTime();
+        // a partir do instante previsto: o atraso no envio também conta (correção da omissão coordenada)
+        long micros = (fim - previsto) / 1000;
+        r.latencias.get(op).registrar(micros);
+        int segundo = (int) Math.min((fim - inicio) / 1_000_000_000L, r.porSegundo.length - 1);
+        r.porSegundo[segundo].registrar(micros);
+    }
+
+    private void aplicar(Operacao op) throws Exception {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int id = ids[rnd.nextInt(ids.length)];
+        switch (op) {
+            case BUSCAR:
+                alvo.buscar(id);
+                break;
+            case LISTAR:
+                alvo.listar(rnd.nextBoolean() ? "MUSICA" : null,
+                        rnd.nextBoolean() ? CATEGORIAS[rnd.nextInt(CATEGORIAS.length)] : null);
+                break;
+            case INCLUIR:
+                int n = sequencia.incrementAndGet();
+                alvo.incluir(new Musica(areaTrabalho.resolve("novos").resolve("nova-" + n + ".mp3").toString(),
+                        1024, "Nova " + n, 200, CATEGORIAS[n % CATEGORIAS.length], "Carga"));
+                break;
+            case MOVER:
+                alvo.mover(id, diretorios[rnd.nextInt(diretorios.length)]);
+                break;
+            case RENOMEAR:
+                alvo.renomear(id, "arquivo-r" + sequencia.incrementAndGet());
+                break;
+        }
+    }
+
+    // ------------------------------------------------------------
+    // MAIN
+    // ------------------------------------------------------------
+    public static void main(String[] args) {
+        try {
+            Map<String,String> opcoes = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--")) continue;
+                boolean valor = i + 1 < args.length && !args[i + 1].startsWith("--");
+                opcoes.put(args[i].substring(2), valor ? args[++i] : "true");
+            }
+
+            String destino = opcoes.getOrDefault("alvo", "controle");
+            AlvoCarga alvo;
+            if (destino.equals("controle")) {
+                Path dados = opcoes.containsKey("dados")
+                        ? Paths.get(opcoes.get("dados"))
+                        : Files.createTempDirectory("carga-dados");
+                MidiaDAOInstantaneo dao = new MidiaDAOInstantaneo(new FileMidiaDAO(dados));
+                int[] maxId = {0};
+                dao.percorrer(m -> maxId[0] = Math.max(maxId[0], m.getId()));
+                IdGerador.iniciar(maxId[0]);
+                alvo = new AlvoControle(new MidiaControle(dao));
+            } else {
+                alvo = new AlvoHttp(destino);
+            }
+
+            GeradorCarga gerador = new GeradorCarga(alvo, Files.createTempDirectory("carga-arquivos"));
+            gerador.setTaxa(Double.parseDouble(opcoes.getOrDefault("taxa", "200")));
+            gerador.setDuracaoMs(Long.parseLong(opcoes.getOrDefault("duracao", "30")) * 1000);
+            gerador.setPoisson(opcoes.containsKey("poisson"));
+            if (opcoes.containsKey("mix")) {
+                for (Operacao op : Operacao.values()) gerador.setPeso(op, 0);
+                for (String par : opcoes.get("mix").split(",")) {
+                    String[] kv = par.split("=");
+                    gerador.setPeso(Operacao.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(kv[1].trim()));
+                }
+            }
+            gerador.preparar(Integer.parseInt(opcoes.getOrDefault("registros", "500")));
+
+            Resultado r = gerador.executar();
+            r.imprimir(System.out);
+            if (opcoes.containsKey("salvar")) r.salvarBase(Paths.get(opcoes.get("salvar")));
+            if (opcoes.containsKey("comparar")) {
+                Properties base = Resultado.lerBase(Paths.get(opcoes.get("comparar")));
+                List<String> regressoes = r.comparar(base, Double.parseDouble(opcoes.getOrDefault("tolerancia", "0.10")));
+                System.out.println();
+                if (regressoes.isEmpty()) {
+                    System.out.println("Sem regressões em relação à linha de base.");
+                } else {
+                    System.out.println("REGRESSÕES:");
+                    regressoes.forEach(s -> System.out.println("  " + s));
+                    System.exit(2);
+                }
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ferramentas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import ferramentas.GeradorCarga.Operacao;
+import ferramentas.GeradorCarga.Resultado;
+
+class GeradorCargaTeste {
+
+    private Path tempDir;
+    private MidiaControle controle;
+    private GeradorCarga gerador;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("carga");
+        controle = new MidiaControle(new FileMidiaDAO(tempDir.resolve("dados")));
+        gerador = new GeradorCarga(new AlvoControle(controle), tempDir);
+        gerador.preparar(20);
+    }
+
+    @Test
+    void testExecutaMisturaEmLacoAberto() throws Exception {
+        gerador.setTaxa(200);
+        gerador.setDuracaoMs(1000);
+        Resultado r = gerador.executar();
+
+        long total = r.getTotal().getTotal();
+        assertTrue(total > 150 && total <= 201, "total: " + total);
+        assertTrue(r.getLatencias(Operacao.BUSCAR).getTotal() > 0);
+        assertTrue(r.getLatencias(Operacao.INCLUIR).getTotal() > 0);
+        for (Operacao op : Operacao.values()) assertEquals(0, r.getErros(op), op.name());
+        assertTrue(r.getVazao() > 0);
+        // a inclusão de fato chegou ao armazenamento
+        assertEquals(20 + r.getLatencias(Operacao.INCLUIR).getTotal(), controle.listarTodos().size());
+    }
+
+    @Test
+    void testLinhaDeBaseDetectaRegressao() throws Exception {
+        gerador.setPeso(Operacao.LISTAR, 0);
+        gerador.setPeso(Operacao.INCLUIR, 0);
+        gerador.setPeso(Operacao.MOVER, 0);
+        gerador.setPeso(Operacao.RENOMEAR, 0);
+        gerador.setTaxa(100);
+        gerador.setDuracaoMs(500);
+        Resultado r = gerador.executar();
+        assertEquals(r.getTotal().getTotal(), r.getLatencias(Operacao.BUSCAR).getTotal());
+
+        Path arquivo = tempDir.resolve("base.properties");
+        r.salvarBase(arquivo);
+        Properties base = Resultado.lerBase(arquivo);
+        assertTrue(base.containsKey("BUSCAR.p99"));
+        assertTrue(r.comparar(base, 0.10).isEmpty());
+
+        // uma base com vazão muito maior faz a execução atual parecer uma regressão
+        base.setProperty("total.vazao", "1000000");
+        List<String> regressoes = r.comparar(base, 0.10);
+        assertEquals(1, regressoes.size());
+        assertTrue(regressoes.get(0).startsWith("total.vazao"));
+    }
+}
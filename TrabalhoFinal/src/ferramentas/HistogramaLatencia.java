@@ -0,0 +1,109 @@
+package ferramentas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * **Histograma de latências com precisão relativa fixa.**
+ *
+ * <p>Guarda contagens em faixas log-lineares (no estilo do HdrHistogram): valores até 127 têm
+ * faixa própria; acima disso, cada potência de dois é dividida em 64 faixas, o que garante erro
+ * relativo menor que 1,6% em qualquer percentil, com memória fixa (cerca de 30 KB) e sem guardar
+ * as amostras.</p>
+ *
+ * <p>Os valores são registrados em <b>microssegundos</b>. O registro é thread-safe e não usa
+ * travas, para não interferir na própria medição.</p>
+ */
+public class HistogramaLatencia {
+    private static final int FAIXAS_DIRETAS = 128;
+    private static final int SUBFAIXAS = 64;
+    private static final int TOTAL_FAIXAS = FAIXAS_DIRETAS + 56 * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(TOTAL_FAIXAS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong soma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra uma amostra.
+     *
+     * @param micros A latência, em microssegundos (valores negativos contam como zero).
+     */
+    public void registrar(long micros) {
+        long v = Math.max(0, micros);
+        contagens.incrementAndGet(faixa(v));
+        total.incrementAndGet();
+        soma.addAndGet(v);
+        maximo.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * Soma as amostras de outro histograma a este.
+     *
+     * @param outro O histograma a somar.
+     */
+    public void somar(HistogramaLatencia outro) {
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            long c = outro.contagens.get(i);
+            if (c != 0) contagens.addAndGet(i, c);
+        }
+        total.addAndGet(outro.total.get());
+        soma.addAndGet(outro.soma.get());
+        maximo.accumulateAndGet(outro.maximo.get(), Math::max);
+    }
+
+    /**
+     * @return O número de amostras registradas.
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @return A maior amostra registrada, em microssegundos.
+     */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * @return A média das amostras, em microssegundos ({@code 0} se vazio).
+     */
+    public double getMedia() {
+        long n = total.get();
+        return n == 0 ? 0 : (double) soma.get() / n;
+    }
+
+    /**
+     * Retorna o valor abaixo do qual está a porcentagem pedida das amostras.
+     *
+     * @param percentil O percentil, de {@code 0} a {@code 100} (ex.: {@code 99.9}).
+     * @return O limite superior da faixa do percentil, em microssegundos ({@code 0} se vazio).
+     */
+    public long percentil(double percentil) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100.0 * n));
+        long acumulado = 0;
+        for (int i = 0; i < TOTAL_FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) return Math.min(limiteSuperior(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    static int faixa(long v) {
+        if (v < FAIXAS_DIRETAS) return (int) v;
+        // v >> e fica entre 64 e 127
+        int e = 63 - Long.numberOfLeadingZeros(v) - 6;
+        return FAIXAS_DIRETAS + (e - 1) * SUBFAIXAS + (int) ((v >> e) - SUBFAIXAS);
+    }
+
+    static long limiteSuperior(int faixa) {
+        if (faixa < FAIXAS_DIRETAS) return faixa;
+        int k = faixa - FAIXAS_DIRETAS;
+        int e = k / SUBFAIXAS + 1;
+        long m = k % SUBFAIXAS + SUBFAIXAS;
+        return ((m + 1) << e) - 1;
+    }
+}
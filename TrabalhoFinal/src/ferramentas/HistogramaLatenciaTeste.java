@@ -0,0 +1,47 @@
+package ferramentas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+class HistogramaLatenciaTeste {
+
+    @Test
+    void testPercentisComErroRelativoPequeno() {
+        HistogramaLatencia h = new HistogramaLatencia();
+        for (int v = 1; v <= 100_000; v++) h.registrar(v);
+
+        assertEquals(100_000, h.getTotal());
+        assertEquals(100_000, h.getMaximo());
+        assertEquals(50_000.5, h.getMedia(), 0.001);
+        for (double p : new double[] {50, 90, 99, 99.9}) {
+            double esperado = p / 100 * 100_000;
+            assertEquals(esperado, h.percentil(p), esperado * 0.016);
+        }
+        assertEquals(100_000, h.percentil(100));
+    }
+
+    @Test
+    void testFaixasCobremTodosOsValores() {
+        for (long v : new long[] {0, 1, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE / 2}) {
+            int f = HistogramaLatencia.faixa(v);
+            assertTrue(HistogramaLatencia.limiteSuperior(f) >= v, "limite de " + v);
+            if (f > 0) assertTrue(HistogramaLatencia.limiteSuperior(f - 1) < v, "faixa anterior de " + v);
+        }
+    }
+
+    @Test
+    void testSomar() {
+        HistogramaLatencia a = new HistogramaLatencia();
+        HistogramaLatencia b = new HistogramaLatencia();
+        for (int i = 0; i < 90; i++) a.registrar(100);
+        for (int i = 0; i < 10; i++) b.registrar(10_000);
+
+        a.somar(b);
+        assertEquals(100, a.getTotal());
+        assertEquals(10_000, a.getMaximo());
+        assertEquals(100, a.percentil(90));
+        assertTrue(a.percentil(99) >= 9_900);
+        assertEquals(0, new HistogramaLatencia().percentil(99));
+    }
+}
@@ -0,0 +1,54 @@
+package ferramentas;
+
+import java.util.List;
+import java.util.Map;
+import model.Midia;
+
+/**
+ * **Um catálogo visto pela sincronização Merkle.**
+ *
+ * <p>Expõe só o necessário para comparar dois catálogos pela sua {@link controle.ArvoreMerkle}
+ * e transferir as diferenças: hashes de nós, registros (ID e hash) de folhas, as mídias de
+ * alguns IDs e a aplicação das alterações. Pode ser um diretório local ({@link NoMerkleLocal})
+ * ou um nó em execução acessado por HTTP ({@link NoMerkleHttp}).</p>
+ *
+ * @see SincronizacaoMerkle
+ */
+public interface NoMerkle {
+
+    /**
+     * @return A profundidade da árvore (os dois lados precisam ter a mesma).
+     * @throws Exception Se a consulta falhar.
+     */
+    int getProfundidade() throws Exception;
+
+    /**
+     * @param nos Os índices dos nós.
+     * @return Os hashes dos nós, na mesma ordem.
+     * @throws Exception Se a consulta falhar.
+     */
+    long[] hashes(int[] nos) throws Exception;
+
+    /**
+     * @param folhas Os índices dos nós folha.
+     * @return O hash de cada registro dessas folhas, por ID.
+     * @throws Exception Se a consulta falhar.
+     */
+    Map<Integer, Long> registros(int[] folhas) throws Exception;
+
+    /**
+     * @param ids Os IDs procurados.
+     * @return As mídias encontradas.
+     * @throws Exception Se a consulta falhar.
+     */
+    List<Midia> buscar(int[] ids) throws Exception;
+
+    /**
+     * Grava mídias (incluindo ou substituindo) e remove registros.
+     *
+     * @param salvas As mídias a gravar.
+     * @param removidos Os IDs cujos registros devem ser removidos (os arquivos físicos não são tocados).
+     * @throws Exception Se a escrita falhar.
+     */
+    void aplicar(List<Midia> salvas, int[] removidos) throws Exception;
+}
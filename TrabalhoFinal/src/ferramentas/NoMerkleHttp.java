@@ -0,0 +1,114 @@
+package ferramentas;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+
+import dao.CodecJson;
+import model.Midia;
+
+/**
+ * **Nó da sincronização Merkle acessado pelo servidor HTTP ({@link servidor.ServidorHttp}).**
+ *
+ * <p>Usa as rotas {@code /midias/merkle/...} para hashes, registros e mídias, e as rotas
+ * comuns de {@code /midias} para as escritas ({@code PUT}, ou {@code POST} se a mídia ainda
+ * não existir; {@code DELETE ?somenteRegistro=true}).</p>
+ *
+ * @see NoMerkle
+ */
+public class NoMerkleHttp implements NoMerkle {
+    // índices ou IDs por requisição (mantém a URL curta)
+    private static final int LOTE = 512;
+
+    private final String base;
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    /**
+     * Construtor.
+     *
+     * @param base O endereço do servidor (ex.: {@code http://outra-maquina:8080}).
+     */
+    public NoMerkleHttp(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    @Override
+    public int getProfundidade() throws Exception {
+        return Integer.parseInt(CodecJson.lerObjeto(enviar("GET", "/midias/merkle", null)).get("profundidade"));
+    }
+
+    @Override
+    public long[] hashes(int[] nos) throws Exception {
+        long[] res = new long[nos.length];
+        for (int de = 0; de < nos.length; de += LOTE) {
+            int ate = Math.min(nos.length, de + LOTE);
+            Map<String,String> r = CodecJson.lerObjeto(enviar("GET", "/midias/merkle/nos?indices=" + juntar(nos, de, ate), null));
+            for (int i = de; i < ate; i++) res[i] = Long.parseUnsignedLong(r.get(String.valueOf(nos[i])), 16);
+        }
+        return res;
+    }
+
+    @Override
+    public Map<Integer, Long> registros(int[] folhas) throws Exception {
+        Map<Integer, Long> res = new HashMap<>();
+        for (int de = 0; de < folhas.length; de += LOTE) {
+            String json = enviar("GET", "/midias/merkle/folhas?indices=" + juntar(folhas, de, Math.min(folhas.length, de + LOTE)), null);
+            for (Map.Entry<String,String> e : CodecJson.lerObjeto(json).entrySet()) {
+                res.put(Integer.parseInt(e.getKey()), Long.parseUnsignedLong(e.getValue(), 16));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public List<Midia> buscar(int[] ids) throws Exception {
+        List<Midia> res = new ArrayList<>(ids.length);
+        for (int de = 0; de < ids.length; de += LOTE) {
+            // uma mídia por linha (JSON Lines)
+            String corpo = enviar("GET", "/midias/merkle/registros?ids=" + juntar(ids, de, Math.min(ids.length, de + LOTE)), null);
+            for (String linha : corpo.split("\n")) {
+                if (!linha.isBlank()) res.add(CodecJson.deJson(linha));
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public void aplicar(List<Midia> salvas, int[] removidos) throws Exception {
+        for (Midia m : salvas) {
+            String json = CodecJson.paraJson(m);
+            HttpResponse<String> r = pedir("PUT", "/midias/" + m.getId(), json);
+            if (r.statusCode() == 404) r = pedir("POST", "/midias", json);
+            if (r.statusCode() / 100 != 2) throw new IOException("HTTP " + r.statusCode() + ": " + r.body());
+        }
+        for (int id : removidos) {
+            HttpResponse<String> r = pedir("DELETE", "/midias/" + id + "?somenteRegistro=true", null);
+            if (r.statusCode() != 204 && r.statusCode() != 404) throw new IOException("HTTP " + r.statusCode() + ": " + r.body());
+        }
+    }
+
+    private String enviar(String metodo, String caminho, String corpo) throws Exception {
+        HttpResponse<String> r = pedir(metodo, caminho, corpo);
+        if (r.statusCode() != 200) throw new IOException("HTTP " + r.statusCode() + ": " + r.body());
+        return r.body();
+    }
+
+    private HttpResponse<String> pedir(String metodo, String caminho, String corpo) throws Exception {
+        HttpRequest r = HttpRequest.newBuilder(URI.create(base + caminho))
+                .method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo))
+                .build();
+        return cliente.send(r, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String juntar(int[] v, int de, int ate) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = de; i < ate; i++) {
+            if (i > de) sb.append(',');
+            sb.append(v[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package ferramentas;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import controle.ArvoreMerkle;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import model.Midia;
+
+/**
+ * **Nó da sincronização Merkle no mesmo processo.**
+ *
+ * <p>As escritas passam pelo {@link MidiaControle}, que notifica a árvore (registrada como
+ * ouvinte) e os demais ouvintes.</p>
+ *
+ * @see NoMerkle
+ */
+public class NoMerkleLocal implements NoMerkle {
+    private final MidiaControle controle;
+    private final ArvoreMerkle arvore;
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle do catálogo.
+     * @param arvore A árvore do catálogo, já registrada como ouvinte do controle.
+     */
+    public NoMerkleLocal(MidiaControle controle, ArvoreMerkle arvore) {
+        this.controle = controle;
+        this.arvore = arvore;
+    }
+
+    /**
+     * Abre um diretório de armazenamento e monta sua árvore, lendo todos os registros: para
+     * sincronizações frequentes, prefira um {@link servidor.ServidorHttp} em execução, que já
+     * mantém a árvore.
+     *
+     * @param diretorio O diretório de um {@link FileMidiaDAO}.
+     * @param profundidade A profundidade da árvore.
+     * @return O nó.
+     * @throws Exception Se o diretório não puder ser lido.
+     */
+    public static NoMerkleLocal abrir(Path diretorio, int profundidade) throws Exception {
+        FileMidiaDAO dao = new FileMidiaDAO(diretorio);
+        MidiaControle controle = new MidiaControle(dao);
+        ArvoreMerkle arvore = ArvoreMerkle.carregar(dao, profundidade);
+        controle.adicionarOuvinte(arvore);
+        return new NoMerkleLocal(controle, arvore);
+    }
+
+    @Override
+    public int getProfundidade() {
+        return arvore.getProfundidade();
+    }
+
+    @Override
+    public long[] hashes(int[] nos) {
+        return arvore.hashes(nos);
+    }
+
+    @Override
+    public Map<Integer, Long> registros(int[] folhas) {
+        return arvore.registros(folhas);
+    }
+
+    @Override
+    public List<Midia> buscar(int[] ids) throws Exception {
+        List<Midia> res = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Optional<Midia> m = controle.buscarPorId(id);
+            if (m.isPresent()) res.add(m.get());
+        }
+        return res;
+    }
+
+    @Override
+    public void aplicar(List<Midia> salvas, int[] removidos) throws Exception {
+        if (!salvas.isEmpty()) controle.salvarLote(salvas);
+        for (int id : removidos) controle.removerRegistro(id);
+    }
+}
@@ -0,0 +1,234 @@
+package ferramentas;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import dao.LogAlteracoes;
+import dao.LogAlteracoes.Alteracao;
+import dao.MidiaDAOInstantaneo;
+import model.Midia;
+import servidor.ServidorHttp;
+
+/**
+ * **Réplica Somente Leitura que Acompanha o Log de Alterações.**
+ *
+ * <p>Lê o {@link LogAlteracoes} do processo principal e aplica as alterações, na ordem, a um
+ * catálogo próprio em outro diretório. Inclusões e alterações seguidas são aplicadas em lote
+ * ({@link MidiaControle#salvarLote(List)}); remoções, com {@link MidiaControle#removerRegistro(int)}.</p>
+ *
+ * <p><b>Retomada:</b> depois de cada lote aplicado, a última sequência é gravada (de forma
+ * atômica) em {@code arquivoPosicao}. Ao reiniciar, a leitura continua dali. Se o processo cair
+ * entre aplicar um lote e gravar a posição, o lote é aplicado de novo, o que não muda o
+ * resultado: cada alteração traz o estado completo da mídia.</p>
+ *
+ * <p><b>Atraso:</b> {@link #getAtrasoSequencias()} é quantas alterações do log ainda não foram
+ * aplicadas; {@link #getAtrasoMs()} é a idade da última alteração aplicada enquanto há
+ * pendências ({@code 0} quando a réplica está em dia).</p>
+ *
+ * <p>Uso: {@code java ferramentas.Seguidor [dirLog] [dirReplica] [porta]} — aplica o log
+ * continuamente e atende leituras em {@code http://localhost:[porta]/midias} (somente leitura),
+ * mostrando o atraso a cada 5 segundos.</p>
+ *
+ * @see dao.MidiaDAOComLog
+ */
+public class Seguidor implements Closeable {
+    private final Path diretorioLog;
+    private final MidiaControle replica;
+    private final Path arquivoPosicao;
+    private final LogAlteracoes.Leitor leitor;
+    private int tamanhoLote = 512;
+    private long intervaloMs = 200;
+
+    private volatile long aplicada;
+    private volatile long instanteUltimaAplicada;
+    private volatile boolean emDia = false;
+    private volatile boolean ativo = false;
+    private Thread thread;
+
+    /**
+     * Construtor; retoma da posição gravada em {@code arquivoPosicao}, se existir.
+     *
+     * @param diretorioLog O diretório do log de alterações do processo principal.
+     * @param replica O controle do catálogo da réplica.
+     * @param arquivoPosicao O arquivo onde a última sequência aplicada é guardada.
+     * @throws IOException Se a posição não puder ser lida.
+     */
+    public Seguidor(Path diretorioLog, MidiaControle replica, Path arquivoPosicao) throws IOException {
+        this.diretorioLog = diretorioLog;
+        this.replica = replica;
+        this.arquivoPosicao = arquivoPosicao;
+        this.aplicada = Files.exists(arquivoPosicao)
+                ? Long.parseLong(new String(Files.readAllBytes(arquivoPosicao), StandardCharsets.UTF_8).trim())
+                : 0;
+        this.leitor = new LogAlteracoes.Leitor(diretorioLog, aplicada);
+    }
+
+    /**
+     * @param tamanhoLote O número máximo de alterações aplicadas de uma vez (padrão: 512).
+     */
+    public void setTamanhoLote(int tamanhoLote) {
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * @param intervaloMs A espera entre consultas ao log quando a réplica está em dia (padrão: 200 ms).
+     */
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Aplica todas as alterações disponíveis no log.
+     *
+     * @return O número de alterações aplicadas.
+     * @throws Exception Se ocorrer um erro na leitura do log ou na escrita da réplica.
+     */
+    public synchronized int aplicarPendentes() throws Exception {
+        int total = 0;
+        List<Alteracao> lote = new ArrayList<>(tamanhoLote);
+        while (true) {
+            lote.clear();
+            int n = leitor.ler(tamanhoLote, lote::add);
+            // lote cheio: provavelmente há mais alterações esperando
+            emDia = n < tamanhoLote;
+            if (n == 0) break;
+            aplicar(lote);
+            Alteracao ultima = lote.get(lote.size() - 1);
+            gravarPosicao(ultima.getSequencia());
+            aplicada = ultima.getSequencia();
+            instanteUltimaAplicada = ultima.getInstante();
+            total += n;
+            if (n < tamanhoLote) break;
+        }
+        return total;
+    }
+
+    private void aplicar(List<Alteracao> lote) throws Exception {
+        List<Midia> salvas = new ArrayList<>();
+        for (Alteracao a : lote) {
+            if (!a.isRemocao()) {
+                salvas.add(a.getMidia());
+                continue;
+            }
+            // a ordem importa: as inclusões anteriores à remoção vão primeiro
+            if (!salvas.isEmpty()) {
+                replica.salvarLote(salvas);
+                salvas = new ArrayList<>();
+            }
+            replica.removerRegistro(a.getId());
+        }
+        if (!salvas.isEmpty()) replica.salvarLote(salvas);
+    }
+
+    private void gravarPosicao(long sequencia) throws IOException {
+        Path temp = arquivoPosicao.resolveSibling(arquivoPosicao.getFileName() + ".tmp");
+        Files.write(temp, String.valueOf(sequencia).getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, arquivoPosicao, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return A sequência da última alteração aplicada.
+     */
+    public long getSequenciaAplicada() {
+        return aplicada;
+    }
+
+    /**
+     * @return Quantas alterações do log ainda não foram aplicadas.
+     * @throws IOException Se o log não puder ser lido.
+     */
+    public long getAtrasoSequencias() throws IOException {
+        return Math.max(0, LogAlteracoes.ultimaSequencia(diretorioLog) - aplicada);
+    }
+
+    /**
+     * @return Há quanto tempo (ms) foi registrada a última alteração aplicada, se ainda houver
+     * pendências; {@code 0} se a última leitura chegou ao fim do log.
+     */
+    public long getAtrasoMs() {
+        if (emDia || instanteUltimaAplicada == 0) return 0;
+        return Math.max(0, System.currentTimeMillis() - instanteUltimaAplicada);
+    }
+
+    /**
+     * Inicia a thread que aplica o log continuamente.
+     */
+    public synchronized void iniciar() {
+        if (ativo) return;
+        ativo = true;
+        thread = new Thread(() -> {
+            while (ativo) {
+                try {
+                    aplicarPendentes();
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException ex) {
+                    return;
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }, "seguidor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Para a thread de aplicação e fecha o leitor do log.
+     */
+    @Override
+    public void close() throws IOException {
+        ativo = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(2000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            leitor.close();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // MAIN
+    // ------------------------------------------------------------
+    public static void main(String[] args) {
+        try {
+            Path dirLog = Paths.get(args.length > 0 ? args[0] : "data-log");
+            Path dirReplica = Paths.get(args.length > 1 ? args[1] : "data-replica");
+            int porta = args.length > 2 ? Integer.parseInt(args[2]) : 8081;
+
+            MidiaControle controle = new MidiaControle(new MidiaDAOInstantaneo(new FileMidiaDAO(dirReplica)));
+            Seguidor seguidor = new Seguidor(dirLog, controle, dirReplica.resolve("seguidor.posicao"));
+            seguidor.iniciar();
+
+            ServidorHttp servidor = new ServidorHttp(controle, ServidorHttp.endereco(porta));
+            servidor.setSomenteLeitura(true);
+            servidor.iniciar();
+            System.out.println("Réplica em http://localhost:" + servidor.getPorta() + "/midias, a partir da sequência "
+                    + seguidor.getSequenciaAplicada());
+
+            while (true) {
+                Thread.sleep(5000);
+                System.out.printf("aplicada=%d  atraso=%d alterações, %d ms%n",
+                        seguidor.getSequenciaAplicada(), seguidor.getAtrasoSequencias(), seguidor.getAtrasoMs());
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ferramentas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import dao.LogAlteracoes;
+import dao.MidiaDAOComLog;
+import model.*;
+
+class SeguidorTeste {
+
+    private Path tempDir;
+    private LogAlteracoes log;
+    private MidiaControle principal;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("seguidor");
+        log = new LogAlteracoes(tempDir.resolve("log"));
+        log.setSincronizar(false);
+        principal = new MidiaControle(new MidiaDAOComLog(new FileMidiaDAO(tempDir.resolve("principal")), log));
+    }
+
+    @AfterEach
+    void fechar() throws Exception {
+        log.close();
+    }
+
+    private Seguidor novoSeguidor(MidiaControle replica) throws Exception {
+        Seguidor s = new Seguidor(tempDir.resolve("log"), replica, tempDir.resolve("replica.posicao"));
+        s.setTamanhoLote(4);
+        return s;
+    }
+
+    @Test
+    void testReplicaAplicaERetomaDaUltimaSequencia() throws Exception {
+        for (int i = 1; i <= 10; i++) principal.incluirMedia(new Musica(i, "c:/m" + i + ".mp3", i, "M" + i, 100, "Rock", "X"));
+        principal.removerRegistro(3);
+
+        FileMidiaDAO dadosReplica = new FileMidiaDAO(tempDir.resolve("replica"));
+        try (Seguidor s = novoSeguidor(new MidiaControle(dadosReplica))) {
+            assertEquals(11, s.getAtrasoSequencias());
+            assertEquals(11, s.aplicarPendentes());
+            assertEquals(11, s.getSequenciaAplicada());
+            assertEquals(0, s.getAtrasoSequencias());
+            assertEquals(0, s.getAtrasoMs());
+        }
+        assertEquals(9, dadosReplica.listarTodos().size());
+        assertFalse(dadosReplica.buscarPorId(3).isPresent());
+
+        // novas alterações enquanto a réplica está parada
+        Musica m = new Musica(5, "c:/m5.mp3", 500, "Nova", 100, "Jazz", "X");
+        principal.atualizarMidia(m);
+        principal.removerRegistro(1);
+
+        try (Seguidor s = novoSeguidor(new MidiaControle(dadosReplica))) {
+            assertEquals(11, s.getSequenciaAplicada());
+            assertEquals(2, s.getAtrasoSequencias());
+            assertEquals(2, s.aplicarPendentes());
+        }
+        assertEquals("Nova", dadosReplica.buscarPorId(5).get().getTitulo());
+        assertFalse(dadosReplica.buscarPorId(1).isPresent());
+        assertEquals(8, dadosReplica.listarTodos().size());
+    }
+
+    @Test
+    void testSeguidorContinuoAcompanhaOPrincipal() throws Exception {
+        FileMidiaDAO dadosReplica = new FileMidiaDAO(tempDir.resolve("replica"));
+        try (Seguidor s = novoSeguidor(new MidiaControle(dadosReplica))) {
+            s.setIntervaloMs(10);
+            s.iniciar();
+            for (int i = 1; i <= 30; i++) principal.incluirMedia(new Livro(i, "c:/l" + i + ".pdf", i, "L" + i, 100, null, "Y"));
+            long limite = System.currentTimeMillis() + 10_000;
+            while (s.getSequenciaAplicada() < 30 && System.currentTimeMillis() < limite) Thread.sleep(10);
+            assertEquals(30, s.getSequenciaAplicada());
+        }
+        assertEquals(30, dadosReplica.listarTodos().size());
+    }
+}
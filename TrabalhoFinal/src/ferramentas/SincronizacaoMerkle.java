@@ -0,0 +1,206 @@
+package ferramentas;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+import controle.ArvoreMerkle;
+import model.Midia;
+
+/**
+ * **Sincronização Anti-Entropia entre Dois Catálogos (Árvore de Merkle).**
+ *
+ * <p>Faz o catálogo de destino ficar igual ao de origem transferindo só o que difere. Os dois
+ * lados mantêm uma {@link ArvoreMerkle} com a mesma profundidade; a comparação desce
+ * nível a nível, e em cada nível só são pedidos os filhos dos nós cujos hashes diferem (um
+ * pedido por lado e por nível). Nas folhas diferentes são comparados os hashes de cada
+ * registro, e só as mídias novas ou alteradas são lidas da origem e gravadas no destino.</p>
+ *
+ * <p>A <b>comparação</b> é proporcional à divergência: dois catálogos iguais trocam só o hash da
+ * raiz; com {@code d} registros diferentes, no máximo {@code d} caminhos da raiz às folhas são
+ * visitados. São no máximo {@code profundidade + 3} rodadas (uma por nível, mais os registros
+ * das folhas e a leitura das mídias), independente do tamanho do catálogo.</p>
+ *
+ * <p>Isso vale para o custo total só quando a árvore já existe, como num
+ * {@link servidor.ServidorHttp} em execução, que a mantém em dia como ouvinte. Um lado dado por
+ * diretório ({@link NoMerkleLocal#abrir}) monta a árvore lendo todo o armazenamento a cada
+ * execução, o que custa {@code O(tamanho do catálogo)} antes da primeira comparação.</p>
+ *
+ * <p>A origem é a referência: registros que só existem no destino são removidos (apenas o
+ * registro; arquivos físicos não são tocados), a menos que {@link #setRemoverAusentes(boolean)}
+ * seja {@code false}. Escritas feitas nos dois lados durante a sincronização podem escapar dela;
+ * basta repeti-la, já que uma passada sem diferenças custa uma única comparação.</p>
+ *
+ * <p>Uso: {@code java ferramentas.SincronizacaoMerkle [origem] [destino]}, onde cada lado é um
+ * diretório de armazenamento ou o endereço de um {@link servidor.ServidorHttp}
+ * ({@code http://...}).</p>
+ *
+ * @see NoMerkle
+ */
+public class SincronizacaoMerkle {
+    private final NoMerkle origem;
+    private final NoMerkle destino;
+    private boolean removerAusentes = true;
+
+    /**
+     * **Resumo de uma sincronização.**
+     */
+    public static final class Relatorio {
+        private int rodadas;
+        private long hashesComparados;
+        private int folhasDiferentes;
+        private int copiados;
+        private int removidos;
+
+        /**
+         * @return O número de trocas de mensagens com cada lado.
+         */
+        public int getRodadas() {
+            return rodadas;
+        }
+
+        /**
+         * @return Quantos hashes (de nós e de registros) foram comparados.
+         */
+        public long getHashesComparados() {
+            return hashesComparados;
+        }
+
+        /**
+         * @return Quantas folhas tinham conteúdo diferente.
+         */
+        public int getFolhasDiferentes() {
+            return folhasDiferentes;
+        }
+
+        /**
+         * @return Quantas mídias foram copiadas da origem para o destino.
+         */
+        public int getCopiados() {
+            return copiados;
+        }
+
+        /**
+         * @return Quantos registros foram removidos do destino.
+         */
+        public int getRemovidos() {
+            return removidos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rodadas=%d hashes=%d folhas=%d copiados=%d removidos=%d",
+                    rodadas, hashesComparados, folhasDiferentes, copiados, removidos);
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param origem O catálogo de referência.
+     * @param destino O catálogo que será alterado.
+     */
+    public SincronizacaoMerkle(NoMerkle origem, NoMerkle destino) {
+        this.origem = origem;
+        this.destino = destino;
+    }
+
+    /**
+     * @param removerAusentes {@code true} (padrão) para remover do destino os registros que não
+     * existem na origem.
+     */
+    public void setRemoverAusentes(boolean removerAusentes) {
+        this.removerAusentes = removerAusentes;
+    }
+
+    /**
+     * Executa uma passada de sincronização.
+     *
+     * @return O resumo do que foi comparado e transferido.
+     * @throws IllegalStateException Se as árvores tiverem profundidades diferentes.
+     * @throws Exception Se ocorrer um erro em um dos lados.
+     */
+    public Relatorio sincronizar() throws Exception {
+        int profundidade = origem.getProfundidade();
+        if (destino.getProfundidade() != profundidade) {
+            throw new IllegalStateException("Profundidades diferentes: " + profundidade + " e " + destino.getProfundidade());
+        }
+        Relatorio r = new Relatorio();
+
+        // desce nível a nível, só pelos nós diferentes
+        int[] nivel = {0};
+        for (int n = 0; n <= profundidade && nivel.length > 0; n++) {
+            long[] a = origem.hashes(nivel);
+            long[] b = destino.hashes(nivel);
+            r.rodadas++;
+            r.hashesComparados += nivel.length;
+            int[] diferentes = new int[nivel.length];
+            int d = 0;
+            for (int i = 0; i < nivel.length; i++) {
+                if (a[i] != b[i]) diferentes[d++] = nivel[i];
+            }
+            nivel = n == profundidade ? Arrays.copyOf(diferentes, d) : filhos(diferentes, d);
+        }
+        r.folhasDiferentes = nivel.length;
+        if (nivel.length == 0) return r;
+
+        // nas folhas diferentes, compara registro a registro
+        Map<Integer, Long> naOrigem = origem.registros(nivel);
+        Map<Integer, Long> noDestino = destino.registros(nivel);
+        r.rodadas++;
+        r.hashesComparados += naOrigem.size() + noDestino.size();
+        int[] copiar = new int[naOrigem.size()];
+        int c = 0;
+        for (Map.Entry<Integer, Long> e : naOrigem.entrySet()) {
+            if (!e.getValue().equals(noDestino.get(e.getKey()))) copiar[c++] = e.getKey();
+        }
+        int[] remover = new int[0];
+        if (removerAusentes) {
+            remover = noDestino.keySet().stream().filter(id -> !naOrigem.containsKey(id)).mapToInt(Integer::intValue).toArray();
+        }
+
+        List<Midia> midias = c == 0 ? Collections.emptyList() : origem.buscar(Arrays.copyOf(copiar, c));
+        if (c > 0) r.rodadas++;
+        destino.aplicar(midias, remover);
+        r.copiados = midias.size();
+        r.removidos = remover.length;
+        return r;
+    }
+
+    private static int[] filhos(int[] nos, int n) {
+        int[] res = new int[n * ArvoreMerkle.ARIDADE];
+        for (int i = 0; i < n; i++) {
+            for (int f = 0; f < ArvoreMerkle.ARIDADE; f++) res[i * ArvoreMerkle.ARIDADE + f] = nos[i] * ArvoreMerkle.ARIDADE + 1 + f;
+        }
+        return res;
+    }
+
+    private static NoMerkle abrir(String lado, int profundidade) throws Exception {
+        if (lado.startsWith("http://") || lado.startsWith("https://")) return new NoMerkleHttp(lado);
+        return NoMerkleLocal.abrir(Paths.get(lado), profundidade);
+    }
+
+    // ------------------------------------------------------------
+    // MAIN
+    // ------------------------------------------------------------
+    public static void main(String[] args) {
+        try {
+            if (args.length < 2) {
+                System.err.println("Uso: java ferramentas.SincronizacaoMerkle [origem] [destino]");
+                System.exit(2);
+            }
+            // com um lado remoto, a profundidade local acompanha a dele
+            int profundidade = Integer.getInteger("merkle.profundidade", 3);
+            for (String lado : args) {
+                if (lado.startsWith("http")) profundidade = new NoMerkleHttp(lado).getProfundidade();
+            }
+            NoMerkle origem = abrir(args[0], profundidade);
+            NoMerkle destino = abrir(args[1], profundidade);
+            long inicio = System.nanoTime();
+            Relatorio r = new SincronizacaoMerkle(origem, destino).sincronizar();
+            System.out.printf("%s em %.1f ms%n", r, (System.nanoTime() - inicio) / 1e6);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
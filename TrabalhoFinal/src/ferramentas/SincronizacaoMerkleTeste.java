@@ -0,0 +1,100 @@
+package ferramentas;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import controle.ArvoreMerkle;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import model.*;
+import servidor.ServidorHttp;
+
+class SincronizacaoMerkleTeste {
+
+    private Path tempDir;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("sincmerkle");
+        FileMidiaDAO a = new FileMidiaDAO(tempDir.resolve("a"));
+        FileMidiaDAO b = new FileMidiaDAO(tempDir.resolve("b"));
+        for (int i = 1; i <= 300; i++) {
+            Midia m = new Livro(i, "c:/l" + i + ".pdf", i * 10L, "L" + i, 100, "Romance", "X");
+            a.salvar(m);
+            b.salvar(m);
+        }
+        // divergência: 2 alteradas, 1 só na origem, 1 só no destino
+        a.salvar(new Livro(10, "c:/l10.pdf", 100, "Novo título", 100, "Romance", "X"));
+        a.salvar(new Livro(20, "c:/l20.pdf", 200, "L20", 250, "Romance", "X"));
+        a.salvar(new Livro(500, "c:/l500.pdf", 5, "L500", 10, "Drama", "Y"));
+        b.salvar(new Livro(600, "c:/l600.pdf", 6, "L600", 10, "Drama", "Y"));
+    }
+
+    private static long raiz(NoMerkle no) throws Exception {
+        return no.hashes(new int[]{0})[0];
+    }
+
+    @Test
+    void testTransfereSoADivergencia() throws Exception {
+        NoMerkleLocal origem = NoMerkleLocal.abrir(tempDir.resolve("a"), 3);
+        NoMerkleLocal destino = NoMerkleLocal.abrir(tempDir.resolve("b"), 3);
+        assertNotEquals(raiz(origem), raiz(destino));
+
+        SincronizacaoMerkle.Relatorio r = new SincronizacaoMerkle(origem, destino).sincronizar();
+        assertEquals(3, r.getCopiados());
+        assertEquals(1, r.getRemovidos());
+        assertEquals(6, r.getRodadas());
+        assertTrue(r.getHashesComparados() < 300, r.toString());
+        assertEquals(raiz(origem), raiz(destino));
+
+        FileMidiaDAO b = new FileMidiaDAO(tempDir.resolve("b"));
+        assertEquals("Novo título", b.buscarPorId(10).get().getTitulo());
+        assertTrue(b.buscarPorId(500).isPresent());
+        assertFalse(b.buscarPorId(600).isPresent());
+
+        // uma segunda passada só compara a raiz
+        SincronizacaoMerkle.Relatorio r2 = new SincronizacaoMerkle(origem, destino).sincronizar();
+        assertEquals(1, r2.getRodadas());
+        assertEquals(1L, r2.getHashesComparados());
+        assertEquals(0, r2.getCopiados());
+    }
+
+    @Test
+    void testSemRemoverAusentes() throws Exception {
+        NoMerkleLocal origem = NoMerkleLocal.abrir(tempDir.resolve("a"), 2);
+        NoMerkleLocal destino = NoMerkleLocal.abrir(tempDir.resolve("b"), 2);
+        SincronizacaoMerkle s = new SincronizacaoMerkle(origem, destino);
+        s.setRemoverAusentes(false);
+        assertEquals(0, s.sincronizar().getRemovidos());
+        assertTrue(new FileMidiaDAO(tempDir.resolve("b")).buscarPorId(600).isPresent());
+
+        assertThrows(IllegalStateException.class,
+                () -> new SincronizacaoMerkle(origem, NoMerkleLocal.abrir(tempDir.resolve("b"), 3)).sincronizar());
+    }
+
+    @Test
+    void testDestinoRemotoPorHttp() throws Exception {
+        FileMidiaDAO dadosB = new FileMidiaDAO(tempDir.resolve("b"));
+        MidiaControle controleB = new MidiaControle(dadosB);
+        ArvoreMerkle arvoreB = ArvoreMerkle.carregar(dadosB, 3);
+        controleB.adicionarOuvinte(arvoreB);
+        ServidorHttp servidor = new ServidorHttp(controleB, new InetSocketAddress("localhost", 0));
+        servidor.setArvoreMerkle(arvoreB);
+        servidor.iniciar();
+        try {
+            NoMerkleHttp remoto = new NoMerkleHttp("http://localhost:" + servidor.getPorta());
+            NoMerkleLocal origem = NoMerkleLocal.abrir(tempDir.resolve("a"), 3);
+            SincronizacaoMerkle.Relatorio r = new SincronizacaoMerkle(origem, remoto).sincronizar();
+            assertEquals(3, r.getCopiados());
+            assertEquals(raiz(origem), raiz(remoto));
+            assertEquals("Novo título", controleB.buscarPorId(10).get().getTitulo());
+            assertFalse(controleB.buscarPorId(600).isPresent());
+        } finally {
+            servidor.parar();
+        }
+    }
+}
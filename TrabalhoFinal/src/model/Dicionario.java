@@ -0,0 +1,116 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * **Dicionário de Valores para Campos de Baixa Cardinalidade.**
+ *
+ * <p>Campos como {@code categoria} e {@code idiomaAudio} assumem poucas dezenas de valores
+ * distintos, mas cada registro lido do disco criaria uma nova {@code String} para eles.
+ * O dicionário mantém uma única instância <b>canônica</b> de cada valor e associa a ela
+ * um <b>código inteiro</b> pequeno e sequencial.</p>
+ *
+ * <p>Como todas as mídias guardam a instância canônica (ver {@link Midia#setCategoria(String)}
+ * e {@link Filme#setIdiomaAudio(String)}), dois valores iguais são sempre o mesmo objeto e
+ * podem ser comparados por referência ({@code ==}).</p>
+ *
+ * <p>Os códigos deste dicionário valem apenas em memória, durante a execução; o armazenamento
+ * mantém seus próprios códigos persistentes.</p>
+ *
+ * <p>É <b>thread-safe</b>.</p>
+ */
+public class Dicionario {
+
+    /** Dicionário compartilhado das categorias de todas as mídias. */
+    public static final Dicionario CATEGORIAS = new Dicionario();
+
+    /** Dicionário compartilhado dos idiomas de áudio dos filmes. */
+    public static final Dicionario IDIOMAS = new Dicionario();
+
+    private final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+    private volatile String[] valores = new String[16];
+    private int tamanho = 0;
+
+    /**
+     * Retorna a instância canônica do valor, registrando-o se ainda não existir.
+     *
+     * @param valor O valor a ser canonizado (pode ser {@code null}).
+     * @return A instância canônica, igual a {@code valor}, ou {@code null} se {@code valor} for {@code null}.
+     */
+    public String canonico(String valor) {
+        if (valor == null) return null;
+        return valor(codigo(valor));
+    }
+
+    /**
+     * Retorna o código do valor, registrando-o se ainda não existir.
+     *
+     * @param valor O valor (não nulo).
+     * @return O código inteiro do valor ({@code >= 0}).
+     */
+    public int codigo(String valor) {
+        Integer c = codigos.get(valor);
+        if (c != null) return c;
+        synchronized (this) {
+            c = codigos.get(valor);
+            if (c != null) return c;
+            if (tamanho == valores.length) valores = Arrays.copyOf(valores, tamanho * 2);
+            valores[tamanho] = valor;
+            codigos.put(valor, tamanho);
+            return tamanho++;
+        }
+    }
+
+    /**
+     * Retorna o código de um valor já registrado, sem registrá-lo.
+     *
+     * @param valor O valor procurado.
+     * @return O código do valor, ou {@code -1} se ele não estiver no dicionário.
+     */
+    public int buscarCodigo(String valor) {
+        Integer c = codigos.get(valor);
+        return c == null ? -1 : c;
+    }
+
+    /**
+     * Retorna o valor associado a um código.
+     *
+     * @param codigo O código obtido com {@link #codigo(String)}.
+     * @return O valor canônico.
+     * @throws IllegalArgumentException Se o código não existir.
+     */
+    public String valor(int codigo) {
+        String[] v = valores;
+        String s = codigo >= 0 && codigo < v.length ? v[codigo] : null;
+        if (s == null) throw new IllegalArgumentException("Código desconhecido: " + codigo);
+        return s;
+    }
+
+    /**
+     * Retorna as instâncias canônicas iguais ao valor, ignorando maiúsculas e minúsculas
+     * (ex.: "Rock" e "rock").
+     * <p>Útil para filtros sem distinção de caixa: basta comparar o campo por referência com
+     * cada elemento retornado.</p>
+     *
+     * @param valor O valor procurado.
+     * @return As instâncias canônicas equivalentes (vazio se nenhuma).
+     */
+    public List<String> variantes(String valor) {
+        List<String> res = new ArrayList<>(2);
+        String[] v = valores;
+        for (String s : v) {
+            if (s != null && s.equalsIgnoreCase(valor)) res.add(s);
+        }
+        return res;
+    }
+
+    /**
+     * @return O número de valores distintos registrados.
+     */
+    public int tamanho() {
+        return codigos.size();
+    }
+}
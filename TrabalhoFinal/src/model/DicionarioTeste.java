@@ -0,0 +1,42 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class DicionarioTeste {
+
+	@Test
+    void testCanonico() {
+        Dicionario d = new Dicionario();
+        String a = d.canonico(new String("Rock"));
+        String b = d.canonico(new String("Rock"));
+        assertSame(a, b);
+        assertEquals(1, d.tamanho());
+    }
+
+    @Test
+    void testCodigos() {
+        Dicionario d = new Dicionario();
+        assertEquals(0, d.codigo("Pop"));
+        assertEquals(1, d.codigo("Rock"));
+        assertEquals("Rock", d.valor(1));
+        assertEquals(-1, d.buscarCodigo("Jazz"));
+    }
+
+    @Test
+    void testVariantes() {
+        Dicionario d = new Dicionario();
+        d.codigo("Rock");
+        d.codigo("rock");
+        d.codigo("Pop");
+        assertEquals(2, d.variantes("ROCK").size());
+    }
+
+    @Test
+    void testCategoriaDaMidiaCanonica() {
+        Musica a = new Musica("l", 1, "A", 1, new String("Samba"), "X");
+        Musica b = new Musica("l", 1, "B", 1, new String("Samba"), "Y");
+        assertSame(a.getCategoria(), b.getCategoria());
+    }
+}
@@ -25,7 +25,7 @@ public class Filme extends Midia{
      */
     public Filme(String local, long tamanhoBytes, String titulo, long duracaoMinutes, String categoria, String idiomaAudio) {
         super(local, tamanhoBytes, titulo, duracaoMinutes, categoria);
-        this.idiomaAudio = idiomaAudio;
+        this.idiomaAudio = Dicionario.IDIOMAS.canonico(idiomaAudio);
     }
 
     /**
@@ -41,7 +41,7 @@ public class Filme extends Midia{
      */
     public Filme(int id, String local, long tamanhoBytes, String titulo, long duracaoMinutes, String categoria, String idiomaAudio) {
         super(id, local, tamanhoBytes, titulo, duracaoMinutes, categoria);
-        this.idiomaAudio = idiomaAudio;
+        this.idiomaAudio = Dicionario.IDIOMAS.canonico(idiomaAudio);
     }
 
     /**
@@ -53,11 +53,12 @@ public class Filme extends Midia{
 
     /**
      *  Define o idioma de áudio do filme.
+     * <p>O valor é guardado na sua instância canônica do {@link Dicionario#IDIOMAS}.</p>
      *
      * @param idiomaAudio O novo idioma de áudio.
      */
     public void setIdiomaAudio(String idiomaAudio) {
-    	this.idiomaAudio = idiomaAudio;
+    	this.idiomaAudio = Dicionario.IDIOMAS.canonico(idiomaAudio);
     }
 
     /**
@@ -79,4 +80,14 @@ public class Filme extends Midia{
     public String exibirAtributosEspecificos() {
         return "Idioma áudio: " + idiomaAudio + " | Duração(min): " + getDuracao();
     }
+
+    /**
+     * Retorna uma cópia independente deste {@code Filme}.
+     *
+     * @return Um novo {@code Filme} com o mesmo ID e os mesmos atributos.
+     */
+    @Override
+    public Filme copia() {
+        return new Filme(getId(), getLocal(), getTamanhoBytes(), getTitulo(), getDuracao(), getCategoria(), idiomaAudio);
+    }
 }
\ No newline at end of file
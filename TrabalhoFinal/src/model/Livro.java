@@ -98,4 +98,14 @@ public class Livro extends Midia{
     public String exibirAtributosEspecificos() {
         return "Autores: " + autores + " | Páginas: " + getDuracao();
     }
+
+    /**
+     * Retorna uma cópia independente deste {@code Livro}.
+     *
+     * @return Um novo {@code Livro} com o mesmo ID e os mesmos atributos.
+     */
+    @Override
+    public Livro copia() {
+        return new Livro(getId(), getLocal(), getTamanhoBytes(), getTitulo(), getDuracao(), getCategoria(), autores);
+    }
 }
\ No newline at end of file
@@ -40,7 +40,7 @@ public abstract class Midia {
         this.tamanhoBytes = tamanhoBytes;
         this.titulo = titulo;
         this.duracao = duracao;
-        this.categoria = categoria;
+        this.categoria = Dicionario.CATEGORIAS.canonico(categoria);
     }
 
 
@@ -61,7 +61,7 @@ public abstract class Midia {
         this.tamanhoBytes = tamanhoBytes;
         this.titulo = titulo;
         this.duracao = duracao;
-        this.categoria = categoria;
+        this.categoria = Dicionario.CATEGORIAS.canonico(categoria);
     }
 
 
@@ -169,11 +169,12 @@ public abstract class Midia {
 
     /**
      *  Define a categoria ou gênero da mídia.
+     * <p>O valor é guardado na sua instância canônica do {@link Dicionario#CATEGORIAS}.</p>
      *
      * @param categoria A nova categoria.
      */
     public void setCategoria(String categoria) {
-    	this.categoria = categoria;
+    	this.categoria = Dicionario.CATEGORIAS.canonico(categoria);
     }
 
     // --- MÉTODOS ABSTRATOS ---
@@ -194,6 +195,14 @@ public abstract class Midia {
      */
     public abstract String exibirAtributosEspecificos();
 
+    /**
+     *  **Método Abstrato:** Deve ser implementado pelas subclasses para retornar uma cópia
+     * independente da mídia (mesmo ID e mesmos atributos), que pode ser alterada sem afetar o original.
+     *
+     * @return Uma nova instância com os mesmos valores.
+     */
+    public abstract Midia copia();
+
     // --- MÉTODOS PADRÃO ---
 
     /**
@@ -0,0 +1,195 @@
+package model;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+import model.Projecao.Campo;
+
+/**
+ * **Mídia Carregada Sob Demanda.**
+ *
+ * <p>Uma {@link Midia} montada a partir de uma {@link Projecao}: os campos da projeção (e o
+ * {@code id} e o {@code tipo}) são respondidos na hora; no primeiro acesso a qualquer outro
+ * atributo (por exemplo, o caminho do arquivo ou o atributo específico do subtipo, pedidos ao
+ * abrir o diálogo de edição) a mídia completa é lida uma única vez pelo {@link Carregador}.</p>
+ *
+ * <p>Não é uma {@link Musica}, {@link Filme} ou {@link Livro}: quem precisa do subtipo concreto
+ * (gravação, codificação) deve usar {@link #concreta(Midia)}, que carrega a mídia e aplica os
+ * valores alterados pelos setters. É <b>thread-safe</b> quanto à carga.</p>
+ *
+ * @see Projecao
+ */
+public class MidiaSobDemanda extends Midia {
+
+    /**
+     * **Origem da mídia completa.**
+     */
+    @FunctionalInterface
+    public interface Carregador {
+        /**
+         * @param id O ID da mídia.
+         * @return A mídia completa, ou vazio se ela não existir mais.
+         * @throws Exception Se a leitura falhar.
+         */
+        Optional<Midia> carregar(int id) throws Exception;
+    }
+
+    private final String tipo;
+    private final Carregador carregador;
+    // campos já conhecidos: os da projeção e os definidos pelos setters
+    private final EnumSet<Campo> conhecidos;
+    private Midia completa;
+
+    /**
+     * Construtor.
+     *
+     * @param p A projeção com os campos já lidos.
+     * @param carregador De onde ler a mídia completa, ou {@code null} se os outros campos nunca
+     * forem acessados.
+     */
+    public MidiaSobDemanda(Projecao p, Carregador carregador) {
+        super(p.getId(), p.getLocal(), p.getTamanhoBytes(), p.getTitulo(), p.getDuracao(), p.getCategoria());
+        this.tipo = p.getTipo();
+        this.carregador = carregador;
+        this.conhecidos = p.getCampos().isEmpty() ? EnumSet.noneOf(Campo.class) : EnumSet.copyOf(p.getCampos());
+    }
+
+    /**
+     * Devolve a mídia no seu subtipo concreto.
+     *
+     * @param m Uma mídia qualquer.
+     * @return A própria mídia, ou, se for uma {@code MidiaSobDemanda}, uma cópia completa com
+     * os valores definidos nela.
+     */
+    public static Midia concreta(Midia m) {
+        return m instanceof MidiaSobDemanda ? ((MidiaSobDemanda) m).copia() : m;
+    }
+
+    /**
+     * @return {@code true} se a mídia completa já foi lida.
+     */
+    public synchronized boolean isCarregada() {
+        return completa != null;
+    }
+
+    /**
+     * Lê a mídia completa, se ainda não tiver sido lida.
+     *
+     * @return A mídia completa, como está no armazenamento.
+     * @throws IllegalStateException Se a mídia não existir mais ou não puder ser lida.
+     */
+    public synchronized Midia completa() {
+        if (completa == null) {
+            Optional<Midia> m;
+            try {
+                m = carregador == null ? Optional.empty() : carregador.carregar(getId());
+            } catch (Exception ex) {
+                throw new IllegalStateException("Não foi possível carregar a mídia " + getId(), ex);
+            }
+            if (!m.isPresent()) throw new IllegalStateException("Mídia não encontrada: " + getId());
+            completa = m.get();
+        }
+        return completa;
+    }
+
+    private synchronized boolean conhece(Campo c) {
+        return conhecidos.contains(c);
+    }
+
+    private synchronized void conhecer(Campo c) {
+        conhecidos.add(c);
+    }
+
+    // --- ATRIBUTOS ---
+
+    @Override
+    public String getTipo() {
+        return tipo;
+    }
+
+    @Override
+    public String getLocal() {
+        return conhece(Campo.LOCAL) ? super.getLocal() : completa().getLocal();
+    }
+
+    @Override
+    public void setLocal(String local) {
+        super.setLocal(local);
+        conhecer(Campo.LOCAL);
+    }
+
+    @Override
+    public long getTamanhoBytes() {
+        return conhece(Campo.TAMANHO) ? super.getTamanhoBytes() : completa().getTamanhoBytes();
+    }
+
+    @Override
+    public void setTamanhoBytes(long tamanhoBytes) {
+        super.setTamanhoBytes(tamanhoBytes);
+        conhecer(Campo.TAMANHO);
+    }
+
+    @Override
+    public String getTitulo() {
+        return conhece(Campo.TITULO) ? super.getTitulo() : completa().getTitulo();
+    }
+
+    @Override
+    public void setTitulo(String titulo) {
+        super.setTitulo(titulo);
+        conhecer(Campo.TITULO);
+    }
+
+    @Override
+    public long getDuracao() {
+        return conhece(Campo.DURACAO) ? super.getDuracao() : completa().getDuracao();
+    }
+
+    @Override
+    public void setDuracao(long duracao) {
+        super.setDuracao(duracao);
+        conhecer(Campo.DURACAO);
+    }
+
+    @Override
+    public String getCategoria() {
+        return conhece(Campo.CATEGORIA) ? super.getCategoria() : completa().getCategoria();
+    }
+
+    @Override
+    public void setCategoria(String categoria) {
+        super.setCategoria(categoria);
+        conhecer(Campo.CATEGORIA);
+    }
+
+    @Override
+    public String exibirAtributosEspecificos() {
+        return completa().exibirAtributosEspecificos();
+    }
+
+    /**
+     * Carrega a mídia e devolve uma cópia do subtipo concreto, com os valores conhecidos aqui
+     * (da projeção ou dos setters) sobrepostos aos lidos.
+     */
+    @Override
+    public Midia copia() {
+        Midia c = completa().copia();
+        Set<Campo> campos;
+        synchronized (this) {
+            campos = EnumSet.copyOf(conhecidos);
+        }
+        c.setId(getId());
+        if (campos.contains(Campo.LOCAL)) c.setLocal(super.getLocal());
+        if (campos.contains(Campo.TAMANHO)) c.setTamanhoBytes(super.getTamanhoBytes());
+        if (campos.contains(Campo.TITULO)) c.setTitulo(super.getTitulo());
+        if (campos.contains(Campo.DURACAO)) c.setDuracao(super.getDuracao());
+        if (campos.contains(Campo.CATEGORIA)) c.setCategoria(super.getCategoria());
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s [%s] (%s)", getTitulo(), getTipo(), getCategoria());
+    }
+}
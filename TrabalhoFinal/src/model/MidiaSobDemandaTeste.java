@@ -0,0 +1,60 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+class MidiaSobDemandaTeste {
+
+    private static final Set<Projecao.Campo> TABELA =
+            EnumSet.of(Projecao.Campo.TITULO, Projecao.Campo.CATEGORIA, Projecao.Campo.DURACAO);
+
+    @Test
+    void testCarregaSoNoPrimeiroAcessoForaDaProjecao() {
+        Musica completa = new Musica(7, "c:/m.mp3", 500, "Song", 180, "Rock", "Band");
+        int[] cargas = {0};
+        MidiaSobDemanda m = new MidiaSobDemanda(Projecao.de(completa, TABELA), id -> {
+            cargas[0]++;
+            return Optional.of(completa);
+        });
+
+        assertEquals("Song", m.getTitulo());
+        assertEquals("MUSICA", m.getTipo());
+        assertEquals(180, m.getDuracao());
+        assertEquals(0, cargas[0]);
+        assertFalse(m.isCarregada());
+
+        assertEquals("c:/m.mp3", m.getLocal());
+        assertEquals(500, m.getTamanhoBytes());
+        assertEquals(completa.exibirAtributosEspecificos(), m.exibirAtributosEspecificos());
+        assertEquals(1, cargas[0]);
+    }
+
+    @Test
+    void testConcretaAplicaAlteracoes() {
+        Livro completo = new Livro(3, "c:/l.pdf", 10, "Antigo", 200, "Drama", "Autor");
+        MidiaSobDemanda m = new MidiaSobDemanda(Projecao.de(completo, TABELA), id -> Optional.of(completo));
+        m.setTitulo("Novo");
+        m.setLocal("c:/novo.pdf");
+
+        Midia c = MidiaSobDemanda.concreta(m);
+        assertTrue(c instanceof Livro);
+        assertEquals("Novo", c.getTitulo());
+        assertEquals("c:/novo.pdf", c.getLocal());
+        assertEquals("Autor", ((Livro) c).getAutores());
+        assertEquals("Antigo", completo.getTitulo());
+        assertSame(completo, MidiaSobDemanda.concreta(completo));
+    }
+
+    @Test
+    void testMidiaRemovida() {
+        Filme f = new Filme(9, "c:/f.mp4", 1, "F", 90, "Ação", "PT");
+        MidiaSobDemanda m = new MidiaSobDemanda(Projecao.de(f, TABELA), id -> Optional.empty());
+        assertEquals("F", m.getTitulo());
+        assertThrows(IllegalStateException.class, m::getLocal);
+        assertThrows(IllegalArgumentException.class, () -> Projecao.Campo.daChave("artista"));
+        assertEquals(Projecao.Campo.TAMANHO, Projecao.Campo.daChave("tamanhoBytes"));
+    }
+}
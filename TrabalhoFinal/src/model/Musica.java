@@ -82,4 +82,14 @@ public class Musica extends Midia{
     public String exibirAtributosEspecificos() {
         return "Artista: " + artista + " | Duração(s): " + getDuracao();
     }
+
+    /**
+     * Retorna uma cópia independente deste {@code Musica}.
+     *
+     * @return Um novo {@code Musica} com o mesmo ID e os mesmos atributos.
+     */
+    @Override
+    public Musica copia() {
+        return new Musica(getId(), getLocal(), getTamanhoBytes(), getTitulo(), getDuracao(), getCategoria(), artista);
+    }
 }
\ No newline at end of file
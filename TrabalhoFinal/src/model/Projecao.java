@@ -0,0 +1,169 @@
+package model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * **Projeção de uma Mídia (Apenas Alguns Campos).**
+ *
+ * <p>Resultado leve de uma listagem que não precisa da mídia inteira: sempre traz o
+ * {@code id} e o {@code tipo}, e dos demais atributos só os {@link Campo}s pedidos. Os campos
+ * não pedidos ficam {@code null} (textos) ou {@code 0} (números).</p>
+ *
+ * @see MidiaSobDemanda
+ * @see dao.MidiaDAO#percorrerProjecao(Set, dao.ProcessadorProjecao)
+ */
+public final class Projecao {
+
+    /**
+     * **Atributos opcionais de uma projeção.**
+     */
+    public enum Campo {
+        TITULO("titulo"),
+        CATEGORIA("categoria"),
+        DURACAO("duracao"),
+        TAMANHO("tamanhoBytes"),
+        LOCAL("local");
+
+        private final String chave;
+
+        Campo(String chave) {
+            this.chave = chave;
+        }
+
+        /**
+         * @return O nome do atributo no armazenamento e no JSON (ex.: {@code tamanhoBytes}).
+         */
+        public String getChave() {
+            return chave;
+        }
+
+        /**
+         * Converte o nome de um atributo no campo correspondente.
+         *
+         * @param chave O nome (ex.: {@code titulo} ou {@code tamanhoBytes}), sem distinção de caixa.
+         * @return O campo.
+         * @throws IllegalArgumentException Se o nome não corresponder a um campo.
+         */
+        public static Campo daChave(String chave) {
+            for (Campo c : values()) {
+                if (c.chave.equalsIgnoreCase(chave) || c.name().equalsIgnoreCase(chave)) return c;
+            }
+            throw new IllegalArgumentException("Campo desconhecido: " + chave);
+        }
+    }
+
+    private final int id;
+    private final String tipo;
+    private final Set<Campo> campos;
+    private final String titulo;
+    private final String categoria;
+    private final long duracao;
+    private final long tamanhoBytes;
+    private final String local;
+
+    /**
+     * Construtor.
+     *
+     * @param id O ID da mídia.
+     * @param tipo O tipo ("MUSICA", "FILME" ou "LIVRO").
+     * @param campos Os campos presentes (o conjunto não é copiado; não deve ser alterado depois).
+     * @param titulo O título, se pedido.
+     * @param categoria A categoria, se pedida.
+     * @param duracao A duração, se pedida.
+     * @param tamanhoBytes O tamanho, se pedido.
+     * @param local O caminho do arquivo, se pedido.
+     */
+    public Projecao(int id, String tipo, Set<Campo> campos, String titulo, String categoria,
+            long duracao, long tamanhoBytes, String local) {
+        this.id = id;
+        this.tipo = tipo;
+        this.campos = campos;
+        this.titulo = titulo;
+        this.categoria = categoria;
+        this.duracao = duracao;
+        this.tamanhoBytes = tamanhoBytes;
+        this.local = local;
+    }
+
+    /**
+     * Projeta uma mídia já carregada.
+     *
+     * @param m A mídia.
+     * @param campos Os campos a manter.
+     * @return A projeção.
+     */
+    public static Projecao de(Midia m, Set<Campo> campos) {
+        return new Projecao(m.getId(), m.getTipo(), campos,
+                campos.contains(Campo.TITULO) ? m.getTitulo() : null,
+                campos.contains(Campo.CATEGORIA) ? m.getCategoria() : null,
+                campos.contains(Campo.DURACAO) ? m.getDuracao() : 0,
+                campos.contains(Campo.TAMANHO) ? m.getTamanhoBytes() : 0,
+                campos.contains(Campo.LOCAL) ? m.getLocal() : null);
+    }
+
+    /**
+     * @return Os campos presentes na projeção (além de {@code id} e {@code tipo}).
+     */
+    public Set<Campo> getCampos() {
+        return Collections.unmodifiableSet(campos.isEmpty() ? EnumSet.noneOf(Campo.class) : campos);
+    }
+
+    /**
+     * @param c Um campo.
+     * @return {@code true} se o campo foi carregado.
+     */
+    public boolean contem(Campo c) {
+        return campos.contains(c);
+    }
+
+    /**
+     * @return O ID da mídia.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return O tipo ("MUSICA", "FILME" ou "LIVRO").
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return O título, ou {@code null} se não foi pedido.
+     */
+    public String getTitulo() {
+        return titulo;
+    }
+
+    /**
+     * @return A categoria, ou {@code null} se não foi pedida.
+     */
+    public String getCategoria() {
+        return categoria;
+    }
+
+    /**
+     * @return A duração, ou {@code 0} se não foi pedida.
+     */
+    public long getDuracao() {
+        return duracao;
+    }
+
+    /**
+     * @return O tamanho em bytes, ou {@code 0} se não foi pedido.
+     */
+    public long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    /**
+     * @return O caminho do arquivo, ou {@code null} se não foi pedido.
+     */
+    public String getLocal() {
+        return local;
+    }
+}
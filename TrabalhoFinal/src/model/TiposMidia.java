@@ -0,0 +1,43 @@
+package model;
+
+import java.util.List;
+
+/**
+ * **Tipos de Mídia e seus Códigos.**
+ *
+ * <p>Os valores de {@link Midia#getTipo()} e o código inteiro de cada um, que é a sua posição em
+ * {@link #NOMES}. O código é <b>persistido</b> (campo {@code tipoCod} dos registros e blocos fora
+ * do heap) e serve de índice nas estruturas em memória; por isso a ordem não pode mudar, e um
+ * tipo novo só pode entrar no fim.</p>
+ */
+public final class TiposMidia {
+
+    /** Os tipos, na ordem dos códigos. */
+    public static final List<String> NOMES = List.of("MUSICA", "FILME", "LIVRO");
+
+    /** O número de tipos (os códigos vão de {@code 0} a {@code TOTAL - 1}). */
+    public static final int TOTAL = NOMES.size();
+
+    private TiposMidia() {
+    }
+
+    /**
+     * @param tipo O nome do tipo (sem distinção de caixa), ou {@code null}.
+     * @return O código do tipo, ou {@code -1} se ele não existir.
+     */
+    public static int codigo(String tipo) {
+        for (int i = 0; i < TOTAL; i++) {
+            if (NOMES.get(i).equalsIgnoreCase(tipo)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param codigo O código de um tipo.
+     * @return O nome do tipo.
+     * @throws IndexOutOfBoundsException Se o código não existir.
+     */
+    public static String nome(int codigo) {
+        return NOMES.get(codigo);
+    }
+}
@@ -0,0 +1,215 @@
+package servidor;
+
+import static servidor.ProtocoloBinario.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dao.CodecBinario;
+import dao.ProcessadorMidia;
+import model.Midia;
+
+/**
+ * **Cliente do Protocolo Binário.**
+ *
+ * <p>Biblioteca para ferramentas em lote que falam com o {@link ServidorBinario}. Cada operação
+ * devolve imediatamente um {@link CompletableFuture}; os pedidos vão para a conexão na ordem em
+ * que são feitos (<i>pipelining</i>) e as respostas, que podem chegar fora de ordem, são
+ * associadas aos futuros pelo número da requisição. Uma única conexão atende várias threads
+ * ao mesmo tempo.</p>
+ *
+ * <p>Uma thread de leitura (virtual) recebe as respostas e completa os futuros. Se a conexão
+ * cair, todos os pedidos pendentes falham com {@link IOException}.</p>
+ *
+ * <pre>
+ * try (ClienteBinario c = new ClienteBinario(new InetSocketAddress("localhost", 9090))) {
+ *     Optional&lt;Midia&gt; m = c.buscar(42).get();
+ * }
+ * </pre>
+ *
+ * @see ServidorBinario
+ */
+public class ClienteBinario implements Closeable {
+    private final Socket socket;
+    private final DataOutputStream saida;
+    private final DataInputStream entrada;
+    private final AtomicInteger proximaRequisicao = new AtomicInteger();
+    private final Map<Integer, Pendente<?>> pendentes = new ConcurrentHashMap<>();
+    private final Thread leitor;
+    private volatile boolean fechado = false;
+
+    // lê o corpo de uma resposta OK
+    @FunctionalInterface
+    private interface LeitorResposta<T> {
+        T ler(DataInputStream in) throws IOException;
+    }
+
+    private static final class Pendente<T> {
+        final CompletableFuture<T> futuro = new CompletableFuture<>();
+        final LeitorResposta<T> leitor;
+        final T seAusente;
+        final ProcessadorMidia processador; // só nas varreduras
+
+        Pendente(LeitorResposta<T> leitor, T seAusente, ProcessadorMidia processador) {
+            this.leitor = leitor;
+            this.seAusente = seAusente;
+            this.processador = processador;
+        }
+    }
+
+    /**
+     * Conecta ao servidor.
+     *
+     * @param endereco O endereço do {@link ServidorBinario}.
+     * @throws IOException Se a conexão não puder ser aberta.
+     */
+    public ClienteBinario(InetSocketAddress endereco) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(endereco);
+        saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        leitor = Thread.ofVirtual().name("cliente-binario").start(this::receber);
+    }
+
+    // --- OPERAÇÕES ---
+
+    /**
+     * Busca uma mídia pelo ID.
+     *
+     * @param id O ID da mídia.
+     * @return Um futuro com a mídia, ou vazio se ela não existir.
+     */
+    public CompletableFuture<Optional<Midia>> buscar(int id) {
+        return pedir(BUSCAR, out -> out.writeInt(id),
+                new Pendente<>(in -> Optional.of(CodecBinario.ler(in)), Optional.empty(), null));
+    }
+
+    /**
+     * Inclui ou substitui um lote de mídias.
+     *
+     * @param lote As mídias a gravar.
+     * @return Um futuro com o número de mídias gravadas.
+     */
+    public CompletableFuture<Integer> salvarLote(List<Midia> lote) {
+        return pedir(SALVAR_LOTE, out -> {
+            out.writeInt(lote.size());
+            for (Midia m : lote) CodecBinario.escrever(m, out);
+        }, new Pendente<>(DataInputStream::readInt, null, null));
+    }
+
+    /**
+     * Remove o registro de uma mídia (o arquivo físico não é tocado).
+     *
+     * @param id O ID da mídia.
+     * @return Um futuro com {@code true} se o registro existia.
+     */
+    public CompletableFuture<Boolean> deletar(int id) {
+        return pedir(DELETAR, out -> out.writeInt(id),
+                new Pendente<>(DataInputStream::readBoolean, null, null));
+    }
+
+    /**
+     * Percorre no servidor as mídias que passam pelos filtros, recebendo-as em lotes.
+     * <p>O processador é chamado na thread de leitura do cliente, na ordem de chegada;
+     * deve ser rápido para não atrasar as respostas dos demais pedidos.</p>
+     *
+     * @param tipo O tipo a filtrar, ou {@code null} para todos.
+     * @param categoria A categoria a filtrar, ou {@code null} para todas.
+     * @param processador Chamado para cada mídia recebida.
+     * @return Um futuro com o número total de mídias enviadas pelo servidor.
+     */
+    public CompletableFuture<Integer> percorrer(String tipo, String categoria, ProcessadorMidia processador) {
+        return pedir(PERCORRER, out -> {
+            CodecBinario.escreverTexto(tipo, out);
+            CodecBinario.escreverTexto(categoria, out);
+        }, new Pendente<>(DataInputStream::readInt, null, processador));
+    }
+
+    /**
+     * Fecha a conexão; pedidos pendentes falham.
+     */
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        socket.close();
+        falharPendentes(new IOException("Cliente fechado"));
+    }
+
+    // --- ENVIO E RECEBIMENTO ---
+
+    private <T> CompletableFuture<T> pedir(byte operacao, Corpo corpo, Pendente<T> pendente) {
+        int req = proximaRequisicao.incrementAndGet();
+        pendentes.put(req, pendente);
+        try {
+            ByteBuffer q = quadro(req, operacao, corpo);
+            synchronized (saida) {
+                saida.write(q.array(), 0, q.limit());
+                saida.flush();
+            }
+        } catch (IOException ex) {
+            pendentes.remove(req);
+            pendente.futuro.completeExceptionally(ex);
+        }
+        return pendente.futuro;
+    }
+
+    private void receber() {
+        try {
+            while (!fechado) {
+                int tamanho = entrada.readInt();
+                if (tamanho < 5 || tamanho > TAMANHO_MAXIMO) throw new IOException("Quadro inválido: " + tamanho);
+                byte[] quadro = new byte[tamanho];
+                entrada.readFully(quadro);
+                tratar(ProtocoloBinario.ler(quadro));
+            }
+        } catch (IOException ex) {
+            falharPendentes(fechado ? new IOException("Cliente fechado") : ex);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void tratar(DataInputStream in) throws IOException {
+        int req = in.readInt();
+        byte status = in.readByte();
+        Pendente p = status == PARCIAL ? pendentes.get(req) : pendentes.remove(req);
+        if (p == null) return; // pedido já abandonado
+        switch (status) {
+            case OK:
+                p.futuro.complete(p.leitor.ler(in));
+                break;
+            case AUSENTE:
+                p.futuro.complete(p.seAusente);
+                break;
+            case PARCIAL:
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) {
+                    Midia m = CodecBinario.ler(in);
+                    if (p.futuro.isDone() || p.processador == null) continue;
+                    try {
+                        p.processador.processar(m);
+                    } catch (Exception ex) {
+                        p.futuro.completeExceptionally(ex);
+                    }
+                }
+                break;
+            case ERRO:
+                p.futuro.completeExceptionally(new IOException(CodecBinario.lerTexto(in)));
+                break;
+            default:
+                p.futuro.completeExceptionally(new IOException("Status desconhecido: " + status));
+        }
+    }
+
+    private void falharPendentes(IOException causa) {
+        for (Integer req : new ArrayList<>(pendentes.keySet())) {
+            Pendente<?> p = pendentes.remove(req);
+            if (p != null) p.futuro.completeExceptionally(causa);
+        }
+    }
+}
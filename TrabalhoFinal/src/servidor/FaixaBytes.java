@@ -0,0 +1,59 @@
+package servidor;
+
+/**
+ * **Faixa de bytes pedida num cabeçalho HTTP {@code Range}.**
+ *
+ * <p>Aceita uma única faixa nas três formas da RFC 9110: {@code bytes=inicio-fim},
+ * {@code bytes=inicio-} e {@code bytes=-sufixo}. Pedidos com várias faixas ou em outras
+ * unidades são ignorados (o arquivo inteiro é enviado, como a RFC permite).</p>
+ */
+final class FaixaBytes {
+    final long inicio;
+    final long fim; // inclusivo
+
+    private FaixaBytes(long inicio, long fim) {
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    /**
+     * @return O número de bytes da faixa.
+     */
+    long tamanho() {
+        return fim - inicio + 1;
+    }
+
+    /**
+     * Interpreta o cabeçalho {@code Range} para um arquivo do tamanho informado.
+     *
+     * @param cabecalho O valor do cabeçalho (pode ser {@code null}).
+     * @param total O tamanho do arquivo, em bytes.
+     * @return A faixa pedida, limitada ao fim do arquivo, ou {@code null} se o cabeçalho deve ser
+     * ignorado (ausente, malformado ou com várias faixas).
+     * @throws IllegalStateException Se a faixa for válida mas não puder ser atendida (começa depois do fim).
+     */
+    static FaixaBytes ler(String cabecalho, long total) {
+        if (cabecalho == null || !cabecalho.startsWith("bytes=")) return null;
+        String spec = cabecalho.substring(6).trim();
+        if (spec.contains(",")) return null;
+        int traco = spec.indexOf('-');
+        if (traco < 0) return null;
+        try {
+            String a = spec.substring(0, traco).trim();
+            String b = spec.substring(traco + 1).trim();
+            if (a.isEmpty()) {
+                // sufixo: os últimos N bytes
+                long n = Long.parseLong(b);
+                if (n <= 0 || total == 0) throw new IllegalStateException("Faixa não atendível: " + cabecalho);
+                return new FaixaBytes(Math.max(0, total - n), total - 1);
+            }
+            long inicio = Long.parseLong(a);
+            long fim = b.isEmpty() ? Long.MAX_VALUE : Long.parseLong(b);
+            if (inicio < 0 || fim < inicio) return null;
+            if (inicio >= total) throw new IllegalStateException("Faixa não atendível: " + cabecalho);
+            return new FaixaBytes(inicio, Math.min(fim, total - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
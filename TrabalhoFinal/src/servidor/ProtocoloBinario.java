@@ -0,0 +1,88 @@
+package servidor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * **Constantes e quadros do protocolo binário.**
+ *
+ * <p>Todo quadro, nos dois sentidos, tem o formato:</p>
+ * <pre>
+ * int tamanho (bytes que seguem) | int requisição | byte código | corpo
+ * </pre>
+ * <p>No pedido, o código é a operação; na resposta, é o status. O número da requisição é
+ * escolhido pelo cliente e devolvido em todas as respostas, que podem chegar fora de ordem.</p>
+ *
+ * <table>
+ * <caption>Operações</caption>
+ * <tr><th>Operação</th><th>Corpo do pedido</th><th>Resposta</th></tr>
+ * <tr><td>BUSCAR</td><td>int id</td><td>OK + mídia, ou AUSENTE</td></tr>
+ * <tr><td>SALVAR_LOTE</td><td>int n + n mídias</td><td>OK + int n</td></tr>
+ * <tr><td>DELETAR</td><td>int id</td><td>OK + boolean removido</td></tr>
+ * <tr><td>PERCORRER</td><td>texto tipo + texto categoria (nulos = sem filtro)</td>
+ * <td>zero ou mais PARCIAL (int n + n mídias) e, por fim, OK + int total</td></tr>
+ * </table>
+ * <p>Qualquer operação pode responder ERRO + texto com a mensagem. Mídias e textos usam o
+ * formato de {@link dao.CodecBinario}.</p>
+ */
+final class ProtocoloBinario {
+    static final byte BUSCAR = 1;
+    static final byte SALVAR_LOTE = 2;
+    static final byte DELETAR = 3;
+    static final byte PERCORRER = 4;
+
+    static final byte OK = 0;
+    static final byte AUSENTE = 1;
+    static final byte ERRO = 2;
+    static final byte PARCIAL = 3;
+
+    /** Tamanho máximo de um quadro; quadros maiores encerram a conexão. */
+    static final int TAMANHO_MAXIMO = 16 * 1024 * 1024;
+
+    /**
+     * Escreve o corpo de um quadro.
+     */
+    @FunctionalInterface
+    interface Corpo {
+        void escrever(DataOutputStream out) throws IOException;
+    }
+
+    private ProtocoloBinario() {
+    }
+
+    /**
+     * Monta um quadro completo, pronto para envio.
+     *
+     * @param requisicao O número da requisição.
+     * @param codigo A operação (pedido) ou o status (resposta).
+     * @param corpo O escritor do corpo, ou {@code null} para corpo vazio.
+     * @return Os bytes do quadro, incluindo o prefixo de tamanho.
+     * @throws IOException Se o corpo não puder ser escrito.
+     */
+    static ByteBuffer quadro(int requisicao, byte codigo, Corpo corpo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(requisicao);
+        out.writeByte(codigo);
+        if (corpo != null) corpo.escrever(out);
+        out.flush();
+        ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+        b.putInt(0, b.remaining() - 4);
+        return b;
+    }
+
+    /**
+     * Abre a leitura de um quadro recebido (sem o prefixo de tamanho), posicionada no número da requisição.
+     *
+     * @param quadro Os bytes do quadro.
+     * @return Um {@link DataInputStream} sobre o quadro.
+     */
+    static DataInputStream ler(byte[] quadro) {
+        return new DataInputStream(new ByteArrayInputStream(quadro));
+    }
+}
@@ -0,0 +1,377 @@
+package servidor;
+
+import static servidor.ProtocoloBinario.*;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import controle.MidiaControle;
+import dao.CodecBinario;
+import model.Midia;
+
+/**
+ * **Servidor do Protocolo Binário (NIO).**
+ *
+ * <p>Atende clientes em lote ({@link ClienteBinario}) com quadros binários prefixados pelo
+ * tamanho (ver {@link ProtocoloBinario}). Uma única thread com um {@link Selector} cuida de
+ * todas as conexões, sem bloquear: aceita, lê quadros completos e escreve as respostas
+ * enfileiradas.</p>
+ *
+ * <p><b>Pipelining e multiplexação:</b> o cliente pode enviar vários pedidos sem esperar as
+ * respostas. Cada pedido é processado numa <i>virtual thread</i> própria e a resposta é
+ * enfileirada assim que fica pronta, marcada com o número da requisição; pedidos lentos não
+ * atrasam os rápidos da mesma conexão.</p>
+ *
+ * <p><b>Memória limitada:</b> cada conexão tem no máximo {@code maxPendentesPorConexao}
+ * pedidos em processamento; ao atingir o limite, o servidor para de ler aquela conexão até
+ * que respostas sejam enviadas. Varreduras longas ficam bloqueadas até que a thread do selector
+ * avise que o cliente consumiu a saída, antes de enfileirar o próximo lote. O buffer de entrada
+ * cresce para receber um quadro grande e volta ao tamanho inicial depois dele.</p>
+ *
+ * @see ClienteBinario
+ * @see ProtocoloBinario
+ */
+public class ServidorBinario implements Closeable {
+    // saída acumulada a partir da qual uma varredura espera o cliente consumir
+    private static final long LIMITE_SAIDA = 4L * 1024 * 1024;
+    private static final int ENTRADA_INICIAL = 64 * 1024;
+
+    private final MidiaControle controle;
+    private final InetSocketAddress endereco;
+    private int maxPendentesPorConexao = 1024;
+    private int tamanhoLoteVarredura = 256;
+
+    private Selector selector;
+    private ServerSocketChannel servidor;
+    private ExecutorService executor;
+    private Thread thread;
+    private volatile boolean ativo = false;
+
+    // conexões com interesse a atualizar, pedidas por outras threads
+    private final Queue<Conexao> despertar = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean acordado = new AtomicBoolean(false);
+
+    private final class Conexao {
+        final SocketChannel canal;
+        SelectionKey chave;
+        ByteBuffer entrada = ByteBuffer.allocate(ENTRADA_INICIAL);
+        final Queue<ByteBuffer> saida = new ConcurrentLinkedQueue<>();
+        final AtomicLong bytesSaida = new AtomicLong();
+        // sinalizada pela thread do selector quando a saída cai abaixo de LIMITE_SAIDA (ou a conexão fecha)
+        final Lock trava = new ReentrantLock();
+        final Condition drenada = trava.newCondition();
+        final AtomicInteger pendentes = new AtomicInteger();
+        volatile boolean fechada = false;
+
+        Conexao(SocketChannel canal) {
+            this.canal = canal;
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle que atenderá os pedidos.
+     * @param endereco O endereço e a porta de escuta (porta {@code 0} escolhe uma porta livre).
+     */
+    public ServidorBinario(MidiaControle controle, InetSocketAddress endereco) {
+        this.controle = controle;
+        this.endereco = endereco;
+    }
+
+    /**
+     * Define quantos pedidos de uma mesma conexão podem estar em processamento (padrão: 1024).
+     *
+     * @param maxPendentesPorConexao O limite por conexão.
+     */
+    public void setMaxPendentesPorConexao(int maxPendentesPorConexao) {
+        this.maxPendentesPorConexao = maxPendentesPorConexao;
+    }
+
+    /**
+     * Define quantas mídias vão em cada quadro {@code PARCIAL} de uma varredura (padrão: 256).
+     *
+     * @param tamanhoLoteVarredura O número de mídias por quadro.
+     */
+    public void setTamanhoLoteVarredura(int tamanhoLoteVarredura) {
+        this.tamanhoLoteVarredura = tamanhoLoteVarredura;
+    }
+
+    /**
+     * Abre a porta e inicia a thread do {@link Selector}.
+     *
+     * @throws IOException Se a porta não puder ser aberta.
+     */
+    public synchronized void iniciar() throws IOException {
+        if (ativo) return;
+        selector = Selector.open();
+        servidor = ServerSocketChannel.open();
+        servidor.bind(endereco);
+        servidor.configureBlocking(false);
+        servidor.register(selector, SelectionKey.OP_ACCEPT);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        ativo = true;
+        thread = new Thread(this::executar, "servidor-binario");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return A porta em que o servidor está escutando.
+     * @throws IOException Se o endereço não puder ser obtido.
+     */
+    public int getPorta() throws IOException {
+        return ((InetSocketAddress) servidor.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Encerra o servidor e todas as conexões.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!ativo) return;
+        ativo = false;
+        selector.wakeup();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    // --- LAÇO DO SELECTOR ---
+
+    private void executar() {
+        try {
+            while (ativo) {
+                selector.select();
+                acordado.set(false);
+                Conexao c;
+                while ((c = despertar.poll()) != null) atualizarInteresse(c);
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey k = it.next();
+                    it.remove();
+                    if (!k.isValid()) continue;
+                    try {
+                        if (k.isAcceptable()) aceitar();
+                        if (k.isValid() && k.isReadable()) ler((Conexao) k.attachment());
+                        if (k.isValid() && k.isWritable()) escrever((Conexao) k.attachment());
+                    } catch (IOException ex) {
+                        if (k.attachment() != null) fechar((Conexao) k.attachment());
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            for (SelectionKey k : selector.keys()) {
+                if (k.attachment() != null) fechar((Conexao) k.attachment());
+            }
+            try {
+                servidor.close();
+                selector.close();
+            } catch (IOException ex) {
+                // encerrando
+            }
+        }
+    }
+
+    private void aceitar() throws IOException {
+        SocketChannel canal = servidor.accept();
+        if (canal == null) return;
+        canal.configureBlocking(false);
+        canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Conexao c = new Conexao(canal);
+        c.chave = canal.register(selector, SelectionKey.OP_READ, c);
+    }
+
+    private void ler(Conexao c) throws IOException {
+        if (c.canal.read(c.entrada) < 0) {
+            fechar(c);
+            return;
+        }
+        c.entrada.flip();
+        while (c.entrada.remaining() >= 4) {
+            int tamanho = c.entrada.getInt(c.entrada.position());
+            if (tamanho < 5 || tamanho > TAMANHO_MAXIMO) {
+                fechar(c); // quadro inválido: o fluxo perdeu o alinhamento
+                return;
+            }
+            if (c.entrada.remaining() < 4 + tamanho) break;
+            c.entrada.position(c.entrada.position() + 4);
+            byte[] quadro = new byte[tamanho];
+            c.entrada.get(quadro);
+            c.pendentes.incrementAndGet();
+            executor.execute(() -> tratar(c, quadro));
+        }
+        c.entrada.compact();
+        // quadro maior que o buffer: aumenta até caber
+        if (!c.entrada.hasRemaining()) {
+            redimensionar(c, c.entrada.capacity() * 2);
+        } else if (c.entrada.capacity() > ENTRADA_INICIAL && c.entrada.position() <= ENTRADA_INICIAL / 2) {
+            // o quadro grande já foi consumido: não segura a memória pelo resto da conexão
+            redimensionar(c, ENTRADA_INICIAL);
+        }
+        atualizarInteresse(c);
+    }
+
+    // chamado com o buffer em modo de escrita (depois do compact)
+    private static void redimensionar(Conexao c, int capacidade) {
+        ByteBuffer novo = ByteBuffer.allocate(capacidade);
+        c.entrada.flip();
+        novo.put(c.entrada);
+        c.entrada = novo;
+    }
+
+    private void escrever(Conexao c) throws IOException {
+        ByteBuffer b;
+        while ((b = c.saida.peek()) != null) {
+            int n = c.canal.write(b);
+            c.bytesSaida.addAndGet(-n);
+            if (b.hasRemaining()) break; // buffer do socket cheio
+            c.saida.poll();
+        }
+        if (c.bytesSaida.get() <= LIMITE_SAIDA) sinalizarDrenada(c);
+        atualizarInteresse(c);
+    }
+
+    private static void sinalizarDrenada(Conexao c) {
+        c.trava.lock();
+        try {
+            c.drenada.signalAll();
+        } finally {
+            c.trava.unlock();
+        }
+    }
+
+    // só na thread do selector
+    private void atualizarInteresse(Conexao c) {
+        if (c.fechada || !c.chave.isValid()) return;
+        int ops = 0;
+        if (c.pendentes.get() < maxPendentesPorConexao) ops |= SelectionKey.OP_READ;
+        if (!c.saida.isEmpty()) ops |= SelectionKey.OP_WRITE;
+        c.chave.interestOps(ops);
+    }
+
+    private void fechar(Conexao c) {
+        c.fechada = true;
+        sinalizarDrenada(c);
+        if (c.chave != null) c.chave.cancel();
+        try {
+            c.canal.close();
+        } catch (IOException ex) {
+            // já fechada
+        }
+    }
+
+    // chamado pelas virtual threads
+    private void enviar(Conexao c, ByteBuffer quadro) {
+        if (c.fechada) return;
+        c.bytesSaida.addAndGet(quadro.remaining());
+        c.saida.add(quadro);
+        acordar(c);
+    }
+
+    private void acordar(Conexao c) {
+        despertar.add(c);
+        if (acordado.compareAndSet(false, true)) selector.wakeup();
+    }
+
+    // --- OPERAÇÕES ---
+
+    private void tratar(Conexao c, byte[] quadro) {
+        int requisicao = -1;
+        try {
+            DataInputStream in = ProtocoloBinario.ler(quadro);
+            requisicao = in.readInt();
+            final int req = requisicao;
+            byte operacao = in.readByte();
+            switch (operacao) {
+                case BUSCAR: {
+                    Optional<Midia> opt = controle.buscarPorId(in.readInt());
+                    enviar(c, opt.isPresent()
+                            ? quadro(req, OK, out -> CodecBinario.escrever(opt.get(), out))
+                            : quadro(req, AUSENTE, null));
+                    break;
+                }
+                case SALVAR_LOTE: {
+                    int n = in.readInt();
+                    List<Midia> lote = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) lote.add(CodecBinario.ler(in));
+                    controle.salvarLote(lote);
+                    enviar(c, quadro(req, OK, out -> out.writeInt(n)));
+                    break;
+                }
+                case DELETAR: {
+                    boolean removido = controle.removerRegistro(in.readInt());
+                    enviar(c, quadro(req, OK, out -> out.writeBoolean(removido)));
+                    break;
+                }
+                case PERCORRER: {
+                    Optional<String> tipo = Optional.ofNullable(CodecBinario.lerTexto(in));
+                    Optional<String> categoria = Optional.ofNullable(CodecBinario.lerTexto(in));
+                    percorrer(c, req, tipo, categoria);
+                    break;
+                }
+                default:
+                    enviar(c, quadro(req, ERRO, out -> CodecBinario.escreverTexto("Operação desconhecida: " + operacao, out)));
+            }
+        } catch (Exception ex) {
+            final int req = requisicao;
+            try {
+                enviar(c, quadro(req, ERRO, out -> CodecBinario.escreverTexto(String.valueOf(ex.getMessage()), out)));
+            } catch (IOException e) {
+                fechar(c);
+            }
+        } finally {
+            // abaixo do limite: volta a ler a conexão
+            if (c.pendentes.getAndDecrement() >= maxPendentesPorConexao) acordar(c);
+        }
+    }
+
+    private void percorrer(Conexao c, int req, Optional<String> tipo, Optional<String> categoria) throws Exception {
+        List<Midia> lote = new ArrayList<>(tamanhoLoteVarredura);
+        int[] total = {0};
+        controle.percorrerFiltrados(tipo, categoria, m -> {
+            lote.add(m);
+            total[0]++;
+            if (lote.size() == tamanhoLoteVarredura) enviarParcial(c, req, lote);
+        });
+        if (!lote.isEmpty()) enviarParcial(c, req, lote);
+        enviar(c, quadro(req, OK, out -> out.writeInt(total[0])));
+    }
+
+    private void enviarParcial(Conexao c, int req, List<Midia> lote) throws Exception {
+        // cliente lento: espera a saída esvaziar em vez de acumular a varredura inteira na memória
+        c.trava.lock();
+        try {
+            while (c.bytesSaida.get() > LIMITE_SAIDA) {
+                if (c.fechada) throw new IOException("Conexão encerrada");
+                c.drenada.await();
+            }
+        } finally {
+            c.trava.unlock();
+        }
+        enviar(c, quadro(req, PARCIAL, out -> {
+            out.writeInt(lote.size());
+            for (Midia m : lote) CodecBinario.escrever(m, out);
+        }));
+        lote.clear();
+    }
+}
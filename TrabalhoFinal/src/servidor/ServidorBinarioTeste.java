@@ -0,0 +1,103 @@
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.*;
+import controle.MidiaControle;
+import dao.FileMidiaDAO;
+import dao.MidiaDAOInstantaneo;
+import model.*;
+
+class ServidorBinarioTeste {
+    private ServidorBinario servidor;
+    private ClienteBinario cliente;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Path dir = Files.createTempDirectory("binario");
+        MidiaControle controle = new MidiaControle(new MidiaDAOInstantaneo(new FileMidiaDAO(dir)));
+        servidor = new ServidorBinario(controle, new InetSocketAddress("127.0.0.1", 0));
+        servidor.setTamanhoLoteVarredura(7);
+        servidor.iniciar();
+        cliente = new ClienteBinario(new InetSocketAddress("127.0.0.1", servidor.getPorta()));
+    }
+
+    @AfterEach
+    void fechar() throws Exception {
+        cliente.close();
+        servidor.close();
+    }
+
+    @Test
+    void testLoteBuscaEDelecao() throws Exception {
+        List<Midia> lote = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            lote.add(i % 2 == 0
+                    ? new Musica("c:/m" + i + ".mp3", i, "M" + i, 3, "Pop", "A")
+                    : new Livro("c:/l" + i + ".pdf", i, "L" + i, 100, "Drama", null));
+        }
+        assertEquals(30, (int) cliente.salvarLote(lote).get(5, TimeUnit.SECONDS));
+
+        Midia primeira = lote.get(0);
+        Midia lida = cliente.buscar(primeira.getId()).get(5, TimeUnit.SECONDS).get();
+        assertEquals("M0", lida.getTitulo());
+        assertEquals("MUSICA", lida.getTipo());
+        assertNull(((Livro) cliente.buscar(lote.get(1).getId()).get().get()).getAutores());
+
+        assertTrue(cliente.deletar(primeira.getId()).get());
+        assertFalse(cliente.deletar(primeira.getId()).get());
+        assertFalse(cliente.buscar(primeira.getId()).get().isPresent());
+    }
+
+    @Test
+    void testQuadroMaiorQueOBufferDeEntrada() throws Exception {
+        // um lote de centenas de KB faz o buffer da conexão crescer; os pedidos seguintes continuam
+        List<Midia> lote = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) lote.add(new Filme("c:/grande/f" + i + ".mp4", i, "Filme " + i, 90, "Ação", "EN"));
+        assertEquals(3000, (int) cliente.salvarLote(lote).get(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3000; i += 500) {
+            assertEquals("Filme " + i, cliente.buscar(lote.get(i).getId()).get(5, TimeUnit.SECONDS).get().getTitulo());
+        }
+    }
+
+    @Test
+    void testPedidosEncadeadosNumaConexao() throws Exception {
+        List<Midia> lote = new ArrayList<>();
+        for (int i = 0; i < 100; i++) lote.add(new Filme("c:/f" + i + ".mp4", i, "F" + i, 90, "Ação", "EN"));
+        cliente.salvarLote(lote).get();
+
+        // milhares de pedidos enviados sem esperar as respostas
+        List<CompletableFuture<Optional<Midia>>> futuros = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) futuros.add(cliente.buscar(lote.get(i % 100).getId()));
+        for (int i = 0; i < futuros.size(); i++) {
+            assertEquals("F" + (i % 100), futuros.get(i).get(10, TimeUnit.SECONDS).get().getTitulo());
+        }
+    }
+
+    @Test
+    void testVarreduraComFiltro() throws Exception {
+        List<Midia> lote = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lote.add(new Musica("c:/v" + i + ".mp3", i, "V" + i, 3, i < 25 ? "Rock" : "Jazz", "B"));
+        }
+        cliente.salvarLote(lote).get();
+
+        List<Midia> recebidas = Collections.synchronizedList(new ArrayList<>());
+        int total = cliente.percorrer("musica", "rock", recebidas::add).get(5, TimeUnit.SECONDS);
+        assertEquals(25, total);
+        assertEquals(25, recebidas.size());
+        assertEquals(40, (int) cliente.percorrer(null, null, m -> { }).get());
+
+        // erro no processador do cliente falha só aquele pedido
+        CompletableFuture<Integer> falha = cliente.percorrer(null, null, m -> { throw new IllegalStateException("parar"); });
+        assertThrows(ExecutionException.class, () -> falha.get(5, TimeUnit.SECONDS));
+        assertTrue(cliente.buscar(lote.get(0).getId()).get().isPresent());
+    }
+}
@@ -0,0 +1,761 @@
+package servidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import controle.ArvoreMerkle;
+import controle.IdGerador;
+import controle.MidiaControle;
+import controle.SincronizadorArquivos;
+import dao.CodecJson;
+import dao.FileMidiaDAO;
+import dao.LogAlteracoes;
+import dao.MidiaDAOComLog;
+import dao.MidiaDAOInstantaneo;
+import model.Midia;
+import model.Projecao;
+
+/**
+ * **Servidor HTTP do Catálogo (modo sem interface gráfica).**
+ *
+ * <p>Expõe o {@link MidiaControle} em JSON usando o {@link HttpServer} do próprio JDK, sem
+ * dependências externas. Rotas:</p>
+ *
+ * <ul>
+ * <li>{@code GET /midias?tipo=&categoria=&ordenar=}: listagem filtrada (lista de objetos).
+ * Com {@code ordenar=DURACAO|TAMANHO&limite=k}, só as {@code k} primeiras, sem ordenar a lista
+ * inteira ({@code decrescente=true} para os maiores valores). Com {@code campos=titulo,duracao,...},
+ * cada objeto traz só {@code id}, {@code tipo} e os campos pedidos, lidos sem carregar as mídias inteiras.</li>
+ * <li>{@code GET /midias/[id]}: uma mídia.</li>
+ * <li>{@code POST /midias}: inclui a mídia do corpo; sem {@code id}, um novo ID é gerado.</li>
+ * <li>{@code PUT /midias/[id]}: substitui os dados da mídia.</li>
+ * <li>{@code DELETE /midias/[id]}: remove o registro e o arquivo físico
+ * ({@code ?somenteRegistro=true} mantém o arquivo).</li>
+ * <li>{@code POST /midias/[id]/mover} com {@code {"destino": "..."}}.</li>
+ * <li>{@code POST /midias/[id]/renomear} com {@code {"nome": "..."}}.</li>
+ * <li>{@code POST /midias/[id]/restaurar}: desfaz a remoção, enquanto o arquivo estiver na lixeira.</li>
+ * <li>{@code GET|HEAD /midias/[id]/conteudo}: o arquivo físico, com suporte a {@code Range}.</li>
+ * <li>{@code GET /midias/merkle}, {@code /midias/merkle/nos?indices=}, {@code /midias/merkle/folhas?indices=}
+ * e {@code /midias/merkle/registros?ids=}: a {@link ArvoreMerkle} do catálogo, se houver, para a
+ * sincronização com outro nó ({@code ferramentas.SincronizacaoMerkle}).</li>
+ * </ul>
+ *
+ * <p><b>Execução:</b> cada requisição roda numa <i>virtual thread</i>. A <b>admissão</b> é
+ * controlada por dois semáforos independentes: um para listagens (caras) e outro para as demais
+ * operações (baratas). Assim, uma rajada de listagens esgota só a sua própria cota e as buscas
+ * por ID continuam sendo atendidas. Se não houver vaga em {@code esperaAdmissaoMs}, a resposta é
+ * {@code 503} com {@code Retry-After}. Uma requisição que passa de {@code tempoLimiteMs} recebe
+ * {@code 504}; listagens são interrompidas, escritas terminam em segundo plano (sem ficar pela
+ * metade) e continuam ocupando a vaga até acabar.</p>
+ *
+ * <p><b>Conteúdo:</b> os arquivos são enviados com {@link FileChannel#transferTo} para o corpo da
+ * resposta, em blocos pequenos de tamanho fixo; o arquivo nunca é carregado inteiro na memória.
+ * Como o {@code HttpServer} só expõe um {@code OutputStream}, o destino é um
+ * {@link Channels#newChannel(java.io.OutputStream)} e cada bloco passa por um buffer intermediário
+ * (não há cópia zero entre o cache de páginas e o socket). Os envios têm uma cota própria
+ * ({@code limiteFluxos}) e não sofrem o tempo limite das demais requisições, já que sua duração
+ * depende do cliente.</p>
+ *
+ * <p><b>Acesso a arquivos:</b> o {@code local} de uma mídia vem do cliente, e não há autenticação.
+ * Por isso o conteúdo, a remoção do arquivo físico, o movimento (origem e destino) e a renomeação
+ * só são feitos para caminhos dentro dos diretórios de {@link #setRaizesMidias(Collection)}
+ * (links resolvidos); fora deles, a resposta é {@code 403}. O {@code main} escuta só na interface
+ * de loopback, a não ser que {@code -Dservidor.endereco} indique outra.</p>
+ *
+ * <p>Erros são devolvidos como {@code {"erro": "..."}}: {@code 400} para dados inválidos,
+ * {@code 403} para arquivos fora das raízes, {@code 404} para IDs inexistentes, {@code 409} para conflitos com o sistema de arquivos
+ * (ex.: destino já existe) e {@code 500} para o resto.</p>
+ *
+ * @see MidiaControle
+ * @see CodecJson
+ */
+public class ServidorHttp {
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final MidiaControle controle;
+    private final InetSocketAddress endereco;
+    private int limiteConsultas = 4;
+    private int limiteLeves = 64;
+    private long esperaAdmissaoMs = 100;
+    private long tempoLimiteMs = 10_000;
+    private int tamanhoMaximoCorpo = 64 * 1024;
+    private int limiteFluxos = 256;
+    private boolean somenteLeitura = false;
+    private ArvoreMerkle arvore;
+    private volatile List<Path> raizesMidias = List.of();
+
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private Semaphore consultas;
+    private Semaphore leves;
+    private Semaphore fluxos;
+
+    // resposta pronta para ser enviada
+    private static final class Resposta {
+        final int status;
+        final String corpo;
+
+        Resposta(int status, String corpo) {
+            this.status = status;
+            this.corpo = corpo;
+        }
+    }
+
+    // erro esperado, já associado a um status HTTP
+    private static final class ErroHttp extends Exception {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ErroHttp(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Construtor.
+     *
+     * @param controle O controle que atenderá as requisições.
+     * @param endereco O endereço e a porta de escuta (porta {@code 0} escolhe uma porta livre).
+     */
+    public ServidorHttp(MidiaControle controle, InetSocketAddress endereco) {
+        this.controle = controle;
+        this.endereco = endereco;
+    }
+
+    /**
+     * Recusa com {@code 405} tudo o que não for leitura ({@code GET}/{@code HEAD}), por exemplo
+     * numa réplica alimentada pelo log de alterações (padrão: {@code false}).
+     *
+     * @param somenteLeitura {@code true} para atender só leituras.
+     */
+    public void setSomenteLeitura(boolean somenteLeitura) {
+        this.somenteLeitura = somenteLeitura;
+    }
+
+    /**
+     * Publica a árvore de Merkle do catálogo nas rotas {@code /midias/merkle} (padrão: nenhuma,
+     * e as rotas respondem {@code 404}). A árvore deve estar registrada como ouvinte do controle.
+     *
+     * @param arvore A árvore do catálogo.
+     */
+    public void setArvoreMerkle(ArvoreMerkle arvore) {
+        this.arvore = arvore;
+    }
+
+    /**
+     * Define os diretórios sob os quais o servidor pode ler, remover, mover e renomear arquivos
+     * físicos (padrão: nenhum, e essas operações respondem {@code 403}).
+     *
+     * @param raizes Os diretórios de mídias.
+     */
+    public void setRaizesMidias(Collection<Path> raizes) {
+        List<Path> reais = new ArrayList<>();
+        for (Path r : raizes) reais.add(real(r));
+        this.raizesMidias = List.copyOf(reais);
+    }
+
+    /**
+     * Define quantas listagens podem rodar ao mesmo tempo (padrão: 4).
+     *
+     * @param limiteConsultas O número máximo de listagens simultâneas.
+     */
+    public void setLimiteConsultas(int limiteConsultas) {
+        this.limiteConsultas = limiteConsultas;
+    }
+
+    /**
+     * Define quantas operações baratas (busca por ID, escritas) podem rodar ao mesmo tempo (padrão: 64).
+     *
+     * @param limiteLeves O número máximo de operações baratas simultâneas.
+     */
+    public void setLimiteLeves(int limiteLeves) {
+        this.limiteLeves = limiteLeves;
+    }
+
+    /**
+     * Define quantos arquivos podem ser enviados ao mesmo tempo (padrão: 256).
+     *
+     * @param limiteFluxos O número máximo de envios de conteúdo simultâneos.
+     */
+    public void setLimiteFluxos(int limiteFluxos) {
+        this.limiteFluxos = limiteFluxos;
+    }
+
+    /**
+     * Define quanto tempo uma requisição espera por uma vaga antes de receber {@code 503} (padrão: 100 ms).
+     *
+     * @param esperaAdmissaoMs A espera máxima, em milissegundos.
+     */
+    public void setEsperaAdmissaoMs(long esperaAdmissaoMs) {
+        this.esperaAdmissaoMs = esperaAdmissaoMs;
+    }
+
+    /**
+     * Define o tempo máximo de processamento antes de responder {@code 504} (padrão: 10 s).
+     *
+     * @param tempoLimiteMs O tempo limite, em milissegundos.
+     */
+    public void setTempoLimiteMs(long tempoLimiteMs) {
+        this.tempoLimiteMs = tempoLimiteMs;
+    }
+
+    /**
+     * Inicia o servidor. Os limites devem ser definidos antes.
+     *
+     * @throws IOException Se a porta não puder ser aberta.
+     */
+    public synchronized void iniciar() throws IOException {
+        if (servidor != null) return;
+        consultas = new Semaphore(limiteConsultas);
+        leves = new Semaphore(limiteLeves);
+        fluxos = new Semaphore(limiteFluxos);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        servidor = HttpServer.create(endereco, 0);
+        servidor.createContext("/midias", this::atender);
+        servidor.setExecutor(executor);
+        servidor.start();
+    }
+
+    /**
+     * Para o servidor, encerrando as requisições em andamento.
+     */
+    public synchronized void parar() {
+        if (servidor == null) return;
+        servidor.stop(0);
+        executor.shutdownNow();
+        servidor = null;
+    }
+
+    /**
+     * @return A porta em que o servidor está escutando.
+     */
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    // --- ADMISSÃO E TEMPO LIMITE ---
+
+    private void atender(HttpExchange ex) throws IOException {
+        try {
+            if (ehConteudo(ex)) {
+                atenderConteudo(ex);
+                return;
+            }
+            boolean consulta = ehListagem(ex);
+            Semaphore cota = consulta ? consultas : leves;
+            if (!cota.tryAcquire(esperaAdmissaoMs, TimeUnit.MILLISECONDS)) {
+                ex.getResponseHeaders().set("Retry-After", "1");
+                enviar(ex, erro(503, "Servidor ocupado, tente novamente"));
+                return;
+            }
+            // a vaga é devolvida por quem terminar por último: a tarefa, ou o cancelamento se ela nem começou
+            AtomicBoolean iniciada = new AtomicBoolean(false);
+            Future<Resposta> f = executor.submit(() -> {
+                if (!iniciada.compareAndSet(false, true)) return null;
+                try {
+                    return processar(ex);
+                } finally {
+                    cota.release();
+                }
+            });
+            Resposta r;
+            try {
+                r = f.get(tempoLimiteMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                // listagens só leem: podem ser interrompidas; escritas terminam para não ficar pela metade
+                f.cancel(consulta);
+                if (iniciada.compareAndSet(false, true)) cota.release();
+                r = erro(504, "Tempo limite excedido");
+            } catch (ExecutionException ee) {
+                r = traduzir(ee.getCause());
+            }
+            enviar(ex, r);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ex.close();
+        }
+    }
+
+    private static boolean ehListagem(HttpExchange ex) {
+        return "GET".equals(ex.getRequestMethod()) && partes(ex).length == 0;
+    }
+
+    private static boolean ehConteudo(HttpExchange ex) {
+        String[] partes = partes(ex);
+        return partes.length == 2 && partes[1].equals("conteudo");
+    }
+
+    // --- CONTEÚDO ---
+
+    private void atenderConteudo(HttpExchange ex) throws IOException, InterruptedException {
+        if (!fluxos.tryAcquire(esperaAdmissaoMs, TimeUnit.MILLISECONDS)) {
+            ex.getResponseHeaders().set("Retry-After", "1");
+            enviar(ex, erro(503, "Servidor ocupado, tente novamente"));
+            return;
+        }
+        try {
+            transmitir(ex);
+        } catch (ErroHttp e) {
+            enviar(ex, erro(e.status, e.getMessage()));
+        } catch (IOException e) {
+            // conexão encerrada pelo cliente no meio do envio
+        } catch (Exception e) {
+            if (ex.getResponseCode() == -1) enviar(ex, traduzir(e));
+        } finally {
+            fluxos.release();
+        }
+    }
+
+    private void transmitir(HttpExchange ex) throws Exception {
+        String metodo = ex.getRequestMethod();
+        boolean head = metodo.equals("HEAD");
+        if (!head && !metodo.equals("GET")) throw new ErroHttp(405, "Método não permitido: " + metodo);
+        Midia m = existente(lerId(partes(ex)[0]));
+        if (m.getLocal() == null || m.getLocal().isEmpty()) throw new ErroHttp(404, "Mídia sem arquivo físico");
+        Path arquivo = permitido(m.getLocal());
+
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new ErroHttp(404, "Arquivo físico não encontrado: " + arquivo);
+        }
+        try (canal) {
+            long total = canal.size();
+            Headers h = ex.getResponseHeaders();
+            String etag = "\"" + Long.toHexString(total) + "-"
+                    + Long.toHexString(Files.getLastModifiedTime(arquivo).toMillis()) + "\"";
+            h.set("Accept-Ranges", "bytes");
+            h.set("ETag", etag);
+
+            FaixaBytes faixa;
+            try {
+                faixa = FaixaBytes.ler(ex.getRequestHeaders().getFirst("Range"), total);
+            } catch (IllegalStateException e) {
+                h.set("Content-Range", "bytes */" + total);
+                throw new ErroHttp(416, e.getMessage());
+            }
+            // If-Range: a faixa só vale se o arquivo ainda é a versão que o cliente conhece
+            String seFaixa = ex.getRequestHeaders().getFirst("If-Range");
+            if (faixa != null && seFaixa != null && !seFaixa.equals(etag)) faixa = null;
+
+            long inicio = faixa == null ? 0 : faixa.inicio;
+            long tamanho = faixa == null ? total : faixa.tamanho();
+            int status = faixa == null ? 200 : 206;
+            if (faixa != null) h.set("Content-Range", "bytes " + inicio + "-" + faixa.fim + "/" + total);
+            h.set("Content-Type", tipoConteudo(arquivo));
+            if (head || tamanho == 0) {
+                h.set("Content-Length", String.valueOf(tamanho));
+                ex.sendResponseHeaders(status, -1);
+                return;
+            }
+            ex.sendResponseHeaders(status, tamanho);
+            try (OutputStream out = ex.getResponseBody();
+                 WritableByteChannel destino = Channels.newChannel(out)) {
+                long enviados = 0;
+                while (enviados < tamanho) {
+                    long n = canal.transferTo(inicio + enviados, tamanho - enviados, destino);
+                    if (n <= 0) break; // arquivo encurtado durante o envio: a conexão é encerrada incompleta
+                    enviados += n;
+                }
+            }
+        }
+    }
+
+    private static String tipoConteudo(Path arquivo) {
+        String nome = arquivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (nome.endsWith(".mp3")) return "audio/mpeg";
+        if (nome.endsWith(".mp4")) return "video/mp4";
+        if (nome.endsWith(".pdf")) return "application/pdf";
+        try {
+            String tipo = Files.probeContentType(arquivo);
+            if (tipo != null) return tipo;
+        } catch (IOException ex) {
+            // usa o tipo genérico
+        }
+        return "application/octet-stream";
+    }
+
+    // --- ROTAS ---
+
+    private Resposta processar(HttpExchange ex) throws Exception {
+        String metodo = ex.getRequestMethod();
+        String[] partes = partes(ex);
+        Map<String,String> query = lerQuery(ex.getRequestURI().getRawQuery());
+        if (somenteLeitura && !metodo.equals("GET")) throw new ErroHttp(405, "Servidor somente leitura");
+
+        if (partes.length == 0) {
+            if (metodo.equals("GET")) return listar(query);
+            if (metodo.equals("POST")) return incluir(lerCorpo(ex));
+            throw new ErroHttp(405, "Método não permitido: " + metodo);
+        }
+        if (partes[0].equals("merkle")) return merkle(metodo, partes, query);
+        int id = lerId(partes[0]);
+        if (partes.length == 1) {
+            switch (metodo) {
+                case "GET":
+                    return new Resposta(200, CodecJson.paraJson(existente(id)));
+                case "PUT":
+                    return atualizar(id, lerCorpo(ex));
+                case "DELETE":
+                    Midia m = existente(id);
+                    boolean somenteRegistro = Boolean.parseBoolean(query.get("somenteRegistro"));
+                    if (!somenteRegistro) permitido(m.getLocal());
+                    boolean removido = somenteRegistro ? controle.removerRegistro(id) : controle.removerMidia(id);
+                    if (!removido) throw new ErroHttp(404, "Mídia não encontrada: " + id);
+                    return new Resposta(204, null);
+                default:
+                    throw new ErroHttp(405, "Método não permitido: " + metodo);
+            }
+        }
+        if (partes.length == 2 && metodo.equals("POST") && partes[1].equals("restaurar")) {
+            Optional<Midia> restaurada = controle.desfazerRemocao(id);
+            if (!restaurada.isPresent()) throw new ErroHttp(404, "Nada a restaurar: " + id);
+            return new Resposta(200, CodecJson.paraJson(restaurada.get()));
+        }
+        if (partes.length == 2 && metodo.equals("POST")) {
+            Midia m = existente(id);
+            Map<String,String> corpo = lerCorpo(ex);
+            if (partes[1].equals("mover")) {
+                permitido(m.getLocal());
+                controle.moverMedia(id, permitido(obrigatorio(corpo, "destino")));
+                return new Resposta(200, CodecJson.paraJson(existente(id)));
+            }
+            if (partes[1].equals("renomear")) {
+                permitido(m.getLocal());
+                controle.renomearArquivo(id, obrigatorio(corpo, "nome"));
+                return new Resposta(200, CodecJson.paraJson(existente(id)));
+            }
+        }
+        throw new ErroHttp(404, "Rota inexistente: " + ex.getRequestURI().getPath());
+    }
+
+    private Resposta listar(Map<String,String> query) throws Exception {
+        Optional<String> tipo = Optional.ofNullable(query.get("tipo"));
+        Optional<String> categoria = Optional.ofNullable(query.get("categoria"));
+        List<Midia> lista;
+        if (query.containsKey("campos") && !query.containsKey("limite")) return listarCampos(query, tipo, categoria);
+        if (query.containsKey("limite")) {
+            lista = controle.listarExtremos(tipo, categoria, query.get("ordenar"),
+                    Integer.parseInt(query.get("limite")), Boolean.parseBoolean(query.get("decrescente")));
+        } else {
+            lista = controle.listarFiltrados(tipo, categoria, Optional.ofNullable(query.get("ordenar")));
+        }
+        StringBuilder sb = new StringBuilder(lista.size() * 160 + 2);
+        sb.append('[');
+        for (int i = 0; i < lista.size(); i++) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            if (i > 0) sb.append(',');
+            sb.append(CodecJson.paraJson(lista.get(i)));
+        }
+        sb.append(']');
+        return new Resposta(200, sb.toString());
+    }
+
+    private Resposta merkle(String metodo, String[] partes, Map<String,String> query) throws Exception {
+        if (arvore == null) throw new ErroHttp(404, "Árvore de Merkle não habilitada");
+        if (!metodo.equals("GET")) throw new ErroHttp(405, "Método não permitido: " + metodo);
+        if (partes.length == 1) return new Resposta(200, "{\"profundidade\":" + arvore.getProfundidade() + "}");
+        if (partes.length != 2) throw new ErroHttp(404, "Rota inexistente: /midias/" + String.join("/", partes));
+        Map<String,String> res = new LinkedHashMap<>();
+        switch (partes[1]) {
+            case "nos": {
+                int[] nos = lerInteiros(query.get("indices"));
+                for (int no : nos) {
+                    if (no < 0 || no >= arvore.getTotalNos()) throw new ErroHttp(400, "Nó inválido: " + no);
+                }
+                long[] hashes = arvore.hashes(nos);
+                for (int i = 0; i < nos.length; i++) res.put(String.valueOf(nos[i]), Long.toHexString(hashes[i]));
+                break;
+            }
+            case "folhas": {
+                int[] folhas = lerInteiros(query.get("indices"));
+                for (int no : folhas) {
+                    if (no < arvore.getPrimeiraFolha() || no >= arvore.getTotalNos()) throw new ErroHttp(400, "Folha inválida: " + no);
+                }
+                arvore.registros(folhas).forEach((id, h) -> res.put(String.valueOf(id), Long.toHexString(h)));
+                break;
+            }
+            case "registros": {
+                // uma mídia por linha (JSON Lines), para não montar uma lista intermediária no cliente
+                StringBuilder sb = new StringBuilder();
+                for (int id : lerInteiros(query.get("ids"))) {
+                    Optional<Midia> m = controle.buscarPorId(id);
+                    if (m.isPresent()) sb.append(CodecJson.paraJson(m.get())).append('\n');
+                }
+                return new Resposta(200, sb.toString());
+            }
+            default:
+                throw new ErroHttp(404, "Rota inexistente: /midias/merkle/" + partes[1]);
+        }
+        StringBuilder sb = new StringBuilder(res.size() * 32 + 2);
+        CodecJson.escrever(res, sb);
+        return new Resposta(200, sb.toString());
+    }
+
+    private static int[] lerInteiros(String lista) throws ErroHttp {
+        if (lista == null || lista.isEmpty()) return new int[0];
+        String[] itens = lista.split(",");
+        int[] res = new int[itens.length];
+        for (int i = 0; i < itens.length; i++) res[i] = lerId(itens[i]);
+        return res;
+    }
+
+    private Resposta listarCampos(Map<String,String> query, Optional<String> tipo, Optional<String> categoria) throws Exception {
+        List<Projecao.Campo> campos = new ArrayList<>();
+        for (String c : query.get("campos").split(",")) {
+            if (!c.isBlank() && !c.equals("id") && !c.equals("tipo")) campos.add(Projecao.Campo.daChave(c.trim()));
+        }
+        Set<Projecao.Campo> pedidos = campos.isEmpty() ? EnumSet.noneOf(Projecao.Campo.class) : EnumSet.copyOf(campos);
+        List<Midia> lista = controle.listarSobDemanda(tipo, categoria, Optional.ofNullable(query.get("ordenar")), pedidos);
+        StringBuilder sb = new StringBuilder(lista.size() * (24 + 24 * pedidos.size()) + 2);
+        Map<String,String> obj = new LinkedHashMap<>();
+        sb.append('[');
+        for (int i = 0; i < lista.size(); i++) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+            Midia m = lista.get(i);
+            obj.clear();
+            obj.put("id", String.valueOf(m.getId()));
+            obj.put("tipo", m.getTipo());
+            // só os campos já lidos: nenhuma mídia é carregada por inteiro
+            for (Projecao.Campo c : pedidos) obj.put(c.getChave(), valor(m, c));
+            if (i > 0) sb.append(',');
+            CodecJson.escrever(obj, sb);
+        }
+        sb.append(']');
+        return new Resposta(200, sb.toString());
+    }
+
+    private static String valor(Midia m, Projecao.Campo c) {
+        switch (c) {
+            case TITULO: return m.getTitulo();
+            case CATEGORIA: return m.getCategoria();
+            case DURACAO: return String.valueOf(m.getDuracao());
+            case TAMANHO: return String.valueOf(m.getTamanhoBytes());
+            default: return m.getLocal();
+        }
+    }
+
+    private Resposta incluir(Map<String,String> corpo) throws Exception {
+        if (!corpo.containsKey("id")) corpo.put("id", String.valueOf(IdGerador.novoId()));
+        Midia m = CodecJson.deObjeto(corpo);
+        if (controle.buscarPorId(m.getId()).isPresent()) {
+            throw new ErroHttp(409, "Já existe uma mídia com o ID " + m.getId());
+        }
+        controle.incluirMedia(m);
+        return new Resposta(201, CodecJson.paraJson(m));
+    }
+
+    private Resposta atualizar(int id, Map<String,String> corpo) throws Exception {
+        existente(id);
+        corpo.put("id", String.valueOf(id));
+        Midia m = CodecJson.deObjeto(corpo);
+        controle.editarMidia(m);
+        return new Resposta(200, CodecJson.paraJson(m));
+    }
+
+    private Midia existente(int id) throws Exception {
+        Optional<Midia> opt = controle.buscarPorId(id);
+        if (!opt.isPresent()) throw new ErroHttp(404, "Mídia não encontrada: " + id);
+        return opt.get();
+    }
+
+    // o caminho, se estiver dentro de uma das raízes de mídias
+    private Path permitido(String local) throws ErroHttp {
+        Path p;
+        try {
+            p = real(Paths.get(local == null ? "" : local));
+        } catch (InvalidPathException e) {
+            throw new ErroHttp(400, "Caminho inválido: " + local);
+        }
+        for (Path raiz : raizesMidias) {
+            if (p.startsWith(raiz)) return p;
+        }
+        throw new ErroHttp(403, "Caminho fora dos diretórios de mídias: " + local);
+    }
+
+    // absoluto, sem "..", com os links resolvidos até onde o caminho existe
+    private static Path real(Path p) {
+        Path absoluto = p.toAbsolutePath().normalize();
+        Path existente = absoluto;
+        while (existente != null && !Files.exists(existente)) existente = existente.getParent();
+        if (existente == null) return absoluto;
+        try {
+            return existente.toRealPath().resolve(existente.relativize(absoluto));
+        } catch (IOException e) {
+            return absoluto;
+        }
+    }
+
+    // --- UTILITÁRIOS ---
+
+    // segmentos do caminho depois de /midias
+    private static String[] partes(HttpExchange ex) {
+        String resto = ex.getRequestURI().getPath().substring("/midias".length());
+        return Arrays.stream(resto.split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+    }
+
+    private static int lerId(String texto) throws ErroHttp {
+        try {
+            return Integer.parseInt(texto);
+        } catch (NumberFormatException ex) {
+            throw new ErroHttp(400, "ID inválido: " + texto);
+        }
+    }
+
+    private static String obrigatorio(Map<String,String> corpo, String campo) throws ErroHttp {
+        String v = corpo.get(campo);
+        if (v == null || v.isBlank()) throw new ErroHttp(400, "Campo obrigatório: " + campo);
+        return v;
+    }
+
+    private Map<String,String> lerCorpo(HttpExchange ex) throws Exception {
+        byte[] bytes;
+        try (InputStream in = ex.getRequestBody()) {
+            bytes = in.readNBytes(tamanhoMaximoCorpo + 1);
+        }
+        if (bytes.length > tamanhoMaximoCorpo) throw new ErroHttp(413, "Corpo maior que " + tamanhoMaximoCorpo + " bytes");
+        String json = new String(bytes, StandardCharsets.UTF_8);
+        if (json.isBlank()) return new LinkedHashMap<>();
+        return CodecJson.lerObjeto(json);
+    }
+
+    private static Map<String,String> lerQuery(String query) {
+        Map<String,String> map = new HashMap<>();
+        if (query == null) return map;
+        for (String par : query.split("&")) {
+            int i = par.indexOf('=');
+            if (i <= 0) continue;
+            String valor = URLDecoder.decode(par.substring(i + 1), StandardCharsets.UTF_8);
+            if (!valor.isEmpty()) map.put(URLDecoder.decode(par.substring(0, i), StandardCharsets.UTF_8), valor);
+        }
+        return map;
+    }
+
+    private static Resposta traduzir(Throwable t) {
+        if (t instanceof ErroHttp) return erro(((ErroHttp) t).status, t.getMessage());
+        if (t instanceof IllegalArgumentException) return erro(400, t.getMessage());
+        if (t instanceof IOException) return erro(409, t.getMessage());
+        t.printStackTrace();
+        return erro(500, "Erro interno: " + t);
+    }
+
+    private static Resposta erro(int status, String mensagem) {
+        StringBuilder sb = new StringBuilder("{\"erro\":");
+        try {
+            CodecJson.escreverTexto(mensagem, sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // StringBuilder não lança IOException
+        }
+        return new Resposta(status, sb.append('}').toString());
+    }
+
+    private static void enviar(HttpExchange ex, Resposta r) throws IOException {
+        if (r.corpo == null) {
+            ex.sendResponseHeaders(r.status, -1);
+            return;
+        }
+        byte[] bytes = r.corpo.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", JSON);
+        ex.sendResponseHeaders(r.status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * O endereço de escuta das ferramentas de linha de comando: a interface de loopback, ou a de
+     * {@code -Dservidor.endereco} (ex.: {@code 0.0.0.0} para todas, sem autenticação).
+     *
+     * @param porta A porta de escuta.
+     * @return O endereço.
+     */
+    public static InetSocketAddress endereco(int porta) {
+        String host = System.getProperty("servidor.endereco");
+        return host == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), porta)
+                : new InetSocketAddress(host, porta);
+    }
+
+    // ------------------------------------------------------------
+    // MAIN — uso: java servidor.ServidorHttp [porta] [diretório de dados]
+    // ------------------------------------------------------------
+    public static void main(String[] args) {
+        try {
+            int porta = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+            Path data = Paths.get(args.length > 1 ? args[1] : "data");
+
+            FileMidiaDAO arquivos = new FileMidiaDAO(data);
+            // -Dmidias.logAlteracoes=dir publica cada alteração num log lido pelas réplicas (ferramentas.Seguidor)
+            String dirLog = System.getProperty("midias.logAlteracoes");
+            MidiaDAOComLog comLog = dirLog == null ? null : new MidiaDAOComLog(arquivos, new LogAlteracoes(Paths.get(dirLog)));
+            MidiaDAOInstantaneo dao = new MidiaDAOInstantaneo(comLog == null ? arquivos : comLog);
+            int[] maxId = {0};
+            dao.percorrer(m -> maxId[0] = Math.max(maxId[0], m.getId()));
+            IdGerador.iniciar(maxId[0]);
+            MidiaControle controle = new MidiaControle(dao);
+            ArvoreMerkle arvore = ArvoreMerkle.carregar(dao, Integer.getInteger("servidor.profundidadeMerkle", 3));
+            controle.adicionarOuvinte(arvore);
+
+            SincronizadorArquivos sincronizador = new SincronizadorArquivos(controle, arquivos);
+            sincronizador.iniciar();
+
+            ServidorHttp servidor = new ServidorHttp(controle, endereco(porta));
+            // -Dservidor.raizesMidias=dir1:dir2 libera conteúdo, remoção, movimento e renomeação de arquivos nesses diretórios
+            List<Path> raizes = new ArrayList<>();
+            for (String r : System.getProperty("servidor.raizesMidias", "").split(java.io.File.pathSeparator)) {
+                if (!r.isBlank()) raizes.add(Paths.get(r.trim()));
+            }
+            servidor.setRaizesMidias(raizes);
+            servidor.setLimiteConsultas(Integer.getInteger("servidor.consultas", 4));
+            servidor.setLimiteLeves(Integer.getInteger("servidor.leves", 64));
+            servidor.setTempoLimiteMs(Long.getLong("servidor.tempoLimiteMs", 10_000L));
+            servidor.setArvoreMerkle(arvore);
+            servidor.iniciar();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.parar();
+                if (comLog != null) {
+                    try {
+                        comLog.close();
+                    } catch (IOException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            }));
+            System.out.println("Servidor de mídias em http://localhost:" + servidor.getPorta() + "/midias");
+
+            // -Dservidor.portaBinaria=N também abre o protocolo binário para clientes em lote
+            Integer portaBinaria = Integer.getInteger("servidor.portaBinaria");
+            if (portaBinaria != null) {
+                ServidorBinario binario = new ServidorBinario(controle, endereco(portaBinaria));
+                binario.iniciar();
+                System.out.println("Protocolo binário na porta " + binario.getPorta());
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package servidor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.*;
+import controle.MidiaControle;
+import dao.CodecJson;
+import dao.FileMidiaDAO;
+import dao.MidiaDAO;
+import model.*;
+
+class ServidorHttpTeste {
+    private Path tempDir;
+    private ServidorHttp servidor;
+    private HttpClient cliente;
+
+    @BeforeEach
+    void setup() throws Exception {
+        tempDir = Files.createTempDirectory("http");
+        cliente = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void fechar() {
+        if (servidor != null) servidor.parar();
+    }
+
+    private void iniciar(MidiaDAO dao) throws Exception {
+        servidor = new ServidorHttp(new MidiaControle(dao), new InetSocketAddress("127.0.0.1", 0));
+        servidor.setLimiteConsultas(1);
+        servidor.setTempoLimiteMs(2000);
+        servidor.setRaizesMidias(List.of(tempDir));
+        servidor.iniciar();
+    }
+
+    private HttpResponse<String> enviar(String metodo, String caminho, String corpo) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + servidor.getPorta() + caminho));
+        b.method(metodo, corpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(corpo));
+        return cliente.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testCrudEListagem() throws Exception {
+        iniciar(new FileMidiaDAO(tempDir));
+
+        HttpResponse<String> criada = enviar("POST", "/midias",
+                "{\"tipo\":\"MUSICA\",\"local\":\"c:/a.mp3\",\"titulo\":\"Canção\",\"duracao\":3,\"categoria\":\"Pop\",\"artista\":\"X\"}");
+        assertEquals(201, criada.statusCode());
+        int id = CodecJson.deJson(criada.body()).getId();
+        assertTrue(id > 0);
+
+        assertEquals("Canção", CodecJson.deJson(enviar("GET", "/midias/" + id, null).body()).getTitulo());
+
+        HttpResponse<String> alterada = enviar("PUT", "/midias/" + id,
+                "{\"tipo\":\"MUSICA\",\"local\":\"c:/a.mp3\",\"titulo\":\"Outra\",\"duracao\":3,\"categoria\":\"Pop\",\"artista\":\"X\"}");
+        assertEquals(200, alterada.statusCode());
+
+        HttpResponse<String> lista = enviar("GET", "/midias?tipo=musica&categoria=pop", null);
+        assertEquals(200, lista.statusCode());
+        assertTrue(lista.body().contains("\"Outra\""));
+        assertEquals("[]", enviar("GET", "/midias?tipo=FILME", null).body());
+        assertEquals("[{\"id\":" + id + ",\"tipo\":\"MUSICA\",\"titulo\":\"Outra\",\"duracao\":3}]",
+                enviar("GET", "/midias?categoria=pop&campos=titulo,duracao", null).body());
+        assertEquals(400, enviar("GET", "/midias?campos=artista", null).statusCode());
+
+        assertEquals(204, enviar("DELETE", "/midias/" + id + "?somenteRegistro=true", null).statusCode());
+        HttpResponse<String> ausente = enviar("GET", "/midias/" + id, null);
+        assertEquals(404, ausente.statusCode());
+        assertTrue(ausente.body().startsWith("{\"erro\":"));
+        assertEquals(400, enviar("GET", "/midias/abc", null).statusCode());
+    }
+
+    @Test
+    void testMoverERenomear() throws Exception {
+        iniciar(new FileMidiaDAO(tempDir));
+        Path arquivo = Files.writeString(tempDir.resolve("livro.pdf"), "conteudo");
+        HttpResponse<String> criada = enviar("POST", "/midias",
+                "{\"tipo\":\"LIVRO\",\"local\":" + json(arquivo.toString()) + ",\"titulo\":\"L\",\"duracao\":10,\"categoria\":\"Drama\",\"autores\":\"A\"}");
+        int id = CodecJson.deJson(criada.body()).getId();
+
+        Path destino = tempDir.resolve("movidos");
+        HttpResponse<String> movida = enviar("POST", "/midias/" + id + "/mover", "{\"destino\":" + json(destino.toString()) + "}");
+        assertEquals(200, movida.statusCode());
+        assertTrue(Files.exists(destino.resolve("livro.pdf")));
+
+        HttpResponse<String> renomeada = enviar("POST", "/midias/" + id + "/renomear", "{\"nome\":\"novo\"}");
+        assertEquals(200, renomeada.statusCode());
+        assertTrue(Files.exists(destino.resolve("novo.pdf")));
+
+        // o destino já existe: conflito
+        Files.writeString(destino.resolve("outro.pdf"), "x");
+        assertEquals(409, enviar("POST", "/midias/" + id + "/renomear", "{\"nome\":\"outro\"}").statusCode());
+    }
+
+    @Test
+    void testListagensLentasNaoBloqueiamBuscas() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        FileMidiaDAO base = new FileMidiaDAO(tempDir);
+        Musica m = new Musica("c:/b.mp3", 1, "B", 2, "Pop", "Y");
+        base.salvar(m);
+        iniciar(new MidiaDAO() {
+            public void salvar(Midia x) throws Exception { base.salvar(x); }
+            public void atualizar(Midia x) throws Exception { base.atualizar(x); }
+            public boolean deletar(int id) throws Exception { return base.deletar(id); }
+            public Optional<Midia> buscarPorId(int id) throws Exception { return base.buscarPorId(id); }
+            public List<Midia> listarTodos() throws Exception {
+                liberar.await(5, TimeUnit.SECONDS);
+                return base.listarTodos();
+            }
+        });
+
+        Thread lenta = Thread.startVirtualThread(() -> {
+            try {
+                enviar("GET", "/midias", null);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        Thread.sleep(300);
+        try {
+            // a única vaga de listagem está ocupada: outra listagem é recusada, a busca por ID não
+            assertEquals(503, enviar("GET", "/midias", null).statusCode());
+            assertEquals(200, enviar("GET", "/midias/" + m.getId(), null).statusCode());
+        } finally {
+            liberar.countDown();
+            lenta.join();
+        }
+    }
+
+    @Test
+    void testConteudoComFaixas() throws Exception {
+        iniciar(new FileMidiaDAO(tempDir));
+        byte[] dados = new byte[100_000];
+        for (int i = 0; i < dados.length; i++) dados[i] = (byte) i;
+        Path arquivo = Files.write(tempDir.resolve("video.mp4"), dados);
+        int id = CodecJson.deJson(enviar("POST", "/midias",
+                "{\"tipo\":\"FILME\",\"local\":" + json(arquivo.toString()) + ",\"titulo\":\"V\",\"duracao\":1,\"categoria\":\"Ação\",\"idiomaAudio\":\"PT\"}").body()).getId();
+        String url = "http://127.0.0.1:" + servidor.getPorta() + "/midias/" + id + "/conteudo";
+
+        HttpResponse<byte[]> inteiro = cliente.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, inteiro.statusCode());
+        assertEquals("video/mp4", inteiro.headers().firstValue("Content-Type").get());
+        assertArrayEquals(dados, inteiro.body());
+
+        HttpResponse<byte[]> parte = cliente.send(HttpRequest.newBuilder(URI.create(url)).header("Range", "bytes=1000-1999").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(206, parte.statusCode());
+        assertEquals("bytes 1000-1999/100000", parte.headers().firstValue("Content-Range").get());
+        assertArrayEquals(Arrays.copyOfRange(dados, 1000, 2000), parte.body());
+
+        HttpResponse<byte[]> sufixo = cliente.send(HttpRequest.newBuilder(URI.create(url)).header("Range", "bytes=-10").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertArrayEquals(Arrays.copyOfRange(dados, dados.length - 10, dados.length), sufixo.body());
+
+        HttpResponse<byte[]> fora = cliente.send(HttpRequest.newBuilder(URI.create(url)).header("Range", "bytes=200000-").build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(416, fora.statusCode());
+        assertEquals("bytes */100000", fora.headers().firstValue("Content-Range").get());
+
+        Files.delete(arquivo);
+        assertEquals(404, enviar("GET", "/midias/" + id + "/conteudo", null).statusCode());
+    }
+
+    @Test
+    void testArquivosForaDasRaizesSaoRecusados() throws Exception {
+        iniciar(new FileMidiaDAO(tempDir.resolve("data")));
+        Path fora = Files.createTempDirectory("fora");
+        Path arquivo = Files.writeString(fora.resolve("segredo.pdf"), "x");
+        int id = CodecJson.deJson(enviar("POST", "/midias",
+                "{\"tipo\":\"LIVRO\",\"local\":" + json(arquivo.toString()) + ",\"titulo\":\"S\",\"duracao\":1,\"categoria\":\"Drama\",\"autores\":\"A\"}").body()).getId();
+
+        assertEquals(403, enviar("GET", "/midias/" + id + "/conteudo", null).statusCode());
+        assertEquals(403, enviar("POST", "/midias/" + id + "/renomear", "{\"nome\":\"outro\"}").statusCode());
+        assertEquals(403, enviar("DELETE", "/midias/" + id, null).statusCode());
+        assertTrue(Files.exists(arquivo));
+
+        // um destino fora das raízes também é recusado, mesmo escrito com ".."
+        Path dentro = Files.writeString(tempDir.resolve("livro.pdf"), "y");
+        int outro = CodecJson.deJson(enviar("POST", "/midias",
+                "{\"tipo\":\"LIVRO\",\"local\":" + json(dentro.toString()) + ",\"titulo\":\"L\",\"duracao\":1,\"categoria\":\"Drama\",\"autores\":\"A\"}").body()).getId();
+        String destino = tempDir.resolve("..").resolve(fora.getFileName()).toString();
+        assertEquals(403, enviar("POST", "/midias/" + outro + "/mover", "{\"destino\":" + json(destino) + "}").statusCode());
+        assertTrue(Files.exists(dentro));
+
+        // o registro pode ser removido sem tocar no arquivo
+        assertEquals(204, enviar("DELETE", "/midias/" + id + "?somenteRegistro=true", null).statusCode());
+    }
+
+    private static String json(String texto) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        CodecJson.escreverTexto(texto, sb);
+        return sb.toString();
+    }
+}
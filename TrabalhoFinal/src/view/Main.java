@@ -1,13 +1,24 @@
 package view;
 
+import java.awt.AWTEvent;
 import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.awt.Toolkit;
+import java.io.Closeable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
@@ -17,24 +28,63 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 
+import controle.ArquivosAusentes;
+import controle.CatalogoColunar;
+import controle.ContagemFacetas;
+import controle.ContagemFacetas.Faceta;
+import controle.IndiceFaixas;
+import controle.Lixeira;
+import controle.ManutencaoArmazenamento;
 import controle.MidiaControle;
+import controle.OuvinteCatalogo;
+import controle.SincronizadorArquivos;
+import controle.UnidadeDeTrabalho;
+import controle.VerificadorArquivos;
 import dao.FileMidiaDAO;
+import dao.LogAlteracoes;
+import dao.MidiaDAO;
+import dao.MidiaDAOComDiario;
+import dao.MidiaDAOComEscritaAdiada;
+import dao.MidiaDAOComLog;
+import dao.MidiaDAOForaHeap;
+import dao.MidiaDAOInstantaneo;
+import dao.MidiaDAOParticionado;
 import model.Midia;
 import controle.IdGerador;
 
 public class Main extends JFrame {
     private static final long serialVersionUID = 1L;
     private final MidiaControle controle;
+    private final transient CatalogoColunar catalogo;
+    private final transient ContagemFacetas facetas;
+    private final transient IndiceFaixas faixas;
+    private final transient ArquivosAusentes ausentes;
     private final MidiaTable tableModel = new MidiaTable();
     private final JTable table = new JTable(tableModel);
-    private JComboBox<String> tipoFilter;
-    private JComboBox<String> categoriaFilter;
+    private JComboBox<Faceta> tipoFilter;
+    private JComboBox<Faceta> categoriaFilter;
+    private final JLabel totais = new JLabel();
+    private boolean atualizandoFiltros = false;
     private JComboBox<String> ordenarCombo;
+    private JComboBox<String> faixaCombo;
+    private final JTextField minimoField = new JTextField(8);
+    private final JTextField maximoField = new JTextField(8);
+    private final AtomicBoolean recargaAgendada = new AtomicBoolean(false);
+    private final JButton btnDesfazer = new JButton("Desfazer remoção");
+    private int ultimaRemovida = -1;
 
-    public Main(MidiaControle controle) {
+    public Main(MidiaControle controle, CatalogoColunar catalogo, ContagemFacetas facetas, IndiceFaixas faixas,
+            ArquivosAusentes ausentes) {
         super("Gerenciador de Mídias");
         this.controle = controle;
+        this.catalogo = catalogo;
+        this.facetas = facetas;
+        this.faixas = faixas;
+        this.ausentes = ausentes;
+        tableModel.setAusentes(ausentes);
         init();
     }
 
@@ -45,8 +95,9 @@ public class Main extends JFrame {
         int max = 0;
         try {
             if (!Files.exists(storageDir)) return 0;
-            try (DirectoryStream<Path> ds = Files.newDirectoryStream(storageDir, "*.tpoo")) {
-                for (Path p : ds) {
+            // inclui os subdiretórios do layout fragmentado
+            try (java.util.stream.Stream<Path> arquivos = Files.walk(storageDir, 3)) {
+                for (Path p : (Iterable<Path>) arquivos.filter(a -> a.toString().endsWith(".tpoo"))::iterator) {
                     List<String> lines = Files.readAllLines(p);
                     for (String l : lines) {
                         if (l.startsWith("id=")) {
@@ -84,18 +135,27 @@ public class Main extends JFrame {
         btnMove.addActionListener(e -> onMover());
         JButton btnRename = new JButton("Renomear");
         btnRename.addActionListener(e -> onRenomear());
+        btnDesfazer.addActionListener(e -> onDesfazerRemocao());
+        btnDesfazer.setEnabled(false);
 
-        tipoFilter = new JComboBox<>(new String[]{"", "MUSICA", "FILME", "LIVRO"});
-        tipoFilter.addActionListener(e -> reloadTable());
-        categoriaFilter = new JComboBox<>(new String[]{"", "acao", "aventura", "rock"});
-        categoriaFilter.addActionListener(e -> reloadTable());
-        ordenarCombo = new JComboBox<>(new String[]{"", "ALFABETICA", "DURACAO"});
+        // valores e contagens dos filtros vêm das facetas, atualizadas a cada alteração do catálogo
+        tipoFilter = new JComboBox<>();
+        tipoFilter.addActionListener(e -> aoMudarFiltro());
+        categoriaFilter = new JComboBox<>();
+        categoriaFilter.addActionListener(e -> aoMudarFiltro());
+        ordenarCombo = new JComboBox<>(new String[]{"", "ALFABETICA", "DURACAO", "TAMANHO"});
         ordenarCombo.addActionListener(e -> reloadTable());
+        // faixa numérica: duração na unidade do tipo (segundos, minutos ou páginas) ou tamanho (aceita KB, MB, GB)
+        faixaCombo = new JComboBox<>(new String[]{"", "DURACAO", "TAMANHO"});
+        faixaCombo.addActionListener(e -> reloadTable());
+        minimoField.addActionListener(e -> reloadTable());
+        maximoField.addActionListener(e -> reloadTable());
 
         top.add(btnAdd);
         top.add(btnEdit);
         top.add(btnDel);
         top.add(btnMove);
+        top.add(btnDesfazer);
         top.add(btnRename);
         top.add(new JLabel("Tipo:"));
         top.add(tipoFilter);
@@ -104,29 +164,182 @@ public class Main extends JFrame {
         top.add(new JLabel("Ordenar:"));
         top.add(ordenarCombo);
 
-        add(top, BorderLayout.NORTH);
+        JPanel barraFaixa = new JPanel();
+        barraFaixa.add(new JLabel("Faixa:"));
+        barraFaixa.add(faixaCombo);
+        barraFaixa.add(new JLabel("Mín:"));
+        barraFaixa.add(minimoField);
+        barraFaixa.add(new JLabel("Máx:"));
+        barraFaixa.add(maximoField);
+        JButton btnFaixa = new JButton("Aplicar");
+        btnFaixa.addActionListener(e -> reloadTable());
+        barraFaixa.add(btnFaixa);
+
+        JPanel norte = new JPanel(new GridLayout(2, 1));
+        norte.add(top);
+        norte.add(barraFaixa);
+        add(norte, BorderLayout.NORTH);
         add(new JScrollPane(table), BorderLayout.CENTER);
+        JPanel rodape = new JPanel();
+        rodape.add(totais);
+        add(rodape, BorderLayout.SOUTH);
+
+        // qualquer alteração no catálogo (da própria tela ou feita fora da aplicação) recarrega a tabela
+        controle.adicionarOuvinte(new OuvinteCatalogo() {
+            @Override
+            public void midiaSalva(Midia m) { agendarRecarga(); }
+
+            @Override
+            public void midiaRemovida(int id) { agendarRecarga(); }
+
+            // a marca de arquivo ausente aparece na coluna "Local"
+            @Override
+            public void arquivoAusente(Midia m) { agendarRecarga(); }
+        });
 
         try {
+            atualizarFacetas();
             reloadTable();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage());
         }
     }
 
+    private void aoMudarFiltro() {
+        if (atualizandoFiltros) return;
+        // as contagens de um filtro dependem do valor escolhido no outro
+        atualizarFacetas();
+        reloadTable();
+    }
+
+    // reconstrói os combos de filtro (mantendo a seleção) e o painel de totais, sem percorrer o catálogo
+    private void atualizarFacetas() {
+        String tipo = valorSelecionado(tipoFilter);
+        String categoria = valorSelecionado(categoriaFilter);
+        atualizandoFiltros = true;
+        try {
+            List<Faceta> tipos = facetas.porTipo(categoria);
+            Faceta todos = facetas.total(null, categoria);
+            tipos.add(0, new Faceta(null, todos.getQuantidade(), todos.getBytes()));
+            preencher(tipoFilter, tipos, tipo);
+
+            List<Faceta> categorias = facetas.porCategoria(tipo);
+            categorias.add(0, new Faceta(null, facetas.total(tipo, null).getQuantidade(), 0));
+            // a categoria escolhida continua na lista mesmo sem mídias, para não trocar o filtro sozinha
+            if (categoria != null && categorias.stream().noneMatch(f -> categoria.equalsIgnoreCase(f.getValor()))) {
+                categorias.add(new Faceta(categoria, 0, 0));
+            }
+            preencher(categoriaFilter, categorias, categoria);
+        } finally {
+            atualizandoFiltros = false;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Faceta f : facetas.porTipo(null)) {
+            sb.append(f.getValor()).append(": ").append(f.getQuantidade())
+              .append(" (").append(formatarBytes(f.getBytes())).append(")    ");
+        }
+        Faceta total = facetas.total(null, null);
+        sb.append("Total: ").append(total.getQuantidade()).append(" (").append(formatarBytes(total.getBytes())).append(")");
+        // apontados pelo sincronizador e pelas passadas do verificador de arquivos
+        int semArquivo = ausentes.getTotal();
+        if (semArquivo > 0) sb.append("    Arquivos ausentes: ").append(semArquivo);
+        totais.setText(sb.toString());
+    }
+
+    private static void preencher(JComboBox<Faceta> combo, List<Faceta> itens, String selecionado) {
+        DefaultComboBoxModel<Faceta> modelo = new DefaultComboBoxModel<>(itens.toArray(new Faceta[0]));
+        for (Faceta f : itens) {
+            if (selecionado == null ? f.getValor() == null : selecionado.equalsIgnoreCase(f.getValor())) {
+                modelo.setSelectedItem(f);
+                break;
+            }
+        }
+        combo.setModel(modelo);
+    }
+
+    // mantém, na ordem da consulta, só os IDs que o índice de faixas encontrou
+    private int[] restringirFaixa(int[] ids, String tipo, String criterio) {
+        long minimo = lerLimite(minimoField.getText(), Long.MIN_VALUE);
+        long maximo = lerLimite(maximoField.getText(), Long.MAX_VALUE);
+        BitSet naFaixa = new BitSet();
+        for (int id : faixas.buscar(tipo, criterio, minimo, maximo)) naFaixa.set(id);
+        int k = 0;
+        int[] res = new int[ids.length];
+        for (int id : ids) if (naFaixa.get(id)) res[k++] = id;
+        return Arrays.copyOf(res, k);
+    }
+
+    // vazio = sem limite; aceita os sufixos KB, MB, GB e TB (base 1024)
+    private static long lerLimite(String texto, long semLimite) {
+        String v = texto.trim().toUpperCase(Locale.ROOT).replace(" ", "");
+        if (v.isEmpty()) return semLimite;
+        String[] sufixos = {"KB", "MB", "GB", "TB"};
+        for (int i = 0; i < sufixos.length; i++) {
+            if (v.endsWith(sufixos[i])) {
+                double n = Double.parseDouble(v.substring(0, v.length() - 2).replace(',', '.'));
+                return (long) (n * (1L << (10 * (i + 1))));
+            }
+        }
+        return Long.parseLong(v);
+    }
+
+    private static String valorSelecionado(JComboBox<Faceta> combo) {
+        Faceta f = (Faceta) combo.getSelectedItem();
+        return f == null ? null : f.getValor();
+    }
+
+    private static String formatarBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        String[] unidades = {"KB", "MB", "GB", "TB"};
+        double v = bytes;
+        int u = -1;
+        while (v >= 1024 && u < unidades.length - 1) {
+            v /= 1024;
+            u++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", v, unidades[u]);
+    }
+
     private void reloadTable() {
         try {
-            Optional<String> t = Optional.ofNullable((String) tipoFilter.getSelectedItem()).filter(s -> !s.isEmpty());
-            Optional<String> c = Optional.ofNullable((String) categoriaFilter.getSelectedItem()).filter(s -> !s.isEmpty());
+            Optional<String> t = Optional.ofNullable(valorSelecionado(tipoFilter));
+            Optional<String> c = Optional.ofNullable(valorSelecionado(categoriaFilter));
             Optional<String> o = Optional.ofNullable((String) ordenarCombo.getSelectedItem()).filter(s -> !s.isEmpty());
-            List<Midia> res = controle.listarFiltrados(t, c, o);
-            tableModel.setMedias(res);
+            // consulta o catálogo em colunas; as mídias só são criadas para as linhas exibidas
+            int[] ids = catalogo.consultar(t.orElse(null), c.orElse(null), o.orElse(null));
+            String criterio = (String) faixaCombo.getSelectedItem();
+            if (criterio != null && !criterio.isEmpty()) {
+                ids = restringirFaixa(ids, t.orElse(null), criterio);
+            }
+            tableModel.setIds(catalogo, ids);
         } catch (Exception ex) {
             ex.printStackTrace();
             JOptionPane.showMessageDialog(this, "Erro ao carregar: " + ex.getMessage());
         }
     }
 
+    // agrupa várias notificações seguidas numa única recarga, sempre na thread da interface
+    private void agendarRecarga() {
+        if (recargaAgendada.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                recargaAgendada.set(false);
+                atualizarFacetas();
+                reloadTable();
+            });
+        }
+    }
+
+    // a mídia da linha; null se ela foi removida em segundo plano (sincronizador, manutenção) depois da consulta
+    private Midia midiaDaLinha(int linha) {
+        Midia m = tableModel.getMediaAt(linha);
+        if (m == null) {
+            JOptionPane.showMessageDialog(this, "A mídia foi removida.");
+            agendarRecarga();
+        }
+        return m;
+    }
+
     private void onIncluir() {
         MidiaDialog dlg = new MidiaDialog(this);
         dlg.setVisible(true);
@@ -134,7 +347,6 @@ public class Main extends JFrame {
         	Midia m = dlg.buildMediaFromForm();
             try {
                 controle.incluirMedia(m);
-                reloadTable();
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Erro incluir: " + ex.getMessage());
             }
@@ -148,7 +360,8 @@ public class Main extends JFrame {
             return;
         }
 
-        Midia m = tableModel.getMediaAt(r);
+        Midia m = midiaDaLinha(r);
+        if (m == null) return;
         MidiaDialog dlg = new MidiaDialog(this);
         dlg.fillFromMedia(m);
         dlg.setVisible(true);
@@ -163,8 +376,6 @@ public class Main extends JFrame {
 
                 controle.atualizarMidia(updated);
 
-                reloadTable();
-
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Erro editar: " + ex.getMessage());
             }
@@ -178,33 +389,59 @@ public class Main extends JFrame {
             JOptionPane.showMessageDialog(this, "Selecione uma mídia.");
             return;
         }
-        Midia m = tableModel.getMediaAt(r);
+        Midia m = midiaDaLinha(r);
+        if (m == null) return;
         int conf = JOptionPane.showConfirmDialog(this, "Remover " + m.getTitulo() + "?", "Confirmar",
                 JOptionPane.YES_NO_OPTION);
         if (conf == JOptionPane.YES_OPTION) {
             try {
                 controle.removerMidia(m.getId());
-                reloadTable();
+                // com a lixeira ativa, o arquivo pode ser recuperado até ser purgado
+                ultimaRemovida = m.getId();
+                btnDesfazer.setEnabled(true);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Erro remover: " + ex.getMessage());
             }
         }
     }
 
+    private void onDesfazerRemocao() {
+        btnDesfazer.setEnabled(false);
+        try {
+            if (!controle.desfazerRemocao(ultimaRemovida).isPresent()) {
+                JOptionPane.showMessageDialog(this, "O arquivo já foi apagado definitivamente.");
+            }
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, "Erro desfazer: " + ex.getMessage());
+        }
+    }
+
     private void onMover() {
-        int r = table.getSelectedRow();
-        if (r < 0) {
+        int[] linhas = table.getSelectedRows();
+        if (linhas.length == 0) {
             JOptionPane.showMessageDialog(this, "Selecione uma mídia.");
             return;
         }
-        Midia m = tableModel.getMediaAt(r);
+        List<Integer> ids = new ArrayList<>();
+        for (int r : linhas) {
+            Midia m = midiaDaLinha(r);
+            if (m == null) return;
+            ids.add(m.getId());
+        }
         JFileChooser fc = new JFileChooser();
         fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
         int res = fc.showOpenDialog(this);
         if (res == JFileChooser.APPROVE_OPTION) {
             try {
-                controle.moverMedia(m.getId(), fc.getSelectedFile().toPath());
-                reloadTable();
+                Path destino = fc.getSelectedFile().toPath();
+                if (ids.size() == 1) {
+                    controle.moverMedia(ids.get(0), destino);
+                } else {
+                    // várias mídias: todas são movidas, ou nenhuma
+                    UnidadeDeTrabalho unidade = controle.iniciarUnidade();
+                    for (int id : ids) unidade.mover(id, destino);
+                    unidade.confirmar();
+                }
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Erro mover: " + ex.getMessage());
             }
@@ -217,14 +454,14 @@ public class Main extends JFrame {
             JOptionPane.showMessageDialog(this, "Selecione uma mídia.");
             return;
         }
-        Midia m = tableModel.getMediaAt(r);
+        Midia m = midiaDaLinha(r);
+        if (m == null) return;
         String novo = JOptionPane.showInputDialog(this,
                 "Novo nome de arquivo (somente nome):", "",
                 JOptionPane.PLAIN_MESSAGE);
         if (novo != null && !novo.trim().isEmpty()) {
             try {
                 controle.renomearArquivo(m.getId(), novo.trim());
-                reloadTable();
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Erro renomear: " + ex.getMessage());
             }
@@ -238,14 +475,153 @@ public class Main extends JFrame {
         try {
             Path data = Paths.get("data");
 
-            int maxId = findMaxIdInStorage(data);
+            // -Dmidias.raizes=dir1,dir2 distribui o catálogo entre "data" e outros diretórios (discos);
+            // -Dmidias.particionarPor=TIPO agrupa cada tipo numa partição, em vez de espalhar pelo ID
+            List<Path> raizes = new ArrayList<>(List.of(data));
+            for (String r : System.getProperty("midias.raizes", "").split(",")) {
+                if (!r.isBlank()) raizes.add(Paths.get(r.trim()));
+            }
+            int maxId = 0;
+            for (Path r : raizes) maxId = Math.max(maxId, findMaxIdInStorage(r));
             IdGerador.iniciar(maxId);
 
-            FileMidiaDAO dao = new FileMidiaDAO(data);
+            MidiaDAO dao;
+            List<FileMidiaDAO> discos;
+            MidiaDAOParticionado particionado = null;
+            if (raizes.size() == 1) {
+                FileMidiaDAO arquivos = new FileMidiaDAO(data);
+                discos = List.of(arquivos);
+                dao = arquivos;
+            } else {
+                particionado = new MidiaDAOParticionado(raizes, MidiaDAOParticionado.Chave.valueOf(
+                        System.getProperty("midias.particionarPor", "ID").toUpperCase(Locale.ROOT)));
+                discos = particionado.getParticoes();
+                dao = particionado;
+            }
+            // -Dmidias.diario=dir torna as escritas duráveis: cada uma passa antes por um diário com fsync
+            // em grupo, reaplicado aqui se o processo tiver caído com escritas ainda não sincronizadas
+            String dirDiario = System.getProperty("midias.diario");
+            if (dirDiario != null) dao = new MidiaDAOComDiario(dao, Paths.get(dirDiario));
+            // fechados ao sair, de cima para baixo: a descarga das escritas adiadas ainda passa pelo log
+            Deque<Closeable> fechar = new ArrayDeque<>();
+            // -Dmidias.logAlteracoes=dir publica cada alteração num log lido pelas réplicas (ferramentas.Seguidor);
+            // fica abaixo das escritas adiadas para publicar só o que chegou à base
+            String dirLog = System.getProperty("midias.logAlteracoes");
+            if (dirLog != null) {
+                MidiaDAOComLog comLog = new MidiaDAOComLog(dao, new LogAlteracoes(Paths.get(dirLog)));
+                fechar.push(comLog);
+                dao = comLog;
+            }
+            // -Dmidias.escritaAdiadaMs=n junta edições seguidas de uma mídia numa só escrita, feita até n ms
+            // depois; o que estiver pendente é gravado ao fechar a aplicação
+            long adiamento = Long.getLong("midias.escritaAdiadaMs", 0);
+            if (adiamento > 0) {
+                MidiaDAOComEscritaAdiada adiada = new MidiaDAOComEscritaAdiada(dao, adiamento, 1000);
+                adiada.iniciar();
+                fechar.push(adiada);
+                dao = adiada;
+            }
+            if (!fechar.isEmpty()) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    for (Closeable c : fechar) {
+                        try {
+                            c.close();
+                        } catch (Exception ex) {
+                            ex.printStackTrace();
+                        }
+                    }
+                }, "descarga-final"));
+            }
+            // -Dmidias.foraHeap=true mantém uma cópia em memória do catálogo fora do heap (bibliotecas grandes);
+            // -Dmidias.instantaneos=true faz listagens e exportações lerem instantâneos imutáveis, sem travar as
+            // edições, ao custo de uma cópia do catálogo no heap e de um segmento copiado a cada escrita
+            if (Boolean.getBoolean("midias.foraHeap")) dao = new MidiaDAOForaHeap(dao);
+            else if (Boolean.getBoolean("midias.instantaneos")) dao = new MidiaDAOInstantaneo(dao);
             MidiaControle controle = new MidiaControle(dao);
+            // arquivos removidos vão para uma lixeira por volume e são apagados em segundo plano;
+            // -Dmidias.retencaoLixeiraSeg=n define por quanto tempo a remoção pode ser desfeita
+            Lixeira lixeira = new Lixeira(2, Long.getLong("midias.retencaoLixeiraSeg", 300) * 1000);
+            for (Path r : raizes) lixeira.registrarVolume(r.toAbsolutePath().resolveSibling(r.getFileName() + ".lixeira"));
+            // lixeiras criadas ao lado das mídias de outros discos ficam anotadas e são purgadas no próximo início
+            lixeira.usarListaDiretorios(data.resolve("lixeiras.conhecidas"));
+            controle.usarLixeira(lixeira);
+            // as remoções só podem ser desfeitas enquanto a aplicação está aberta: ao sair, a lixeira é esvaziada
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    lixeira.purgarTudo();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lixeira.close();
+                }
+            }, "lixeira-final"));
+            CatalogoColunar catalogo = CatalogoColunar.carregar(dao);
+            controle.adicionarOuvinte(catalogo);
+            ContagemFacetas facetas = ContagemFacetas.carregar(dao);
+            controle.adicionarOuvinte(facetas);
+            IndiceFaixas faixas = IndiceFaixas.carregar(dao);
+            controle.usarIndiceFaixas(faixas);
+            // registros cujo arquivo foi apagado fora da aplicação continuam no catálogo, marcados na tabela
+            ArquivosAusentes ausentes = new ArquivosAusentes();
+            controle.adicionarOuvinte(ausentes);
+
+            for (FileMidiaDAO arquivos : discos) {
+                // mantém o catálogo em dia com alterações feitas fora da aplicação
+                SincronizadorArquivos sincronizador = new SincronizadorArquivos(controle, arquivos);
+                sincronizador.iniciar();
+
+                // -Dmidias.fragmentar=true migra o diretório para o layout fragmentado, com o catálogo em uso
+                if (Boolean.getBoolean("midias.fragmentar") && !arquivos.isFragmentado()) {
+                    Thread migracao = new Thread(() -> {
+                        try {
+                            arquivos.migrarParaFragmentado();
+                        } catch (Exception ex) {
+                            ex.printStackTrace();
+                        }
+                    }, "migracao-fragmentos");
+                    migracao.setDaemon(true);
+                    migracao.start();
+                }
+            }
+
+            // uma raiz nova (ou uma redistribuição interrompida): move os registros em segundo plano
+            if (particionado != null && particionado.isRedistribuicaoPendente()) {
+                MidiaDAOParticionado p = particionado;
+                Thread redistribuicao = new Thread(() -> {
+                    try {
+                        p.redistribuir();
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                }, "redistribuicao-particoes");
+                redistribuicao.setDaemon(true);
+                redistribuicao.start();
+            }
+
+            // confere em segundo plano se os arquivos físicos ainda existem e têm o tamanho registrado,
+            // pausando enquanto a tela está em uso; -Dmidias.verificacaoPorSegundo=n ajusta o ritmo (0 desliga)
+            double porSegundo = Double.parseDouble(System.getProperty("midias.verificacaoPorSegundo", "20"));
+            if (porSegundo > 0) {
+                VerificadorArquivos verificador = new VerificadorArquivos(controle);
+                verificador.setArquivosPorSegundo(porSegundo);
+                Toolkit.getDefaultToolkit().addAWTEventListener(e -> verificador.registrarAtividade(),
+                        AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+                verificador.iniciar();
+            }
+
+            // a cada intervalo, uma janela curta retira registros ilegíveis e regrava os antigos, continuando
+            // da fatia onde a anterior parou; -Dmidias.manutencaoSeg=n ajusta o intervalo (0 desliga)
+            long manutencaoSeg = Long.getLong("midias.manutencaoSeg", 60);
+            if (manutencaoSeg > 0) {
+                ManutencaoArmazenamento manutencao = new ManutencaoArmazenamento(controle, discos);
+                manutencao.setIntervaloMs(manutencaoSeg * 1000);
+                // -Dmidias.arquivarOrfaos=true tira do catálogo os registros sem arquivo (por padrão só são marcados)
+                manutencao.setArquivarOrfaos(Boolean.getBoolean("midias.arquivarOrfaos"));
+                manutencao.iniciar();
+            }
 
             javax.swing.SwingUtilities.invokeLater(() -> {
-                Main f = new Main(controle);
+                Main f = new Main(controle, catalogo, facetas, faixas, ausentes);
                 f.setVisible(true);
             });
 
@@ -5,6 +5,8 @@ import java.util.List;
 
 import javax.swing.table.AbstractTableModel;
 
+import controle.ArquivosAusentes;
+import controle.CatalogoColunar;
 import model.Midia;
 
 public class MidiaTable extends AbstractTableModel {
@@ -12,18 +14,41 @@ public class MidiaTable extends AbstractTableModel {
     private final String[] cols = {"ID","Título","Tipo","Categoria","Tamanho","Duração","Local","Específico"};
     private List<Midia> dados = new ArrayList<>();
 
+    // quando exibindo um CatalogoColunar: IDs das linhas e mídias já materializadas
+    private transient CatalogoColunar catalogo;
+    private int[] ids = new int[0];
+    private transient Midia[] materializadas = new Midia[0];
+    // mídias cujo arquivo físico sumiu: marcadas na coluna "Local"
+    private transient ArquivosAusentes ausentes;
+
+    public void setAusentes(ArquivosAusentes ausentes) {
+        this.ausentes = ausentes;
+        fireTableDataChanged();
+    }
+
     public void setMedias(List<Midia> medias) {
         this.dados = medias == null ? new ArrayList<>() : medias;
+        this.catalogo = null;
+        fireTableDataChanged();
+    }
+
+    // exibe os IDs de uma consulta ao catálogo; as mídias só são criadas quando a linha aparece na tela
+    public void setIds(CatalogoColunar catalogo, int[] ids) {
+        this.catalogo = catalogo;
+        this.ids = ids == null ? new int[0] : ids;
+        this.materializadas = new Midia[this.ids.length];
         fireTableDataChanged();
     }
 
     public Midia getMediaAt(int row) {
-        if (row < 0 || row >= dados.size()) return null;
-        return dados.get(row);
+        if (row < 0 || row >= getRowCount()) return null;
+        if (catalogo == null) return dados.get(row);
+        if (materializadas[row] == null) materializadas[row] = catalogo.materializar(ids[row]);
+        return materializadas[row];
     }
 
     @Override
-    public int getRowCount() { return dados.size(); }
+    public int getRowCount() { return catalogo == null ? dados.size() : ids.length; }
 
     @Override
     public int getColumnCount() { return cols.length; }
@@ -33,7 +58,8 @@ public class MidiaTable extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        Midia m = dados.get(rowIndex);
+        Midia m = getMediaAt(rowIndex);
+        if (m == null) return ""; // removida depois da consulta; a tabela será recarregada
         switch(columnIndex) {
             case 0: return m.getId();
             case 1: return m.getTitulo();
@@ -41,7 +67,7 @@ public class MidiaTable extends AbstractTableModel {
             case 3: return m.getCategoria();
             case 4: return formatTamanho(m.getTamanhoBytes());
             case 5: return formatDuracao(m);
-            case 6: return m.getLocal();
+            case 6: return ausentes != null && ausentes.isAusente(m.getId()) ? "[arquivo ausente] " + m.getLocal() : m.getLocal();
             case 7: return m.exibirAtributosEspecificos();
             default: return "";
         }